@@ -117,6 +117,17 @@ public class Block {
         return false;
     }
 
+    /**
+     * Moves the block without checking the cell, for when it is already known to be free (See TetrominoModel).
+     *
+     * @param positionX
+     * @param positionY
+     */
+    void setPosition(int positionX, int positionY) {
+        this.positionX = positionX;
+        this.positionY = positionY;
+    }
+
     // Setters for falling, and tetromino
     public void setFalling(boolean falling) {
         this.falling = falling;
@@ -158,6 +169,20 @@ public class Block {
         }
     }
 
+    /**
+     * Checks whether this block could be at the given position, inside the grid
+     * and not colliding with another block, without moving it.
+     *
+     * @return boolean
+     *
+     * @param positionX
+     * @param positionY
+     */
+    public boolean isFree(int positionX, int positionY) {
+        return positionX >= 0 && positionX < game.gridWidth && positionY >= 0 && positionY < game.gridHeight
+                && this.checkColliding(positionX, positionY) == null;
+    }
+
     /**
      * Checks whether there is a collision at the given position with another
      * block.
@@ -168,7 +193,7 @@ public class Block {
      * @param positionY
      */
     public Block checkColliding(int positionX, int positionY) {
-        Block block = this.game.getArrayBlocks()[positionX + (this.getGame().getGridWidth()*positionY)];
+        Block block = this.game.getBoard().get(positionX, positionY);
 		if (block != this && block != null) {
 			return block;
 		}
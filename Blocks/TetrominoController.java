@@ -1,5 +1,7 @@
 package Blocks;
 
+import Game_Main.Command;
+
 /**
  * Handles all the controls for a TetrominoModel
  */
@@ -27,51 +29,51 @@ public class TetrominoController extends TetrominoModel {
     }
 	
     /**
-     * Takes the keyboard input (A string of which key was pressed) and handles whether it is a key to move the Tetromino
-     * or a key that the game should handle.
+     * Takes a command code (See Game_Main.Command) and handles whether it is a command to move the Tetromino
+     * or a command that the game should handle. Returns the command the game should handle, or Command.NONE.
+     *
+     * @param command
      *
-     * @param keyboardInput
+     * @return int
      */
-    public String handleInput(String keyboardInput) {
-        String msg = "";
-        switch (keyboardInput) {
-            case "S":
-            case "A":
-            case "D":
-            case "Q":
-            case "E":
-                this.movePiece(keyboardInput);
-                break;
-            case "Shift":
-                msg = "Hold";
-                break;
+    public int handleInput(int command) {
+        switch (command) {
+            case Command.LEFT:
+            case Command.RIGHT:
+            case Command.ROTATE_CCW:
+            case Command.ROTATE_CW:
+                this.movePiece(command);
+                return Command.NONE;
+            // Soft drop speed and holding are up to the game.
+            case Command.SOFT_DROP:
+            case Command.HOLD:
+                return command;
             default:
-                break;
+                return Command.NONE;
         }
-        return msg;
     }
 
     /**
-     * Takes the keyboard input (A string of which key was pressed) and handles which way the TetrominoController should move.
+     * Takes a command code (See Game_Main.Command) and handles which way the TetrominoController should move.
      *
-     * @param keyboardInput
+     * @param command
      */
-    public void movePiece(String keyboardInput) {
-        switch (keyboardInput) {
-            case "S":
+    public void movePiece(int command) {
+        switch (command) {
+            case Command.SOFT_DROP:
                 this.move(0, 1);
                 break;
-            case "A":
+            case Command.LEFT:
                 this.move(-1, 0);
                 break;
-            case "D":
+            case Command.RIGHT:
                 this.move(1, 0);
                 break;
-            case "Q":
+            case Command.ROTATE_CCW:
                 // Counter-Clockwise
                 this.rotate(false);
                 break;
-            case "E":
+            case Command.ROTATE_CW:
                 // Clockwise
                 this.rotate(true);
                 break;
@@ -1,4 +1,9 @@
 package Blocks;
+
+import Board.Board;
+import java.util.Arrays;
+import javafx.scene.paint.Color;
+
 /**
  * The unified entity of four blocks put together into a shape.
  * Used to move or rotate all of the blocks togehter.
@@ -14,6 +19,15 @@ public class TetrominoModel {
 
 	private boolean falling = true;
 
+	// Which of the TetrominoSpawner shapes this is, or TetrominoSpawner.NO_SHAPE if it wasn't made from one.
+	private int shape = TetrominoSpawner.NO_SHAPE;
+
+	// Cells a move or rotation needs free and their row masks, checked against the board in one go (See fits).
+	// Made the first time they are needed, the copies getBlocks makes never need them.
+	private int[] probeX;
+	private int[] probeY;
+	private long[] probe;
+
 	/**
 	 * Creates a new TetrominoModel with the given blocks and also sets
 	 * whether the block should be treated as if it's straight.
@@ -41,6 +55,7 @@ public class TetrominoModel {
 	public TetrominoModel(TetrominoModel tetromino) {
 		this.setBlocks(tetromino.getBlocks());
 		this.isStraight = tetromino.getIsStraight();
+		this.shape = tetromino.getShape();
 
 		for (Block block : this.blocks) {
 			if (block != null) {
@@ -68,6 +83,26 @@ public class TetrominoModel {
 		return returnBlocks;
 	}
 
+	/**
+	 * Returns the x position of one of the instance's blocks without copying it
+	 *
+	 * @param index
+	 * @return int
+	 */
+	public int getBlockX(int index) {
+		return this.blocks[index].getPositionX();
+	}
+
+	/**
+	 * Returns the y position of one of the instance's blocks without copying it
+	 *
+	 * @param index
+	 * @return int
+	 */
+	public int getBlockY(int index) {
+		return this.blocks[index].getPositionY();
+	}
+
 	/**
 	 * Getter method for the instance variable isStraight
 	 * @return boolean
@@ -76,6 +111,32 @@ public class TetrominoModel {
 		return this.isStraight;
 	}
 
+	/**
+	 * Getter method for the instance variable shape
+	 * @return int
+	 */
+	public int getShape() {
+		return this.shape;
+	}
+
+	/**
+	 * Sets which of the TetrominoSpawner shapes this instance was made from
+	 *
+	 * @param shape
+	 */
+	public void setShape(int shape) {
+		this.shape = shape;
+	}
+
+	/**
+	 * Returns the color of the instance's blocks
+	 *
+	 * @return Color
+	 */
+	public Color getColor() {
+		return this.blocks[0].getColor();
+	}
+
 	/**
 	 * Getter method for the instance variable falling
 	 * @return boolean
@@ -124,6 +185,27 @@ public class TetrominoModel {
 	 * @param verDist
 	 */
 	public Block[] checkCollideMove(int horDist, int verDist) {
+		// Each block steps down (Or up) first and then sideways, so both cells it steps through have to be free.
+		int count = 0;
+		for (Block block : this.blocks) {
+			count = this.addCell(count, block.getPositionX(), block.getPositionY() + verDist);
+			count = this.addCell(count, block.getPositionX() + horDist, block.getPositionY() + verDist);
+		}
+		if (!this.fits(count)) {
+			// Stepped through a block at a time to find out whether it was a step down that was blocked.
+			return this.stepBlocks(horDist, verDist);
+		}
+		Block[] manipBlocks = this.getBlocks();
+		for (Block block : manipBlocks) {
+			block.setPosition(block.getPositionX() + horDist, block.getPositionY() + verDist);
+		}
+		return manipBlocks;
+	}
+
+	/**
+	 * Moves copies of the blocks a given distance one step at a time, see checkCollideMove.
+	 */
+	private Block[] stepBlocks(int horDist, int verDist) {
 		Block[] manipBlocks = this.getBlocks();
 
 		for (int i = 0; i < 4; i++) {
@@ -147,6 +229,71 @@ public class TetrominoModel {
 		
 	}
 
+	/**
+	 * Checks whether the instance's blocks could be moved a given distance without colliding with anything.
+	 * Unlike checkCollideMove nothing is copied and falling isn't changed.
+	 *
+	 * @return boolean
+	 *
+	 * @param horDist
+	 * @param verDist
+	 */
+	public boolean canMove(int horDist, int verDist) {
+		int count = 0;
+		for (Block block : this.blocks) {
+			count = this.addCell(count, block.getPositionX() + horDist, block.getPositionY() + verDist);
+		}
+		return this.fits(count);
+	}
+
+	/**
+	 * Adds a cell to check with fits, returning the amount of cells added so far.
+	 */
+	private int addCell(int count, int x, int y) {
+		if (this.probeX == null) {
+			this.probeX = new int[8];
+			this.probeY = new int[8];
+		}
+		this.probeX[count] = x;
+		this.probeY[count] = y;
+		return count + 1;
+	}
+
+	/**
+	 * Whether the first count cells added with addCell are all inside the grid and empty. They are checked as row
+	 * masks over the few words they cover, in one probe of the board (See Board.collides) rather than cell by cell.
+	 * Blocks are found by cell, so this tetromino's own blocks count as well if they are on the board.
+	 */
+	private boolean fits(int count) {
+		Board board = this.blocks[0].getGame().getBoard();
+		int minX = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE;
+		int minY = Integer.MAX_VALUE;
+		int maxY = Integer.MIN_VALUE;
+		for (int i = 0; i < count; i++) {
+			int x = this.probeX[i];
+			int y = this.probeY[i];
+			if (x < 0 || x >= board.getWidth() || y < 0 || y >= board.getHeight()) {
+				return false;
+			}
+			minX = Math.min(minX, x);
+			maxX = Math.max(maxX, x);
+			minY = Math.min(minY, y);
+			maxY = Math.max(maxY, y);
+		}
+		int firstWord = minX / 64;
+		int words = maxX / 64 - firstWord + 1;
+		int rows = maxY - minY + 1;
+		if (this.probe == null || this.probe.length < rows * words) {
+			this.probe = new long[rows * words];
+		}
+		Arrays.fill(this.probe, 0, rows * words, 0);
+		for (int i = 0; i < count; i++) {
+			this.probe[(this.probeY[i] - minY) * words + this.probeX[i] / 64 - firstWord] |= 1L << this.probeX[i];
+		}
+		return !board.collides(this.probe, minY, rows, firstWord, words);
+	}
+
 	/**
 	 * Moves the instance's blocks a given distance.
 	 *
@@ -187,86 +334,75 @@ public class TetrominoModel {
 	 * @param turnClockwise
 	 */
 	public Block[] checkCollideRotate(boolean turnClockwise) {
+		// Each block but the center moves sideways first and then up or down, so both cells it moves through have
+		// to be free.
+		int count = 0;
+		for (int i = 1; i < 4; i++) {
+			int x = this.rotatedX(i, turnClockwise);
+			count = this.addCell(count, x, this.blocks[i].getPositionY());
+			count = this.addCell(count, x, this.rotatedY(i, turnClockwise));
+		}
+		if (!this.fits(count)) {
+			return null;
+		}
 		Block[] manipBlocks = this.getBlocks();
+		for (int i = 1; i < 4; i++) {
+			manipBlocks[i].setPosition(this.rotatedX(i, turnClockwise), this.rotatedY(i, turnClockwise));
+		}
+		return manipBlocks;
+	}
 
+	/**
+	 * Where the given block ends up when the instance is rotated (See checkCollideRotate).
+	 */
+	private int rotatedX(int index, boolean turnClockwise) {
+		int centerX = this.blocks[0].getPositionX();
 		if (this.getIsStraight()) {
-			int rotCentX = manipBlocks[0].getPositionX();
-			int rotCentY = manipBlocks[0].getPositionY();
-
-			// Set horizontal outside of for loop because block positions end up changing and this condition might become false part way through iteration.
-			boolean horizontal = true;
-			if (manipBlocks[0].getPositionX() == manipBlocks[1].getPositionX()) {
-				horizontal = false;
-			}
-
-			// Skip i = 0 because that's the center block (When rotating that block will not move)
-			for (int i = 1; i < 4; i++) {
-				if (horizontal) {
-					// Get Horizontal Displacement
-					int displacement = manipBlocks[i].getPositionX() - rotCentX;
-
-					// Set block to respective vertical position
-					if (!(manipBlocks[i].setPositionX(rotCentX) && manipBlocks[i].setPositionY(rotCentY + displacement))) {
-						return null;
-					}
-				} else {
-					int displacement = manipBlocks[i].getPositionY() - rotCentY;
-
-					if (!(manipBlocks[i].setPositionX(rotCentX + displacement) && manipBlocks[i].setPositionY(rotCentY))) {
-						return null;
-					}
-				}
-			}
-		// Not a Straight TetrominoModel
-		} else {
-			// Skip i = 0 because that's the center block (When rotating that block will not move)
-			for (int i = 1; i < 4; i++) {
-				// Get block x and y relative to the center block of the Tetromino
-				int bX = manipBlocks[i].getPositionX() - manipBlocks[0].getPositionX();
-				int bY = manipBlocks[i].getPositionY() - manipBlocks[0].getPositionY();
-				
-				if (turnClockwise) {
-					int tempX = bX;
-					bX = bY;
-					bY = tempX;
-				}
-
-				// Corner Piece
-				if (bX != 0 && bY != 0) {
-					if (bX == bY) {
-						bY *= -1;
-					} else {
-						bX = bY;
-					}
-				// Edge Piece
-				} else {
-					if (bX != 0) {
-						bY = bX * -1;
-						bX = 0;
-					} else {
-						bX = bY;
-						bY = 0;
-					}
-				}
-
-				if (turnClockwise) {
-					int tempX = bX;
-					bX = bY;
-					bY = tempX;
-				}
-
-				// Change x, y back to a proper space on the grid now that they've been rotated around center x, y.
-				bX += manipBlocks[0].getPositionX();
-				bY += manipBlocks[0].getPositionY();
+			// A row becomes a column through the center and the other way round.
+			boolean horizontal = centerX != this.blocks[1].getPositionX();
+			return horizontal ? centerX : centerX + this.blocks[index].getPositionY() - this.blocks[0].getPositionY();
+		}
+		return rotateOffsetX(this.blocks[index].getPositionX() - centerX,
+				this.blocks[index].getPositionY() - this.blocks[0].getPositionY(), turnClockwise) + centerX;
+	}
 
-				if (!(manipBlocks[i].setPositionX(bX) && manipBlocks[i].setPositionY(bY))) {
-					return null;
-				}
-			}
-			
+	private int rotatedY(int index, boolean turnClockwise) {
+		int centerY = this.blocks[0].getPositionY();
+		if (this.getIsStraight()) {
+			boolean horizontal = this.blocks[0].getPositionX() != this.blocks[1].getPositionX();
+			return horizontal ? centerY + this.blocks[index].getPositionX() - this.blocks[0].getPositionX() : centerY;
 		}
+		return rotateOffsetY(this.blocks[index].getPositionX() - this.blocks[0].getPositionX(),
+				this.blocks[index].getPositionY() - centerY, turnClockwise) + centerY;
+	}
 
-		return manipBlocks;
+	/**
+	 * Returns the x offset from the center block a block of a (Not straight) tetromino ends up at when it is
+	 * rotated a quarter turn, y is down so clockwise takes (1, 0) to (0, 1).
+	 * Shared with anything that needs to follow the same rotation rules without moving blocks.
+	 *
+	 * @return int
+	 *
+	 * @param offsetX
+	 * @param offsetY
+	 * @param turnClockwise
+	 */
+	public static int rotateOffsetX(int offsetX, int offsetY, boolean turnClockwise) {
+		return turnClockwise ? -offsetY : offsetY;
+	}
+
+	/**
+	 * Returns the y offset from the center block a block of a (Not straight) tetromino ends up at when it is
+	 * rotated a quarter turn, see rotateOffsetX.
+	 *
+	 * @return int
+	 *
+	 * @param offsetX
+	 * @param offsetY
+	 * @param turnClockwise
+	 */
+	public static int rotateOffsetY(int offsetX, int offsetY, boolean turnClockwise) {
+		return turnClockwise ? offsetX : -offsetX;
 	}
 
 	/**
@@ -297,4 +433,25 @@ public class TetrominoModel {
 			block.setFalling(falling);
 		}
 	}
+
+	/**
+	 * Turns this instance into a falling piece of the given shape and color with its blocks at the shape's offsets
+	 * from x, y, moving its own blocks rather than making new ones. Nothing is checked, the blocks have to be off the
+	 * board. (Used for swapping/holding, see TetrominoSpawner.respawnTetromino)
+	 *
+	 * @param shape
+	 * @param c
+	 * @param x
+	 * @param y
+	 */
+	public void reset(int shape, Color c, int x, int y) {
+		int[][] offsets = TetrominoSpawner.getShapeOffsets(shape);
+		for (int i = 0; i < 4; i++) {
+			this.blocks[i].setPosition(x + offsets[i][0], y + offsets[i][1]);
+			this.blocks[i].setColor(c);
+		}
+		this.shape = shape;
+		this.isStraight = shape == TetrominoSpawner.I;
+		this.setFalling(true);
+	}
 }
\ No newline at end of file
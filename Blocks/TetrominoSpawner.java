@@ -1,8 +1,13 @@
 package Blocks;
 
 import javafx.scene.paint.Color;
-import java.util.Random;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
 
+import Board.Board;
 import Game_Main.Game;
 
 public class TetrominoSpawner {
@@ -18,15 +23,46 @@ public class TetrominoSpawner {
 	// The y coordinate on the game grid that the blocks should be spawned at or around.
 	private int spawnY;
 
-	// A 3D array rerpresenting the different block shapes (1D: x,y | 2D: {x,y}, {x,y}, {x,y} | 3D: { { {x,y}, ... }, { {x,y}, ... }, ... })
-	private int[][][] shapes;
+	// Shape indexes into SHAPES, also used to identify a piece without keeping its blocks (Holding).
+	public static final int NO_SHAPE = -1;
+	public static final int T = 0;
+	public static final int L = 1;
+	public static final int J = 2;
+	public static final int S = 3;
+	public static final int Z = 4;
+	public static final int O = 5;
+	public static final int I = 6;
 
-	// Used to randomize block order
-	private Random random = new Random();
+	// Most shapes that can be queued with setQueue.
+	public static final int MAX_QUEUE = 1 << 16;
+
+	// A 3D array rerpresenting the different block shapes as offsets from spawnX and spawnY (1D: dx,dy | 2D: {dx,dy}, {dx,dy}, {dx,dy} | 3D: { { {dx,dy}, ... }, { {dx,dy}, ... }, ... })
+	private static final int[][][] SHAPES = new int[][][] { { {0, 0}, {-1, 0}, {1, 0}, {0, 1} }, // T
+															{ {0, 0}, {-1, 0}, {1, 0}, {-1, 1} }, // L
+															{ {0, 0}, {-1, 0}, {1, 0}, {1, 1} }, // J
+															{ {0, 0}, {1, 0}, {0, 1}, {-1, 1} }, // S
+															{ {0, 0}, {-1, 0}, {0, 1}, {1, 1} }, // Z
+															{ {0, 0}, {-1, 0}, {0, 1}, {-1, 1} }, // O
+															{ {0, 0}, {-1, 0}, {1, 0}, {2, 0} } // I
+														  };
+
+	// The order the shapes will be spawned in, shuffled every time all of them have been picked.
+	private int[] order = {T, L, J, S, Z, O, I};
+
+	// Used to randomize block order. The same generator as java.util.Random (So a seed gives the same shapes as it
+	// always has), kept as a plain long so the state can be written and read as it is.
+	private static final long MULTIPLIER = 0x5DEECE66DL;
+	private static final long ADDEND = 0xBL;
+	private static final long MASK = (1L << 48) - 1;
+	private long random = (ThreadLocalRandom.current().nextLong() ^ MULTIPLIER) & MASK;
+
+	// Shapes to spawn before the shuffled order, in order (Set for puzzles), and how many have been spawned.
+	private int[] queue = new int[0];
+	private int queueIndex = 0;
 
 
 	/**
-	 * Sets reference to the game, sets coordinates for all the different shapes based on the game's spawnX and spawnY
+	 * Sets reference to the game and the spawnX and spawnY that all the shapes are placed around.
 	 *
 	 * @param game
 	 */
@@ -34,15 +70,119 @@ public class TetrominoSpawner {
 		this.game = game;
 		this.spawnX = this.game.getBlockSpawnX();
 		this.spawnY = this.game.getBlockSpawnY();
+	}
+
+	/**
+	 * Restarts the shape order from the given seed, so the same seed always gives the same shapes.
+	 * (Used for replays and tests)
+	 *
+	 * @param seed
+	 */
+	public void setSeed(long seed) {
+		this.random = (seed ^ MULTIPLIER) & MASK;
+		this.order = new int[] {T, L, J, S, Z, O, I};
+		this.spawnIndex = this.order.length;
+	}
+
+	/**
+	 * Sets shapes to spawn next, in order, before carrying on with the shuffled order. (Used for puzzles, see
+	 * Game.setPosition)
+	 *
+	 * @param shapes
+	 */
+	public void setQueue(int[] shapes) {
+		if (shapes.length > MAX_QUEUE) {
+			throw new IllegalArgumentException("Queue too long: " + shapes.length);
+		}
+		for (int shape : shapes) {
+			if (shape < 0 || shape >= SHAPES.length) {
+				throw new IllegalArgumentException("Not a shape: " + shape);
+			}
+		}
+		this.queue = shapes.clone();
+		this.queueIndex = 0;
+	}
+
+	/**
+	 * Returns the shapes set by setQueue that haven't been spawned yet.
+	 *
+	 * @return int[]
+	 */
+	public int[] getQueue() {
+		return Arrays.copyOfRange(this.queue, this.queueIndex, this.queue.length);
+	}
+
+	/**
+	 * Writes the shape order, where it is in it and the state of the random generator, so readState carries on
+	 * with the same shapes. (Used for replay keyframes, see Game.writeState)
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeState(DataOutput out) throws IOException {
+		out.writeInt(this.spawnIndex);
+		for (int shape : this.order) {
+			out.writeByte(shape);
+		}
+		out.writeLong(this.random);
+
+		out.writeInt(this.queue.length - this.queueIndex);
+		for (int i = this.queueIndex; i < this.queue.length; i++) {
+			out.writeByte(this.queue[i]);
+		}
+	}
+
+	/**
+	 * Reads the state written by writeState.
+	 *
+	 * @param in
+	 * @throws IOException
+	 */
+	public void readState(DataInput in) throws IOException {
+		int index = in.readInt();
+		int[] order = new int[this.order.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = in.readByte();
+			if (order[i] < 0 || order[i] >= SHAPES.length) {
+				throw new IOException("Not a shape: " + order[i]);
+			}
+		}
+		if (index < 0 || index > order.length) {
+			throw new IOException("Spawn index out of range: " + index);
+		}
+		long random = in.readLong();
+		if ((random & ~MASK) != 0) {
+			throw new IOException("Not a random generator state.");
+		}
+
+		int queued = in.readInt();
+		if (queued < 0 || queued > MAX_QUEUE) {
+			throw new IOException("Queue length out of range: " + queued);
+		}
+		int[] queue = new int[queued];
+		for (int i = 0; i < queued; i++) {
+			queue[i] = in.readByte();
+			if (queue[i] < 0 || queue[i] >= SHAPES.length) {
+				throw new IOException("Not a shape: " + queue[i]);
+			}
+		}
+		this.order = order;
+		this.spawnIndex = index;
+		this.random = random;
+		this.queue = queue;
+		this.queueIndex = 0;
+	}
 
-		this.shapes = new int[][][] { { {this.spawnX, this.spawnY}, {this.spawnX-1, this.spawnY}, {this.spawnX+1, this.spawnY}, {this.spawnX, this.spawnY+1} }, // T
-								   { {this.spawnX, this.spawnY}, {this.spawnX-1, this.spawnY}, {this.spawnX+1, this.spawnY}, {this.spawnX-1, this.spawnY+1} }, // L
-								   { {this.spawnX, this.spawnY}, {this.spawnX-1, this.spawnY}, {this.spawnX+1, this.spawnY}, {this.spawnX+1, this.spawnY+1} }, // J
-								   { {this.spawnX, this.spawnY}, {this.spawnX+1, this.spawnY}, {this.spawnX, this.spawnY+1}, {this.spawnX-1, this.spawnY+1} }, // S
-								   { {this.spawnX, this.spawnY}, {this.spawnX-1, this.spawnY}, {this.spawnX, this.spawnY+1}, {this.spawnX+1, this.spawnY+1} }, // Z
-								   { {this.spawnX, this.spawnY}, {this.spawnX-1, this.spawnY}, {this.spawnX, this.spawnY+1}, {this.spawnX-1, this.spawnY+1} }, // O
-								   { {this.spawnX, this.spawnY}, {this.spawnX-1, this.spawnY}, {this.spawnX+1, this.spawnY}, {this.spawnX+2, this.spawnY} } // I
-							     };
+	/**
+	 * Returns the offsets of each block of the given shape from the spawn position.
+	 * The returned array is shared, it must not be modified.
+	 *
+	 * @param shape
+	 *
+	 * @return int[][]
+	 */
+	public static int[][] getShapeOffsets(int shape) {
+		return SHAPES[shape];
 	}
 
 	/**
@@ -55,39 +195,119 @@ public class TetrominoSpawner {
 	 * @param c
 	 */
 	public TetrominoView spawnTetromino(Color c) {
+		return this.spawnTetromino(this.nextShape(), c);
+	}
+
+	/**
+	 * Takes the next shape: the next queued one if there are any left, otherwise the next in the shuffled order.
+	 *
+	 * @return int
+	 */
+	private int nextShape() {
+		if (this.queueIndex < this.queue.length) {
+			return this.queue[this.queueIndex++];
+		}
+
 		// If the index needs to be reset/has reached the end of the array.
-		if (this.spawnIndex == this.shapes.length) {
+		if (this.spawnIndex == this.order.length) {
 			this.spawnIndex = 0;
 
 			// Randomize shape order
 			for (int i = 0; i < 20; i++) {
-				int swapOne = random.nextInt(this.shapes.length);
-				int swapTwo = random.nextInt(this.shapes.length);
-				int[][] shapeToSwap = this.shapes[swapOne];
+				int swapOne = this.nextInt(this.order.length);
+				int swapTwo = this.nextInt(this.order.length);
+				int shapeToSwap = this.order[swapOne];
 
-				this.shapes[swapOne] = this.shapes[swapTwo];
-				this.shapes[swapTwo] = shapeToSwap;
+				this.order[swapOne] = this.order[swapTwo];
+				this.order[swapTwo] = shapeToSwap;
 			}
 		}
 
-		// New Block[] used to store the blocks of the soon to be created Tetromino.
-		Block[] blocks = new Block[4];
+		int shape = this.order[this.spawnIndex];
+		this.spawnIndex += 1;
 
-		// Whether the Tetromino piece is straight (An I shape)
-		boolean straight = true;
+		return shape;
+	}
+
+	/**
+	 * Returns a random number from 0 (Inclusive) to bound (Exclusive), the same as java.util.Random.nextInt would for a
+	 * bound that isn't a power of two (The shape order's length is 7).
+	 *
+	 * @param bound
+	 *
+	 * @return int
+	 */
+	private int nextInt(int bound) {
+		int bits;
+		int value;
+		do {
+			this.random = (this.random * MULTIPLIER + ADDEND) & MASK;
+			bits = (int) (this.random >>> 17);
+			value = bits % bound;
+		} while (bits - value + (bound - 1) < 0);
+		return value;
+	}
+
+	/**
+	 * Turns the given falling Tetromino into the next shape in the order (Like spawnTetromino) at the spawn position,
+	 * reusing its blocks. Returns false, leaving it as it was, if the new shape would be in the same place as another
+	 * Tetromino. The order moves on either way. (Used for holding)
+	 *
+	 * @param t
+	 * @param c
+	 *
+	 * @return boolean
+	 */
+	public boolean respawnTetromino(TetrominoModel t, Color c) {
+		return this.respawnTetromino(t, this.nextShape(), c);
+	}
 
-		// Adds a block from the shape in the current order to the Tetromino Block[]
+	/**
+	 * Turns the given falling Tetromino into one of the given shape and color at the spawn position, reusing its
+	 * blocks so nothing is allocated. It has to be off the board. Returns false, leaving it as it was, if the new
+	 * shape would be in the same place as another Tetromino. (Used for swapping/holding)
+	 *
+	 * @param t
+	 * @param shape
+	 * @param c
+	 *
+	 * @return boolean
+	 */
+	public boolean respawnTetromino(TetrominoModel t, int shape, Color c) {
+		Board board = this.game.getBoard();
 		for (int i = 0; i < 4; i++) {
-			// The straight piece doesn't have any pieces not on spawnY
-			if (this.shapes[spawnIndex][i][1] != this.spawnY) {
-				straight = false;
+			int x = this.spawnX + SHAPES[shape][i][0];
+			int y = this.spawnY + SHAPES[shape][i][1];
+			if (x < 0 || x >= board.getWidth() || y < 0 || y >= board.getHeight() || board.get(x, y) != null) {
+				return false;
 			}
-			blocks[i] = new Block(this.game, c, this.shapes[spawnIndex][i][0], this.shapes[spawnIndex][i][1]);
 		}
+		t.reset(shape, c, this.spawnX, this.spawnY);
+		return true;
+	}
 
-		this.spawnIndex += 1;
+	/**
+	 * Creates a new Tetromino piece of the given shape at the spawn position, without touching the random order.
+	 * (Used for swapping/holding)
+	 * Returns null if the Tetromino would be created in the same place as another Tetromino.
+	 *
+	 * @return Tetromino
+	 *
+	 * @param shape
+	 * @param c
+	 */
+	public TetrominoView spawnTetromino(int shape, Color c) {
+		// New Block[] used to store the blocks of the soon to be created Tetromino.
+		Block[] blocks = new Block[4];
+
+		// Adds a block from the shape's offsets to the Tetromino Block[]
+		for (int i = 0; i < 4; i++) {
+			blocks[i] = new Block(this.game, c, this.spawnX + SHAPES[shape][i][0], this.spawnY + SHAPES[shape][i][1]);
+		}
 
-		TetrominoView t = new TetrominoView(blocks, straight);
+		// Whether the Tetromino piece is straight (An I shape)
+		TetrominoView t = new TetrominoView(blocks, shape == I);
+		t.setShape(shape);
 
 		// Checks if the new Tetromino has been placed in any existing blocks.
 		if (t.move(0, 0)) {
@@ -95,9 +315,5 @@ public class TetrominoSpawner {
 		} else {
 			return null;
 		}
-
-
 	}
-
-
 }
\ No newline at end of file
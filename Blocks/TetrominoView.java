@@ -1,6 +1,5 @@
 package Blocks;
-import GUI.MainViewFX;
-import javafx.scene.shape.Rectangle;
+import GUI.GameView;
 
 import javafx.scene.paint.Color;
 
@@ -37,23 +36,25 @@ public class TetrominoView extends TetrominoController {
      *
      * @param mv
      */
-    public void clearFill(MainViewFX mv) {
+    public void clearFill(GameView mv) {
     	for (Block block : this.getBlocks()) {
 			if (block != null) {
-				mv.getTetrominos()[block.getPositionY()][block.getPositionX()].setFill(Color.web(mv.tetrominoDefaultColor));
+				mv.emptyCell(block.getPositionX(), block.getPositionY());
 			}
 		}
     }
 
     /**
-     * Sets the fill (of the square) of each block apart of this TetrominoView.
+     * Sets the fill (of the square) of each block apart of this TetrominoView, moving the view to follow it first.
      *
      * @param mv
      */
-	public void draw(MainViewFX mv) {
-		for (Block block : this.getBlocks()) {
+	public void draw(GameView mv) {
+		Block[] blocks = this.getBlocks();
+		mv.followCell(blocks[0].getPositionX(), blocks[0].getPositionY());
+		for (Block block : blocks) {
 			if (block != null) {
-				mv.getTetrominos()[block.getPositionY()][block.getPositionX()].setFill(block.getColor());
+				mv.fillCell(block.getPositionX(), block.getPositionY(), block.getColor());
 			}
 		}
 	}
@@ -0,0 +1,102 @@
+package Board;
+
+import Blocks.Block;
+
+/**
+ * Storage for the blocks that have been set in place on the tetris grid.
+ * Cells are addressed by x (column, 0 on the left) and y (row, 0 at the top).
+ *
+ * Blocks on the board are identified by the cell they are in, a block's own position is only kept up to date
+ * while it is falling (Clearing rows doesn't move the blocks above it, just the rows).
+ *
+ * @author T03-2
+ */
+public interface Board {
+
+    int getWidth();
+
+    int getHeight();
+
+    /**
+     * Returns the block in the given cell, or null if it is empty.
+     *
+     * @param x
+     * @param y
+     * @return Block
+     */
+    Block get(int x, int y);
+
+    /**
+     * Puts the given block in the given cell, null empties the cell.
+     *
+     * @param x
+     * @param y
+     * @param block
+     */
+    void set(int x, int y, Block block);
+
+    /**
+     * Whether every cell of the given row has a block in it.
+     *
+     * @param row
+     * @return boolean
+     */
+    boolean isRowFull(int row);
+
+    /**
+     * Removes the given row, moving every row above it down one. The top row becomes empty.
+     *
+     * @param row
+     */
+    void clearRow(int row);
+
+    /**
+     * Pushes every row up by the given amount of rows (Rows pushed past the top are lost) and fills the new rows
+     * at the bottom with the given block, leaving the cell in the hole column empty. Used for garbage sent by
+     * an opponent (See Game_Main.VersusMatch), the rows are moved as a whole so it costs the same as clearRow.
+     *
+     * @param rows
+     * @param hole
+     * @param block
+     */
+    void addGarbage(int rows, int hole, Block block);
+
+    /**
+     * Empties every cell.
+     */
+    void clear();
+
+    /**
+     * Amount of 64 cell words each row mask takes (See RowScan).
+     *
+     * @return int
+     */
+    int getWordsPerRow();
+
+    /**
+     * Batch collision probe, checks rowCount rows of row masks (getWordsPerRow() words each, starting at probe[0])
+     * against the board starting at firstRow. Returns true if any set cell has a block or any probe row is
+     * outside the board.
+     *
+     * @param probe
+     * @param firstRow
+     * @param rowCount
+     * @return boolean
+     */
+    boolean collides(long[] probe, int firstRow, int rowCount);
+
+    /**
+     * Collision probe over a window of each row, for a few cells on a wide board (E.g. a falling tetromino, see
+     * Blocks.TetrominoModel): rowCount rows of wordCount words each (Starting at probe[0]) checked against words
+     * firstWord to firstWord + wordCount of each row from firstRow. Returns true if any set cell has a block or
+     * any of the window is outside the board.
+     *
+     * @param probe
+     * @param firstRow
+     * @param rowCount
+     * @param firstWord
+     * @param wordCount
+     * @return boolean
+     */
+    boolean collides(long[] probe, int firstRow, int rowCount, int firstWord, int wordCount);
+}
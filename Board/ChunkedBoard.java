@@ -0,0 +1,229 @@
+package Board;
+
+import Blocks.Block;
+
+/**
+ * Board for giant grids (Thousands of cells wide and tall). Each row is split into chunks of CHUNK_WIDTH cells
+ * which are only allocated once a block is put in them, and rows with no blocks aren't allocated at all,
+ * so memory grows with the amount of blocks rather than width * height.
+ *
+ * Clearing a row only moves the row references above it down (And adding garbage moves them up), no cells are copied.
+ *
+ * @author T03-2
+ */
+public class ChunkedBoard implements Board {
+
+    // Cells per chunk. Each chunk has one 64 bit row mask word so this must stay 64.
+    public static final int CHUNK_WIDTH = 64;
+
+    private final int width;
+    private final int height;
+
+    // Chunks per row.
+    private final int chunksPerRow;
+
+    // Every row of the grid, null if the row is empty.
+    private Row[] rows;
+
+    // Totals kept for stress test reports.
+    private int blockCount = 0;
+    private int chunkCount = 0;
+
+    /**
+     * A single non-empty row, only the chunks with blocks in them are allocated.
+     */
+    private static class Row {
+        private final Block[][] chunks;
+        private final int[] chunkCounts;
+        private int count = 0;
+
+        // Row mask with one word per chunk (See RowScan).
+        private final long[] mask;
+
+        private Row(int chunksPerRow) {
+            this.chunks = new Block[chunksPerRow][];
+            this.chunkCounts = new int[chunksPerRow];
+            this.mask = new long[chunksPerRow];
+        }
+    }
+
+    private final RowScan rowScan = RowScans.best();
+
+    public ChunkedBoard(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.chunksPerRow = (width + CHUNK_WIDTH - 1) / CHUNK_WIDTH;
+        this.rows = new Row[height];
+    }
+
+    @Override
+    public int getWidth() {
+        return this.width;
+    }
+
+    @Override
+    public int getHeight() {
+        return this.height;
+    }
+
+    @Override
+    public Block get(int x, int y) {
+        Row row = this.rows[y];
+        if (row == null) {
+            return null;
+        }
+        Block[] chunk = row.chunks[x / CHUNK_WIDTH];
+        if (chunk == null) {
+            return null;
+        }
+        return chunk[x % CHUNK_WIDTH];
+    }
+
+    @Override
+    public void set(int x, int y, Block block) {
+        Row row = this.rows[y];
+        int chunkIndex = x / CHUNK_WIDTH;
+
+        if (block == null) {
+            // Nothing to remove from an empty row or chunk.
+            if (row == null || row.chunks[chunkIndex] == null || row.chunks[chunkIndex][x % CHUNK_WIDTH] == null) {
+                return;
+            }
+            row.chunks[chunkIndex][x % CHUNK_WIDTH] = null;
+            row.mask[chunkIndex] &= ~(1L << x);
+            this.blockCount--;
+            row.count--;
+            row.chunkCounts[chunkIndex]--;
+
+            // Free the chunk and row once they are empty.
+            if (row.chunkCounts[chunkIndex] == 0) {
+                row.chunks[chunkIndex] = null;
+                this.chunkCount--;
+            }
+            if (row.count == 0) {
+                this.rows[y] = null;
+            }
+            return;
+        }
+
+        if (row == null) {
+            row = new Row(this.chunksPerRow);
+            this.rows[y] = row;
+        }
+        if (row.chunks[chunkIndex] == null) {
+            row.chunks[chunkIndex] = new Block[CHUNK_WIDTH];
+            this.chunkCount++;
+        }
+        if (row.chunks[chunkIndex][x % CHUNK_WIDTH] == null) {
+            row.mask[chunkIndex] |= 1L << x;
+            this.blockCount++;
+            row.count++;
+            row.chunkCounts[chunkIndex]++;
+        }
+        row.chunks[chunkIndex][x % CHUNK_WIDTH] = block;
+    }
+
+    @Override
+    public boolean isRowFull(int row) {
+        return this.rows[row] != null && this.rows[row].count == this.width;
+    }
+
+    @Override
+    public void clearRow(int row) {
+        Row removed = this.rows[row];
+        if (removed != null) {
+            this.blockCount -= removed.count;
+            for (Block[] chunk : removed.chunks) {
+                if (chunk != null) {
+                    this.chunkCount--;
+                }
+            }
+        }
+        System.arraycopy(this.rows, 0, this.rows, 1, row);
+        this.rows[0] = null;
+    }
+
+    @Override
+    public void addGarbage(int rows, int hole, Block block) {
+        rows = Math.min(rows, this.height);
+        for (int y = 0; y < rows; y++) {
+            Row removed = this.rows[y];
+            if (removed != null) {
+                this.blockCount -= removed.count;
+                for (Block[] chunk : removed.chunks) {
+                    if (chunk != null) {
+                        this.chunkCount--;
+                    }
+                }
+            }
+        }
+        System.arraycopy(this.rows, rows, this.rows, 0, this.height - rows);
+        for (int y = this.height - rows; y < this.height; y++) {
+            this.rows[y] = null;
+            for (int x = 0; x < this.width; x++) {
+                if (x != hole) {
+                    this.set(x, y, block);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        this.rows = new Row[this.height];
+        this.blockCount = 0;
+        this.chunkCount = 0;
+    }
+
+    @Override
+    public int getWordsPerRow() {
+        return this.chunksPerRow;
+    }
+
+    @Override
+    public boolean collides(long[] probe, int firstRow, int rowCount) {
+        if (firstRow < 0 || firstRow + rowCount > this.height) {
+            return true;
+        }
+        for (int i = 0; i < rowCount; i++) {
+            Row row = this.rows[firstRow + i];
+            // Empty rows can't collide with anything.
+            if (row != null && this.rowScan.intersects(row.mask, 0, probe, i * this.chunksPerRow, this.chunksPerRow)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean collides(long[] probe, int firstRow, int rowCount, int firstWord, int wordCount) {
+        if (firstRow < 0 || firstRow + rowCount > this.height || firstWord < 0 || firstWord + wordCount > this.chunksPerRow) {
+            return true;
+        }
+        for (int i = 0; i < rowCount; i++) {
+            Row row = this.rows[firstRow + i];
+            if (row != null && this.rowScan.intersects(row.mask, firstWord, probe, i * wordCount, wordCount)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Amount of blocks on the board.
+     *
+     * @return int
+     */
+    public int getBlockCount() {
+        return this.blockCount;
+    }
+
+    /**
+     * Amount of chunks currently allocated.
+     *
+     * @return int
+     */
+    public int getChunkCount() {
+        return this.chunkCount;
+    }
+}
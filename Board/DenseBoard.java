@@ -0,0 +1,164 @@
+package Board;
+
+import Blocks.Block;
+
+/**
+ * Board backed by a single Block[] with a cell for every position on the grid (Index x + width * y).
+ * Fastest for normal sized grids.
+ *
+ * @author T03-2
+ */
+public class DenseBoard implements Board {
+
+    private final int width;
+    private final int height;
+
+    private final Block[] cells;
+
+    // Amount of blocks in each row, so checking for a full row doesn't scan it.
+    private final int[] rowCounts;
+
+    // Row masks of every row one after another, wordsPerRow words each (See RowScan).
+    private final int wordsPerRow;
+    private final long[] masks;
+
+    private final RowScan rowScan = RowScans.best();
+
+    public DenseBoard(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.cells = new Block[width * height];
+        this.rowCounts = new int[height];
+        this.wordsPerRow = (width + 63) / 64;
+        this.masks = new long[height * this.wordsPerRow];
+    }
+
+    @Override
+    public int getWidth() {
+        return this.width;
+    }
+
+    @Override
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Returns the array backing this board, changes to it are not seen by isRowFull.
+     *
+     * @return Block[]
+     */
+    public Block[] getCells() {
+        return this.cells;
+    }
+
+    @Override
+    public Block get(int x, int y) {
+        return this.cells[x + this.width * y];
+    }
+
+    @Override
+    public void set(int x, int y, Block block) {
+        int index = x + this.width * y;
+        int word = y * this.wordsPerRow + x / 64;
+        if (this.cells[index] == null && block != null) {
+            this.rowCounts[y]++;
+            this.masks[word] |= 1L << x;
+        } else if (this.cells[index] != null && block == null) {
+            this.rowCounts[y]--;
+            this.masks[word] &= ~(1L << x);
+        }
+        this.cells[index] = block;
+    }
+
+    @Override
+    public boolean isRowFull(int row) {
+        return this.rowCounts[row] == this.width;
+    }
+
+    @Override
+    public void clearRow(int row) {
+        System.arraycopy(this.cells, 0, this.cells, this.width, row * this.width);
+        System.arraycopy(this.rowCounts, 0, this.rowCounts, 1, row);
+        System.arraycopy(this.masks, 0, this.masks, this.wordsPerRow, row * this.wordsPerRow);
+        for (int i = 0; i < this.width; i++) {
+            this.cells[i] = null;
+        }
+        for (int i = 0; i < this.wordsPerRow; i++) {
+            this.masks[i] = 0;
+        }
+        this.rowCounts[0] = 0;
+    }
+
+    @Override
+    public void addGarbage(int rows, int hole, Block block) {
+        rows = Math.min(rows, this.height);
+        int kept = this.height - rows;
+        System.arraycopy(this.cells, rows * this.width, this.cells, 0, kept * this.width);
+        System.arraycopy(this.rowCounts, rows, this.rowCounts, 0, kept);
+        System.arraycopy(this.masks, rows * this.wordsPerRow, this.masks, 0, kept * this.wordsPerRow);
+        for (int i = kept * this.width; i < this.cells.length; i++) {
+            this.cells[i] = null;
+        }
+        for (int i = kept * this.wordsPerRow; i < this.masks.length; i++) {
+            this.masks[i] = 0;
+        }
+        for (int y = kept; y < this.height; y++) {
+            this.rowCounts[y] = 0;
+            for (int x = 0; x < this.width; x++) {
+                if (x != hole) {
+                    this.set(x, y, block);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < this.cells.length; i++) {
+            this.cells[i] = null;
+        }
+        for (int i = 0; i < this.height; i++) {
+            this.rowCounts[i] = 0;
+        }
+        for (int i = 0; i < this.masks.length; i++) {
+            this.masks[i] = 0;
+        }
+    }
+
+    @Override
+    public int getWordsPerRow() {
+        return this.wordsPerRow;
+    }
+
+    /**
+     * Returns the row masks backing this board, wordsPerRow words for each row one after another.
+     *
+     * @return long[]
+     */
+    public long[] getMasks() {
+        return this.masks;
+    }
+
+    @Override
+    public boolean collides(long[] probe, int firstRow, int rowCount) {
+        if (firstRow < 0 || firstRow + rowCount > this.height) {
+            return true;
+        }
+        return this.rowScan.intersects(this.masks, firstRow * this.wordsPerRow, probe, 0, rowCount * this.wordsPerRow);
+    }
+
+    @Override
+    public boolean collides(long[] probe, int firstRow, int rowCount, int firstWord, int wordCount) {
+        if (firstRow < 0 || firstRow + rowCount > this.height || firstWord < 0 || firstWord + wordCount > this.wordsPerRow) {
+            return true;
+        }
+        for (int i = 0; i < rowCount; i++) {
+            if (this.rowScan.intersects(this.masks, (firstRow + i) * this.wordsPerRow + firstWord, probe, i * wordCount,
+                    wordCount)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
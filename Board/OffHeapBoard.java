@@ -0,0 +1,243 @@
+package Board;
+
+import Blocks.Block;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Board keeping its cells, row counts and row masks off the Java heap in MemorySegments, for running tens of
+ * thousands of games in one process without the garbage collector having to look at their blocks.
+ *
+ * Each cell is a byte: 0 for empty, otherwise an index (+1) into a small palette of blocks, one per color,
+ * so get returns the same Block for every cell of a color (The blocks set in place are only used for
+ * collisions and their color, see Board).
+ *
+ * The memory belongs to an Arena. A board made with its own arena frees it on close, boards made from a
+ * shared arena are freed all at once when whoever made the arena closes it (E.g. at the end of a session).
+ *
+ * Uses the Foreign Function & Memory API, compile and run on Java 22 or newer (Or Java 21 with --enable-preview):
+ *     javac Board/OffHeapBoard.java
+ *
+ * @author T03-2
+ */
+public class OffHeapBoard implements Board, AutoCloseable {
+
+    // A cell byte can only index this many colors.
+    private static final int MAX_PALETTE = 255;
+
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+
+    // Whether the arena was made by this board (And so is closed by it).
+    private final boolean ownsArena;
+    private final Arena arena;
+
+    // width * height bytes, one per cell.
+    private final MemorySegment cells;
+
+    // height ints, the amount of blocks in each row.
+    private final MemorySegment rowCounts;
+
+    // height * wordsPerRow longs, the row masks (See RowScan).
+    private final MemorySegment masks;
+
+    // One block for each color set on the board, index + 1 is stored in the cell. Grows as colors are added.
+    private Block[] palette = new Block[8];
+    private int paletteSize = 0;
+
+    /**
+     * Creates a board with its own arena, freed when the board is closed.
+     *
+     * @param width
+     * @param height
+     */
+    public OffHeapBoard(int width, int height) {
+        this(width, height, Arena.ofShared(), true);
+    }
+
+    /**
+     * Creates a board allocated from the given arena, freed when the arena is closed.
+     *
+     * @param width
+     * @param height
+     * @param arena
+     */
+    public OffHeapBoard(int width, int height, Arena arena) {
+        this(width, height, arena, false);
+    }
+
+    private OffHeapBoard(int width, int height, Arena arena, boolean ownsArena) {
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) / 64;
+        this.arena = arena;
+        this.ownsArena = ownsArena;
+
+        // Memory from an arena starts zeroed, so the board starts empty.
+        this.cells = arena.allocate((long) width * height, 1);
+        this.rowCounts = arena.allocate((long) height * Integer.BYTES, Integer.BYTES);
+        this.masks = arena.allocate((long) height * this.wordsPerRow * Long.BYTES, Long.BYTES);
+    }
+
+    @Override
+    public int getWidth() {
+        return this.width;
+    }
+
+    @Override
+    public int getHeight() {
+        return this.height;
+    }
+
+    @Override
+    public Block get(int x, int y) {
+        int index = this.cells.get(ValueLayout.JAVA_BYTE, x + (long) this.width * y) & 0xFF;
+        return index == 0 ? null : this.palette[index - 1];
+    }
+
+    @Override
+    public void set(int x, int y, Block block) {
+        long cell = x + (long) this.width * y;
+        boolean wasEmpty = this.cells.get(ValueLayout.JAVA_BYTE, cell) == 0;
+        long countOffset = (long) y * Integer.BYTES;
+        long maskOffset = ((long) y * this.wordsPerRow + x / 64) * Long.BYTES;
+        long mask = this.masks.get(ValueLayout.JAVA_LONG, maskOffset);
+
+        if (block == null) {
+            if (!wasEmpty) {
+                this.cells.set(ValueLayout.JAVA_BYTE, cell, (byte) 0);
+                this.rowCounts.set(ValueLayout.JAVA_INT, countOffset, this.rowCounts.get(ValueLayout.JAVA_INT, countOffset) - 1);
+                this.masks.set(ValueLayout.JAVA_LONG, maskOffset, mask & ~(1L << x));
+            }
+            return;
+        }
+
+        this.cells.set(ValueLayout.JAVA_BYTE, cell, (byte) (this.paletteIndex(block) + 1));
+        if (wasEmpty) {
+            this.rowCounts.set(ValueLayout.JAVA_INT, countOffset, this.rowCounts.get(ValueLayout.JAVA_INT, countOffset) + 1);
+            this.masks.set(ValueLayout.JAVA_LONG, maskOffset, mask | (1L << x));
+        }
+    }
+
+    /**
+     * Returns the palette index for the block's color, adding the block to the palette if it's a new color.
+     */
+    private int paletteIndex(Block block) {
+        for (int i = 0; i < this.paletteSize; i++) {
+            if (Objects.equals(this.palette[i].getColor(), block.getColor())) {
+                return i;
+            }
+        }
+        if (this.paletteSize == MAX_PALETTE) {
+            throw new IllegalStateException("Off heap board can only hold " + MAX_PALETTE + " colors.");
+        }
+        if (this.paletteSize == this.palette.length) {
+            this.palette = Arrays.copyOf(this.palette, Math.min(MAX_PALETTE, this.palette.length * 2));
+        }
+        this.palette[this.paletteSize] = block;
+        return this.paletteSize++;
+    }
+
+    @Override
+    public boolean isRowFull(int row) {
+        return this.rowCounts.get(ValueLayout.JAVA_INT, (long) row * Integer.BYTES) == this.width;
+    }
+
+    @Override
+    public void clearRow(int row) {
+        // Copies of overlapping memory are done as if through a temporary copy, so the rows can be moved in place.
+        MemorySegment.copy(this.cells, 0, this.cells, this.width, (long) row * this.width);
+        MemorySegment.copy(this.rowCounts, 0, this.rowCounts, Integer.BYTES, (long) row * Integer.BYTES);
+        MemorySegment.copy(this.masks, 0, this.masks, (long) this.wordsPerRow * Long.BYTES, (long) row * this.wordsPerRow * Long.BYTES);
+
+        this.cells.asSlice(0, this.width).fill((byte) 0);
+        this.rowCounts.set(ValueLayout.JAVA_INT, 0, 0);
+        this.masks.asSlice(0, (long) this.wordsPerRow * Long.BYTES).fill((byte) 0);
+    }
+
+    @Override
+    public void addGarbage(int rows, int hole, Block block) {
+        rows = Math.min(rows, this.height);
+        long kept = this.height - rows;
+        long rowBytes = (long) this.wordsPerRow * Long.BYTES;
+        MemorySegment.copy(this.cells, (long) rows * this.width, this.cells, 0, kept * this.width);
+        MemorySegment.copy(this.rowCounts, (long) rows * Integer.BYTES, this.rowCounts, 0, kept * Integer.BYTES);
+        MemorySegment.copy(this.masks, rows * rowBytes, this.masks, 0, kept * rowBytes);
+
+        this.cells.asSlice(kept * this.width).fill((byte) 0);
+        this.rowCounts.asSlice(kept * Integer.BYTES).fill((byte) 0);
+        this.masks.asSlice(kept * rowBytes).fill((byte) 0);
+        for (int y = (int) kept; y < this.height; y++) {
+            for (int x = 0; x < this.width; x++) {
+                if (x != hole) {
+                    this.set(x, y, block);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        this.cells.fill((byte) 0);
+        this.rowCounts.fill((byte) 0);
+        this.masks.fill((byte) 0);
+    }
+
+    @Override
+    public int getWordsPerRow() {
+        return this.wordsPerRow;
+    }
+
+    @Override
+    public boolean collides(long[] probe, int firstRow, int rowCount) {
+        if (firstRow < 0 || firstRow + rowCount > this.height) {
+            return true;
+        }
+        long offset = (long) firstRow * this.wordsPerRow * Long.BYTES;
+        for (int i = 0; i < rowCount * this.wordsPerRow; i++) {
+            if ((this.masks.get(ValueLayout.JAVA_LONG, offset + (long) i * Long.BYTES) & probe[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean collides(long[] probe, int firstRow, int rowCount, int firstWord, int wordCount) {
+        if (firstRow < 0 || firstRow + rowCount > this.height || firstWord < 0 || firstWord + wordCount > this.wordsPerRow) {
+            return true;
+        }
+        for (int i = 0; i < rowCount; i++) {
+            long offset = ((long) (firstRow + i) * this.wordsPerRow + firstWord) * Long.BYTES;
+            for (int j = 0; j < wordCount; j++) {
+                if ((this.masks.get(ValueLayout.JAVA_LONG, offset + (long) j * Long.BYTES) & probe[i * wordCount + j]) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Bytes of off heap memory used by this board.
+     *
+     * @return long
+     */
+    public long getByteSize() {
+        return this.cells.byteSize() + this.rowCounts.byteSize() + this.masks.byteSize();
+    }
+
+    /**
+     * Frees the board's memory if it has its own arena. Boards from a shared arena are freed with the arena.
+     */
+    @Override
+    public void close() {
+        if (this.ownsArena) {
+            this.arena.close();
+        }
+    }
+}
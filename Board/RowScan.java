@@ -0,0 +1,36 @@
+package Board;
+
+/**
+ * Operations over row masks, where each row of a board is stored as words of 64 cells (Bit x % 64 of word x / 64
+ * is set if cell x has a block). Used for checking full rows and for collision probes on wide boards.
+ *
+ * @see RowScans
+ *
+ * @author T03-2
+ */
+public interface RowScan {
+
+    /**
+     * Whether every cell of the row starting at masks[offset] is set. lastWordMask has a bit set for every
+     * cell that exists in the last word (All bits if the width is a multiple of 64).
+     *
+     * @param masks
+     * @param offset
+     * @param words
+     * @param lastWordMask
+     * @return boolean
+     */
+    boolean isFull(long[] masks, int offset, int words, long lastWordMask);
+
+    /**
+     * Whether any cell set in a (Starting at aOffset) is also set in b (Starting at bOffset), over the given words.
+     *
+     * @param a
+     * @param aOffset
+     * @param b
+     * @param bOffset
+     * @param words
+     * @return boolean
+     */
+    boolean intersects(long[] a, int aOffset, long[] b, int bOffset, int words);
+}
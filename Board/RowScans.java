@@ -0,0 +1,49 @@
+package Board;
+
+/**
+ * Picks the RowScan used by the boards. The vector version is used when the jdk.incubator.vector module
+ * is available (And VectorRowScan was compiled), unless the tetris.vector system property is "false".
+ *
+ * @author T03-2
+ */
+public final class RowScans {
+
+    private static final RowScan BEST = load();
+
+    private RowScans() {
+    }
+
+    /**
+     * Returns the fastest RowScan available.
+     *
+     * @return RowScan
+     */
+    public static RowScan best() {
+        return BEST;
+    }
+
+    /**
+     * Whether best() is the vector version.
+     *
+     * @return boolean
+     */
+    public static boolean isVectorized() {
+        return !(BEST instanceof ScalarRowScan);
+    }
+
+    /**
+     * Tries to load VectorRowScan, which fails if the class or the jdk.incubator.vector module is missing.
+     *
+     * @return RowScan
+     */
+    private static RowScan load() {
+        if (!"false".equals(System.getProperty("tetris.vector"))) {
+            try {
+                return (RowScan) Class.forName("Board.VectorRowScan").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Fall through to the scalar version.
+            }
+        }
+        return new ScalarRowScan();
+    }
+}
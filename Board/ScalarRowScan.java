@@ -0,0 +1,30 @@
+package Board;
+
+/**
+ * RowScan going one word at a time. Always available, see RowScans.
+ *
+ * @author T03-2
+ */
+public class ScalarRowScan implements RowScan {
+
+    @Override
+    public boolean isFull(long[] masks, int offset, int words, long lastWordMask) {
+        int last = offset + words - 1;
+        for (int i = offset; i < last; i++) {
+            if (masks[i] != -1L) {
+                return false;
+            }
+        }
+        return (masks[last] & lastWordMask) == lastWordMask;
+    }
+
+    @Override
+    public boolean intersects(long[] a, int aOffset, long[] b, int bOffset, int words) {
+        for (int i = 0; i < words; i++) {
+            if ((a[aOffset + i] & b[bOffset + i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
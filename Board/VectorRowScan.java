@@ -0,0 +1,73 @@
+package Board;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * RowScan processing as many words at once as the CPU's vector registers hold, using the incubating Vector API.
+ * Needs the jdk.incubator.vector module to compile and run:
+ *
+ *     javac --add-modules jdk.incubator.vector Board/VectorRowScan.java
+ *     java --add-modules jdk.incubator.vector Game_Main/Tetris
+ *
+ * Nothing refers to this class directly, RowScans loads it if it can and falls back to ScalarRowScan otherwise.
+ *
+ * @author T03-2
+ */
+public class VectorRowScan implements RowScan {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    // Rows shorter than this many words are done one word at a time, a vector wouldn't be filled.
+    private static final int MIN_VECTOR_WORDS = SPECIES.length();
+
+    private final ScalarRowScan scalar = new ScalarRowScan();
+
+    @Override
+    public boolean isFull(long[] masks, int offset, int words, long lastWordMask) {
+        int whole = words - 1;
+        if (whole < MIN_VECTOR_WORDS) {
+            return this.scalar.isFull(masks, offset, words, lastWordMask);
+        }
+
+        int bound = SPECIES.loopBound(whole);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            // Any lane that isn't all ones has an empty cell.
+            LongVector v = LongVector.fromArray(SPECIES, masks, offset + i);
+            if (v.not().reduceLanes(VectorOperators.OR) != 0) {
+                return false;
+            }
+        }
+        for (; i < whole; i++) {
+            if (masks[offset + i] != -1L) {
+                return false;
+            }
+        }
+        return (masks[offset + whole] & lastWordMask) == lastWordMask;
+    }
+
+    @Override
+    public boolean intersects(long[] a, int aOffset, long[] b, int bOffset, int words) {
+        if (words < MIN_VECTOR_WORDS) {
+            return this.scalar.intersects(a, aOffset, b, bOffset, words);
+        }
+
+        int bound = SPECIES.loopBound(words);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            LongVector va = LongVector.fromArray(SPECIES, a, aOffset + i);
+            LongVector vb = LongVector.fromArray(SPECIES, b, bOffset + i);
+            if (va.and(vb).reduceLanes(VectorOperators.OR) != 0) {
+                return true;
+            }
+        }
+        for (; i < words; i++) {
+            if ((a[aOffset + i] & b[bOffset + i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
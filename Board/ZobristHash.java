@@ -0,0 +1,174 @@
+package Board;
+
+import java.util.Arrays;
+
+/**
+ * A 64-bit hash of which cells of a board are filled (Not their colors), kept up to date as cells are set in
+ * place, rows are cleared and garbage is added, so the same board always has the same hash however it was reached.
+ * Boards of the same width hash the same way in every game and every run, so hashes can be kept and compared.
+ *
+ * It is a Zobrist hash built row by row: each column has a random key and a row's pattern is the xor of the keys
+ * of its filled cells, the board's hash is the xor of every non empty row's pattern mixed with its row number.
+ * Filling a cell costs one row update, and clearing a row or adding garbage moves whole rows so it costs one
+ * update per non empty row moved rather than per cell.
+ *
+ * @author T03-2
+ */
+public class ZobristHash {
+
+    private final int width;
+    private final int height;
+    private final long[] columnKeys;
+
+    // Pattern of every cell of a row filled.
+    private final long fullRow;
+
+    // Pattern of each row, 0 for empty.
+    private final long[] rows;
+
+    // Every row above this one is empty.
+    private int top;
+
+    private long hash = 0;
+
+    public ZobristHash(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.columnKeys = new long[width];
+        long full = 0;
+        for (int x = 0; x < width; x++) {
+            this.columnKeys[x] = columnKey(x);
+            full ^= this.columnKeys[x];
+        }
+        this.fullRow = full;
+        this.rows = new long[height];
+        this.top = height;
+    }
+
+    /**
+     * The hash of the board, 0 when it is empty.
+     *
+     * @return long
+     */
+    public long get() {
+        return this.hash;
+    }
+
+    /**
+     * Fills the given cell if it is empty or empties it if it is filled.
+     *
+     * @param x
+     * @param y
+     */
+    public void toggle(int x, int y) {
+        long pattern = this.rows[y];
+        this.rows[y] = pattern ^ this.columnKeys[x];
+        this.hash ^= rowHash(pattern, y) ^ rowHash(this.rows[y], y);
+        this.top = Math.min(this.top, y);
+    }
+
+    /**
+     * Removes the given row, moving every row above it down one (See Board.clearRow).
+     *
+     * @param row
+     */
+    public void clearRow(int row) {
+        this.hash ^= rowHash(this.rows[row], row);
+        for (int y = row - 1; y >= this.top; y--) {
+            long pattern = this.rows[y];
+            if (pattern != 0) {
+                this.hash ^= rowHash(pattern, y) ^ rowHash(pattern, y + 1);
+            }
+            this.rows[y + 1] = pattern;
+        }
+        if (this.top <= row) {
+            this.rows[this.top] = 0;
+            this.top++;
+        }
+    }
+
+    /**
+     * Pushes every row up by the given amount of rows and fills the new rows at the bottom, leaving the hole
+     * column empty (See Board.addGarbage).
+     *
+     * @param rows
+     * @param hole
+     */
+    public void addGarbage(int rows, int hole) {
+        if (rows <= 0) {
+            return;
+        }
+        for (int y = this.top; y < this.height; y++) {
+            long pattern = this.rows[y];
+            this.rows[y] = 0;
+            if (pattern != 0) {
+                this.hash ^= rowHash(pattern, y);
+                if (y - rows >= 0) {
+                    this.hash ^= rowHash(pattern, y - rows);
+                    this.rows[y - rows] = pattern;
+                }
+            }
+        }
+        long garbage = hole >= 0 && hole < this.width ? this.fullRow ^ this.columnKeys[hole] : this.fullRow;
+        for (int y = Math.max(0, this.height - rows); y < this.height; y++) {
+            this.rows[y] = garbage;
+            this.hash ^= rowHash(garbage, y);
+        }
+        this.top = Math.max(0, Math.min(this.top, this.height) - rows);
+    }
+
+    /**
+     * Hashes the given board from scratch, every filled cell counts.
+     *
+     * @param board
+     */
+    public void reset(Board board) {
+        Arrays.fill(this.rows, 0);
+        this.hash = 0;
+        this.top = this.height;
+        for (int y = 0; y < this.height; y++) {
+            long pattern = 0;
+            for (int x = 0; x < this.width; x++) {
+                if (board.get(x, y) != null) {
+                    pattern ^= this.columnKeys[x];
+                }
+            }
+            if (pattern != 0) {
+                this.rows[y] = pattern;
+                this.hash ^= rowHash(pattern, y);
+                this.top = Math.min(this.top, y);
+            }
+        }
+    }
+
+    /**
+     * The random key of a column, the same in every run.
+     *
+     * @param x
+     * @return long
+     */
+    public static long columnKey(int x) {
+        return mix(0x5A0B4E37C1D2F968L + x * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * What a row with the given pattern (The xor of the keys of its filled columns) adds to the hash of a board
+     * in the given row. 0 for an empty row.
+     *
+     * @param pattern
+     * @param y
+     * @return long
+     */
+    public static long rowHash(long pattern, int y) {
+        return pattern == 0 ? 0 : mix(pattern + (y + 1) * 0xD1B54A32D192ED03L);
+    }
+
+    /**
+     * The SplitMix64 finaliser, spreads every bit of the input over the output.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,227 @@
+package GUI;
+
+import Blocks.Block;
+import Blocks.TetrominoSpawner;
+import Board.Board;
+import Game_Main.Game;
+import Game_Main.GameEvent;
+import Game_Main.GameEventBus;
+import Game_Main.GameEventListener;
+import javafx.geometry.Insets;
+import javafx.scene.control.Label;
+import javafx.scene.layout.FlowPane;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+
+/**
+ * The view of one game of a versus match: the player's name, held tetromino, grid and score, and the commands
+ * from the player's keys waiting for the next tick. MainViewFX shows two of them side by side.
+ *
+ * @author T03-2
+ */
+public class BoardPane extends VBox implements GameView, GameEventListener {
+
+    private final String hexBoardBox = "6d775e";
+    private final String tetrominoDefaultColor = "000";
+    private final String tetrominoBackgroundColor = "0F0F0F";
+
+    private final int RECTANGLE_SIZE = 16;
+    private final int VIEWPORT_MAX_WIDTH = 20;
+    private final int VIEWPORT_MAX_HEIGHT = 30;
+    private final int HOLD_WIDTH = 4;
+    private final int HOLD_HEIGHT = 2;
+
+    private Game game;
+    private GameEventBus.Subscription gameEvents;
+
+    private final Rectangle[][] cells;
+    private final Rectangle[][] holdRectangles;
+    private int viewX = 0;
+    private int viewY = 0;
+
+    private final String playerName;
+    private final Label statusLabel = new Label();
+
+    // Commands from key presses waiting for the next tick.
+    private final CommandQueue commands = new CommandQueue();
+
+    /**
+     * Creates the pane for a grid of the given size, call setGame before the first tick.
+     *
+     * @param playerName
+     * @param width
+     * @param height
+     */
+    public BoardPane(String playerName, int width, int height) {
+        this.playerName = playerName;
+        this.setPadding(new Insets(12, 15, 12, 15));
+        this.setSpacing(10);
+        this.setStyle("-fx-background-color: #" + this.hexBoardBox + ";");
+
+        this.getChildren().add(new Label(playerName));
+        this.holdRectangles = new Rectangle[this.HOLD_HEIGHT][this.HOLD_WIDTH];
+        this.getChildren().add(this.addGrid(this.holdRectangles));
+        this.cells = new Rectangle[Math.min(height, this.VIEWPORT_MAX_HEIGHT)][Math.min(width, this.VIEWPORT_MAX_WIDTH)];
+        this.getChildren().add(this.addGrid(this.cells));
+        this.getChildren().add(this.statusLabel);
+    }
+
+    /**
+     * Fills the given array with rectangles set to the default color, returning the pane holding them.
+     */
+    private FlowPane addGrid(Rectangle[][] rectangles) {
+        FlowPane pane = new FlowPane();
+        pane.setStyle("-fx-background-color: #" + this.tetrominoBackgroundColor + ";");
+        pane.setPadding(new Insets(5, 5, 5, 5));
+        pane.setVgap(4);
+        pane.setHgap(4);
+        pane.setPrefWrapLength(rectangles[0].length * (this.RECTANGLE_SIZE + 4));
+
+        for (int outer = 0; outer < rectangles.length; outer++) {
+            for (int inner = 0; inner < rectangles[outer].length; inner++) {
+                Rectangle rect = new Rectangle(this.RECTANGLE_SIZE, this.RECTANGLE_SIZE);
+                rect.setFill(Color.web(this.tetrominoDefaultColor));
+                pane.getChildren().add(rect);
+                rectangles[outer][inner] = rect;
+            }
+        }
+        return pane;
+    }
+
+    /**
+     * Sets the game shown, subscribing to its events.
+     *
+     * @param game
+     */
+    public void setGame(Game game) {
+        this.game = game;
+        this.gameEvents = game.getEvents().subscribe();
+        this.updateStatus(0);
+    }
+
+    public Game getGame() {
+        return this.game;
+    }
+
+    /**
+     * Updates the view for the events of the game since the last call, call after every tick.
+     */
+    public void pollEvents() {
+        this.gameEvents.poll(this);
+    }
+
+    @Override
+    public void onEvent(GameEvent event) {
+        switch (event.getType()) {
+            case GameEvent.LINES_CLEARED:
+            case GameEvent.GARBAGE:
+                this.clearScreen();
+                this.updateStatus(event.getScore());
+                break;
+            case GameEvent.LOCKED:
+                this.updateStatus(event.getScore());
+                break;
+            case GameEvent.GAME_OVER:
+                this.statusLabel.setText("Topped out with " + event.getScore());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Shows the score and the garbage waiting to be added.
+     */
+    private void updateStatus(int score) {
+        this.statusLabel.setText("Score: " + score + "   Incoming: " + this.game.getPendingGarbage());
+    }
+
+    public String getPlayerName() {
+        return this.playerName;
+    }
+
+    /**
+     * Queues a command to be given to the game on the next tick. Commands past the queue size are dropped.
+     *
+     * @param command
+     */
+    public void keyboardInput(int command) {
+        this.commands.add(command);
+    }
+
+    /**
+     * Takes the next queued command, or Command.NONE if nothing is queued.
+     *
+     * @return int
+     */
+    public int nextCommand() {
+        return this.commands.next();
+    }
+
+    @Override
+    public void clearScreen() {
+        Board board = this.game.getBoard();
+        Color empty = Color.web(this.tetrominoDefaultColor);
+        for (int row = 0; row < this.cells.length; row++) {
+            for (int col = 0; col < this.cells[row].length; col++) {
+                Block block = board.get(this.viewX + col, this.viewY + row);
+                Color fill = block == null ? empty : block.getColor();
+                if (!fill.equals(this.cells[row][col].getFill())) {
+                    this.cells[row][col].setFill(fill);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void fillCell(int x, int y, Color c) {
+        int row = y - this.viewY;
+        int col = x - this.viewX;
+        if (row >= 0 && row < this.cells.length && col >= 0 && col < this.cells[row].length) {
+            this.cells[row][col].setFill(c);
+        }
+    }
+
+    @Override
+    public void emptyCell(int x, int y) {
+        this.fillCell(x, y, Color.web(this.tetrominoDefaultColor));
+    }
+
+    @Override
+    public void followCell(int x, int y) {
+        int viewWidth = this.cells[0].length;
+        int viewHeight = this.cells.length;
+        int newViewX = this.viewX;
+        int newViewY = this.viewY;
+
+        if (x < this.viewX + viewWidth / 4 || x >= this.viewX + viewWidth - viewWidth / 4) {
+            newViewX = Math.max(0, Math.min(this.game.getGridWidth() - viewWidth, x - viewWidth / 2));
+        }
+        if (y < this.viewY + viewHeight / 4 || y >= this.viewY + viewHeight - viewHeight / 4) {
+            newViewY = Math.max(0, Math.min(this.game.getGridHeight() - viewHeight, y - viewHeight / 2));
+        }
+
+        if (newViewX != this.viewX || newViewY != this.viewY) {
+            this.viewX = newViewX;
+            this.viewY = newViewY;
+            this.clearScreen();
+        }
+    }
+
+    @Override
+    public void drawHold(int shape, Color c) {
+        for (Rectangle[] rectArr : this.holdRectangles) {
+            for (Rectangle rect : rectArr) {
+                rect.setFill(Color.web(this.tetrominoDefaultColor));
+            }
+        }
+        if (shape == TetrominoSpawner.NO_SHAPE) {
+            return;
+        }
+        // Offsets are around the spawn block, which sits in the second column.
+        for (int[] offset : TetrominoSpawner.getShapeOffsets(shape)) {
+            this.holdRectangles[offset[1]][offset[0] + 1].setFill(c);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package GUI;
+
+import Game_Main.Command;
+
+/**
+ * Commands from key presses waiting for the next tick, one is given to the game each tick. Kept in a fixed ring,
+ * commands past its size are dropped.
+ *
+ * @author T03-2
+ */
+public class CommandQueue {
+
+    public static final int SIZE = 16;
+
+    private final int[] commands = new int[SIZE];
+    private int start = 0;
+    private int count = 0;
+
+    /**
+     * Queues a command, dropping it if the queue is full.
+     *
+     * @param command
+     */
+    public void add(int command) {
+        if (this.count < SIZE) {
+            this.commands[(this.start + this.count) % SIZE] = command;
+            this.count++;
+        }
+    }
+
+    /**
+     * Takes the next queued command, or Command.NONE if nothing is queued.
+     *
+     * @return int
+     */
+    public int next() {
+        if (this.count == 0) {
+            return Command.NONE;
+        }
+        int command = this.commands[this.start];
+        this.start = (this.start + 1) % SIZE;
+        this.count--;
+        return command;
+    }
+}
@@ -0,0 +1,271 @@
+package GUI;
+
+import Game_Main.Game;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+
+/**
+ * Line clear flashes and sparks, drawn on a pane over the grid. Every node is made up front: a few bars for flashing
+ * cleared rows and a pool of small squares for sparks, each with its state in plain arrays, and each effect takes
+ * the next one round (The oldest, if they are all in use). Nothing is added to or taken off the scene graph and
+ * nothing is allocated once it is made, however many lines are cleared (Game_Main.Debug.EffectsBenchmark checks
+ * this and times frames with and without effects).
+ *
+ * Sparks fly off the cells of every block set in place (See onLocked) and the cells of cleared rows, which also
+ * flash (See onLinesCleared). Everything is in cells of the grid, so it stays put when the viewport moves.
+ *
+ * @author T03-2
+ */
+public class EffectLayer {
+
+    public static final int MAX_SPARKS = 256;
+    public static final int MAX_FLASHES = 8;
+
+    // How long sparks and flashes last.
+    public static final long SPARK_NANOS = 350000000L;
+    public static final long FLASH_NANOS = 180000000L;
+
+    private static final int SPARKS_PER_LOCKED_CELL = 3;
+    private static final double SPARK_SIZE = 4;
+
+    // In cells per second (Squared for gravity).
+    private static final double SPARK_SPEED = 6;
+    private static final double SPARK_GRAVITY = 30;
+
+    private static final Color SPARK_COLOR = Color.WHITE;
+    private static final Color FLASH_COLOR = Color.WHITE;
+
+    private final int viewWidth;
+    private final int viewHeight;
+    private final double originX;
+    private final double originY;
+    private final double pitch;
+    private final double cellSize;
+
+    private final Pane pane = new Pane();
+    private boolean enabled = true;
+
+    // Each spark's node, where it started, its speed (Cells a second) and when it started (-1 once it's done).
+    private final Rectangle[] sparks = new Rectangle[MAX_SPARKS];
+    private final double[] sparkX = new double[MAX_SPARKS];
+    private final double[] sparkY = new double[MAX_SPARKS];
+    private final double[] sparkSpeedX = new double[MAX_SPARKS];
+    private final double[] sparkSpeedY = new double[MAX_SPARKS];
+    private final long[] sparkStart = new long[MAX_SPARKS];
+    private int nextSpark = 0;
+
+    // Each flash's node, the row it is on and when it started (-1 once it's done).
+    private final Rectangle[] flashes = new Rectangle[MAX_FLASHES];
+    private final int[] flashRow = new int[MAX_FLASHES];
+    private final long[] flashStart = new long[MAX_FLASHES];
+    private int nextFlash = 0;
+
+    // Xorshift state for the sparks' directions, so making them doesn't allocate.
+    private long random = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Creates the effects for a viewport of the given amount of cells, with the first cell's top left corner at
+     * originX, originY in the pane, cells pitch apart and cellSize across.
+     *
+     * @param viewWidth
+     * @param viewHeight
+     * @param originX
+     * @param originY
+     * @param pitch
+     * @param cellSize
+     */
+    public EffectLayer(int viewWidth, int viewHeight, double originX, double originY, double pitch, double cellSize) {
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+        this.originX = originX;
+        this.originY = originY;
+        this.pitch = pitch;
+        this.cellSize = cellSize;
+
+        this.pane.setMouseTransparent(true);
+        // Sparks flying off the sides aren't drawn over the rest of the window.
+        this.pane.setClip(new Rectangle(originX * 2 + viewWidth * pitch, originY * 2 + viewHeight * pitch));
+
+        // Every property render sets is set here first too, JavaFX makes a node's properties the first time they are.
+        for (int i = 0; i < MAX_FLASHES; i++) {
+            this.flashes[i] = new Rectangle(viewWidth * pitch - (pitch - cellSize), cellSize);
+            this.flashes[i].setFill(FLASH_COLOR);
+            this.flashes[i].setLayoutX(originX);
+            this.flashes[i].setLayoutY(originY);
+            this.flashes[i].setOpacity(1);
+            this.flashes[i].setVisible(false);
+            this.flashStart[i] = -1;
+            this.pane.getChildren().add(this.flashes[i]);
+        }
+        for (int i = 0; i < MAX_SPARKS; i++) {
+            this.sparks[i] = new Rectangle(SPARK_SIZE, SPARK_SIZE);
+            this.sparks[i].setFill(SPARK_COLOR);
+            this.sparks[i].setLayoutX(originX);
+            this.sparks[i].setLayoutY(originY);
+            this.sparks[i].setOpacity(1);
+            this.sparks[i].setVisible(false);
+            this.sparkStart[i] = -1;
+            this.pane.getChildren().add(this.sparks[i]);
+        }
+    }
+
+    /**
+     * The pane the effects are drawn on, put it over the grid.
+     *
+     * @return Pane
+     */
+    public Pane getPane() {
+        return this.pane;
+    }
+
+    /**
+     * Turns the effects on or off, turning them off hides any still going.
+     *
+     * @param enabled
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            for (int i = 0; i < MAX_SPARKS; i++) {
+                this.sparkStart[i] = -1;
+                this.sparks[i].setVisible(false);
+            }
+            for (int i = 0; i < MAX_FLASHES; i++) {
+                this.flashStart[i] = -1;
+                this.flashes[i].setVisible(false);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Sparks off the cells of the block the game just set in place (See GameEvent.LOCKED), starting at the given
+     * time (System.nanoTime).
+     *
+     * @param game
+     * @param now
+     */
+    public void onLocked(Game game, long now) {
+        if (!this.enabled) {
+            return;
+        }
+        for (int i = 0; i < 4; i++) {
+            for (int s = 0; s < SPARKS_PER_LOCKED_CELL; s++) {
+                this.spark(game.getLockedX(i) + 0.5, game.getLockedY(i) + 0.5, now);
+            }
+        }
+    }
+
+    /**
+     * Flashes the rows the game just cleared (See GameEvent.LINES_CLEARED) with a spark off each of their cells in
+     * the viewport, starting at the given time (System.nanoTime).
+     *
+     * @param game
+     * @param now
+     * @param viewX
+     */
+    public void onLinesCleared(Game game, long now, int viewX) {
+        if (!this.enabled) {
+            return;
+        }
+        for (int i = 0; i < game.getClearedRowCount(); i++) {
+            int row = game.getClearedRow(i);
+            this.flashRow[this.nextFlash] = row;
+            this.flashStart[this.nextFlash] = now;
+            this.nextFlash = (this.nextFlash + 1) % MAX_FLASHES;
+            for (int col = 0; col < this.viewWidth; col++) {
+                this.spark(viewX + col + 0.5, row + 0.5, now);
+            }
+        }
+    }
+
+    private void spark(double x, double y, long now) {
+        int i = this.nextSpark;
+        this.nextSpark = (i + 1) % MAX_SPARKS;
+        // Any way up or sideways, at up to SPARK_SPEED.
+        double angle = Math.PI * this.nextRandom();
+        double speed = SPARK_SPEED * (0.5 + 0.5 * this.nextRandom());
+        this.sparkX[i] = x;
+        this.sparkY[i] = y;
+        this.sparkSpeedX[i] = Math.cos(angle) * speed;
+        this.sparkSpeedY[i] = -Math.sin(angle) * speed;
+        this.sparkStart[i] = now;
+    }
+
+    /**
+     * A number from 0 (Inclusive) to 1 (Exclusive).
+     */
+    private double nextRandom() {
+        this.random ^= this.random << 13;
+        this.random ^= this.random >>> 7;
+        this.random ^= this.random << 17;
+        return (this.random >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Amount of sparks and flashes still going as of the last render.
+     *
+     * @return int
+     */
+    public int getActive() {
+        int active = 0;
+        for (long start : this.sparkStart) {
+            active += start < 0 ? 0 : 1;
+        }
+        for (long start : this.flashStart) {
+            active += start < 0 ? 0 : 1;
+        }
+        return active;
+    }
+
+    /**
+     * Draws the effects at the given time (System.nanoTime) with the grid's viewport at viewX, viewY.
+     *
+     * @param now
+     * @param viewX
+     * @param viewY
+     */
+    public void render(long now, int viewX, int viewY) {
+        for (int i = 0; i < MAX_FLASHES; i++) {
+            if (this.flashStart[i] < 0) {
+                continue;
+            }
+            long age = now - this.flashStart[i];
+            int row = this.flashRow[i] - viewY;
+            if (age >= FLASH_NANOS || row < 0 || row >= this.viewHeight) {
+                this.flashStart[i] = -1;
+                this.flashes[i].setVisible(false);
+                continue;
+            }
+            Rectangle flash = this.flashes[i];
+            flash.setLayoutY(this.originY + row * this.pitch);
+            flash.setOpacity(1 - age / (double) FLASH_NANOS);
+            flash.setVisible(true);
+        }
+
+        double offset = (this.cellSize - SPARK_SIZE) / 2;
+        for (int i = 0; i < MAX_SPARKS; i++) {
+            if (this.sparkStart[i] < 0) {
+                continue;
+            }
+            long age = now - this.sparkStart[i];
+            if (age >= SPARK_NANOS) {
+                this.sparkStart[i] = -1;
+                this.sparks[i].setVisible(false);
+                continue;
+            }
+            double seconds = age / 1e9;
+            double x = this.sparkX[i] + this.sparkSpeedX[i] * seconds - viewX;
+            double y = this.sparkY[i] + this.sparkSpeedY[i] * seconds + SPARK_GRAVITY * seconds * seconds / 2 - viewY;
+            Rectangle spark = this.sparks[i];
+            spark.setLayoutX(this.originX + (x - 0.5) * this.pitch + offset);
+            spark.setLayoutY(this.originY + (y - 0.5) * this.pitch + offset);
+            spark.setOpacity(1 - age / (double) SPARK_NANOS);
+            spark.setVisible(true);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package GUI;
+
+/**
+ * Times frames from one JavaFX pulse to the next (The now an AnimationTimer is given), so each frame's time covers
+ * everything drawn in it: the game's own drawing as well as JavaFX syncing the scene graph and rendering it. With
+ * vsync on that is never under the display's refresh interval, only slower frames stand out. Run with
+ * -Dprism.vsync=false -Djavafx.animation.fullspeed=true to have pulses run as fast as frames can be drawn (And
+ * -Djavafx.pulseLogger=true for JavaFX's own breakdown of each pulse).
+ *
+ * @author T03-2
+ */
+public class FrameStats {
+
+    private long lastPulse = -1;
+    private long frames = 0;
+    private long totalNanos = 0;
+    private long maxNanos = 0;
+
+    /**
+     * Counts the frame since the last pulse, call from AnimationTimer.handle with its now.
+     *
+     * @param now
+     */
+    public void onPulse(long now) {
+        if (this.lastPulse >= 0) {
+            long nanos = now - this.lastPulse;
+            this.frames++;
+            this.totalNanos += nanos;
+            this.maxNanos = Math.max(this.maxNanos, nanos);
+        }
+        this.lastPulse = now;
+    }
+
+    /**
+     * Starts counting again from the next pulse.
+     */
+    public void reset() {
+        this.lastPulse = -1;
+        this.frames = 0;
+        this.totalNanos = 0;
+        this.maxNanos = 0;
+    }
+
+    public long getFrames() {
+        return this.frames;
+    }
+
+    public double getAverageNanos() {
+        return this.frames == 0 ? 0 : this.totalNanos / (double) this.frames;
+    }
+
+    public long getMaxNanos() {
+        return this.maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d frames, %.2f ms on average (%.1f fps), %.2f ms at most", this.frames,
+                this.getAverageNanos() / 1e6, this.frames == 0 ? 0 : 1e9 / this.getAverageNanos(), this.maxNanos / 1e6);
+    }
+}
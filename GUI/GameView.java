@@ -0,0 +1,50 @@
+package GUI;
+
+import javafx.scene.paint.Color;
+
+/**
+ * What a game draws to: a grid of cells showing the board and the held tetromino.
+ * MainViewFX is the view of a single game, each game of a versus match has its own BoardPane.
+ *
+ * @author T03-2
+ */
+public interface GameView {
+
+    /**
+     * Sets the given grid cell to the given color, if the cell is shown.
+     *
+     * @param x
+     * @param y
+     * @param c
+     */
+    void fillCell(int x, int y, Color c);
+
+    /**
+     * Sets the given grid cell back to empty, if the cell is shown.
+     *
+     * @param x
+     * @param y
+     */
+    void emptyCell(int x, int y);
+
+    /**
+     * Keeps the given grid cell in view, for views showing only part of the grid.
+     *
+     * @param x
+     * @param y
+     */
+    void followCell(int x, int y);
+
+    /**
+     * Redraws every shown cell from the game's board.
+     */
+    void clearScreen();
+
+    /**
+     * Draws the given shape (See Blocks.TetrominoSpawner) as the held tetromino.
+     *
+     * @param shape
+     * @param c
+     */
+    void drawHold(int shape, Color c);
+}
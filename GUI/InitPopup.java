@@ -3,6 +3,7 @@ package GUI;
 import java.io.File;
 
 import Game_Main.SaverLoader;
+import Game_Main.ScoreStore;
 
 import java.awt.Dimension;
 import javafx.application.Platform;
@@ -53,6 +54,13 @@ public class InitPopup {
     private int gridMin = 10;
     private int gridMax = 100;
 
+    // Giant boards are stored in chunks (See Board.ChunkedBoard) and can be much bigger.
+    private ToggleButton GiantBoardToggle = new ToggleButton("Giant board (stress test)");
+    private int giantGridMax = 100000;
+
+    // Two players on one keyboard, each with their own board (See Game_Main.VersusMatch).
+    private ToggleButton VersusToggle = new ToggleButton("Two player versus");
+
     private Label AutoFallStrText = new Label();
     private Slider AutoFallSlider = new Slider();
 
@@ -66,6 +74,9 @@ public class InitPopup {
 
     private File scoreFile;
 
+    // Name of the player, their scores are also kept under it (See ScoreStore).
+    private TextField PlayerNameText = new TextField(System.getProperty("user.name", "Player"));
+
     /**
      * Creates a new window that will create a new game with settings as specified by the user.
      */
@@ -122,8 +133,12 @@ public class InitPopup {
         grid.add(new Label("Beginning Drop speed:"), 0, 1);
         grid.add(this.AutoFallStrText, 1, 1);
         grid.add(this.AutoFallSlider, 2, 1);
+        grid.add(this.GiantBoardToggle, 1, 2);
+        grid.add(this.VersusToggle, 2, 2);
         grid.add(new Label("Please choose a file for high scores:"), 0, 3);
         grid.add(LoadScoreBtn, 1, 3);
+        grid.add(new Label("Player name:"), 0, 4);
+        grid.add(this.PlayerNameText, 1, 4, 2, 1);
         grid.setGridLinesVisible(false);
 
         this.confirmButton = dialog.getDialogPane().lookupButton(confirmButtonType);
@@ -136,6 +151,12 @@ public class InitPopup {
         this.WidthStrText.textProperty().addListener((observable, oldValue, newValue) -> {
             checkData();
         });
+        this.GiantBoardToggle.selectedProperty().addListener((observable, oldValue, newValue) -> {
+            checkData();
+        });
+        this.PlayerNameText.textProperty().addListener((observable, oldValue, newValue) -> {
+            checkData();
+        });
         this.AutoFallSlider.valueProperty().addListener((observable, oldValue, newValue) -> {
             checkData();
             this.AutoFallStrText.setText(String.valueOf((int) Math.round(this.AutoFallSlider.getValue())));
@@ -158,11 +179,16 @@ public class InitPopup {
             int width = Integer.parseInt(this.WidthStrText.getText());
             int autoFall = (int) this.AutoFallSlider.getValue();
 
-            if (height < 4 || width < 4) {
+            int max = this.GiantBoardToggle.isSelected() ? this.giantGridMax : this.gridMax;
+            if (height < 4 || width < 4 || height > max || width > max) {
+                throw new NumberFormatException();
+            }
+            if (ScoreStore.toPlayerId(this.PlayerNameText.getText()) == null) {
                 throw new NumberFormatException();
             }
 
             this.tetrisDimensions = new Dimension(height, width);
+            this.autoFall = autoFall;
 
             intParsable = true;
         } catch (NumberFormatException e) {
@@ -187,10 +213,26 @@ public class InitPopup {
         return this.tetrisDimensions;
     }
 
+    public boolean isGiantBoard() {
+        return this.GiantBoardToggle.isSelected();
+    }
+
+    public boolean isVersus() {
+        return this.VersusToggle.isSelected();
+    }
+
     public int getAutoFall() {
         return this.autoFall;
     }
 
+    /**
+     * Gets the id of the player (See ScoreStore.toPlayerId).
+     * @return String
+     */
+    public String getPlayerId() {
+        return ScoreStore.toPlayerId(this.PlayerNameText.getText());
+    }
+
 
     private void updateSlider() { // updates sliders from text fields
         validateText();
@@ -0,0 +1,341 @@
+package GUI;
+
+import Blocks.Block;
+import Blocks.TetrominoModel;
+import Board.Board;
+import Game_Main.Game;
+import Game_Main.LevelTable;
+import java.util.Arrays;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+
+/**
+ * Draws the falling tetromino and the rows coming down after a line clear in between ticks, so the game looks
+ * smooth at the display's refresh rate (The JavaFX pulse, see render) while it is still only ticked
+ * Game.TICKS_PER_SECOND times a second.
+ *
+ * The falling tetromino is drawn on an overlay (See getOverlay) instead of in the grid's cells, a tick behind the
+ * game: each frame it is placed between where it was after the tick before last and after the last tick, by how
+ * far through the tick the frame is. Where it is includes how far gravity has got it towards the next cell, so it
+ * glides down at any gravity rather than jumping a cell at a time. Rotating, holding and new tetrominos aren't
+ * slid, they show straight away. After a line clear the rows above the cleared ones start where they were and come
+ * down over COLLAPSE_NANOS.
+ *
+ * Nothing is simulated here, only what the game already has is read. Created without cells it only works out
+ * the positions (See getBlockX), which is how it is tested.
+ *
+ * @author T03-2
+ */
+public class InterpolatedRenderer {
+
+    // How long rows take to come down into cleared lines.
+    public static final long COLLAPSE_NANOS = 120000000L;
+
+    private static final long TICK_NANOS = 1000000000L / Game.TICKS_PER_SECOND;
+
+    private final Game game;
+
+    // The grid's cells (null for none), the empty cell color, where the first cell is and how far apart cells are.
+    private final Rectangle[][] cells;
+    private final Color empty;
+    private final double originX;
+    private final double originY;
+    private final double pitch;
+
+    // The pane the tetromino's blocks are drawn on, null with no cells.
+    private final Pane overlay;
+    private final Rectangle[] blocks = new Rectangle[4];
+
+    // The tetromino being drawn, where each block was after the tick before last and after the last tick (In cells,
+    // y with how far it has fallen towards the next cell) and when the last tick was.
+    private TetrominoModel piece;
+    private final double[] fromX = new double[4];
+    private final double[] fromY = new double[4];
+    private final double[] toX = new double[4];
+    private final double[] toY = new double[4];
+    private final int[] cellX = new int[4];
+    private final int[] cellY = new int[4];
+    private Color pieceColor;
+    private long lastTick;
+
+    // Set in place on the last tick, still drawn on the overlay until it gets there.
+    private boolean locking = false;
+
+    // Cells of the grid left empty last frame because the tetromino in them was on the overlay.
+    private final int[] hiddenX = new int[4];
+    private final int[] hiddenY = new int[4];
+    private int hiddenCount = 0;
+
+    // Where the blocks are drawn this frame, set by sample.
+    private final double[] drawX = new double[4];
+    private final double[] drawY = new double[4];
+    private boolean pieceShown = false;
+
+    // Rows removed by the last line clear (Numbered as before, bottom first) and when, for the rows coming down.
+    private int[] clearedRows = new int[4];
+    private int clearedCount = 0;
+    private long clearTime;
+    private boolean collapsing = false;
+
+    /**
+     * Creates a renderer for the given game that only works out positions, with no cells to draw in.
+     *
+     * @param game
+     */
+    public InterpolatedRenderer(Game game) {
+        this(game, null, null, 0, 0, 0);
+    }
+
+    /**
+     * Creates a renderer for the given game drawing over the given cells, with the first cell's top left corner at
+     * originX, originY in the overlay and cells pitch apart. The overlay should be the cells' size and on top of
+     * them.
+     *
+     * @param game
+     * @param cells
+     * @param empty
+     * @param originX
+     * @param originY
+     * @param pitch
+     */
+    public InterpolatedRenderer(Game game, Rectangle[][] cells, Color empty, double originX, double originY,
+            double pitch) {
+        this.game = game;
+        this.cells = cells;
+        this.empty = empty;
+        this.originX = originX;
+        this.originY = originY;
+        this.pitch = pitch;
+        if (cells == null) {
+            this.overlay = null;
+        } else {
+            this.overlay = new Pane();
+            this.overlay.setMouseTransparent(true);
+            double size = cells[0][0].getWidth();
+            for (int i = 0; i < 4; i++) {
+                this.blocks[i] = new Rectangle(size, size);
+                this.blocks[i].setVisible(false);
+                this.overlay.getChildren().add(this.blocks[i]);
+            }
+        }
+    }
+
+    /**
+     * The pane the falling tetromino is drawn on, put it over the cells. Null if there are no cells.
+     *
+     * @return Pane
+     */
+    public Pane getOverlay() {
+        return this.overlay;
+    }
+
+    /**
+     * Takes the game's state after a tick, call after every tick with when it was (System.nanoTime).
+     *
+     * @param now
+     */
+    public void onTick(long now) {
+        this.lastTick = now;
+        TetrominoModel falling = this.game.getTetrominoFalling();
+
+        if (falling == null) {
+            // Cleared lines, the rows coming down are drawn instead.
+            this.piece = null;
+            this.locking = false;
+            return;
+        }
+
+        boolean same = falling == this.piece;
+        for (int i = 0; i < 4 && same; i++) {
+            // Rotated, the blocks are the same but not where they were around the first one.
+            same = falling.getBlockX(i) - falling.getBlockX(0) == this.cellX[i] - this.cellX[0]
+                    && falling.getBlockY(i) - falling.getBlockY(0) == this.cellY[i] - this.cellY[0];
+        }
+        double fallen = falling.getFalling() && this.canFall(falling)
+                ? this.game.getGravityProgress() / (double) LevelTable.ONE_CELL : 0;
+        for (int i = 0; i < 4; i++) {
+            this.cellX[i] = falling.getBlockX(i);
+            this.cellY[i] = falling.getBlockY(i);
+            this.fromX[i] = same ? this.toX[i] : this.cellX[i];
+            this.fromY[i] = same ? this.toY[i] : this.cellY[i] + fallen;
+            this.toX[i] = this.cellX[i];
+            this.toY[i] = this.cellY[i] + fallen;
+        }
+        this.piece = falling;
+        this.pieceColor = falling.getColor();
+        this.locking = !falling.getFalling();
+    }
+
+    /**
+     * Whether the tetromino could move down a cell. Its blocks are on the board between ticks, so unlike
+     * TetrominoModel.canMove its own cells count as free.
+     */
+    private boolean canFall(TetrominoModel falling) {
+        Board board = this.game.getBoard();
+        for (int i = 0; i < 4; i++) {
+            int x = falling.getBlockX(i);
+            int y = falling.getBlockY(i) + 1;
+            if (y >= board.getHeight()) {
+                return false;
+            }
+            boolean own = false;
+            for (int j = 0; j < 4 && !own; j++) {
+                own = falling.getBlockX(j) == x && falling.getBlockY(j) == y;
+            }
+            if (!own && board.get(x, y) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Takes the rows the game just cleared, call when it clears lines (See GameEvent.LINES_CLEARED) with when it
+     * was (System.nanoTime).
+     *
+     * @param now
+     */
+    public void onLinesCleared(long now) {
+        this.clearedCount = 0;
+        for (int i = 0; i < this.game.getClearedRowCount(); i++) {
+            if (this.clearedCount == this.clearedRows.length) {
+                this.clearedRows = Arrays.copyOf(this.clearedRows, this.clearedCount * 2);
+            }
+            this.clearedRows[this.clearedCount++] = this.game.getClearedRow(i);
+        }
+        this.clearTime = now;
+        this.collapsing = this.clearedCount > 0;
+    }
+
+    /**
+     * Works out where everything is drawn at the given time (System.nanoTime), see getBlockX and getRowOffset.
+     *
+     * @param now
+     */
+    public void sample(long now) {
+        this.pieceShown = this.piece != null;
+        if (!this.pieceShown) {
+            return;
+        }
+        double t = Math.max(0, Math.min(1, (now - this.lastTick) / (double) TICK_NANOS));
+        if (this.locking && t >= 1) {
+            // Got where it was set in place, the grid shows it from here.
+            this.piece = null;
+            this.pieceShown = false;
+            return;
+        }
+        for (int i = 0; i < 4; i++) {
+            this.drawX[i] = this.fromX[i] + (this.toX[i] - this.fromX[i]) * t;
+            this.drawY[i] = this.fromY[i] + (this.toY[i] - this.fromY[i]) * t;
+        }
+    }
+
+    /**
+     * Whether the falling tetromino is drawn as of the last sample.
+     *
+     * @return boolean
+     */
+    public boolean isPieceShown() {
+        return this.pieceShown;
+    }
+
+    /**
+     * Where the given block of the falling tetromino is drawn as of the last sample, in cells.
+     *
+     * @param index
+     * @return double
+     */
+    public double getBlockX(int index) {
+        return this.drawX[index];
+    }
+
+    public double getBlockY(int index) {
+        return this.drawY[index];
+    }
+
+    /**
+     * How far above its place the given row is drawn at the given time (System.nanoTime), in cells, while rows
+     * come down into cleared lines.
+     *
+     * @param row
+     * @param now
+     * @return double
+     */
+    public double getRowOffset(int row, long now) {
+        double left = 1 - (now - this.clearTime) / (double) COLLAPSE_NANOS;
+        if (this.clearedCount == 0 || left <= 0) {
+            return 0;
+        }
+        // How many cleared rows were below where the row was before the clear.
+        int drop = 0;
+        while (drop < this.clearedCount && row - drop <= this.clearedRows[drop]) {
+            drop++;
+        }
+        return drop * Math.min(1, left);
+    }
+
+    /**
+     * Draws the frame at the given time (System.nanoTime, e.g. from an AnimationTimer) with the grid's viewport at
+     * viewX, viewY. The falling tetromino's own cells are left empty in the grid while it is on the overlay.
+     *
+     * @param now
+     * @param viewX
+     * @param viewY
+     */
+    public void render(long now, int viewX, int viewY) {
+        this.sample(now);
+        int viewHeight = this.cells.length;
+        int viewWidth = this.cells[0].length;
+
+        for (int i = 0; i < 4; i++) {
+            Rectangle block = this.blocks[i];
+            double x = this.drawX[i] - viewX;
+            double y = this.drawY[i] - viewY;
+            boolean shown = this.pieceShown && x > -1 && x < viewWidth && y > -1 && y < viewHeight;
+            block.setVisible(shown);
+            if (shown) {
+                block.setFill(this.pieceColor);
+                block.setLayoutX(this.originX + x * this.pitch);
+                block.setLayoutY(this.originY + y * this.pitch);
+            }
+        }
+        // Cells no longer under the overlay show the board again, those under it are left empty.
+        Board board = this.game.getBoard();
+        int hide = this.piece != null ? 4 : 0;
+        for (int h = 0; h < this.hiddenCount; h++) {
+            boolean still = false;
+            for (int i = 0; i < hide && !still; i++) {
+                still = this.hiddenX[h] == this.cellX[i] && this.hiddenY[h] == this.cellY[i];
+            }
+            if (!still) {
+                Block block = board.get(this.hiddenX[h], this.hiddenY[h]);
+                this.setCell(this.hiddenX[h] - viewX, this.hiddenY[h] - viewY, block == null ? this.empty : block.getColor());
+            }
+        }
+        for (int i = 0; i < hide; i++) {
+            this.setCell(this.cellX[i] - viewX, this.cellY[i] - viewY, this.empty);
+            this.hiddenX[i] = this.cellX[i];
+            this.hiddenY[i] = this.cellY[i];
+        }
+        this.hiddenCount = hide;
+
+        if (this.collapsing) {
+            this.collapsing = now - this.clearTime < COLLAPSE_NANOS;
+            for (int row = 0; row < viewHeight; row++) {
+                double offset = this.collapsing ? -this.getRowOffset(viewY + row, now) * this.pitch : 0;
+                if (this.cells[row][0].getTranslateY() != offset) {
+                    for (Rectangle cell : this.cells[row]) {
+                        cell.setTranslateY(offset);
+                    }
+                }
+            }
+        }
+    }
+
+    private void setCell(int col, int row, Color color) {
+        if (row >= 0 && row < this.cells.length && col >= 0 && col < this.cells[row].length) {
+            this.cells[row][col].setFill(color);
+        }
+    }
+}
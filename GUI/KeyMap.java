@@ -0,0 +1,149 @@
+package GUI;
+
+import Game_Main.Command;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Properties;
+import javafx.scene.input.KeyCode;
+
+/**
+ * Maps keys to game commands (See Game_Main.Command). The mapping is compiled into a table indexed by
+ * KeyCode ordinal so looking up a key press is a single array access.
+ * Can be loaded from and saved to a config file with one line per command, e.g. "Left=A,LEFT".
+ *
+ * @author T03-2
+ */
+public class KeyMap {
+
+    // Command code for every KeyCode, indexed by KeyCode.ordinal()
+    private final byte[] commandTable = new byte[KeyCode.values().length];
+
+    /**
+     * Creates a keymap with the default controls (A, S, D, Q, E and Shift).
+     */
+    public KeyMap() {
+        this.setDefaults();
+    }
+
+    /**
+     * Resets the keymap to the default controls.
+     */
+    public void setDefaults() {
+        this.clear();
+        this.bind(KeyCode.S, Command.SOFT_DROP);
+        this.bind(KeyCode.A, Command.LEFT);
+        this.bind(KeyCode.D, Command.RIGHT);
+        this.bind(KeyCode.Q, Command.ROTATE_CCW);
+        this.bind(KeyCode.E, Command.ROTATE_CW);
+        this.bind(KeyCode.SHIFT, Command.HOLD);
+    }
+
+    /**
+     * Resets the keymap to the default controls of the second player in versus (The arrow keys, Slash and Enter),
+     * which don't share any keys with the first player's.
+     */
+    public void setSecondPlayerDefaults() {
+        this.clear();
+        this.bind(KeyCode.DOWN, Command.SOFT_DROP);
+        this.bind(KeyCode.LEFT, Command.LEFT);
+        this.bind(KeyCode.RIGHT, Command.RIGHT);
+        this.bind(KeyCode.SLASH, Command.ROTATE_CCW);
+        this.bind(KeyCode.UP, Command.ROTATE_CW);
+        this.bind(KeyCode.ENTER, Command.HOLD);
+    }
+
+    /**
+     * Unbinds every key.
+     */
+    public void clear() {
+        for (int i = 0; i < this.commandTable.length; i++) {
+            this.commandTable[i] = Command.NONE;
+        }
+    }
+
+    /**
+     * Binds the given key to the given command. A key has only one command, a command can have many keys.
+     *
+     * @param key
+     * @param command
+     */
+    public void bind(KeyCode key, int command) {
+        if (command < 0 || command >= Command.COUNT) {
+            throw new IllegalArgumentException("Not a command: " + command);
+        }
+        this.commandTable[key.ordinal()] = (byte) command;
+    }
+
+    /**
+     * Returns the command bound to the given key, Command.NONE if it isn't bound.
+     *
+     * @param key
+     * @return int
+     */
+    public int getCommand(KeyCode key) {
+        return this.commandTable[key.ordinal()];
+    }
+
+    /**
+     * Loads bindings from the given config file, replacing the current ones. Returns success or not,
+     * the keymap is left unchanged on failure.
+     *
+     * @param file
+     * @return boolean
+     */
+    public boolean load(File file) {
+        Properties properties = new Properties();
+        try (FileReader reader = new FileReader(file)) {
+            properties.load(reader);
+        } catch (IOException ex) {
+            return false;
+        }
+
+        byte[] loaded = new byte[this.commandTable.length];
+        for (String name : properties.stringPropertyNames()) {
+            int command = Command.fromName(name);
+            if (command == Command.NONE) {
+                System.err.println("Unknown command in keymap: " + name);
+                continue;
+            }
+            for (String keyName : properties.getProperty(name).split(",")) {
+                try {
+                    loaded[KeyCode.valueOf(keyName.trim()).ordinal()] = (byte) command;
+                } catch (IllegalArgumentException ex) {
+                    System.err.println("Unknown key in keymap: " + keyName);
+                }
+            }
+        }
+        System.arraycopy(loaded, 0, this.commandTable, 0, loaded.length);
+        return true;
+    }
+
+    /**
+     * Saves the current bindings to the given config file. Returns success or not.
+     *
+     * @param file
+     * @return boolean
+     */
+    public boolean save(File file) {
+        try (PrintWriter printer = new PrintWriter(new FileWriter(file))) {
+            for (int command = 1; command < Command.COUNT; command++) {
+                StringBuilder keys = new StringBuilder();
+                for (KeyCode key : KeyCode.values()) {
+                    if (this.commandTable[key.ordinal()] == command) {
+                        if (keys.length() > 0) {
+                            keys.append(',');
+                        }
+                        keys.append(key.name());
+                    }
+                }
+                printer.println(Command.getName(command) + "=" + keys);
+            }
+            return true;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+}
@@ -1,22 +1,40 @@
 package GUI;
 
-import javafx.event.ActionEvent;
+import Game_Main.Command;
+import java.util.function.IntConsumer;
 import javafx.event.EventHandler;
 import javafx.scene.input.KeyEvent;
 
 public class KeyboardHandler implements EventHandler<KeyEvent> {
-	private MainViewFX mainView;
+	// Every player's keymap, used to turn the pressed key into a command, and where their commands go.
+	private KeyMap[] keyMaps;
+	private IntConsumer[] players;
 
-	public KeyboardHandler(MainViewFX mv) {
-		this.mainView = mv;
+	public KeyboardHandler(MainViewFX mv, KeyMap keyMap) {
+		this(new KeyMap[] {keyMap}, new IntConsumer[] {mv::keyboardInput});
+	}
+
+	/**
+	 * Creates a handler for several players on one keyboard, a key press goes to every player whose keymap binds it.
+	 *
+	 * @param keyMaps
+	 * @param players
+	 */
+	public KeyboardHandler(KeyMap[] keyMaps, IntConsumer[] players) {
+		this.keyMaps = keyMaps;
+		this.players = players;
 	}
 
 
 	@Override
     public void handle(KeyEvent event) {
-        // Gets the name of the key, aka the unicode character
-        String keyName = event.getCode().getName();
+        // Looks up the command bound to the key, unbound keys are ignored.
+        for (int i = 0; i < this.keyMaps.length; i++) {
+            int command = this.keyMaps[i].getCommand(event.getCode());
 
-        mainView.keyboardInput(keyName);
+            if (command != Command.NONE) {
+                this.players[i].accept(command);
+            }
+        }
     }
 }
\ No newline at end of file
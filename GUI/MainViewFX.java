@@ -1,23 +1,52 @@
 package GUI;
 
 import Blocks.Block;
+import Board.Board;
+import Board.ChunkedBoard;
+import Board.DenseBoard;
+import Blocks.TetrominoSpawner;
 import Blocks.TetrominoView;
+import Game_Main.BoardConfig;
+import Game_Main.FixedRateScheduler;
 import Game_Main.Game;
+import Game_Main.GameEvent;
+import Game_Main.GameEventBus;
+import Game_Main.GameEventListener;
+import Game_Main.GamePosition;
+import Game_Main.LevelTable;
+import Game_Main.PlacementPlanner;
+import Game_Main.PositionCode;
+import Game_Main.Replay;
 import Game_Main.SaverLoader;
+import Game_Main.ScoreIndex;
+import Game_Main.VersusMatch;
+import Net.GameServer;
+import Net.NetClient;
+import Net.Protocol;
+import Net.RollbackClient;
 import java.awt.Dimension;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.function.IntConsumer;
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
-import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
@@ -28,7 +57,7 @@ import javafx.stage.Stage;
  *
  * @author T03-2
  */
-public class MainViewFX extends Application {
+public class MainViewFX extends Application implements GameEventListener, GameView {
 
     // Specific panes
     private FlowPane tetrisPane;
@@ -53,6 +82,12 @@ public class MainViewFX extends Application {
     // Score counting stuff
     private static int lastKnownScore = 0;
     private Label scoreLabel;
+    private Label statsLabel;
+    private Label bestLabel;
+
+    // Who is playing and with what settings, their scores are kept under both (See ScoreStore).
+    private static String playerId;
+    private static BoardConfig boardConfig;
 
     // Main Scene object
     private Scene mainScene;
@@ -60,12 +95,71 @@ public class MainViewFX extends Application {
     // Rectangle representation of the tetris grid
     private Rectangle[][] tetrominos;
     private final int RECTANGLE_SIZE = 16;
+    private final int RECTANGLE_GAP = 4;
+
+    // Draws the falling tetromino and rows coming down between ticks, every JavaFX pulse (See InterpolatedRenderer).
+    private InterpolatedRenderer renderer;
+
+    // Line clear flashes and sparks over the grid (See EffectLayer), off with -Dtetris.effects=false.
+    private EffectLayer effects;
+
+    // Outlines where the falling piece could go with -Dtetris.hints=true (See PlacementHint), null when off or the
+    // grid doesn't fit in the viewport.
+    private PlacementHint hint;
+    private Label hintLabel;
+
+    // Time from pulse to pulse, printed when the game ends with -Dtetris.frameStats=true (E.g. to compare with and
+    // without effects).
+    private final FrameStats frameStats = new FrameStats();
+
+    // The rectangles only show a viewport of the grid, at most this many cells, following the falling tetromino.
+    private final int VIEWPORT_MAX_WIDTH = 40;
+    private final int VIEWPORT_MAX_HEIGHT = 30;
+    private int viewX = 0;
+    private int viewY = 0;
+
+    // Rectangle representation of the held tetromino (Shapes fit in 4 wide by 2 tall)
+    private Rectangle[][] holdRectangles;
+    private final int HOLD_WIDTH = 4;
+    private final int HOLD_HEIGHT = 2;
 
     private static long autoFall;
-    private static long fallChange;
-    private final boolean DIFFICULTY_INCREASE = true;
-    
-    private boolean hasEnded = false;
+
+    // Two players side by side instead of a single game (See startVersus).
+    private static boolean versus;
+    private static boolean giantBoard;
+
+    // Ticks the game(s) on the JavaFX thread. The game gets faster by going up levels (See LevelTable) not by ticking faster.
+    private final FixedRateScheduler scheduler = new FixedRateScheduler(Game.TICKS_PER_SECOND, Platform::runLater);
+
+    // Commands from key presses waiting for the next tick.
+    private final CommandQueue commands = new CommandQueue();
+
+    // The view's place in the game's events, polled after every tick.
+    private GameEventBus.Subscription gameEvents;
+
+    // Records the game so its score can be verified when it is saved (See SaverLoader.SubmitScore).
+    // Not kept for network games, a rollback would record the ticks it plays again.
+    private Replay.Recorder replayRecorder;
+
+    // Plays the game on a server when the tetris.server property is set (See connect).
+    private NetClient netClient;
+
+    // Set once the game (Or versus match) is over, stops the scheduler.
+    private volatile boolean hasEnded = false;
+
+    // Events of ticks up to this one have been shown. A rollback publishes the events of the ticks it plays again,
+    // those only update the labels (See onEvent).
+    private long eventsShownUntil = 0;
+
+    // Config file for the controls, see KeyMap
+    private final File KEYMAP_FILE = new File(System.getProperty("user.dir"), "keymap.cfg");
+
+    // Config file for the second player's controls in versus
+    private final File KEYMAP2_FILE = new File(System.getProperty("user.dir"), "keymap2.cfg");
+
+    // Optional config file for the levels, see LevelTable.load
+    private final File LEVEL_FILE = SaverLoader.getLevelFile();
 
     /**
      * Launches the GUI window.
@@ -84,6 +178,22 @@ public class MainViewFX extends Application {
     @Override
     public void start(Stage primaryStage) {
 
+        // A puzzle (See Game_Main.PositionCode) is checked first, so a bad code is shown before anything is set up.
+        GamePosition position = null;
+        String puzzle = System.getProperty("tetris.puzzle");
+        if (puzzle != null) {
+            try {
+                position = PositionCode.decode(puzzle);
+                new Game(position.getWidth(), position.getHeight(), null).setPosition(position);
+            } catch (IllegalArgumentException e) {
+                AlertBox badPuzzle = new AlertBox(new Dimension(400, 130), "Bad Puzzle",
+                        "Can't play the puzzle code: " + e.getMessage());
+                badPuzzle.display();
+                Platform.exit();
+                return;
+            }
+        }
+
         try {
             // Creates and runs the initialization window
             InitPopup init = new InitPopup();
@@ -97,35 +207,65 @@ public class MainViewFX extends Application {
             // Gets values from the initialization window
             MainViewFX.height = init.getTetrisGridDimensions().height;
             MainViewFX.width = init.getTetrisGridDimensions().width;
-            MainViewFX.myGame = new Game(init.getTetrisGridDimensions().width, init.getTetrisGridDimensions().height, this);
+            MainViewFX.versus = init.isVersus();
+            MainViewFX.giantBoard = init.isGiantBoard();
             MainViewFX.autoFall = init.getAutoFall();
+            MainViewFX.playerId = init.getPlayerId();
+
+            // A puzzle is played on its own grid size.
+            if (position != null) {
+                MainViewFX.width = position.getWidth();
+                MainViewFX.height = position.getHeight();
+            }
+            if (MainViewFX.versus) {
+                this.startVersus(primaryStage);
+                return;
+            }
+            if (init.isGiantBoard()) {
+                MainViewFX.myGame = new Game(new ChunkedBoard(MainViewFX.width, MainViewFX.height), this);
+            } else {
+                MainViewFX.myGame = new Game(MainViewFX.width, MainViewFX.height, this);
+            }
+            MainViewFX.boardConfig = new BoardConfig(MainViewFX.width, MainViewFX.height, init.getAutoFall());
+            String server = System.getProperty("tetris.server");
+            if (position != null) {
+                // Not recorded, a replay can only verify games played from an empty board.
+                MainViewFX.myGame.setLevelTable(this.loadLevelTable());
+                MainViewFX.myGame.setPosition(position);
+            } else if (server != null) {
+                this.connect(server);
+            } else {
+                MainViewFX.myGame.setLevelTable(this.loadLevelTable());
+                this.replayRecorder = new Replay.Recorder(MainViewFX.myGame, MainViewFX.boardConfig, new Random().nextLong());
+            }
+            this.gameEvents = MainViewFX.myGame.getEvents().subscribe();
         } catch (Exception e) {
-            System.err.println("Init Failure");
+            System.err.println("Init Failure" + (e.getMessage() == null ? "" : ": " + e.getMessage()));
             Platform.exit();
+            return;
         }
 
-        // Task to update the GUI and also cause the block to fall down every [MainViewFX.autoFall] Milliseconds.
-        Task task = new Task<Void>() {
-            @Override
-            public Void call() throws Exception {
-                int i = 0;
-                while (myGame.getGameRunning()) {
-                    final int finalI = i;
-                    Platform.runLater(() -> {
-                        keyboardInput("S");
-                        updateRectangles();
-                    });
-                    i++;
-                    Thread.sleep(MainViewFX.autoFall);
-                    //Kaizen_85.newEvent("Drop speed for step: " + MainViewFX.autoFall);
-                    //System.out.println(MainViewFX.autoFall);
-                }
-                return null;
+        // Ticks the game and updates the GUI TICKS_PER_SECOND times a second.
+        this.scheduler.add(() -> {
+            this.tickGame();
+            if (this.replayRecorder != null) {
+                this.replayRecorder.poll();
             }
-        };
-        Thread th = new Thread(task);
-        th.setDaemon(true);
-        th.start();
+            this.gameEvents.poll(this);
+            if (this.hint != null && this.hint.update(MainViewFX.myGame)) {
+                int presses = this.hint.getPresses();
+                this.hintLabel.setText(presses < 0 ? "" : "Hint: " + presses + (presses == 1 ? " press" : " presses"));
+            }
+            this.eventsShownUntil = MainViewFX.myGame.getTickCount();
+            this.renderer.onTick(System.nanoTime());
+            // A network game is only over once the server agrees, a predicted game over may be rolled back.
+            if (this.netClient != null && this.netClient.getClient().isConfirmedOver()) {
+                this.endGame(MainViewFX.myGame.getScore());
+            } else if (this.netClient != null && this.netClient.getClient().isDesynced()) {
+                this.endDesyncedGame();
+            }
+        });
+        this.scheduler.start();
 
         primaryStage.setTitle("Tetris V01");
 
@@ -135,20 +275,110 @@ public class MainViewFX extends Application {
         // Sets panes on top of the root pane
         root.setRight(addHighScorePane());
         root.setLeft(addNextBlockPane());
-        root.setCenter(addTetrisPane());
+        FlowPane tetrisPane = addTetrisPane();
+        this.renderer = new InterpolatedRenderer(MainViewFX.myGame, this.tetrominos, Color.web(this.tetrominoDefaultColor),
+                tetrisPane.getPadding().getLeft(), tetrisPane.getPadding().getTop(), this.RECTANGLE_SIZE + this.RECTANGLE_GAP);
+        double pitch = this.RECTANGLE_SIZE + this.RECTANGLE_GAP;
+        this.effects = new EffectLayer(this.tetrominos[0].length, this.tetrominos.length, tetrisPane.getPadding().getLeft(),
+                tetrisPane.getPadding().getTop(), pitch, this.RECTANGLE_SIZE);
+        this.effects.setEnabled(!"false".equals(System.getProperty("tetris.effects")));
+        if (Boolean.getBoolean("tetris.hints") && MainViewFX.width <= this.VIEWPORT_MAX_WIDTH
+                && MainViewFX.height <= this.VIEWPORT_MAX_HEIGHT
+                && PlacementPlanner.canPlan(MainViewFX.width, MainViewFX.height)) {
+            this.hint = new PlacementHint(MainViewFX.width, MainViewFX.height, tetrisPane.getPadding().getLeft(),
+                    tetrisPane.getPadding().getTop(), pitch, this.RECTANGLE_SIZE);
+            root.setCenter(new Pane(tetrisPane, this.renderer.getOverlay(), this.hint.getPane(), this.effects.getPane()));
+        } else {
+            root.setCenter(new Pane(tetrisPane, this.renderer.getOverlay(), this.effects.getPane()));
+        }
         root.setTop(addScorePane());
 
         // Creates a scene, which is what is actually displayed. Uses the root pane.
         mainScene = new Scene(root);
 
         //setupKeyboard(mainScene);
-        KeyboardHandler keyPressed = new KeyboardHandler(this);
+        KeyboardHandler keyPressed = new KeyboardHandler(this, this.loadKeyMap());
         mainScene.setOnKeyPressed(keyPressed);
 
         // Sets the scene, and shows it to the user.
         primaryStage.setScene(mainScene);
 
         primaryStage.show();
+
+        // Drawn every pulse, as often as the display refreshes (Set with -Djavafx.animation.pulse), not every tick.
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                MainViewFX.this.frameStats.onPulse(now);
+                MainViewFX.this.renderer.render(now, MainViewFX.this.viewX, MainViewFX.this.viewY);
+                MainViewFX.this.effects.render(now, MainViewFX.this.viewX, MainViewFX.this.viewY);
+            }
+        }.start();
+    }
+
+    /**
+     * Starts a two player versus match instead of a single game: a BoardPane for each player side by side, each
+     * with their own keymap, and both games ticked together on the scheduler (See VersusMatch).
+     *
+     * @param primaryStage
+     */
+    private void startVersus(Stage primaryStage) {
+        String[] names = {MainViewFX.playerId, "Player 2"};
+        BoardPane[] panes = new BoardPane[2];
+        Game[] games = new Game[2];
+        // Both players get the same tetrominos.
+        long seed = System.nanoTime();
+        for (int player = 0; player < 2; player++) {
+            panes[player] = new BoardPane(names[player], MainViewFX.width, MainViewFX.height);
+            Board board = MainViewFX.giantBoard ? new ChunkedBoard(MainViewFX.width, MainViewFX.height)
+                    : new DenseBoard(MainViewFX.width, MainViewFX.height);
+            games[player] = new Game(board, panes[player]);
+            games[player].setLevelTable(this.loadLevelTable());
+            games[player].setSeed(seed);
+            panes[player].setGame(games[player]);
+        }
+        VersusMatch match = new VersusMatch(games[0], games[1], seed);
+
+        Label resultLabel = new Label("Clear lines to send garbage, first to top out loses.");
+        this.scheduler.add(() -> {
+            match.tick(panes[0].nextCommand(), panes[1].nextCommand());
+            panes[0].pollEvents();
+            panes[1].pollEvents();
+            if (match.isOver() && !this.hasEnded) {
+                this.hasEnded = true;
+                this.scheduler.stop();
+                String message = match.getWinner() == VersusMatch.DRAW ? "Draw!"
+                        : panes[match.getWinner()].getPlayerName() + " wins!";
+                resultLabel.setText(message);
+                AlertBox endGame = new AlertBox(new Dimension(400,130),"Game Over", message);
+                endGame.display();
+            }
+        });
+
+        primaryStage.setTitle("Tetris V01 - Versus");
+
+        HBox top = new HBox(resultLabel);
+        top.setPadding(new Insets(15, 12, 15, 12));
+        top.setStyle("-fx-background-color: #" + this.hexDelayBox + ";");
+        HBox boards = new HBox(panes[0], panes[1]);
+        boards.setSpacing(10);
+        boards.setStyle("-fx-background-color: #" + this.hexHbox + ";");
+
+        BorderPane root = new BorderPane();
+        root.setTop(top);
+        root.setCenter(boards);
+        mainScene = new Scene(root);
+
+        KeyMap secondKeyMap = new KeyMap();
+        secondKeyMap.setSecondPlayerDefaults();
+        KeyboardHandler keyPressed = new KeyboardHandler(
+                new KeyMap[] {this.loadKeyMap(this.KEYMAP_FILE, new KeyMap()), this.loadKeyMap(this.KEYMAP2_FILE, secondKeyMap)},
+                new IntConsumer[] {panes[0]::keyboardInput, panes[1]::keyboardInput});
+        mainScene.setOnKeyPressed(keyPressed);
+
+        primaryStage.setScene(mainScene);
+        primaryStage.show();
+        this.scheduler.start();
     }
 
     /**
@@ -162,12 +392,14 @@ public class MainViewFX extends Application {
 
         // Sets the spacing for the Rectangle objects within
         tetrisPane.setPadding(new Insets(5, 10, 5, 10));
-        tetrisPane.setVgap(4);
-        tetrisPane.setHgap(4);
-        tetrisPane.setPrefWrapLength(MainViewFX.width * (this.RECTANGLE_SIZE + 4)); // preferred width allows for two columns
+        tetrisPane.setVgap(this.RECTANGLE_GAP);
+        tetrisPane.setHgap(this.RECTANGLE_GAP);
+        int viewWidth = Math.min(MainViewFX.width, this.VIEWPORT_MAX_WIDTH);
+        int viewHeight = Math.min(MainViewFX.height, this.VIEWPORT_MAX_HEIGHT);
+        tetrisPane.setPrefWrapLength(viewWidth * (this.RECTANGLE_SIZE + this.RECTANGLE_GAP)); // preferred width allows for two columns
 
         //System.out.println(this.height + " " + this.width);
-        this.tetrominos = new Rectangle[MainViewFX.height][MainViewFX.width];
+        this.tetrominos = new Rectangle[viewHeight][viewWidth];
 
         // Generates the Rectangle Matrix with default colors
         for (int outer = 0; outer < this.tetrominos.length; outer++) {
@@ -183,12 +415,61 @@ public class MainViewFX extends Application {
     }
 
     /**
-     * Generates a pane for displaying the next 3 tetrominos
+     * Generates a pane for displaying the held tetromino
      *
      * @return Vbox pane
      */
     private VBox addNextBlockPane() {
-        return new VBox();
+        VBox vbox = new VBox();
+        vbox.setPadding(new Insets(12, 15, 12, 15));
+        vbox.setSpacing(10);
+        vbox.setStyle("-fx-background-color: #" + this.hexHighScoreBox + ";");
+
+        vbox.getChildren().add(new Label("Hold"));
+
+        FlowPane holdPane = new FlowPane();
+        holdPane.setStyle("-fx-background-color: #" + this.tetrominoBackgroundColor + ";");
+        holdPane.setPadding(new Insets(5, 5, 5, 5));
+        holdPane.setVgap(4);
+        holdPane.setHgap(4);
+        holdPane.setPrefWrapLength(this.HOLD_WIDTH * (this.RECTANGLE_SIZE + 4));
+
+        this.holdRectangles = new Rectangle[this.HOLD_HEIGHT][this.HOLD_WIDTH];
+        for (int outer = 0; outer < this.HOLD_HEIGHT; outer++) {
+            for (int inner = 0; inner < this.HOLD_WIDTH; inner++) {
+                Rectangle rect = new Rectangle(this.RECTANGLE_SIZE, this.RECTANGLE_SIZE);
+                rect.setFill(Color.web(this.tetrominoDefaultColor));
+                holdPane.getChildren().add(rect);
+                this.holdRectangles[outer][inner] = rect;
+            }
+        }
+        vbox.getChildren().add(holdPane);
+
+        return vbox;
+    }
+
+    /**
+     * Draws the given shape in the hold pane, using the spawn offsets of that shape.
+     *
+     * @param shape
+     * @param c
+     */
+    public void drawHold(int shape, Color c) {
+        if (this.holdRectangles == null) {
+            return;
+        }
+        for (Rectangle[] rectArr : this.holdRectangles) {
+            for (Rectangle rect : rectArr) {
+                rect.setFill(Color.web(this.tetrominoDefaultColor));
+            }
+        }
+        if (shape == TetrominoSpawner.NO_SHAPE) {
+            return;
+        }
+        // Offsets are around the spawn block, which sits in the second column.
+        for (int[] offset : TetrominoSpawner.getShapeOffsets(shape)) {
+            this.holdRectangles[offset[1]][offset[0] + 1].setFill(c);
+        }
     }
 
     private HBox addScorePane() {
@@ -201,21 +482,61 @@ public class MainViewFX extends Application {
         this.scoreLabel.setMinWidth(100);
         hbox.getChildren().add(this.scoreLabel);
 
+        // Player statistics, updated every time a piece is set in place.
+        this.statsLabel = new Label(MainViewFX.myGame == null ? "" : MainViewFX.myGame.getStats().toString());
+        this.statsLabel.setMinWidth(300);
+        hbox.getChildren().add(this.statsLabel);
+
         Button SaveBtn = new Button("Save Score");
         SaveBtn.setOnAction((ActionEvent event) -> {
             // Update scores before saving
             MainViewFX.lastKnownScore = MainViewFX.myGame.getScore();
 
-            // Saves the scores, prints to show success/failure.
-            if (SaverLoader.SaveScore(MainViewFX.lastKnownScore)) {
+            if (this.replayRecorder == null) {
+                System.out.println("Scores of network and puzzle games can't be saved.");
+                return;
+            }
+
+            // Saves the scores once the game's replay is verified, prints to show success/failure.
+            if (SaverLoader.SubmitScore(this.replayRecorder.toReplay())) {
                 System.out.println("Successfully saved highscores.");
             } else {
                 System.out.println("Error saving highscores.");
+                return;
+            }
+
+            // And in the player's own scores.
+            try {
+                SaverLoader.getScoreStore().record(MainViewFX.playerId, MainViewFX.boardConfig,
+                        MainViewFX.lastKnownScore, System.currentTimeMillis());
+                this.updateBest();
+            } catch (IOException e) {
+                System.err.println("Error saving player score: " + e);
             }
         });
 
         hbox.getChildren().add(SaveBtn);
 
+        // Copies the position as a puzzle code (See Game_Main.PositionCode), to play later with -Dtetris.puzzle.
+        Button copyPositionBtn = new Button("Copy Position");
+        copyPositionBtn.setOnAction((ActionEvent event) -> {
+            String code = PositionCode.encode(GamePosition.of(MainViewFX.myGame));
+            ClipboardContent content = new ClipboardContent();
+            content.putString(code);
+            Clipboard.getSystemClipboard().setContent(content);
+            System.out.println("Position: " + code);
+        });
+        hbox.getChildren().add(copyPositionBtn);
+
+        this.bestLabel = new Label();
+        hbox.getChildren().add(this.bestLabel);
+
+        if (this.hint != null) {
+            this.hintLabel = new Label();
+            hbox.getChildren().add(this.hintLabel);
+        }
+        this.updateBest();
+
         return hbox;
     }
 
@@ -241,15 +562,9 @@ public class MainViewFX extends Application {
         boolean success = SaverLoader.LoadScores();
         if (success) {
             int count = 1;
-            int[] shl = SaverLoader.getSortedScoreList();
-            int len = shl.length;
-
-            int labels = 10;
-            if (len < 10) {
-                labels = len;
-            }
-            for (int i = len-1; i >= len-labels; i--) {
-                vbox.getChildren().add(new Label(String.valueOf(count) + ":     " + String.valueOf(shl[i])));
+            int[] top = SaverLoader.getTopScores(10);
+            for (int score : top) {
+                vbox.getChildren().add(new Label(String.valueOf(count) + ":     " + String.valueOf(score)));
                 count++;
             }
             for (int i = count; i <= 10; i++) {
@@ -263,18 +578,119 @@ public class MainViewFX extends Application {
         return vbox;
     }
 
-    public void updateRectangles() {
+    /**
+     * Shows the player's best score with the current settings.
+     */
+    private void updateBest() {
+        if (MainViewFX.playerId == null) {
+            return;
+        }
+        try {
+            int best = SaverLoader.getScoreStore().getBest(MainViewFX.playerId, MainViewFX.boardConfig);
+            this.bestLabel.setText(MainViewFX.playerId + "'s best: " + (best < 0 ? "---" : String.valueOf(best)));
+        } catch (IOException e) {
+            System.err.println("Error loading player scores: " + e);
+        }
+    }
 
-        if (MainViewFX.myGame.getGameRunning()) {
-            checkScore();
-        }else{
-            if(!hasEnded){
-                AlertBox endGame = new AlertBox(new Dimension(400,100),"Game Over", "Game Over!");
-                endGame.display();
-                hasEnded = true;
-            }
+    /**
+     * Updates the view for the game's events: the board is redrawn and the score updated when lines are
+     * cleared, and the game over box is shown when the game ends. Events of ticks a rollback played again only
+     * update the labels, their effects were shown the first time and the rollback redraws the board.
+     *
+     * @param event
+     */
+    @Override
+    public void onEvent(GameEvent event) {
+        boolean replayed = event.getTick() <= this.eventsShownUntil;
+        if (this.hint != null) {
+            this.hint.onEvent(event);
+        }
+        switch (event.getType()) {
+            case GameEvent.LOCKED:
+                this.statsLabel.setText(MainViewFX.myGame.getStats().toString());
+                if (!replayed) {
+                    this.effects.onLocked(MainViewFX.myGame, System.nanoTime());
+                }
+                break;
+            case GameEvent.LINES_CLEARED:
+                if (!replayed) {
+                    this.clearScreen();
+                    this.renderer.onLinesCleared(System.nanoTime());
+                    this.effects.onLinesCleared(MainViewFX.myGame, System.nanoTime(), this.viewX);
+                }
+                MainViewFX.lastKnownScore = event.getScore();
+                this.scoreLabel.setText("" + event.getScore());
+                break;
+            case GameEvent.GAME_OVER:
+                // Network games wait for the server to agree (See start).
+                if (this.netClient == null) {
+                    this.endGame(event.getScore());
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Stops the game, disconnects from the server (If playing on one) and shows the game over box, once.
+     *
+     * @param score
+     */
+    private void endGame(int score) {
+        if (this.hasEnded) {
+            return;
+        }
+        this.hasEnded = true;
+        this.scheduler.stop();
+        this.closeNetClient();
+        if (Boolean.getBoolean("tetris.frameStats")) {
+            System.out.println("Frames: " + this.frameStats + " (Effects " + (this.effects.isEnabled() ? "on" : "off") + ")");
+        }
+        String message = "Game Over!";
+        ScoreIndex scores = SaverLoader.getScoreIndex();
+        if (scores.getTotal() > 0) {
+            message += String.format(" You beat %.1f%% of all games.", scores.percentile(score));
+        }
+        AlertBox endGame = new AlertBox(new Dimension(400,130),"Game Over", message);
+        endGame.display();
+    }
+
+    /**
+     * Stops a network game that no longer agrees with the server's (See Net.RollbackClient.isDesynced) and says so,
+     * once. Its score isn't the server's, so it isn't shown as a game over.
+     */
+    private void endDesyncedGame() {
+        if (this.hasEnded) {
+            return;
         }
+        this.hasEnded = true;
+        this.scheduler.stop();
+        this.closeNetClient();
+        AlertBox error = new AlertBox(new Dimension(400,130), "Network Error",
+                "Lost sync with the server, the game can't carry on.");
+        error.display();
+    }
+
+    /**
+     * Closes the window's game, disconnecting from the server if playing on one.
+     */
+    @Override
+    public void stop() {
+        this.scheduler.stop();
+        this.closeNetClient();
+    }
 
+    private void closeNetClient() {
+        if (this.netClient == null) {
+            return;
+        }
+        try {
+            this.netClient.close();
+        } catch (IOException e) {
+            System.err.println("Network error: " + e.getMessage());
+        }
     }
 
     /**
@@ -290,46 +706,178 @@ public class MainViewFX extends Application {
     }
 
     /**
-     * Checks if score has changed between ticks.
+     * Redraws every cell of the viewport from the game's board.
      */
-    private void checkScore() {
-        if (MainViewFX.lastKnownScore != MainViewFX.myGame.getScore()) {
-            MainViewFX.lastKnownScore = MainViewFX.myGame.getScore();
-            if (DIFFICULTY_INCREASE) {
-                MainViewFX.fallChange = MainViewFX.autoFall / 10;
-                MainViewFX.autoFall -= MainViewFX.fallChange;
+    public void clearScreen() {
+        if (this.tetrominos == null) {
+            return;
+        }
+        Board board = myGame.getBoard();
+        Color empty = Color.web(this.tetrominoDefaultColor);
+        for (int row = 0; row < this.tetrominos.length; row++) {
+            for (int col = 0; col < this.tetrominos[row].length; col++) {
+                Block block = board.get(this.viewX + col, this.viewY + row);
+                Color fill = block == null ? empty : block.getColor();
+                if (!fill.equals(this.tetrominos[row][col].getFill())) {
+                    this.tetrominos[row][col].setFill(fill);
+                }
             }
+        }
+    }
 
-            this.scoreLabel.setText("" + MainViewFX.myGame.getScore());
+    /**
+     * Sets the fill of the rectangle for the given grid cell, if the cell is in the viewport.
+     *
+     * @param x
+     * @param y
+     * @param c
+     */
+    public void fillCell(int x, int y, Color c) {
+        int row = y - this.viewY;
+        int col = x - this.viewX;
+        if (row >= 0 && row < this.tetrominos.length && col >= 0 && col < this.tetrominos[row].length) {
+            this.tetrominos[row][col].setFill(c);
         }
     }
 
-    public void clearScreen() {
-        // Sets every block space to empty (tetrominoDefaultColor)
-        for (Rectangle[] rectArr : this.tetrominos) {
-            for (Rectangle rect : rectArr) {
-                if (!rect.getFill().toString().equals(("0x" + this.tetrominoDefaultColor + "FF").toLowerCase())) {
-                    rect.setFill(Color.web(this.tetrominoDefaultColor));
-                }
+    /**
+     * Sets the rectangle for the given grid cell back to empty, if the cell is in the viewport.
+     *
+     * @param x
+     * @param y
+     */
+    public void emptyCell(int x, int y) {
+        this.fillCell(x, y, Color.web(this.tetrominoDefaultColor));
+    }
+
+    /**
+     * Moves the viewport so the given grid cell is centered in it whenever the cell gets near the edge,
+     * redrawing the viewport if it moved. Does nothing when the whole grid fits in the viewport.
+     *
+     * @param x
+     * @param y
+     */
+    public void followCell(int x, int y) {
+        int viewWidth = this.tetrominos[0].length;
+        int viewHeight = this.tetrominos.length;
+        int newViewX = this.viewX;
+        int newViewY = this.viewY;
+
+        if (x < this.viewX + viewWidth / 4 || x >= this.viewX + viewWidth - viewWidth / 4) {
+            newViewX = Math.max(0, Math.min(MainViewFX.width - viewWidth, x - viewWidth / 2));
+        }
+        if (y < this.viewY + viewHeight / 4 || y >= this.viewY + viewHeight - viewHeight / 4) {
+            newViewY = Math.max(0, Math.min(MainViewFX.height - viewHeight, y - viewHeight / 2));
+        }
+
+        if (newViewX != this.viewX || newViewY != this.viewY) {
+            this.viewX = newViewX;
+            this.viewY = newViewY;
+            this.clearScreen();
+        }
+    }
+
+    /**
+     * Loads the keymap from the keymap file, creating the file with the default controls if there isn't one.
+     *
+     * @return KeyMap
+     */
+    private KeyMap loadKeyMap() {
+        return this.loadKeyMap(this.KEYMAP_FILE, new KeyMap());
+    }
+
+    /**
+     * Loads the given keymap file into the given keymap, creating the file with the keymap's current (Default)
+     * controls if there isn't one.
+     *
+     * @param file
+     * @param keyMap
+     * @return KeyMap
+     */
+    private KeyMap loadKeyMap(File file, KeyMap keyMap) {
+        if (file.exists()) {
+            if (!keyMap.load(file)) {
+                System.err.println("Fail loading keymap file, using default controls");
             }
+        } else if (!keyMap.save(file)) {
+            System.err.println("Fail saving keymap file");
         }
+        return keyMap;
+    }
 
-        // Add any Block colors to the Rectangle Array
-        for (Block block : myGame.getArrayBlocks()) {
-            if (block != null) {
-                if (this.tetrominos[block.getPositionY()][block.getPositionX()].getFill() != Color.web(this.tetrominoDefaultColor)) {
-                    // Error printout broken, do not uncomment, it'll print even if nothing is wrong
-                    // System.err.println("Block overlap detected! " + block.getPositionX() + "X, " + block.getPositionY() + "Y");
-                }
-                this.tetrominos[block.getPositionY()][block.getPositionX()].setFill(block.getColor());
+    /**
+     * Loads the level table from the level file if there is one, otherwise uses the default table starting at
+     * the drop speed chosen in the initialization window.
+     *
+     * @return LevelTable
+     */
+    private LevelTable loadLevelTable() {
+        if (this.LEVEL_FILE.exists()) {
+            try {
+                return LevelTable.load(this.LEVEL_FILE);
+            } catch (FileNotFoundException | IllegalArgumentException e) {
+                System.err.println("Fail loading level file, using default levels: " + e.getMessage());
             }
         }
+        return LevelTable.createDefault((int) MainViewFX.autoFall);
+    }
+
+    /**
+     * Queues a command to be given to the game on the next tick. Commands past the queue size are dropped.
+     *
+     * @param command
+     */
+    public void keyboardInput(int command) {
+        this.commands.add(command);
     }
 
-    public void keyboardInput(String keyName) {
-        if (myGame.getGameRunning()) {
-            myGame.tick(keyName);
-            updateRectangles();
+    /**
+     * Ticks the game with the next queued command, or Command.NONE if nothing is queued.
+     */
+    private void tickGame() {
+        // A network game carries on reading the server's confirms after a predicted game over, it may be rolled back.
+        if (myGame.getGameRunning() || this.netClient != null) {
+            int command = this.commands.next();
+            if (this.netClient == null) {
+                myGame.tick(command);
+                return;
+            }
+            try {
+                this.netClient.tick(command);
+            } catch (IOException e) {
+                // The game carries on locally, and catches up with the server once it can be reached again.
+                System.err.println("Network error: " + e.getMessage());
+            }
         }
     }
+
+    /**
+     * Plays the game on the server at the given address (host:port, see Net.GameServer) with its default levels.
+     * Inputs still show straight away, the view is redrawn whenever the server played one on a different tick
+     * and the game is rolled back (See Net.RollbackClient). The game waits for the server to answer before it
+     * starts, and only ends once the server agrees it is over (Or with an error if it can't agree any more).
+     *
+     * @param server
+     * @throws IOException
+     */
+    private void connect(String server) throws IOException {
+        if (!Protocol.isPlayable(MainViewFX.boardConfig)) {
+            throw new IOException("Grid too big to play over the network: " + MainViewFX.boardConfig);
+        }
+        int colon = server.lastIndexOf(':');
+        String host = colon < 0 ? server : server.substring(0, colon);
+        int port = colon < 0 ? GameServer.DEFAULT_PORT : Integer.parseInt(server.substring(colon + 1));
+        long seed = new Random().nextLong();
+        MainViewFX.myGame.setLevelTable(LevelTable.createDefault(MainViewFX.boardConfig.getSpeed()));
+        MainViewFX.myGame.setSeed(seed);
+        RollbackClient client = new RollbackClient(MainViewFX.myGame, RollbackClient.DEFAULT_WINDOW);
+        client.setRollbackListener(() -> {
+            this.clearScreen();
+            this.scoreLabel.setText("" + MainViewFX.myGame.getScore());
+            if (this.hint != null) {
+                this.hint.refresh();
+            }
+        });
+        this.netClient = new NetClient(client, MainViewFX.boardConfig, seed, new InetSocketAddress(host, port));
+    }
 }
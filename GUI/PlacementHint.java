@@ -0,0 +1,248 @@
+package GUI;
+
+import Blocks.TetrominoModel;
+import Blocks.TetrominoSpawner;
+import Board.Board;
+import Game_Main.Game;
+import Game_Main.GameEvent;
+import Game_Main.GameEventListener;
+import Game_Main.PlacementPlanner;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+
+/**
+ * Outlines where the falling piece could go, on a pane over the grid, and counts the presses that take it there
+ * (See Game_Main.PlacementPlanner). The place is picked when the piece spawns or the board changes under it: of
+ * every place the piece can come to rest, the one leaving the fewest empty cells right under it, then the lowest,
+ * then the fewest presses away. As the piece moves the presses are counted again from where it is, and a new place
+ * is picked if it can't get to the old one any more.
+ *
+ * Pass it the game's events (See onEvent) and call update once they are polled. The outlines are drawn in cells of
+ * the whole grid, for grids that fit in the viewport.
+ *
+ * @author T03-2
+ */
+public class PlacementHint implements GameEventListener {
+
+    private static final Color OUTLINE_COLOR = Color.WHITE;
+    private static final double OUTLINE_WIDTH = 2;
+
+    private final int width;
+    private final int height;
+    private final double originX;
+    private final double originY;
+    private final double pitch;
+
+    private final PlacementPlanner planner;
+    private final long[] rows;
+    private final int[] landings;
+    private final int[] cellX = new int[4];
+    private final int[] cellY = new int[4];
+
+    private final Pane pane = new Pane();
+    private final Rectangle[] outlines = new Rectangle[4];
+
+    // The place picked (Its cells) and the presses from where the piece is, -1 if there is none.
+    private final int[] targetX = new int[4];
+    private final int[] targetY = new int[4];
+    private int presses = -1;
+
+    // Whether a place has to be picked again, or only the presses counted again, on the next update.
+    private boolean choose = false;
+    private boolean follow = false;
+
+    /**
+     * Creates the hint for a grid of the given size (See PlacementPlanner.canPlan), drawn with the first cell's
+     * top left corner at originX, originY in the pane, cells pitch apart and cellSize across.
+     *
+     * @param width
+     * @param height
+     * @param originX
+     * @param originY
+     * @param pitch
+     * @param cellSize
+     */
+    public PlacementHint(int width, int height, double originX, double originY, double pitch, double cellSize) {
+        this.width = width;
+        this.height = height;
+        this.originX = originX;
+        this.originY = originY;
+        this.pitch = pitch;
+        this.planner = new PlacementPlanner(width, height);
+        this.rows = new long[height];
+        this.landings = new int[this.planner.getStates()];
+
+        this.pane.setMouseTransparent(true);
+        for (int i = 0; i < 4; i++) {
+            this.outlines[i] = new Rectangle(cellSize - OUTLINE_WIDTH, cellSize - OUTLINE_WIDTH, Color.TRANSPARENT);
+            this.outlines[i].setStroke(OUTLINE_COLOR);
+            this.outlines[i].setStrokeWidth(OUTLINE_WIDTH);
+            this.outlines[i].setVisible(false);
+            this.pane.getChildren().add(this.outlines[i]);
+        }
+    }
+
+    /**
+     * The pane the outlines are drawn on, put it over the grid.
+     *
+     * @return Pane
+     */
+    public Pane getPane() {
+        return this.pane;
+    }
+
+    /**
+     * Presses that take the falling piece to the place outlined, -1 if there is none.
+     *
+     * @return int
+     */
+    public int getPresses() {
+        return this.presses;
+    }
+
+    @Override
+    public void onEvent(GameEvent event) {
+        switch (event.getType()) {
+            case GameEvent.SPAWNED:
+            case GameEvent.HOLD:
+            case GameEvent.GARBAGE:
+                this.choose = true;
+                break;
+            case GameEvent.MOVED:
+                this.follow = true;
+                break;
+            case GameEvent.LOCKED:
+            case GameEvent.GAME_OVER:
+                this.choose = false;
+                this.follow = false;
+                this.presses = -1;
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Picks a place again on the next update, e.g. once the game has been rolled back.
+     */
+    public void refresh() {
+        this.choose = true;
+    }
+
+    /**
+     * Picks a place or counts the presses again for the events given since the last update and moves the outlines
+     * there, hiding them if there is no place. Returns whether the presses changed.
+     *
+     * @param game
+     * @return boolean
+     */
+    public boolean update(Game game) {
+        int before = this.presses;
+        TetrominoModel piece = game.getTetrominoFalling();
+        if (piece == null || !piece.getFalling() || !game.getGameRunning() || piece.getShape() < 0
+                || piece.getShape() > TetrominoSpawner.I) {
+            this.presses = -1;
+        } else if (this.choose || this.follow) {
+            int rotation = PlacementPlanner.rotationOf(piece);
+            this.load(game.getBoard(), piece);
+            if (rotation < 0) {
+                this.presses = -1;
+            } else if (this.choose || !this.follow(piece, rotation)) {
+                this.choose(piece, rotation);
+            }
+        }
+        this.choose = false;
+        this.follow = false;
+        for (int i = 0; i < 4; i++) {
+            boolean shown = this.presses >= 0;
+            this.outlines[i].setVisible(shown);
+            if (shown) {
+                this.outlines[i].setLayoutX(this.originX + this.targetX[i] * this.pitch + OUTLINE_WIDTH / 2);
+                this.outlines[i].setLayoutY(this.originY + this.targetY[i] * this.pitch + OUTLINE_WIDTH / 2);
+            }
+        }
+        return this.presses != before;
+    }
+
+    /**
+     * Counts the presses to the place picked from where the piece is, returns false if it can't get there.
+     */
+    private boolean follow(TetrominoModel piece, int rotation) {
+        if (this.presses < 0) {
+            return false;
+        }
+        int[] plan = this.planner.plan(this.rows, piece.getShape(), rotation, piece.getBlockX(0), piece.getBlockY(0),
+                this.targetX, this.targetY);
+        if (plan == null) {
+            return false;
+        }
+        this.presses = PlacementPlanner.countPresses(plan);
+        return true;
+    }
+
+    private void choose(TetrominoModel piece, int rotation) {
+        int shape = piece.getShape();
+        int count = this.planner.findLandings(this.rows, shape, this.landings);
+        int bestHoles = Integer.MAX_VALUE;
+        int bestDepth = -1;
+        this.presses = -1;
+        for (int i = 0; i < count; i++) {
+            this.planner.getCells(shape, this.landings[i], this.cellX, this.cellY);
+            int holes = 0;
+            int depth = 0;
+            for (int c = 0; c < 4; c++) {
+                int below = this.cellY[c] + 1;
+                if (below < this.height && (this.rows[below] >>> this.cellX[c] & 1) == 0
+                        && !this.isCell(this.cellX[c], below)) {
+                    holes++;
+                }
+                depth += this.cellY[c];
+            }
+            if (holes > bestHoles || holes == bestHoles && depth < bestDepth) {
+                continue;
+            }
+            int[] plan = this.planner.plan(this.rows, shape, rotation, piece.getBlockX(0), piece.getBlockY(0),
+                    this.cellX, this.cellY);
+            if (plan == null) {
+                continue;
+            }
+            int planPresses = PlacementPlanner.countPresses(plan);
+            if (holes == bestHoles && depth == bestDepth && planPresses >= this.presses) {
+                continue;
+            }
+            bestHoles = holes;
+            bestDepth = depth;
+            this.presses = planPresses;
+            System.arraycopy(this.cellX, 0, this.targetX, 0, 4);
+            System.arraycopy(this.cellY, 0, this.targetY, 0, 4);
+        }
+    }
+
+    private boolean isCell(int x, int y) {
+        for (int c = 0; c < 4; c++) {
+            if (this.cellX[c] == x && this.cellY[c] == y) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The board's filled cells as row masks, without the falling piece's own.
+     */
+    private void load(Board board, TetrominoModel piece) {
+        for (int y = 0; y < this.height; y++) {
+            long row = 0;
+            for (int x = 0; x < this.width; x++) {
+                if (board.get(x, y) != null) {
+                    row |= 1L << x;
+                }
+            }
+            this.rows[y] = row;
+        }
+        for (int i = 0; i < 4; i++) {
+            this.rows[piece.getBlockY(i)] &= ~(1L << piece.getBlockX(i));
+        }
+    }
+}
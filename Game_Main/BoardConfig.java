@@ -0,0 +1,80 @@
+package Game_Main;
+
+/**
+ * The settings a game was played with that make scores comparable: the grid's width and height and the starting
+ * drop speed in milliseconds. Scores are only kept together with others of the same configuration (See ScoreStore).
+ *
+ * @author T03-2
+ */
+public final class BoardConfig {
+
+    private final int width;
+    private final int height;
+    private final int speed;
+
+    public BoardConfig(int width, int height, int speed) {
+        this.width = width;
+        this.height = height;
+        this.speed = speed;
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    public int getSpeed() {
+        return this.speed;
+    }
+
+    /**
+     * Returns a name for the configuration that can be used as a file name, e.g. "10x20@1000".
+     *
+     * @return String
+     */
+    public String getFileName() {
+        return this.width + "x" + this.height + "@" + this.speed;
+    }
+
+    /**
+     * Reads a configuration back from getFileName, or returns null if the name isn't one.
+     *
+     * @param name
+     * @return BoardConfig
+     */
+    public static BoardConfig fromFileName(String name) {
+        int x = name.indexOf('x');
+        int at = name.indexOf('@');
+        if (x < 0 || at < x) {
+            return null;
+        }
+        try {
+            return new BoardConfig(Integer.parseInt(name.substring(0, x)), Integer.parseInt(name.substring(x + 1, at)),
+                    Integer.parseInt(name.substring(at + 1)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof BoardConfig)) {
+            return false;
+        }
+        BoardConfig config = (BoardConfig) other;
+        return this.width == config.width && this.height == config.height && this.speed == config.speed;
+    }
+
+    @Override
+    public int hashCode() {
+        return (this.width * 31 + this.height) * 31 + this.speed;
+    }
+
+    @Override
+    public String toString() {
+        return this.width + " x " + this.height + ", " + this.speed + " ms";
+    }
+}
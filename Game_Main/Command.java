@@ -0,0 +1,53 @@
+package Game_Main;
+
+/**
+ * Command codes understood by the game. Keys are turned into these once (See GUI.KeyMap) so the game
+ * never has to look at key names, and anything else (Replays, tests, bots) can give the game commands directly.
+ *
+ * @author T03-2
+ */
+public final class Command {
+
+    // No command, nothing happens apart from the tick.
+    public static final int NONE = 0;
+    public static final int SOFT_DROP = 1;
+    public static final int LEFT = 2;
+    public static final int RIGHT = 3;
+    public static final int ROTATE_CCW = 4;
+    public static final int ROTATE_CW = 5;
+    public static final int HOLD = 6;
+
+    // Amount of command codes, every code is in the range [0, COUNT).
+    public static final int COUNT = 7;
+
+    // Names used for each command code in the keymap config file, indexed by code.
+    private static final String[] NAMES = {"None", "SoftDrop", "Left", "Right", "RotateCCW", "RotateCW", "Hold"};
+
+    private Command() {
+    }
+
+    /**
+     * Returns the name of the given command code.
+     *
+     * @param command
+     * @return String
+     */
+    public static String getName(int command) {
+        return NAMES[command];
+    }
+
+    /**
+     * Returns the command code with the given name, or NONE if there is no such command.
+     *
+     * @param name
+     * @return int
+     */
+    public static int fromName(String name) {
+        for (int i = 0; i < COUNT; i++) {
+            if (NAMES[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,78 @@
+package Game_Main;
+
+import java.util.Arrays;
+
+/**
+ * Records the command given to a game on each tick so the same commands can be injected again later.
+ * Commands are kept as a plain byte array, one entry per tick.
+ *
+ * @author T03-2
+ */
+public class CommandRecorder {
+
+    // Commands given so far, one per tick.
+    private byte[] commands = new byte[1024];
+    private int size = 0;
+
+    /**
+     * Adds the command given on the next tick.
+     *
+     * @param command
+     */
+    public void record(int command) {
+        if (this.size == this.commands.length) {
+            this.commands = Arrays.copyOf(this.commands, this.commands.length * 2);
+        }
+        this.commands[this.size] = (byte) command;
+        this.size++;
+    }
+
+    /**
+     * Amount of ticks recorded.
+     *
+     * @return int
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the command given on the given tick.
+     *
+     * @param tick
+     * @return int
+     */
+    public int get(int tick) {
+        if (tick < 0 || tick >= this.size) {
+            throw new IndexOutOfBoundsException("Tick " + tick + " was not recorded.");
+        }
+        return this.commands[tick];
+    }
+
+    /**
+     * Returns a copy of the recorded commands, one per tick.
+     *
+     * @return byte[]
+     */
+    public byte[] toArray() {
+        return Arrays.copyOf(this.commands, this.size);
+    }
+
+    /**
+     * Removes every recorded command.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Injects every recorded command into the given game, one tick each, stopping if the game ends.
+     *
+     * @param game
+     */
+    public void replay(Game game) {
+        for (int i = 0; i < this.size && game.getGameRunning(); i++) {
+            game.tick(this.commands[i]);
+        }
+    }
+}
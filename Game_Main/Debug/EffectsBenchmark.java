@@ -0,0 +1,250 @@
+package Game_Main.Debug;
+
+import Blocks.TetrominoSpawner;
+import GUI.EffectLayer;
+import GUI.FrameStats;
+import GUI.InterpolatedRenderer;
+import Game_Main.Command;
+import Game_Main.Game;
+import Game_Main.GameEvent;
+import Game_Main.GameEventBus;
+import Game_Main.GameEventListener;
+import Game_Main.GamePosition;
+import Game_Main.PlacementPlanner;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import javafx.animation.AnimationTimer;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.stage.Stage;
+
+/**
+ * Times frames with and without line clear effects (See GUI.EffectLayer) in a window drawn the way MainViewFX
+ * draws the game: a 10 x 20 grid of rectangles with the renderer's overlay and the effects over it. Each round
+ * drops a straight piece into a well four rows deep for a Tetris and carries on until AFTER_CLEAR_NANOS after it
+ * (When the effects are over), so both ways draw the same frames. Frames are timed from pulse to pulse (See
+ * GUI.FrameStats), so JavaFX syncing and rendering the effects' nodes is counted too. Run it with
+ * -Dprism.vsync=false -Djavafx.animation.fullspeed=true, otherwise every frame takes the display's refresh interval.
+ *
+ * Also counts the bytes drawing frames and starting effects allocate over the rounds after the first, and in how
+ * many rounds. That should be none, everything is made up front, but the JIT can allocate the odd few bytes in a
+ * frame whether effects are on or not.
+ *
+ * Arguments: [rounds]
+ *
+ * @author T03-2
+ */
+public class EffectsBenchmark {
+
+    public static void main(String[] args) {
+        // Launched through a class that isn't the Application, JavaFX is on the class path rather than a module.
+        Application.launch(Window.class, args);
+    }
+
+    /**
+     * The window the frames are drawn in.
+     */
+    public static class Window extends Application {
+
+        private static final int WIDTH = 10;
+        private static final int HEIGHT = 20;
+
+        private static final long TICK_NANOS = 1000000000L / Game.TICKS_PER_SECOND;
+
+        private static final long AFTER_CLEAR_NANOS = Math.max(EffectLayer.SPARK_NANOS,
+                Math.max(EffectLayer.FLASH_NANOS, InterpolatedRenderer.COLLAPSE_NANOS));
+
+        private static final double SIZE = 16;
+        private static final double PITCH = 20;
+
+        private static final com.sun.management.ThreadMXBean THREADS =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        // Warms up both ways first, then the order doesn't favour either.
+        private static final boolean[] RUNS_ENABLED = {true, false, false, true};
+        private static final boolean[] RUNS_WARMUP = {true, true, false, false};
+
+        private int rounds;
+        private int run = 0;
+        private int round = 0;
+
+        private Game game;
+        private InterpolatedRenderer renderer;
+        private EffectLayer effects;
+        private GameEventBus.Subscription events;
+        private Effects listener;
+        private GamePosition well;
+        private final FrameStats frames = new FrameStats();
+
+        private long nextTick = -1;
+        private long allocated = 0;
+        private int allocatingRounds = 0;
+        private long roundAllocated = 0;
+
+        @Override
+        public void start(Stage stage) {
+            List<String> args = this.getParameters().getRaw();
+            this.rounds = args.isEmpty() ? 200 : Integer.parseInt(args.get(0));
+
+            Pane grid = new Pane();
+            Rectangle[][] cells = new Rectangle[HEIGHT][WIDTH];
+            for (int row = 0; row < HEIGHT; row++) {
+                for (int col = 0; col < WIDTH; col++) {
+                    cells[row][col] = new Rectangle(SIZE, SIZE, Color.GRAY);
+                    cells[row][col].setLayoutX(col * PITCH);
+                    cells[row][col].setLayoutY(row * PITCH);
+                    grid.getChildren().add(cells[row][col]);
+                }
+            }
+            this.game = new Game(WIDTH, HEIGHT, null);
+            this.renderer = new InterpolatedRenderer(this.game, cells, Color.GRAY, 0, 0, PITCH);
+            this.effects = new EffectLayer(WIDTH, HEIGHT, 0, 0, PITCH, SIZE);
+            this.events = this.game.getEvents().subscribe();
+            this.listener = new Effects(this.game, this.renderer, this.effects);
+            this.well = well();
+
+            stage.setTitle("Effects Benchmark");
+            stage.setScene(new Scene(new Pane(grid, this.renderer.getOverlay(), this.effects.getPane()),
+                    WIDTH * PITCH, HEIGHT * PITCH, Color.BLACK));
+            stage.show();
+
+            this.startRun();
+            new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    Window.this.frame(this, now);
+                }
+            }.start();
+        }
+
+        private void startRun() {
+            this.effects.setEnabled(RUNS_ENABLED[this.run]);
+            this.frames.reset();
+            this.round = 0;
+            this.allocated = 0;
+            this.allocatingRounds = 0;
+            this.listener.tetrises = 0;
+            this.nextTick = -1;
+        }
+
+        private void startRound(long now) {
+            this.game.setPosition(this.well);
+            this.renderer.onTick(now);
+            this.listener.cleared = false;
+            this.roundAllocated = this.allocated;
+        }
+
+        /**
+         * Plays the ticks due by now, draws the frame and moves on to the next round (And run) when the effects are
+         * over.
+         */
+        private void frame(AnimationTimer timer, long now) {
+            int runRounds = RUNS_WARMUP[this.run] ? Math.max(1, this.rounds / 4) : this.rounds;
+            if (this.nextTick < 0) {
+                this.nextTick = now;
+                this.startRound(now);
+            } else if (this.listener.cleared && now - this.listener.clearTime > AFTER_CLEAR_NANOS) {
+                this.allocatingRounds += this.allocated != this.roundAllocated ? 1 : 0;
+                if (++this.round == runRounds) {
+                    if (!RUNS_WARMUP[this.run]) {
+                        System.out.printf("Effects %s: %d rounds (%d Tetrises), %s, %d bytes allocated drawing and "
+                                + "starting effects in %d rounds after the first%n", RUNS_ENABLED[this.run] ? "on" : "off",
+                                runRounds, this.listener.tetrises, this.frames, this.allocated, this.allocatingRounds);
+                    }
+                    if (++this.run == RUNS_ENABLED.length) {
+                        timer.stop();
+                        Platform.exit();
+                        return;
+                    }
+                    this.startRun();
+                    this.nextTick = now;
+                }
+                this.startRound(now);
+            }
+            this.frames.onPulse(now);
+
+            while (this.nextTick <= now) {
+                // The game allocates ticking, only starting the effects is counted.
+                this.game.tick(this.listener.cleared ? Command.NONE : Command.SOFT_DROP);
+                this.listener.now = this.nextTick;
+                long before = THREADS.getCurrentThreadAllocatedBytes();
+                this.events.poll(this.listener);
+                if (this.round > 0) {
+                    this.allocated += THREADS.getCurrentThreadAllocatedBytes() - before;
+                }
+                this.renderer.onTick(this.nextTick);
+                this.nextTick += TICK_NANOS;
+            }
+
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            this.renderer.render(now, 0, 0);
+            this.effects.render(now, 0, 0);
+            if (this.round > 0) {
+                this.allocated += THREADS.getCurrentThreadAllocatedBytes() - before;
+            }
+        }
+
+        /**
+         * Starts the effects for the game's events, like MainViewFX.onEvent.
+         */
+        private static class Effects implements GameEventListener {
+
+            private final Game game;
+            private final InterpolatedRenderer renderer;
+            private final EffectLayer effects;
+
+            // When the tick the events are from was, whether and when the round's lines were cleared and how many Tetrises.
+            private long now;
+            private boolean cleared;
+            private long clearTime;
+            private long tetrises = 0;
+
+            private Effects(Game game, InterpolatedRenderer renderer, EffectLayer effects) {
+                this.game = game;
+                this.renderer = renderer;
+                this.effects = effects;
+            }
+
+            @Override
+            public void onEvent(GameEvent event) {
+                if (event.getType() == GameEvent.LOCKED) {
+                    this.effects.onLocked(this.game, this.now);
+                } else if (event.getType() == GameEvent.LINES_CLEARED) {
+                    this.renderer.onLinesCleared(this.now);
+                    this.effects.onLinesCleared(this.game, this.now, 0);
+                    this.tetrises += event.getLines() == 4 ? 1 : 0;
+                    this.cleared = true;
+                    this.clearTime = this.now;
+                }
+            }
+        }
+
+        /**
+         * Every cell of the bottom four rows filled but the last column, with a straight piece standing up above it.
+         */
+        private static GamePosition well() {
+            GamePosition position = new GamePosition(WIDTH, HEIGHT);
+            for (int y = HEIGHT - 4; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH - 1; x++) {
+                    position.setFilled(x, y, true);
+                }
+            }
+            int[] cellX = new int[4];
+            int[] cellY = new int[4];
+            for (int r = 0; r < PlacementPlanner.getRotations(TetrominoSpawner.I); r++) {
+                PlacementPlanner.getCells(TetrominoSpawner.I, r, 0, 0, cellX, cellY);
+                if (cellX[0] == cellX[3]) {
+                    int top = Math.min(Math.min(cellY[0], cellY[1]), Math.min(cellY[2], cellY[3]));
+                    position.setActive(TetrominoSpawner.I, r, WIDTH - 1 - cellX[0], -top);
+                    break;
+                }
+            }
+            position.addQueue(TetrominoSpawner.I);
+            return position;
+        }
+    }
+}
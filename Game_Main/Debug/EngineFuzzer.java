@@ -0,0 +1,231 @@
+package Game_Main.Debug;
+
+import Blocks.TetrominoView;
+import Board.Board;
+import Game_Main.Command;
+import Game_Main.Game;
+import Game_Main.LevelTable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Runs random command sequences through the game and a ReferenceModel side by side, checking after every tick
+ * that the board, falling piece, held shape, score, level and game over all agree. Used to make sure optimising
+ * the engine doesn't change how it plays.
+ *
+ * Each case is made from one seed: a small random grid, a random level table (Slow to 20G gravity, short to long
+ * lock delays) and a random command sequence. A failing case is shrunk by removing commands for as long as it still
+ * fails, then printed with its seed so it can be run again.
+ *
+ * Arguments: [seed] [seconds] [max ticks per case]. It runs until the time is up and reports cases and ticks per
+ * second, so it can be left running as a soak test.
+ *
+ * @author T03-2
+ */
+public class EngineFuzzer {
+
+    public static void main(String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : System.nanoTime();
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 10;
+        int maxTicks = args.length > 2 ? Integer.parseInt(args[2]) : 400;
+
+        System.out.println("Fuzzing from seed " + seed + " for " + seconds + " s, up to " + maxTicks + " ticks per case");
+
+        Random seeds = new Random(seed);
+        long cases = 0;
+        long ticks = 0;
+        long start = System.nanoTime();
+        long end = start + (long) (seconds * 1e9);
+        long nextReport = start + 1000000000L;
+
+        while (System.nanoTime() < end) {
+            Case c = new Case(seeds.nextLong(), maxTicks);
+            String failure = c.run(c.commands);
+            ticks += c.ticksRun;
+            cases++;
+            if (failure != null) {
+                c.shrink();
+                System.out.println("FAILED after " + cases + " cases: " + c);
+                System.out.println(c.run(c.commands));
+                return;
+            }
+            long now = System.nanoTime();
+            if (now > nextReport) {
+                report(cases, ticks, now - start);
+                nextReport = now + 1000000000L;
+            }
+        }
+        report(cases, ticks, System.nanoTime() - start);
+        System.out.println("No differences found.");
+    }
+
+    /**
+     * Runs the given amount of cases made from the seed, returning the first (Shrunk) failure or null.
+     *
+     * @param seed
+     * @param cases
+     * @param maxTicks
+     * @return String
+     */
+    public static String fuzz(long seed, int cases, int maxTicks) {
+        Random seeds = new Random(seed);
+        for (int i = 0; i < cases; i++) {
+            Case c = new Case(seeds.nextLong(), maxTicks);
+            if (c.run(c.commands) != null) {
+                c.shrink();
+                return c + "\n" + c.run(c.commands);
+            }
+        }
+        return null;
+    }
+
+    private static void report(long cases, long ticks, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%d cases, %d ticks: %.0f cases/s, %.0f ticks/s%n", cases, ticks, cases / seconds, ticks / seconds);
+    }
+
+    /**
+     * One grid, level table and command sequence, all made from a seed.
+     */
+    static class Case {
+
+        private final long seed;
+        private final int width;
+        private final int height;
+        private final LevelTable table;
+        private List<Integer> commands = new ArrayList<>();
+
+        private long ticksRun;
+
+        Case(long seed, int maxTicks) {
+            this.seed = seed;
+            Random random = new Random(seed);
+            this.width = 5 + random.nextInt(8);
+            this.height = 4 + random.nextInt(14);
+
+            int levels = 1 + random.nextInt(4);
+            int[] gravity = new int[levels];
+            int[] lockDelay = new int[levels];
+            int[] softDrop = new int[levels];
+            for (int i = 0; i < levels; i++) {
+                int[] choices = {LevelTable.ONE_CELL / 60, LevelTable.ONE_CELL / 3, LevelTable.ONE_CELL,
+                    LevelTable.ONE_CELL * 3 + 7, LevelTable.GRAVITY_20G};
+                gravity[i] = choices[random.nextInt(choices.length)];
+                lockDelay[i] = random.nextInt(4) == 0 ? 0 : random.nextInt(40);
+                softDrop[i] = 1 + random.nextInt(30);
+            }
+            this.table = new LevelTable(gravity, lockDelay, softDrop, 1 + random.nextInt(3));
+
+            int length = 1 + random.nextInt(maxTicks);
+            // Mostly no input, like a player, with bursts of moves.
+            for (int i = 0; i < length; i++) {
+                this.commands.add(random.nextInt(3) == 0 ? Command.NONE : random.nextInt(Command.COUNT));
+            }
+        }
+
+        /**
+         * Runs the commands through both, returning a description of the first difference or null if there is none.
+         */
+        String run(List<Integer> sequence) {
+            Game game = new Game(this.width, this.height, null);
+            game.setSeed(this.seed);
+            game.setLevelTable(this.table);
+            ReferenceModel model = new ReferenceModel(this.width, this.height, this.table, this.seed);
+
+            this.ticksRun = 0;
+            for (int tick = 0; tick < sequence.size(); tick++) {
+                int command = sequence.get(tick);
+                game.tick(command);
+                model.tick(command);
+                this.ticksRun++;
+
+                String difference = compare(game, model);
+                if (difference != null) {
+                    return "Tick " + tick + " (" + Command.getName(command) + "): " + difference;
+                }
+                if (!model.isRunning()) {
+                    break;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Removes chunks of commands, from half the sequence down to single commands, as long as it still fails.
+         */
+        void shrink() {
+            for (int chunk = this.commands.size() / 2; chunk >= 1; chunk /= 2) {
+                for (int from = 0; from + chunk <= this.commands.size(); ) {
+                    List<Integer> shorter = new ArrayList<>(this.commands.subList(0, from));
+                    shorter.addAll(this.commands.subList(from + chunk, this.commands.size()));
+                    if (this.run(shorter) != null) {
+                        this.commands = shorter;
+                    } else {
+                        from += chunk;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            text.append("seed ").append(this.seed).append(", ").append(this.width).append(" x ").append(this.height)
+                    .append(", ").append(this.commands.size()).append(" commands:");
+            for (int command : this.commands) {
+                text.append(' ').append(Command.getName(command));
+            }
+            return text.toString();
+        }
+    }
+
+    /**
+     * Returns what differs between the game and the model, or null if they agree.
+     */
+    static String compare(Game game, ReferenceModel model) {
+        if (game.getGameRunning() != model.isRunning()) {
+            return "game over " + !game.getGameRunning() + " != " + !model.isRunning();
+        }
+        if (game.getScore() != model.getScore()) {
+            return "score " + game.getScore() + " != " + model.getScore();
+        }
+        if (!model.isRunning()) {
+            // How far the last piece got once the game ended isn't part of the rules.
+            return null;
+        }
+        if (game.getLevel() != model.getLevel()) {
+            return "level " + game.getLevel() + " != " + model.getLevel();
+        }
+        if (game.getHoldShape() != model.getHoldShape()) {
+            return "held shape " + game.getHoldShape() + " != " + model.getHoldShape();
+        }
+
+        TetrominoView piece = game.getTetrominoFalling();
+        boolean falling = piece != null && piece.getFalling();
+        if (falling != model.hasPiece()) {
+            return "falling piece " + falling + " != " + model.hasPiece();
+        }
+        if (falling) {
+            if (piece.getShape() != model.getShape()) {
+                return "shape " + piece.getShape() + " != " + model.getShape();
+            }
+            for (int i = 0; i < 4; i++) {
+                if (piece.getBlockX(i) != model.getPieceX(i) || piece.getBlockY(i) != model.getPieceY(i)) {
+                    return "block " + i + " at (" + piece.getBlockX(i) + ", " + piece.getBlockY(i) + ") != ("
+                            + model.getPieceX(i) + ", " + model.getPieceY(i) + ")";
+                }
+            }
+        }
+
+        Board board = game.getBoard();
+        for (int y = 0; y < game.getGridHeight(); y++) {
+            for (int x = 0; x < game.getGridWidth(); x++) {
+                if ((board.get(x, y) != null) != model.isFilled(x, y)) {
+                    return "cell (" + x + ", " + y + ") " + (board.get(x, y) != null) + " != " + model.isFilled(x, y);
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,103 @@
+package Game_Main.Debug;
+
+import Game_Main.BoardConfig;
+import Game_Main.Command;
+import Game_Main.Game;
+import Game_Main.Replay;
+import Net.GameServer;
+import Net.LatencySimulator;
+import Net.NetClient;
+import Net.RollbackClient;
+import Net.ServerSession;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays a game with random inputs against a GameServer through a LatencySimulator, in real time, and reports
+ * how often and how far the client rolled back and the longest a rollback took (Compared with a 60 Hz frame).
+ * At the end the client's game is checked against the server's. The server's input delay is kept short by
+ * default so there is something to roll back.
+ *
+ * Arguments: [seconds] [latencyMs] [jitterMs] [lossPercent] [inputDelayTicks]
+ *
+ * @author T03-2
+ */
+public class NetplayBenchmark {
+
+    private static final BoardConfig CONFIG = new BoardConfig(10, 40, 1000);
+
+    public static void main(String[] args) throws IOException {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        int latency = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        int jitter = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+        double loss = args.length > 3 ? Double.parseDouble(args[3]) / 100 : 0.05;
+        int delay = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+        int ticks = seconds * Game.TICKS_PER_SECOND;
+
+        try (GameServer server = new GameServer(new InetSocketAddress("localhost", 0),
+                delay, ticks);
+             LatencySimulator simulator = new LatencySimulator(server.getPort(), 0, latency, jitter, loss, 1)) {
+            server.start();
+            simulator.start();
+
+            long seed = 1;
+            Game game = Replay.createGame(CONFIG, seed);
+            RollbackClient client = new RollbackClient(game, RollbackClient.DEFAULT_WINDOW);
+            try (NetClient net = new NetClient(client, CONFIG, seed,
+                    new InetSocketAddress("localhost", simulator.getPort()))) {
+                Random random = new Random(2);
+                long period = 1000000000L / Game.TICKS_PER_SECOND;
+                long next = System.nanoTime();
+                // The client only starts playing once the server answers, so count the ticks it played.
+                while (client.getTick() < ticks && game.getGameRunning()) {
+                    net.tick(random.nextInt(8) == 0 ? 1 + random.nextInt(Command.COUNT - 1) : Command.NONE);
+                    next += period;
+                    long wait;
+                    while ((wait = next - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+
+                // Wait for the server to confirm every tick played, then take the last rollback.
+                long deadline = System.nanoTime() + 5000000000L;
+                while (client.getConfirmedUntil() < client.getTick() && System.nanoTime() < deadline) {
+                    LockSupport.parkNanos(period);
+                    net.poll();
+                }
+                client.reconcile();
+            }
+            server.stop();
+
+            System.out.printf("%d ticks at %d ms latency, %d ms jitter, %.0f%% loss, %d ticks input delay "
+                    + "(%d datagrams relayed, %d dropped)%n", client.getTick(), latency, jitter, loss * 100, delay,
+                    simulator.getRelayed(), simulator.getDropped());
+            long rollbacks = Math.max(1, client.getRollbacks());
+            System.out.printf("%d rollbacks of %.1f ticks in %.3f ms on average, longest %d ticks, slowest %.3f ms "
+                    + "(Frame: %.3f ms)%n", client.getRollbacks(), client.getTicksReplayed() / (double) rollbacks,
+                    client.getRollbackNanos() / 1e6 / rollbacks, client.getMaxRollbackTicks(),
+                    client.getMaxRollbackNanos() / 1e6, 1000.0 / Game.TICKS_PER_SECOND);
+            if (client.isDesynced()) {
+                System.out.println("FAILED: a rollback was further back than the window.");
+            }
+            ServerSession session = server.getSessions().get(0);
+            if (client.getConfirmedUntil() < client.getTick()) {
+                System.out.println("FAILED: only confirmed up to tick " + client.getConfirmedUntil());
+            } else if (!Arrays.equals(state(game), state(session.getGame()))) {
+                System.out.println("FAILED: the client's game differs from the server's.");
+            } else {
+                System.out.println("Client and server agree, score " + game.getScore());
+            }
+        }
+    }
+
+    private static byte[] state(Game game) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        game.writeState(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,110 @@
+package Game_Main.Debug;
+
+import Board.Board;
+import Board.DenseBoard;
+import Board.OffHeapBoard;
+import Game_Main.Command;
+import Game_Main.Game;
+import Game_Main.LevelTable;
+import java.lang.foreign.Arena;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Runs many games at once on DenseBoards and then on OffHeapBoards (From one shared arena), reporting the heap
+ * still in use with every game alive and the garbage collections done while playing them.
+ *
+ * Needs the Foreign Function & Memory API (Java 22 or newer, or Java 21 with --enable-preview):
+ *     javac Board/OffHeapBoard.java Game_Main/Debug/OffHeapBenchmark.java
+ *     java Game_Main.Debug.OffHeapBenchmark [games] [ticks] [heap|offheap|both]
+ *
+ * @author T03-2
+ */
+public class OffHeapBenchmark {
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        String mode = args.length > 2 ? args[2] : "both";
+
+        System.out.printf("%d games of 10x20, %d ticks each%n", games, ticks);
+        System.out.printf("%-8s %14s %14s %10s %12s %12s%n", "board", "live heap MB", "off heap MB", "GCs", "GC ms", "ticks/s");
+        if (!mode.equals("offheap")) {
+            run("heap", games, ticks, null);
+        }
+        if (!mode.equals("heap")) {
+            try (Arena arena = Arena.ofShared()) {
+                run("offheap", games, ticks, arena);
+            }
+        }
+    }
+
+    /**
+     * Creates and plays the games, on DenseBoards if arena is null, otherwise on OffHeapBoards from the arena.
+     */
+    private static void run(String name, int games, int ticks, Arena arena) {
+        Random random = new Random(233);
+        LevelTable fast = new LevelTable(new int[] {LevelTable.ONE_CELL}, new int[] {0}, new int[] {1}, 1);
+
+        Game[] sessions = new Game[games];
+        long offHeapBytes = 0;
+        for (int i = 0; i < games; i++) {
+            Board board;
+            if (arena == null) {
+                board = new DenseBoard(10, 20);
+            } else {
+                OffHeapBoard offHeap = new OffHeapBoard(10, 20, arena);
+                offHeapBytes += offHeap.getByteSize();
+                board = offHeap;
+            }
+            sessions[i] = new Game(board, null);
+            sessions[i].setLevelTable(fast);
+        }
+
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTime();
+        long start = System.nanoTime();
+        long ticksDone = 0;
+        for (int t = 0; t < ticks; t++) {
+            for (Game game : sessions) {
+                if (game.getGameRunning()) {
+                    game.tick(random.nextInt(Command.COUNT));
+                    ticksDone++;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        long gcs = gcCount() - gcCountBefore;
+        long gcMillis = gcTime() - gcTimeBefore;
+
+        // Live heap with every game still referenced.
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        long liveHeap = runtime.totalMemory() - runtime.freeMemory();
+
+        System.out.printf("%-8s %14.1f %14.1f %10d %12d %12.0f%n", name, liveHeap / 1048576.0, offHeapBytes / 1048576.0,
+                gcs, gcMillis, ticksDone * 1e9 / elapsed);
+
+        // Keep the games alive until after the heap was measured.
+        if (sessions[0].getScore() < 0) {
+            System.out.println();
+        }
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return time;
+    }
+}
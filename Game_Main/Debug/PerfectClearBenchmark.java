@@ -0,0 +1,267 @@
+package Game_Main.Debug;
+
+import Blocks.Block;
+import Blocks.TetrominoController;
+import Blocks.TetrominoModel;
+import Blocks.TetrominoSpawner;
+import Board.DenseBoard;
+import Game_Main.Game;
+import Game_Main.PerfectClearSolver;
+import Game_Main.PlacementPlanner;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Times PerfectClearSolver on a fixed set of positions on a 10 x 20 board and checks every solution with the real
+ * rules.
+ *
+ * The positions are the start of a game, an empty board with the first bag and four pieces of the next one
+ * (Shuffled from the seed), and the boards part way through each of those that was solved, three and six pieces
+ * in, with the rest of its queue. Each solution is played out: every piece is spawned like the game does, taken to
+ * its placement with the commands PlacementPlanner gives for it (Holding where the solution says), has to land
+ * there, and the board has to be empty at the end.
+ *
+ * Arguments: [games] [threads] [seed]
+ *
+ * @author T03-2
+ */
+public class PerfectClearBenchmark {
+
+    private static final int WIDTH = 10;
+    private static final int HEIGHT = 20;
+    private static final int LINES = 4;
+
+    // Pieces known at the start of a game.
+    private static final int QUEUE = 11;
+
+    // Pieces into each solution that it is asked again from.
+    private static final int[] PART_WAY = {3, 6};
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+
+        PerfectClearSolver solver = new PerfectClearSolver(WIDTH, LINES, threads);
+        try {
+            // Once to warm up, once timed.
+            run(solver, seed, games, null);
+            long[] timing = new long[4];
+            String failure = run(solver, seed, games, timing);
+            if (failure != null) {
+                System.out.println("FAILED: " + failure);
+                return;
+            }
+            System.out.printf("%d positions, %d solved, every solution checked with the real rules (%d threads)%n",
+                    timing[0], timing[1], threads);
+            System.out.printf("%.1f ms per position on average, %.1f ms at most, %.0f boards searched per position%n",
+                    timing[2] / 1e6 / timing[0], timing[3] / 1e6, (double) solver.getNodes() / 2 / timing[0]);
+        } finally {
+            solver.close();
+        }
+    }
+
+    /**
+     * Solves the positions of the given amount of games from the seed and checks every solution, returning the
+     * first failure or null.
+     *
+     * @param seed
+     * @param games
+     * @param threads
+     * @return String
+     */
+    public static String check(long seed, int games, int threads) {
+        PerfectClearSolver solver = new PerfectClearSolver(WIDTH, LINES, threads);
+        try {
+            return run(solver, seed, games, null);
+        } finally {
+            solver.close();
+        }
+    }
+
+    /**
+     * timing, if given, gets the amount of positions, how many were solved, the total nanoseconds and the most for
+     * one position.
+     */
+    private static String run(PerfectClearSolver solver, long seed, int games, long[] timing) {
+        Random random = new Random(seed);
+        for (int game = 0; game < games; game++) {
+            List<Integer> bags = new ArrayList<>();
+            for (int bag = 0; bag < 2; bag++) {
+                List<Integer> shapes = new ArrayList<>();
+                for (int shape = 0; shape <= TetrominoSpawner.I; shape++) {
+                    shapes.add(shape);
+                }
+                Collections.shuffle(shapes, random);
+                bags.addAll(shapes);
+            }
+            int[] queue = new int[QUEUE];
+            for (int i = 0; i < QUEUE; i++) {
+                queue[i] = bags.get(i);
+            }
+
+            long[] rows = new long[HEIGHT];
+            PerfectClearSolver.Placement[] solution = solve(solver, rows, queue, TetrominoSpawner.NO_SHAPE, timing);
+            String failure = verify(rows, queue, TetrominoSpawner.NO_SHAPE, solution);
+            if (failure != null) {
+                return "game " + game + ": " + failure;
+            }
+            if (solution == null) {
+                continue;
+            }
+
+            // Ask again part way through, with what is left of the queue.
+            for (int placed : PART_WAY) {
+                if (placed >= solution.length) {
+                    continue;
+                }
+                long[] partWay = rows.clone();
+                int hold = TetrominoSpawner.NO_SHAPE;
+                int next = 0;
+                for (int p = 0; p < placed; p++) {
+                    int current = queue[next];
+                    if (solution[p].isHold()) {
+                        next += hold == TetrominoSpawner.NO_SHAPE ? 2 : 1;
+                        hold = current;
+                    } else {
+                        next++;
+                    }
+                    setInPlace(partWay, solution[p]);
+                }
+                int[] left = Arrays.copyOfRange(queue, next, queue.length);
+                PerfectClearSolver.Placement[] rest = solve(solver, partWay, left, hold, timing);
+                failure = verify(partWay, left, hold, rest);
+                if (failure == null && rest == null) {
+                    failure = "no solution found where one was before";
+                }
+                if (failure != null) {
+                    return "game " + game + ", " + placed + " pieces in: " + failure;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static PerfectClearSolver.Placement[] solve(PerfectClearSolver solver, long[] rows, int[] queue, int hold,
+            long[] timing) {
+        long start = System.nanoTime();
+        PerfectClearSolver.Placement[] solution = solver.solve(rows, queue, hold);
+        long nanos = System.nanoTime() - start;
+        if (timing != null) {
+            timing[0]++;
+            timing[1] += solution == null ? 0 : 1;
+            timing[2] += nanos;
+            timing[3] = Math.max(timing[3], nanos);
+        }
+        return solution;
+    }
+
+    /**
+     * Plays the solution out from the board with TetrominoModel, returning what went wrong or null.
+     */
+    private static String verify(long[] start, int[] queue, int hold, PerfectClearSolver.Placement[] solution) {
+        if (solution == null) {
+            return null;
+        }
+        DenseBoard board = new DenseBoard(WIDTH, HEIGHT);
+        Game game = new Game(board, null);
+        TetrominoSpawner spawner = new TetrominoSpawner(game);
+        Block filled = new Block(game, null, 0, 0);
+        PlacementPlanner planner = new PlacementPlanner(WIDTH, HEIGHT);
+        long[] rows = start.clone();
+        int[] targetX = new int[4];
+        int[] targetY = new int[4];
+        int next = 0;
+
+        for (int p = 0; p < solution.length; p++) {
+            PerfectClearSolver.Placement placement = solution[p];
+            int current = next < queue.length ? queue[next] : TetrominoSpawner.NO_SHAPE;
+            if (placement.isHold()) {
+                // With nothing held the next piece comes, the last held piece can be swapped for one not known yet.
+                int coming = hold != TetrominoSpawner.NO_SHAPE ? hold
+                        : next + 1 < queue.length ? queue[next + 1] : TetrominoSpawner.NO_SHAPE;
+                next += hold == TetrominoSpawner.NO_SHAPE ? 2 : 1;
+                hold = current;
+                current = coming;
+            } else {
+                next++;
+            }
+            if (current != placement.getShape()) {
+                return "placement " + p + " is a " + placement.getShape() + " but the piece is a " + current;
+            }
+
+            board.clear();
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    if ((rows[y] & 1L << x) != 0) {
+                        board.set(x, y, filled);
+                    }
+                }
+            }
+            TetrominoModel spawned = spawner.spawnTetromino(current, null);
+            if (spawned == null) {
+                return "placement " + p + " can't spawn";
+            }
+            for (int i = 0; i < 4; i++) {
+                targetX[i] = placement.getCellX(i);
+                targetY[i] = placement.getCellY(i);
+            }
+            int[] plan = planner.plan(board, spawned, targetX, targetY);
+            if (plan == null) {
+                return "placement " + p + " can't be reached from the spawn";
+            }
+            TetrominoController piece = new TetrominoController(spawned);
+            for (int command : plan) {
+                piece.movePiece(command);
+            }
+            if (piece.canMove(0, 1)) {
+                return "placement " + p + " doesn't land";
+            }
+            if (!covers(piece, targetX, targetY)) {
+                return "placement " + p + " is missed";
+            }
+            setInPlace(rows, placement);
+        }
+        for (long row : rows) {
+            if (row != 0) {
+                return "the board isn't empty at the end";
+            }
+        }
+        return null;
+    }
+
+    private static boolean covers(TetrominoModel piece, int[] targetX, int[] targetY) {
+        for (int i = 0; i < 4; i++) {
+            boolean found = false;
+            for (int j = 0; j < 4 && !found; j++) {
+                found = piece.getBlockX(i) == targetX[j] && piece.getBlockY(i) == targetY[j];
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fills the placement's cells and clears full rows.
+     */
+    private static void setInPlace(long[] rows, PerfectClearSolver.Placement placement) {
+        for (int i = 0; i < 4; i++) {
+            rows[placement.getCellY(i)] |= 1L << placement.getCellX(i);
+        }
+        long full = (1L << WIDTH) - 1;
+        int to = HEIGHT - 1;
+        for (int from = HEIGHT - 1; from >= 0; from--) {
+            if (rows[from] != full) {
+                rows[to--] = rows[from];
+            }
+        }
+        while (to >= 0) {
+            rows[to--] = 0;
+        }
+    }
+}
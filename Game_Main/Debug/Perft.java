@@ -0,0 +1,341 @@
+package Game_Main.Debug;
+
+import Blocks.Block;
+import Blocks.TetrominoModel;
+import Blocks.TetrominoSpawner;
+import Board.DenseBoard;
+import Game_Main.Game;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts every different board that can be reached by placing a sequence of pieces, like perft in chess engines.
+ * Every move and rotation is made with TetrominoModel on a real board, so the counts check the movement and
+ * collision code and the time taken measures how fast it is.
+ *
+ * From each board the next piece spawns and is moved left, right, down and rotated both ways in every way
+ * possible (Gravity and hold aren't used). Every position where it can't move down is a placement, the piece is
+ * set in place and full rows are cleared. Boards reached more than one way are only counted (And expanded) once.
+ *
+ * Arguments: [pieces, e.g. TLJ] [threads] [width] [height], or "check" to compare the standard positions with
+ * their known counts.
+ *
+ * @author T03-2
+ */
+public class Perft {
+
+    private static final String SHAPE_NAMES = "TLJSZOI";
+
+    // Standard positions: pieces placed on an empty 10 x 20 grid, with the amount of boards after each piece.
+    // Single pieces are the well known placement counts, the longer sequences were checked with a separate
+    // implementation of the rules. (LJTI, the default benchmark, reaches 744013 boards at depth 4.)
+    private static final String[] STANDARD_PIECES = {"T", "L", "J", "S", "Z", "O", "I", "TI", "OSZ", "LJT"};
+    private static final long[][] STANDARD_COUNTS = {
+        {34}, {34}, {34}, {17}, {17}, {9}, {17}, {34, 596}, {9, 153, 2699}, {34, 1168, 41811}
+    };
+
+    private final int width;
+    private final int height;
+    private final int threads;
+    private final int wordsPerRow;
+
+    private final AtomicLong nodes = new AtomicLong();
+
+    public Perft(int width, int height, int threads) {
+        if (width > 255 || height > 255) {
+            throw new IllegalArgumentException("Perft only supports grids up to 255 x 255");
+        }
+        this.width = width;
+        this.height = height;
+        this.threads = Math.max(1, threads);
+        this.wordsPerRow = (width + 63) / 64;
+    }
+
+    /**
+     * Returns the amount of different boards after each piece of the sequence, starting from an empty grid.
+     *
+     * @param shapes
+     * @return long[]
+     */
+    public long[] run(int[] shapes) {
+        return this.run(new long[this.height * this.wordsPerRow], shapes);
+    }
+
+    /**
+     * Returns the amount of different boards after each piece of the sequence, starting from a board given as row
+     * masks (See Board.RowScan).
+     *
+     * @param start
+     * @param shapes
+     * @return long[]
+     */
+    public long[] run(long[] start, int[] shapes) {
+        long[] counts = new long[shapes.length];
+        List<Position> frontier = new ArrayList<>();
+        frontier.add(new Position(start.clone()));
+
+        for (int depth = 0; depth < shapes.length; depth++) {
+            Set<Position> next = ConcurrentHashMap.newKeySet();
+            int shape = shapes[depth];
+            List<Position> boards = frontier;
+            AtomicInteger taken = new AtomicInteger();
+
+            Runnable expand = () -> {
+                Worker worker = new Worker();
+                int i;
+                while ((i = taken.getAndIncrement()) < boards.size()) {
+                    worker.expand(boards.get(i), shape, next);
+                }
+            };
+            if (this.threads == 1 || boards.size() == 1) {
+                expand.run();
+            } else {
+                Thread[] pool = new Thread[this.threads];
+                for (int t = 0; t < pool.length; t++) {
+                    pool[t] = new Thread(expand, "Perft " + t);
+                    pool[t].start();
+                }
+                for (Thread thread : pool) {
+                    try {
+                        thread.join();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return counts;
+                    }
+                }
+            }
+
+            counts[depth] = next.size();
+            frontier = new ArrayList<>(next);
+        }
+        return counts;
+    }
+
+    /**
+     * Amount of piece positions visited so far.
+     *
+     * @return long
+     */
+    public long getNodes() {
+        return this.nodes.get();
+    }
+
+    /**
+     * A board by its row masks, compared by value.
+     */
+    private static class Position {
+
+        private final long[] masks;
+        private final int hash;
+
+        private Position(long[] masks) {
+            this.masks = masks;
+            this.hash = Arrays.hashCode(masks);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Position && Arrays.equals(this.masks, ((Position) other).masks);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    /**
+     * A game of its own for one thread to move pieces around on.
+     */
+    private class Worker {
+
+        private final DenseBoard board = new DenseBoard(Perft.this.width, Perft.this.height);
+        private final Game game = new Game(this.board, null);
+        private final TetrominoSpawner spawner = new TetrominoSpawner(this.game);
+        private final Block filled = new Block(this.game, null, 0, 0);
+
+        // Piece positions seen from the current board, see key.
+        private long[] seen = new long[1024];
+        private int seenCount = 0;
+
+        private void load(long[] masks) {
+            this.board.clear();
+            for (int y = 0; y < Perft.this.height; y++) {
+                for (int x = 0; x < Perft.this.width; x++) {
+                    if ((masks[y * Perft.this.wordsPerRow + x / 64] & (1L << x)) != 0) {
+                        this.board.set(x, y, this.filled);
+                    }
+                }
+            }
+        }
+
+        void expand(Position position, int shape, Set<Position> next) {
+            this.load(position.masks);
+            TetrominoModel spawned = this.spawner.spawnTetromino(shape, null);
+            if (spawned == null) {
+                return;
+            }
+
+            Arrays.fill(this.seen, 0);
+            this.seenCount = 0;
+            List<TetrominoModel> queue = new ArrayList<>();
+            queue.add(spawned);
+            this.markSeen(spawned);
+            long visited = 0;
+
+            for (int i = 0; i < queue.size(); i++) {
+                TetrominoModel piece = queue.get(i);
+                visited++;
+                this.tryMove(piece, queue, 1, 0, 0);
+                this.tryMove(piece, queue, -1, 0, 0);
+                this.tryMove(piece, queue, 0, 1, 0);
+                this.tryMove(piece, queue, 0, 0, 1);
+                this.tryMove(piece, queue, 0, 0, -1);
+
+                if (!piece.canMove(0, 1)) {
+                    next.add(new Position(this.place(position.masks, piece)));
+                }
+            }
+            Perft.this.nodes.addAndGet(visited);
+        }
+
+        private void tryMove(TetrominoModel piece, List<TetrominoModel> queue, int dx, int dy, int turn) {
+            TetrominoModel moved = new TetrominoModel(piece);
+            boolean ok = turn == 0 ? moved.move(dx, dy) : moved.rotate(turn > 0);
+            if (ok && this.markSeen(moved)) {
+                queue.add(moved);
+            }
+        }
+
+        /**
+         * Returns the masks of the board with the piece set in place and full rows cleared.
+         */
+        private long[] place(long[] masks, TetrominoModel piece) {
+            int words = Perft.this.wordsPerRow;
+            long[] placed = masks.clone();
+            for (int i = 0; i < 4; i++) {
+                int x = piece.getBlockX(i);
+                placed[piece.getBlockY(i) * words + x / 64] |= 1L << x;
+            }
+
+            long lastWord = Perft.this.width % 64 == 0 ? -1L : (1L << Perft.this.width) - 1;
+            int to = Perft.this.height - 1;
+            for (int from = Perft.this.height - 1; from >= 0; from--) {
+                boolean full = true;
+                for (int w = 0; w < words && full; w++) {
+                    full = placed[from * words + w] == (w == words - 1 ? lastWord : -1L);
+                }
+                if (!full) {
+                    System.arraycopy(placed, from * words, placed, to * words, words);
+                    to--;
+                }
+            }
+            Arrays.fill(placed, 0, (to + 1) * words, 0);
+            return placed;
+        }
+
+        /**
+         * Packs where the piece's four blocks are (In order, since the first is the one it turns around).
+         */
+        private long key(TetrominoModel piece) {
+            long key = 0;
+            for (int i = 0; i < 4; i++) {
+                key = key << 16 | piece.getBlockX(i) << 8 | piece.getBlockY(i);
+            }
+            return key;
+        }
+
+        /**
+         * Adds the piece's position to the positions seen, returning false if it was already there.
+         * An open addressing set where 0 is empty, which no position packs to since blocks can't share a cell.
+         */
+        private boolean markSeen(TetrominoModel piece) {
+            if (this.seenCount * 2 >= this.seen.length) {
+                long[] old = this.seen;
+                this.seen = new long[old.length * 2];
+                this.seenCount = 0;
+                for (long key : old) {
+                    if (key != 0) {
+                        this.insert(key);
+                    }
+                }
+            }
+            return this.insert(this.key(piece));
+        }
+
+        private boolean insert(long key) {
+            int mask = this.seen.length - 1;
+            int slot = (int) (key * 0x9E3779B97F4A7C15L >>> 40) & mask;
+            while (this.seen[slot] != 0) {
+                if (this.seen[slot] == key) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            this.seen[slot] = key;
+            this.seenCount++;
+            return true;
+        }
+    }
+
+    /**
+     * Turns piece letters (T, L, J, S, Z, O, I) into shapes.
+     *
+     * @param pieces
+     * @return int[]
+     */
+    public static int[] parseShapes(String pieces) {
+        int[] shapes = new int[pieces.length()];
+        for (int i = 0; i < shapes.length; i++) {
+            shapes[i] = SHAPE_NAMES.indexOf(Character.toUpperCase(pieces.charAt(i)));
+            if (shapes[i] < 0) {
+                throw new IllegalArgumentException("Unknown piece: " + pieces.charAt(i));
+            }
+        }
+        return shapes;
+    }
+
+    /**
+     * Runs the standard positions, returning whether every count was the known one.
+     *
+     * @param threads
+     * @return boolean
+     */
+    public static boolean check(int threads) {
+        boolean passed = true;
+        for (int i = 0; i < STANDARD_PIECES.length; i++) {
+            long[] counts = new Perft(10, 20, threads).run(parseShapes(STANDARD_PIECES[i]));
+            boolean same = Arrays.equals(counts, STANDARD_COUNTS[i]);
+            System.out.println(STANDARD_PIECES[i] + ": " + Arrays.toString(counts) + (same ? " ok" : " expected "
+                    + Arrays.toString(STANDARD_COUNTS[i])));
+            passed &= same;
+        }
+        return passed;
+    }
+
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("check")) {
+            int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+            System.exit(check(threads) ? 0 : 1);
+        }
+        String pieces = args.length > 0 ? args[0] : "LJTI";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int width = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int height = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+
+        Perft perft = new Perft(width, height, threads);
+        long start = System.nanoTime();
+        long[] counts = perft.run(parseShapes(pieces));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        for (int i = 0; i < counts.length; i++) {
+            System.out.println("Depth " + (i + 1) + " (" + pieces.charAt(i) + "): " + counts[i] + " boards");
+        }
+        System.out.printf("%d nodes in %.2f s, %.0f nodes/s (%d threads)%n", perft.getNodes(), seconds,
+                perft.getNodes() / seconds, threads);
+    }
+}
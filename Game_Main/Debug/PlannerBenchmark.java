@@ -0,0 +1,165 @@
+package Game_Main.Debug;
+
+import Blocks.TetrominoController;
+import Blocks.TetrominoView;
+import Game_Main.Command;
+import Game_Main.Game;
+import Game_Main.LevelTable;
+import Game_Main.PlacementPlanner;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Times PlacementPlanner on the boards of random games and checks every plan with the real rules.
+ *
+ * Targets are found by a random walk: the falling piece is moved and turned at random (With
+ * TetrominoController.movePiece) and then dropped until it lands, so every target can be reached. The plan is then
+ * played with movePiece from where the piece was, and has to end on the target in no more presses than the walk.
+ *
+ * Arguments: [plans] [width] [height] [seed]
+ *
+ * @author T03-2
+ */
+public class PlannerBenchmark {
+
+    // Random commands for each walk, before dropping.
+    private static final int WALK = 40;
+
+    /**
+     * The planner a run uses and the nanoseconds it spent on plans from the open surface tables and on searches.
+     */
+    private static final class Timing {
+
+        private final PlacementPlanner planner;
+        private long fastNanos = 0;
+        private long searchNanos = 0;
+
+        private Timing(PlacementPlanner planner) {
+            this.planner = planner;
+        }
+    }
+
+    public static void main(String[] args) {
+        int plans = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int width = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int height = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+
+        // Once to warm up, once timed.
+        run(seed, plans / 10, width, height, new Timing(new PlacementPlanner(width, height)));
+        Timing timing = new Timing(new PlacementPlanner(width, height));
+        String failure = run(seed + 1, plans, width, height, timing);
+        if (failure != null) {
+            System.out.println("FAILED: " + failure);
+            return;
+        }
+        long fast = timing.planner.getFastPlans();
+        long searched = timing.planner.getSearches();
+        System.out.printf("%d plans on %d x %d: %d from the open surface tables (%.3f us each), %d searched (%.3f us each)%n",
+                fast + searched, width, height, fast, timing.fastNanos / 1e3 / Math.max(1, fast), searched,
+                timing.searchNanos / 1e3 / Math.max(1, searched));
+        System.out.printf("%.3f us per plan on average, every plan checked with the real rules%n",
+                (timing.fastNanos + timing.searchNanos) / 1e3 / (fast + searched));
+    }
+
+    /**
+     * Plans the given amount of random targets from the seed on 10 x 20 boards, returning the first failure or null.
+     *
+     * @param seed
+     * @param plans
+     * @return String
+     */
+    public static String check(long seed, int plans) {
+        return run(seed, plans, 10, 20, new Timing(new PlacementPlanner(10, 20)));
+    }
+
+    /**
+     * Plays random games, planning a random walk's target every few ticks with the timing's planner.
+     */
+    private static String run(long seed, int plans, int width, int height, Timing timing) {
+        Random random = new Random(seed);
+        PlacementPlanner planner = timing.planner;
+        int[] targetX = new int[4];
+        int[] targetY = new int[4];
+        int planned = 0;
+        Game game = null;
+
+        while (planned < plans) {
+            if (game == null || !game.getGameRunning()) {
+                game = new Game(width, height, null);
+                // Fast enough that stacks build up and there is something to plan around.
+                game.setLevelTable(LevelTable.createDefault(100));
+                game.setSeed(random.nextLong());
+            }
+            game.tick(random.nextInt(3) == 0 ? 1 + random.nextInt(Command.COUNT - 2) : Command.NONE);
+            TetrominoView falling = game.getTetrominoFalling();
+            if (falling == null || !falling.getFalling() || !game.getGameRunning()) {
+                continue;
+            }
+
+            // The falling piece is on the board between ticks, moves are made with it off the board like tick does.
+            game.removeTetromino(falling);
+            TetrominoController walk = new TetrominoController(falling);
+            int walkPresses = 0;
+            int last = Command.NONE;
+            for (int i = 0; i < WALK; i++) {
+                int command = 1 + random.nextInt(Command.ROTATE_CW);
+                walk.movePiece(command);
+                if (command != Command.SOFT_DROP || last != Command.SOFT_DROP) {
+                    walkPresses++;
+                }
+                last = command;
+            }
+            walk.placeTetromino();
+            walkPresses++;
+            for (int i = 0; i < 4; i++) {
+                targetX[i] = walk.getBlockX(i);
+                targetY[i] = walk.getBlockY(i);
+            }
+            game.updateTetromino(falling);
+
+            long before = planner.getSearches();
+            long start = System.nanoTime();
+            int[] plan = planner.plan(game.getBoard(), falling, targetX, targetY);
+            long nanos = System.nanoTime() - start;
+            if (planner.getSearches() > before) {
+                timing.searchNanos += nanos;
+            } else {
+                timing.fastNanos += nanos;
+            }
+            planned++;
+
+            if (plan == null) {
+                return "seed " + seed + ", plan " + planned + ": no plan found for a reachable target";
+            }
+            if (PlacementPlanner.countPresses(plan) > walkPresses) {
+                return "seed " + seed + ", plan " + planned + ": " + PlacementPlanner.countPresses(plan)
+                        + " presses planned but the walk took " + walkPresses;
+            }
+
+            game.removeTetromino(falling);
+            TetrominoController played = new TetrominoController(falling);
+            for (int command : plan) {
+                played.movePiece(command);
+            }
+            game.updateTetromino(falling);
+            if (!sameCells(played, targetX, targetY)) {
+                return "seed " + seed + ", plan " + planned + ": " + Arrays.toString(plan) + " misses the target";
+            }
+        }
+        return null;
+    }
+
+    private static boolean sameCells(TetrominoController piece, int[] targetX, int[] targetY) {
+        for (int i = 0; i < 4; i++) {
+            boolean found = false;
+            for (int j = 0; j < 4 && !found; j++) {
+                found = piece.getBlockX(i) == targetX[j] && piece.getBlockY(i) == targetY[j];
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,102 @@
+package Game_Main.Debug;
+
+import Blocks.TetrominoSpawner;
+import Game_Main.Command;
+import Game_Main.Game;
+import Game_Main.GamePosition;
+import Game_Main.PositionCode;
+import java.util.Random;
+
+/**
+ * Times writing and reading PositionCode codes in bulk, for positions taken from random games on a 10 x 20 grid
+ * (With a few shapes queued to come). Every position is checked to read back the same as it was written first.
+ * Writing reuses one StringBuilder and reading one PositionCode and GamePosition, like a tool going through a file
+ * of puzzles would.
+ *
+ * Arguments: [positions] [rounds]
+ *
+ * @author T03-2
+ */
+public class PositionCodeBenchmark {
+
+    private static final int WIDTH = 10;
+    private static final int HEIGHT = 20;
+
+    // Ticks between the positions taken from a game.
+    private static final int TICKS_APART = 40;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        GamePosition[] positions = positions(count, new Random(1));
+
+        String[] codes = new String[count];
+        long chars = 0;
+        PositionCode reader = new PositionCode();
+        GamePosition read = new GamePosition();
+        for (int i = 0; i < count; i++) {
+            codes[i] = PositionCode.encode(positions[i]);
+            chars += codes[i].length();
+            reader.read(codes[i], read);
+            if (!read.equals(positions[i])) {
+                System.out.println("FAILED: position " + i + " reads back differently from " + codes[i]);
+                return;
+            }
+        }
+        System.out.printf("%d positions, every one reads back the same, %.1f characters on average%n", count,
+                (double) chars / count);
+
+        StringBuilder code = new StringBuilder(256);
+        long check = 0;
+        long encodeNanos = Long.MAX_VALUE;
+        long decodeNanos = Long.MAX_VALUE;
+        // The fastest round of each, the first rounds warm up.
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            for (GamePosition position : positions) {
+                code.setLength(0);
+                PositionCode.encode(position, code);
+                check += code.length();
+            }
+            encodeNanos = Math.min(encodeNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (String c : codes) {
+                reader.read(c, read);
+                check += read.getQueueLength();
+            }
+            decodeNanos = Math.min(decodeNanos, System.nanoTime() - start);
+        }
+        System.out.printf("Writing: %.0f ns per position, reading: %.0f ns per position (%d)%n",
+                (double) encodeNanos / count, (double) decodeNanos / count, check % 10);
+    }
+
+    /**
+     * Plays random games, taking a position every TICKS_APART ticks and starting a new game when one ends.
+     */
+    private static GamePosition[] positions(int count, Random random) {
+        GamePosition[] positions = new GamePosition[count];
+        Game game = null;
+        int taken = 0;
+        while (taken < count) {
+            if (game == null || !game.getGameRunning()) {
+                game = new Game(WIDTH, HEIGHT, null);
+                game.setSeed(random.nextLong());
+            }
+            for (int t = 0; t < TICKS_APART && game.getGameRunning(); t++) {
+                game.tick(random.nextInt(4) == 0 ? 1 + random.nextInt(Command.COUNT - 1) : Command.NONE);
+            }
+            if (!game.getGameRunning()) {
+                continue;
+            }
+            GamePosition position = GamePosition.of(game);
+            int queued = random.nextInt(15);
+            for (int i = 0; i < queued; i++) {
+                position.addQueue(random.nextInt(TetrominoSpawner.I + 1));
+            }
+            positions[taken++] = position;
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,341 @@
+package Game_Main.Debug;
+
+import Blocks.TetrominoSpawner;
+import Game_Main.Command;
+import Game_Main.LevelTable;
+import java.util.Random;
+
+/**
+ * A deliberately plain version of the game's rules, kept as simple as possible so it is easy to check by reading,
+ * for EngineFuzzer to compare the real engine against. It only knows which cells are filled, there are no blocks,
+ * views, boards or events, and nothing is optimised.
+ *
+ * Rules, in the order a tick applies them:
+ * - If there is no falling piece, the next shape of the bag (Shuffled like TetrominoSpawner does) spawns around
+ *   the spawn position. If any of its cells is outside the grid or filled, the game is over.
+ * - The command: left/right move one cell if every cell they move to is free. Rotating turns every block around
+ *   the first one (The straight piece flips between horizontal and vertical). Each block moves sideways to its new
+ *   column first and then up or down to its new row, and the rotation only happens if every cell passed through
+ *   is free. Soft drop multiplies gravity. Hold (Once per piece) swaps with the held shape, respawning it at the
+ *   spawn position, or stores the piece and spawns the next shape.
+ * - Gravity adds up fractions of a cell (LevelTable) and drops the piece as far as it can up to the whole cells
+ *   built up. A piece that can't fall counts lock ticks, resetting when it drops, and locks once they pass the
+ *   lock delay, or straight away when soft dropped without falling.
+ * - A locked piece fills its cells, full rows are removed with everything above moving down, each one scoring a
+ *   point and counting towards the next level.
+ *
+ * @author T03-2
+ */
+public class ReferenceModel {
+
+    private final int width;
+    private final int height;
+    private final LevelTable table;
+
+    // Filled cells, [y][x], not counting the falling piece.
+    private final boolean[][] filled;
+
+    private final int spawnX;
+    private final int spawnY;
+
+    private final Random random;
+    private final int[] order = {TetrominoSpawner.T, TetrominoSpawner.L, TetrominoSpawner.J, TetrominoSpawner.S,
+        TetrominoSpawner.Z, TetrominoSpawner.O, TetrominoSpawner.I};
+    private int bagIndex = 7;
+
+    // The falling piece, its shape and the cells of its four blocks (Block 0 is the one it turns around).
+    private boolean hasPiece = false;
+    private int shape = TetrominoSpawner.NO_SHAPE;
+    private final int[] pieceX = new int[4];
+    private final int[] pieceY = new int[4];
+
+    private int holdShape = TetrominoSpawner.NO_SHAPE;
+    private boolean heldThisPiece = false;
+
+    private int score = 0;
+    private int level = 0;
+    private int clearsThisLevel = 0;
+    private int gravityProgress = 0;
+    private int lockTicks = 0;
+    private boolean running = true;
+
+    public ReferenceModel(int width, int height, LevelTable table, long seed) {
+        this.width = width;
+        this.height = height;
+        this.table = table;
+        this.filled = new boolean[height][width];
+        this.spawnX = width / 2;
+        this.spawnY = 0;
+        this.random = new Random(seed);
+    }
+
+    public void tick(int command) {
+        if (!this.hasPiece) {
+            this.spawnNext();
+            if (!this.running) {
+                return;
+            }
+        }
+
+        boolean softDrop = false;
+        switch (command) {
+            case Command.LEFT:
+                this.shift(-1);
+                break;
+            case Command.RIGHT:
+                this.shift(1);
+                break;
+            case Command.ROTATE_CW:
+                this.rotate(true);
+                break;
+            case Command.ROTATE_CCW:
+                this.rotate(false);
+                break;
+            case Command.SOFT_DROP:
+                softDrop = true;
+                break;
+            case Command.HOLD:
+                this.hold();
+                break;
+            default:
+                break;
+        }
+
+        if (this.running && this.hasPiece) {
+            this.gravity(softDrop);
+        }
+    }
+
+    private void spawnNext() {
+        if (this.bagIndex == this.order.length) {
+            this.bagIndex = 0;
+            for (int i = 0; i < 20; i++) {
+                int a = this.random.nextInt(this.order.length);
+                int b = this.random.nextInt(this.order.length);
+                int swap = this.order[a];
+                this.order[a] = this.order[b];
+                this.order[b] = swap;
+            }
+        }
+        int next = this.order[this.bagIndex];
+        this.bagIndex++;
+
+        if (this.spawn(next)) {
+            this.heldThisPiece = false;
+        } else {
+            this.running = false;
+        }
+    }
+
+    /**
+     * Puts a piece of the shape at the spawn position if all its cells are free.
+     */
+    private boolean spawn(int newShape) {
+        int[][] offsets = TetrominoSpawner.getShapeOffsets(newShape);
+        for (int i = 0; i < 4; i++) {
+            if (!this.isFree(this.spawnX + offsets[i][0], this.spawnY + offsets[i][1])) {
+                return false;
+            }
+        }
+        for (int i = 0; i < 4; i++) {
+            this.pieceX[i] = this.spawnX + offsets[i][0];
+            this.pieceY[i] = this.spawnY + offsets[i][1];
+        }
+        this.shape = newShape;
+        this.hasPiece = true;
+        this.gravityProgress = 0;
+        this.lockTicks = 0;
+        return true;
+    }
+
+    private boolean isFree(int x, int y) {
+        return x >= 0 && x < this.width && y >= 0 && y < this.height && !this.filled[y][x];
+    }
+
+    private void shift(int dx) {
+        for (int i = 0; i < 4; i++) {
+            if (!this.isFree(this.pieceX[i] + dx, this.pieceY[i])) {
+                return;
+            }
+        }
+        for (int i = 0; i < 4; i++) {
+            this.pieceX[i] += dx;
+        }
+    }
+
+    private void rotate(boolean clockwise) {
+        int[] newX = new int[4];
+        int[] newY = new int[4];
+        int cx = this.pieceX[0];
+        int cy = this.pieceY[0];
+        newX[0] = cx;
+        newY[0] = cy;
+        boolean vertical = this.pieceX[0] == this.pieceX[1];
+        for (int i = 1; i < 4; i++) {
+            int dx = this.pieceX[i] - cx;
+            int dy = this.pieceY[i] - cy;
+            if (this.shape == TetrominoSpawner.I) {
+                // The same both ways: a row becomes a column and a column a row.
+                newX[i] = vertical ? cx + dy : cx;
+                newY[i] = vertical ? cy : cy + dx;
+            } else if (clockwise) {
+                // y is down, so clockwise takes right (1, 0) to down (0, 1).
+                newX[i] = cx - dy;
+                newY[i] = cy + dx;
+            } else {
+                newX[i] = cx + dy;
+                newY[i] = cy - dx;
+            }
+            // Sideways first, then to the new row.
+            if (!this.isFree(newX[i], this.pieceY[i]) || !this.isFree(newX[i], newY[i])) {
+                return;
+            }
+        }
+        System.arraycopy(newX, 0, this.pieceX, 0, 4);
+        System.arraycopy(newY, 0, this.pieceY, 0, 4);
+    }
+
+    private void hold() {
+        if (this.heldThisPiece) {
+            return;
+        }
+        int current = this.shape;
+        if (this.holdShape == TetrominoSpawner.NO_SHAPE) {
+            this.spawnNext();
+        } else if (!this.spawn(this.holdShape)) {
+            this.running = false;
+        }
+        this.holdShape = current;
+        this.heldThisPiece = true;
+    }
+
+    private boolean canFall(int distance) {
+        for (int i = 0; i < 4; i++) {
+            if (!this.isFree(this.pieceX[i], this.pieceY[i] + distance)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void gravity(boolean softDrop) {
+        int gravity = this.table.getGravity(this.level);
+        if (softDrop) {
+            long soft = (long) gravity * this.table.getSoftDropFactor(this.level);
+            gravity = (int) Math.max(LevelTable.ONE_CELL, Math.min(LevelTable.GRAVITY_20G, soft));
+        }
+
+        int cells;
+        if (gravity >= LevelTable.GRAVITY_20G) {
+            cells = this.height;
+            this.gravityProgress = 0;
+        } else {
+            this.gravityProgress += gravity;
+            cells = this.gravityProgress / LevelTable.ONE_CELL;
+            this.gravityProgress %= LevelTable.ONE_CELL;
+        }
+
+        int distance = 0;
+        while (distance < cells && this.canFall(distance + 1)) {
+            distance++;
+        }
+        if (distance > 0) {
+            for (int i = 0; i < 4; i++) {
+                this.pieceY[i] += distance;
+            }
+            this.lockTicks = 0;
+        }
+
+        if (!this.canFall(1)) {
+            this.lockTicks++;
+            if ((softDrop && distance == 0) || this.lockTicks > this.table.getLockDelay(this.level)) {
+                this.lock();
+            }
+        }
+    }
+
+    private void lock() {
+        for (int i = 0; i < 4; i++) {
+            this.filled[this.pieceY[i]][this.pieceX[i]] = true;
+        }
+        this.hasPiece = false;
+
+        // Every row, from the bottom, so a removed row's replacement is checked too.
+        int lines = 0;
+        for (int y = this.height - 1; y >= 0; ) {
+            boolean full = true;
+            for (int x = 0; x < this.width && full; x++) {
+                full = this.filled[y][x];
+            }
+            if (full) {
+                for (int above = y; above > 0; above--) {
+                    System.arraycopy(this.filled[above - 1], 0, this.filled[above], 0, this.width);
+                }
+                this.filled[0] = new boolean[this.width];
+                lines++;
+            } else {
+                y--;
+            }
+        }
+
+        this.score += lines;
+        if (lines > 0) {
+            this.clearsThisLevel++;
+            if (this.clearsThisLevel >= this.table.getClearsPerLevel()) {
+                this.clearsThisLevel = 0;
+                if (this.level < this.table.getLevelCount() - 1) {
+                    this.level++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether the cell is filled, counting the falling piece.
+     */
+    public boolean isFilled(int x, int y) {
+        if (this.filled[y][x]) {
+            return true;
+        }
+        if (this.hasPiece) {
+            for (int i = 0; i < 4; i++) {
+                if (this.pieceX[i] == x && this.pieceY[i] == y) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public boolean hasPiece() {
+        return this.hasPiece;
+    }
+
+    public int getShape() {
+        return this.shape;
+    }
+
+    public int getPieceX(int block) {
+        return this.pieceX[block];
+    }
+
+    public int getPieceY(int block) {
+        return this.pieceY[block];
+    }
+
+    public int getHoldShape() {
+        return this.holdShape;
+    }
+
+    public int getScore() {
+        return this.score;
+    }
+
+    public int getLevel() {
+        return this.level;
+    }
+
+    public boolean isRunning() {
+        return this.running;
+    }
+}
@@ -0,0 +1,98 @@
+package Game_Main.Debug;
+
+import Game_Main.BoardConfig;
+import Game_Main.Command;
+import Game_Main.Game;
+import Game_Main.KeyframeReplay;
+import Game_Main.LevelTable;
+import Game_Main.Replay;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Records a game of several hours on a big, slow grid (So random inputs don't top out), writes it as a
+ * KeyframeReplay and times seeking to random ticks, compared with playing from the start. Every seek's state is
+ * checked against the game played from the start.
+ *
+ * Arguments: [hours] [keyframe interval in ticks] [seeks]
+ *
+ * @author T03-2
+ */
+public class ReplaySeekBenchmark {
+
+    private static final BoardConfig CONFIG = new BoardConfig(200, 200, 1000);
+
+    public static void main(String[] args) throws IOException {
+        double hours = args.length > 0 ? Double.parseDouble(args[0]) : 3;
+        int interval = args.length > 1 ? Integer.parseInt(args[1]) : KeyframeReplay.DEFAULT_INTERVAL;
+        int seeks = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        int ticks = (int) (hours * 3600 * Game.TICKS_PER_SECOND);
+        long start = System.nanoTime();
+        Replay replay = record(1, ticks, new Random(1));
+        System.out.printf("Recorded %d ticks (%.1f hours) in %.2f s%n", replay.getTicks(),
+                replay.getTicks() / (double) Game.TICKS_PER_SECOND / 3600, (System.nanoTime() - start) / 1e9);
+
+        File file = File.createTempFile("replay", ".kfr");
+        file.deleteOnExit();
+        start = System.nanoTime();
+        KeyframeReplay.write(replay, file, interval);
+        System.out.printf("Wrote %.1f MB with a keyframe every %d ticks in %.2f s%n", file.length() / (1024.0 * 1024.0),
+                interval, (System.nanoTime() - start) / 1e9);
+
+        try (KeyframeReplay keyframes = KeyframeReplay.open(file)) {
+            Random random = new Random(2);
+            long[] nanos = new long[seeks];
+            for (int i = 0; i < seeks; i++) {
+                int tick = random.nextInt(keyframes.getTicks() + 1);
+                long seekStart = System.nanoTime();
+                Game game = keyframes.seek(tick);
+                nanos[i] = System.nanoTime() - seekStart;
+                // Checking every seek would take as long as playing from the start, check a few.
+                if (i < 5 && !Arrays.equals(state(game), state(playFromStart(replay, tick)))) {
+                    System.out.println("FAILED: seek to tick " + tick + " differs from playing from the start.");
+                    return;
+                }
+            }
+            Arrays.sort(nanos);
+            System.out.printf("%d seeks: median %.2f ms, 99th %.2f ms, max %.2f ms%n", seeks, nanos[seeks / 2] / 1e6,
+                    nanos[seeks * 99 / 100] / 1e6, nanos[seeks - 1] / 1e6);
+
+            start = System.nanoTime();
+            playFromStart(replay, replay.getTicks());
+            System.out.printf("Playing from the start to the end: %.2f ms%n", (System.nanoTime() - start) / 1e6);
+        }
+    }
+
+    /**
+     * Records a game of mostly no input (With a move or rotation every third of a second or so) for the given ticks.
+     */
+    private static Replay record(long seed, int ticks, Random random) {
+        Game game = new Game(CONFIG.getWidth(), CONFIG.getHeight(), null);
+        game.setLevelTable(LevelTable.createDefault(CONFIG.getSpeed()));
+        Replay.Recorder recorder = new Replay.Recorder(game, CONFIG, seed);
+        for (int i = 0; i < ticks && game.getGameRunning(); i++) {
+            game.tick(random.nextInt(20) == 0 ? 1 + random.nextInt(Command.COUNT - 1) : Command.NONE);
+            recorder.poll();
+        }
+        return recorder.toReplay();
+    }
+
+    private static Game playFromStart(Replay replay, int tick) {
+        Game game = replay.createGame();
+        for (int t = 0; t < tick && game.getGameRunning(); t++) {
+            game.tick(replay.getCommand(t));
+        }
+        return game;
+    }
+
+    private static byte[] state(Game game) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        game.writeState(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,93 @@
+package Game_Main.Debug;
+
+import Game_Main.BoardConfig;
+import Game_Main.Command;
+import Game_Main.Game;
+import Game_Main.LevelTable;
+import Game_Main.Replay;
+import Game_Main.ReplayVerifier;
+import java.util.Random;
+
+/**
+ * Records games of random inputs, tampers with every fourth replay (A changed score or command), then times
+ * verifying them all with ReplayVerifier, checking that exactly the tampered ones are rejected.
+ *
+ * Arguments: [replays] [ticks per replay] [threads]
+ *
+ * @author T03-2
+ */
+public class ReplayVerifyBenchmark {
+
+    private static final BoardConfig CONFIG = new BoardConfig(10, 20, 300);
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 36000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        Random random = new Random(42);
+        Replay[] replays = new Replay[count];
+        long recorded = 0;
+        for (int i = 0; i < count; i++) {
+            Replay replay = record(random.nextLong(), ticks, random);
+            if (i % 4 == 3) {
+                replay = tamper(replay, random);
+            }
+            replays[i] = replay;
+            recorded += replay.getTicks();
+        }
+        System.out.printf("%d replays, %d ticks (%.1f hours of play)%n", count, recorded,
+                recorded / (double) Game.TICKS_PER_SECOND / 3600);
+
+        ReplayVerifier verifier = new ReplayVerifier(threads);
+        for (int run = 0; run < 3; run++) {
+            ReplayVerifier.Result[] results = verifier.verifyAll(replays);
+            int wrong = 0;
+            int rejected = 0;
+            for (int i = 0; i < count; i++) {
+                if (!results[i].isAccepted()) {
+                    rejected++;
+                }
+                if (results[i].isAccepted() == (i % 4 == 3)) {
+                    wrong++;
+                }
+            }
+            System.out.printf("%d rejected, %d wrong: %.0f replays/s, %.0f ticks/s (%.0fx real time, %d threads)%n",
+                    rejected, wrong, verifier.getVerificationsPerSecond(), verifier.getTicksPerSecond(),
+                    verifier.getTicksPerSecond() / Game.TICKS_PER_SECOND, threads);
+        }
+    }
+
+    /**
+     * Records a game of random inputs for up to the given amount of ticks.
+     *
+     * @param seed
+     * @param ticks
+     * @param random
+     * @return Replay
+     */
+    public static Replay record(long seed, int ticks, Random random) {
+        Game game = new Game(CONFIG.getWidth(), CONFIG.getHeight(), null);
+        game.setLevelTable(LevelTable.createDefault(CONFIG.getSpeed()));
+        Replay.Recorder recorder = new Replay.Recorder(game, CONFIG, seed);
+        for (int i = 0; i < ticks && game.getGameRunning(); i++) {
+            // Mostly no input, like a player between key presses.
+            game.tick(random.nextInt(8) == 0 ? 1 + random.nextInt(Command.COUNT - 1) : Command.NONE);
+            recorder.poll();
+        }
+        return recorder.toReplay();
+    }
+
+    /**
+     * Returns a copy of the replay with a higher score or one command changed.
+     */
+    private static Replay tamper(Replay replay, Random random) {
+        if (random.nextBoolean() && replay.getTicks() > 0) {
+            // Holding (Or not) on the first tick changes every placement after it.
+            byte[] commands = replay.getCommands();
+            commands[0] = (byte) (commands[0] == Command.HOLD ? Command.NONE : Command.HOLD);
+            return replay.withCommands(commands);
+        }
+        return replay.withScore(replay.getScore() + 1);
+    }
+}
@@ -0,0 +1,190 @@
+package Game_Main.Debug;
+
+import Blocks.Block;
+import Board.DenseBoard;
+import Board.RowScan;
+import Board.RowScans;
+import Board.ScalarRowScan;
+import Game_Main.Game;
+
+/**
+ * Compares full row checks and collision probes done on row masks with the vector RowScan, the scalar RowScan,
+ * and the old scan over the Block[] for board widths from 10 to 4096.
+ *
+ * Run with the vector module to include the vector version:
+ *     javac --add-modules jdk.incubator.vector Board/VectorRowScan.java Game_Main/Debug/RowScanBenchmark.java
+ *     java --add-modules jdk.incubator.vector Game_Main.Debug.RowScanBenchmark
+ *
+ * @author T03-2
+ */
+public class RowScanBenchmark {
+
+    private static final int[] WIDTHS = {10, 64, 100, 256, 1024, 4096};
+
+    private static final int ROWS = 64;
+
+    // Rows in each collision probe.
+    private static final int PROBE_ROWS = 4;
+
+    // Results are added here so the JIT can't remove the work.
+    private static long sink = 0;
+
+    public static void main(String[] args) {
+        RowScan scalar = new ScalarRowScan();
+        RowScan vector = RowScans.isVectorized() ? RowScans.best() : null;
+        if (vector == null) {
+            System.out.println("Vector API not available, only running the scalar versions.");
+        }
+
+        System.out.println("Full row check, ns per row (every row full, the worst case):");
+        System.out.printf("%8s %12s %12s %12s%n", "width", "Block[]", "scalar", "vector");
+        for (int width : WIDTHS) {
+            DenseBoard board = fullBoard(width);
+            double blocks = time(() -> scanBlocks(board), ROWS);
+            double scalarTime = time(() -> scanMasks(board, scalar), ROWS);
+            double vectorTime = vector == null ? Double.NaN : time(() -> scanMasks(board, vector), ROWS);
+            System.out.printf("%8d %12.2f %12.2f %12.2f%n", width, blocks, scalarTime, vectorTime);
+        }
+
+        System.out.println();
+        System.out.println("Collision probe of " + PROBE_ROWS + " rows, ns per probe (no collision, the worst case):");
+        System.out.printf("%8s %12s %12s %12s%n", "width", "Block[]", "scalar", "vector");
+        for (int width : WIDTHS) {
+            DenseBoard board = checkerBoard(width);
+            long[] probe = invertedProbe(board);
+            int probes = ROWS - PROBE_ROWS;
+            double blocks = time(() -> probeBlocks(board, probe), probes);
+            double scalarTime = time(() -> probeMasks(board, probe, scalar), probes);
+            double vectorTime = vector == null ? Double.NaN : time(() -> probeMasks(board, probe, vector), probes);
+            System.out.printf("%8d %12.2f %12.2f %12.2f%n", width, blocks, scalarTime, vectorTime);
+        }
+        System.out.println("(" + sink + ")");
+    }
+
+    /**
+     * Runs the given work until it has taken about half a second after warming up,
+     * returning nanoseconds per operation (The work does opsPerRun operations each time).
+     */
+    private static double time(Runnable work, int opsPerRun) {
+        for (int i = 0; i < 20000; i++) {
+            work.run();
+        }
+        long runs = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < 1000; i++) {
+                work.run();
+            }
+            runs += 1000;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < 500000000L);
+        return (double) elapsed / (runs * opsPerRun);
+    }
+
+    // The old clearLines check, looking at each Block until an empty cell is found.
+    private static void scanBlocks(DenseBoard board) {
+        Block[] cells = board.getCells();
+        int width = board.getWidth();
+        int full = 0;
+        for (int line = 0; line < ROWS; line++) {
+            boolean solid = true;
+            for (int col = 0; col < width; col++) {
+                if (cells[col + line * width] == null) {
+                    solid = false;
+                    break;
+                }
+            }
+            if (solid) {
+                full++;
+            }
+        }
+        sink += full;
+    }
+
+    private static void scanMasks(DenseBoard board, RowScan scan) {
+        long[] masks = board.getMasks();
+        int words = board.getWordsPerRow();
+        long lastWordMask = lastWordMask(board.getWidth());
+        int full = 0;
+        for (int line = 0; line < ROWS; line++) {
+            if (scan.isFull(masks, line * words, words, lastWordMask)) {
+                full++;
+            }
+        }
+        sink += full;
+    }
+
+    // Collision probe by looking up every set cell of the probe in the Block[].
+    private static void probeBlocks(DenseBoard board, long[] probe) {
+        Block[] cells = board.getCells();
+        int width = board.getWidth();
+        int words = board.getWordsPerRow();
+        int hits = 0;
+        for (int row = 0; row < ROWS - PROBE_ROWS; row++) {
+            search:
+            for (int r = 0; r < PROBE_ROWS; r++) {
+                for (int x = 0; x < width; x++) {
+                    if ((probe[r * words + x / 64] & (1L << x)) != 0 && cells[x + (row + r) * width] != null) {
+                        hits++;
+                        break search;
+                    }
+                }
+            }
+        }
+        sink += hits;
+    }
+
+    private static void probeMasks(DenseBoard board, long[] probe, RowScan scan) {
+        long[] masks = board.getMasks();
+        int words = board.getWordsPerRow();
+        int hits = 0;
+        for (int row = 0; row < ROWS - PROBE_ROWS; row++) {
+            if (scan.intersects(masks, row * words, probe, 0, PROBE_ROWS * words)) {
+                hits++;
+            }
+        }
+        sink += hits;
+    }
+
+    private static long lastWordMask(int width) {
+        return width % 64 == 0 ? -1L : (1L << (width % 64)) - 1;
+    }
+
+    private static DenseBoard fullBoard(int width) {
+        DenseBoard board = new DenseBoard(width, ROWS);
+        Game game = new Game(board, null);
+        Block block = new Block(game, null, 0, 0);
+        for (int y = 0; y < ROWS; y++) {
+            for (int x = 0; x < width; x++) {
+                board.set(x, y, block);
+            }
+        }
+        return board;
+    }
+
+    // Blocks in every other column, so a probe of the other columns never collides.
+    private static DenseBoard checkerBoard(int width) {
+        DenseBoard board = new DenseBoard(width, ROWS);
+        Game game = new Game(board, null);
+        Block block = new Block(game, null, 0, 0);
+        for (int y = 0; y < ROWS; y++) {
+            for (int x = 0; x < width; x += 2) {
+                board.set(x, y, block);
+            }
+        }
+        return board;
+    }
+
+    private static long[] invertedProbe(DenseBoard board) {
+        int words = board.getWordsPerRow();
+        long[] probe = new long[PROBE_ROWS * words];
+        for (int r = 0; r < PROBE_ROWS; r++) {
+            for (int w = 0; w < words; w++) {
+                probe[r * words + w] = ~board.getMasks()[w];
+            }
+            probe[r * words + words - 1] &= lastWordMask(board.getWidth());
+        }
+        return probe;
+    }
+}
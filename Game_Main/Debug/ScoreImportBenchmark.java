@@ -0,0 +1,85 @@
+package Game_Main.Debug;
+
+import Game_Main.ScoreImporter;
+import Game_Main.ScoreIndex;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * Compares reading a score file line by line with Scanner (How SaverLoader used to) with ScoreImporter.
+ *
+ * Arguments: [megabytes] [threads], a score file of about that size is written to the temp folder first.
+ * Or: file [path] [threads] to time importing an existing file.
+ *
+ * @author T03-2
+ */
+public class ScoreImportBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        File file;
+        int threads;
+        if (args.length > 0 && args[0].equals("file")) {
+            file = new File(args[1]);
+            threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        } else {
+            int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+            threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+            file = File.createTempFile("scores", ".txt");
+            file.deleteOnExit();
+            writeScores(file, megabytes * 1024L * 1024L);
+        }
+        double megabytes = file.length() / (1024.0 * 1024.0);
+        System.out.printf("%s: %.1f MB%n", file, megabytes);
+
+        for (int run = 0; run < 3; run++) {
+            long start = System.nanoTime();
+            ScoreIndex index = new ScoreIndex();
+            ScoreImporter importer = new ScoreImporter(threads);
+            importer.importFile(file, index);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("ScoreImporter (%d threads): %d scores, %d skipped, %.2f s, %.0f MB/s, %.0f MB/s per thread%n",
+                    threads, importer.getImported(), importer.getSkipped(), seconds, megabytes / seconds,
+                    megabytes / seconds / threads);
+        }
+
+        long start = System.nanoTime();
+        long count = scan(file);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Scanner: %d scores, %.2f s, %.0f MB/s%n", count, seconds, megabytes / seconds);
+    }
+
+    private static long scan(File file) throws FileNotFoundException {
+        ScoreIndex index = new ScoreIndex();
+        long count = 0;
+        try (Scanner scanner = new Scanner(file)) {
+            while (scanner.hasNext()) {
+                String line = scanner.nextLine();
+                if (!line.equals("Print Test Please Ignore")) {
+                    index.insert(Integer.parseInt(line));
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static void writeScores(File file, long bytes) throws IOException {
+        Random random = new Random(36);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+            out.write("Print Test Please Ignore\n".getBytes());
+            long written = 0;
+            while (written < bytes) {
+                // Mostly low scores with a long tail.
+                String line = (int) (-Math.log(1 - random.nextDouble()) * 200) + "\n";
+                out.write(line.getBytes());
+                written += line.length();
+            }
+        }
+    }
+}
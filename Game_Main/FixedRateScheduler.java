@@ -0,0 +1,191 @@
+package Game_Main;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs tasks at a fixed rate from one timing thread, however many games are being ticked, so every game
+ * advances on the same tick (E.g. both games of a VersusMatch) rather than each on its own sleeping thread.
+ *
+ * Each tick's tasks are run together as a batch on the given executor (Platform::runLater for the JavaFX
+ * thread, Runnable::run for the timing thread itself). Ticks are timed from the start rather than by sleeping
+ * a fixed time so the rate doesn't drift. If the executor falls behind the ticks it owes are run in its next
+ * batch, up to MAX_CATCH_UP, so the games keep their speed without a backlog of batches building up.
+ *
+ * Ticks are timed by a GameClock, real time by default. On a clock that isn't real time (See VirtualClock) a tick
+ * only starts once the last one has been run, none are ever dropped, and runFor runs them on the calling thread,
+ * so a simulated hour plays out exactly as it would in real time, as fast as the tasks can run.
+ *
+ * @author T03-2
+ */
+public class FixedRateScheduler {
+
+    // Most ticks run in one batch to catch up, any more owed are dropped.
+    public static final int MAX_CATCH_UP = 5;
+
+    private final int ticksPerSecond;
+    private final long periodNanos;
+    private final Executor executor;
+    private final GameClock clock;
+    private final CopyOnWriteArrayList<Runnable> tasks = new CopyOnWriteArrayList<>();
+
+    // Ticks due that haven't been run yet, a batch is only handed to the executor when this goes up from 0.
+    private final AtomicInteger owed = new AtomicInteger();
+
+    private volatile boolean running = false;
+    private volatile Thread thread;
+
+    /**
+     * Creates a scheduler running its tasks the given amount of times every second on the given executor, in
+     * real time.
+     *
+     * @param ticksPerSecond
+     * @param executor
+     */
+    public FixedRateScheduler(int ticksPerSecond, Executor executor) {
+        this(ticksPerSecond, executor, new SystemClock());
+    }
+
+    /**
+     * Creates a scheduler running its tasks the given amount of times every second of the given clock on the
+     * given executor.
+     *
+     * @param ticksPerSecond
+     * @param executor
+     * @param clock
+     */
+    public FixedRateScheduler(int ticksPerSecond, Executor executor, GameClock clock) {
+        this.ticksPerSecond = ticksPerSecond;
+        this.periodNanos = 1000000000L / ticksPerSecond;
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    public GameClock getClock() {
+        return this.clock;
+    }
+
+    /**
+     * Adds a task to run every tick, in the order added.
+     *
+     * @param task
+     */
+    public void add(Runnable task) {
+        this.tasks.add(task);
+    }
+
+    public void remove(Runnable task) {
+        this.tasks.remove(task);
+    }
+
+    /**
+     * Starts the timing thread.
+     */
+    public synchronized void start() {
+        if (this.running) {
+            return;
+        }
+        this.running = true;
+        this.owed.set(0);
+        this.thread = new Thread(() -> this.loop(-1), "FixedRateScheduler");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Runs the ticks due in the given nanoseconds of the clock on the calling thread instead of starting the timing
+     * thread, returning once they have been handed to the executor or stop is called. With a clock that isn't real
+     * time and Runnable::run as the executor that is every tick of a simulated game, back to back.
+     *
+     * @param nanos
+     */
+    public void runFor(long nanos) {
+        synchronized (this) {
+            if (this.running) {
+                throw new IllegalStateException("Scheduler is already running");
+            }
+            this.running = true;
+            this.owed.set(0);
+            this.thread = Thread.currentThread();
+        }
+        try {
+            // Counted from the rate rather than the rounded period, so a second always has ticksPerSecond ticks.
+            long ticks = nanos / 1000000000L * this.ticksPerSecond
+                    + ((nanos % 1000000000L) * this.ticksPerSecond + 999999999L) / 1000000000L;
+            this.loop(ticks);
+        } finally {
+            synchronized (this) {
+                if (this.thread == Thread.currentThread()) {
+                    this.running = false;
+                    this.thread = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the timing thread, a batch already handed to the executor still runs.
+     */
+    public synchronized void stop() {
+        this.running = false;
+        if (this.thread != null) {
+            LockSupport.unpark(this.thread);
+            this.thread = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    /**
+     * Hands out the given amount of ticks (Or ticks until stopped if negative), one a period apart.
+     */
+    private void loop(long ticks) {
+        boolean lockstep = !this.clock.isRealTime();
+        long nextTick = this.clock.nanoTime();
+        for (long tick = 0; this.running && tick != ticks; tick++) {
+            if (this.owed.getAndIncrement() == 0) {
+                this.executor.execute(this::runBatch);
+            }
+            // The clock only moves when it is slept on, so the tick has to be run before it is.
+            while (lockstep && this.running && this.owed.get() > 0) {
+                LockSupport.park(this);
+            }
+            nextTick += this.periodNanos;
+            long wait;
+            while (this.running && (wait = nextTick - this.clock.nanoTime()) > 0) {
+                this.clock.sleep(wait);
+            }
+        }
+    }
+
+    /**
+     * Runs every task once for each tick owed.
+     */
+    private void runBatch() {
+        int ticks = Math.min(this.owed.get(), MAX_CATCH_UP);
+        for (int i = 0; i < ticks && this.running; i++) {
+            for (Runnable task : this.tasks) {
+                task.run();
+            }
+        }
+        // Ticks owed while running are left for the next batch, unless there were too many to catch up on.
+        int left = this.owed.addAndGet(-ticks);
+        if (left > MAX_CATCH_UP) {
+            this.owed.addAndGet(-(left - 1));
+            left = 1;
+        }
+        if (left > 0 && this.running) {
+            this.executor.execute(this::runBatch);
+        } else if (left == 0 && !this.clock.isRealTime()) {
+            // The timing thread waits for each tick on a clock that isn't real time.
+            Thread timing = this.thread;
+            if (timing != null) {
+                LockSupport.unpark(timing);
+            }
+        }
+    }
+}
@@ -1,10 +1,17 @@
 package Game_Main;
 
 import Blocks.Block;
+import Board.Board;
+import Board.DenseBoard;
+import Board.ZobristHash;
 import Blocks.TetrominoSpawner;
 import Blocks.TetrominoView;
 import Blocks.TetrominoModel;
-import GUI.MainViewFX;
+import GUI.GameView;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
 import javafx.scene.paint.Color;
 
 /**
@@ -21,12 +28,11 @@ public class Game {
     // Height of game field
     public int gridHeight;
 
-    // The array of blocks representing the backend of the tetris grid
-    private Block[] arrayBlocks;
+    // The blocks that have been set in place (And the falling block) on the tetris grid
+    private Board board;
 
-    //Score and timer integers for keeping score
+    //Score integer for keeping score
     private int score = 0;
-    private int time = 0;
 
     private int blockSpawnX;
     private int blockSpawnY;
@@ -39,20 +45,83 @@ public class Game {
     // The current falling block.
     private TetrominoView tetrominoFalling;
 
-    // The block that is stored/held (This feature has yet to be implemented).
-    private TetrominoView tetrominoHold;
+    // The shape and color of the block that is stored/held, only the type is kept so holding doesn't copy any blocks.
+    private int holdShape = TetrominoSpawner.NO_SHAPE;
+    private Color holdColor;
 
     // boolean for whether the player has already used hold once before setting a tetromino down.
     private boolean holdThisTurn = false;
+    // Whether the command this tick held, so the respawned piece isn't taken for a move.
+    private boolean heldThisTick = false;
 
     /**
-     * Prints to terminal with the game grid each turn if true.
+     * How many times tick is called every second, gravity and lock delay are counted in ticks. The game's clock is
+     * its tick count (See getTime), never the wall clock, so it plays the same however fast it is ticked (See
+     * FixedRateScheduler and VirtualClock).
      */
-    public final boolean PRINT_TO_TERMINAL = false;
+    public static final int TICKS_PER_SECOND = 60;
+
+    // How fast the game is at each level, see LevelTable.
+    private LevelTable levelTable = LevelTable.createDefault(1000);
+    private int level = 0;
+    private int clearsThisLevel = 0;
+
+    // Fraction of a cell (In 1/65536ths) the falling block has built up towards its next drop.
+    private int gravityProgress = 0;
+
+    // Ticks the falling block has spent on the ground.
+    private int lockTicks = 0;
+
+    // Whether soft drop was given this tick.
+    private boolean softDropping = false;
+
+    /**
+     * Prints to terminal with the game grid each turn if true. Used for debugging, see Terminal.AnsiRenderer
+     * for playing in a terminal.
+     */
+    private boolean printToTerminal = false;
 
     private TetrominoSpawner tetrominoSpawner;
 
-    private MainViewFX mainViewFX;
+    private GameView view;
+
+    // If set, every command given to tick is recorded so it can be injected again.
+    private CommandRecorder commandRecorder;
+
+    // Events of the game for the view, loggers etc. to react to without polling the game.
+    private static final int EVENT_CAPACITY = 1024;
+    private final GameEventBus events = new GameEventBus(EVENT_CAPACITY);
+
+    // Amount of times tick has been called.
+    private long tickCount = 0;
+
+    // Live statistics of the player's inputs and placements.
+    private final PlayerStats stats = new PlayerStats();
+
+    // Garbage rows sent by an opponent (See VersusMatch) waiting to be added below the stack, in batches of rows
+    // sharing a hole column, oldest first.
+    private int[] garbageRows = new int[8];
+    private int[] garbageHoles = new int[8];
+    private int garbageBatches = 0;
+    private int pendingGarbage = 0;
+
+    // Every garbage cell holds this block, blocks on the board are identified by their cell (See Board).
+    private final Block garbageBlock;
+
+    // The colors on the board and its cells as indexes into them, reused by every writeState and readState.
+    private final Color[] statePalette = new Color[255];
+    private byte[] stateCells = new byte[0];
+
+    // Hash of the blocks set in place (Not the falling block), updated as they change (See getBoardHash).
+    private final ZobristHash boardHash;
+
+    // Cells of the last block set in place.
+    private final int[] lockedX = new int[4];
+    private final int[] lockedY = new int[4];
+
+    // Rows removed by the last clearLines, numbered as they were before any were removed, bottom first.
+    private int[] clearedRows = new int[4];
+    private int clearedCount = 0;
 
     //Getters for the width, height, blocks, spawn coordinates, player and running the game.
     public int getGridWidth() {
@@ -64,11 +133,22 @@ public class Game {
     }
 
     /**
-     * Gets the array of Blocks that represents the Tetris grid.
+     * Gets the array of Blocks that represents the Tetris grid. Only games on a DenseBoard have one.
      * @return 
      */
     public Block[] getArrayBlocks() {
-        return this.arrayBlocks;
+        if (!(this.board instanceof DenseBoard)) {
+            throw new UnsupportedOperationException("Only a DenseBoard is backed by an array.");
+        }
+        return ((DenseBoard) this.board).getCells();
+    }
+
+    /**
+     * Gets the board storing the blocks of the Tetris grid.
+     * @return Board
+     */
+    public Board getBoard() {
+        return this.board;
     }
     
     public int getBlockSpawnX() {
@@ -83,6 +163,54 @@ public class Game {
         return this.gameRunning;
     }
 
+    /**
+     * Gets the falling tetromino, null if there is none.
+     * @return TetrominoView
+     */
+    public TetrominoView getTetrominoFalling() {
+        return this.tetrominoFalling;
+    }
+
+    /**
+     * Gets the bus the game's events are published to, subscribe to it to react to them.
+     * @return GameEventBus
+     */
+    public GameEventBus getEvents() {
+        return this.events;
+    }
+
+    public long getTickCount() {
+        return this.tickCount;
+    }
+
+    /**
+     * How long the game has been played, in milliseconds of game time (Ticks, not the wall clock).
+     * @return long
+     */
+    public long getTime() {
+        return this.tickCount * 1000 / TICKS_PER_SECOND;
+    }
+
+    public PlayerStats getStats() {
+        return this.stats;
+    }
+
+    /**
+     * Makes the order of the tetrominos depend only on the given seed, call before the first tick.
+     * @param seed
+     */
+    public void setSeed(long seed) {
+        this.tetrominoSpawner.setSeed(seed);
+    }
+
+    /**
+     * Sets whether the game grid is printed to the terminal each turn (Instead of drawn to the view).
+     * @param printToTerminal
+     */
+    public void setPrintToTerminal(boolean printToTerminal) {
+        this.printToTerminal = printToTerminal;
+    }
+
     /**
      * Sets the X position for the block to spawn on.
      * @param blockSpawnX 
@@ -104,21 +232,43 @@ public class Game {
     }
 
     /**
-     * Creates the game with an inputted grid, height, and milliseconds per tick
-     * the block fall automatically.
+     * Whether there is a GameView to draw to. The game can be run without one (null) for simulations and tests.
+     *
+     * @return boolean
      */
-    public Game(int width, int height, MainViewFX mv) {
-        //System.out.println(width + "   " + height);
-        this.gridWidth = width;
-        this.gridHeight = height;
+    private boolean hasView() {
+        return !this.printToTerminal && this.view != null;
+    }
+
+    /**
+     * Creates the game with an inputted grid width and height, drawing to the given
+     * view (Or null to run without one).
+     */
+    public Game(int width, int height, GameView view) {
+        this(new DenseBoard(width, height), view);
+    }
+
+    /**
+     * Creates the game on the given board (E.g. a ChunkedBoard for giant grids), drawing to the given
+     * view (Or null to run without one).
+     */
+    public Game(Board board, GameView view) {
+        this.gridWidth = board.getWidth();
+        this.gridHeight = board.getHeight();
 
         this.setBlockSpawnX(this.gridWidth / 2);
         this.setBlockSpawnY(0);
 
-        this.arrayBlocks = new Block[this.gridWidth * this.gridHeight];
+        this.board = board;
         this.tetrominoSpawner = new TetrominoSpawner(this);
 
-        this.mainViewFX = mv;
+        this.view = view;
+
+        this.garbageBlock = new Block(this, Color.GRAY, 0, 0);
+        this.garbageBlock.setFalling(false);
+
+        this.boardHash = new ZobristHash(this.gridWidth, this.gridHeight);
+        this.boardHash.reset(board);
     }
 
     /**
@@ -129,88 +279,211 @@ public class Game {
         TetrominoView newTetromino = tetrominoSpawner.spawnTetromino(this.getNextColor());
 
         if (newTetromino == null) {
-           this.gameRunning = false;
-           System.out.println("END GAME");
+           this.endGame();
+           // Games without a view (Simulations, replays and servers) end quietly.
+           if (this.view != null || this.printToTerminal) {
+               System.out.println("END GAME");
+           }
         } else {
             this.tetrominoFalling = newTetromino;
+            this.stats.onSpawn(newTetromino.getBlockX(0));
+            this.publish(GameEvent.SPAWNED, 0);
 
             updateTetromino(this.tetrominoFalling);
 
             this.holdThisTurn = false;
+            this.gravityProgress = 0;
+            this.lockTicks = 0;
         }
     }
 
     /**
      * Steps the game, creating a block if needed, printing the game screen,
-     * getting user input to move the falling block or set the block in place,
-     * then moving it down. Pass the isUserInput boolean as true if it is a user
-     * move, and pass the mapped int as a move. Otherwise pass as false for a
-     * falldown tick.
+     * using the given command (See Command) to move the falling block, then
+     * letting gravity move it down or set the block in place.
+     * Should be called TICKS_PER_SECOND times a second, pass Command.NONE if there was no input.
      *
-     * @param userInput
+     * @param command
      */
-    public void tick(String userInput) {
+    public void tick(int command) {
+        if (this.commandRecorder != null) {
+            this.commandRecorder.record(command);
+        }
+        this.tickCount++;
+
         //System.out.println("Tick!");
         // If no falling block exists or the current falling block has stopped falling (Collided), create a new block
-        if (this.tetrominoFalling == null || !this.tetrominoFalling.getFalling()) {
+        boolean spawning = this.tetrominoFalling == null || !this.tetrominoFalling.getFalling();
+        if (spawning) {
             this.createBlock();
         }
+        // Counted after spawning, the command moves the new piece so it counts towards its finesse.
+        this.stats.onTick(command);
+        if (spawning && !this.gameRunning) {
+            return;
+        }
 
         // Clear the reference from the previous array spot to the falling block)
         removeTetromino(this.tetrominoFalling);
         
-        if (!this.PRINT_TO_TERMINAL) this.tetrominoFalling.clearFill(this.mainViewFX);
+        if (this.hasView()) this.tetrominoFalling.clearFill(this.view);
+
+        // Where the block was, to tell if it moved. Rotating moves every block but the first.
+        TetrominoView before = this.tetrominoFalling;
+        int beforeX = before.getBlockX(0);
+        int beforeY = before.getBlockY(0);
+        int beforeX1 = before.getBlockX(1);
+        int beforeY1 = before.getBlockY(1);
+
+        // Do the respective move for the command.
+        this.softDropping = false;
+        this.heldThisTick = false;
+        this.keyboardInput(command);
 
-        // If the method was called with user input, parse it and then do the respective move.
-        this.keyboardInput(userInput);
+        if (this.gameRunning && this.tetrominoFalling.getFalling()) {
+            this.applyGravity();
+        }
 
         // Set a new reference to the falling block in its new position
         updateTetromino(this.tetrominoFalling);
 
+        // A held piece is respawned in place (See keyboardInput), that isn't a move.
+        if (!this.heldThisTick && (before.getBlockX(0) != beforeX || before.getBlockY(0) != beforeY
+                || before.getBlockX(1) != beforeX1 || before.getBlockY(1) != beforeY1)) {
+            this.publish(GameEvent.MOVED, 0);
+        }
+
         if (!this.tetrominoFalling.getFalling()){
-            this.score += clearLines();
+            this.publish(GameEvent.LOCKED, 0);
+            TetrominoView locked = this.tetrominoFalling;
+            for (int i = 0; i < 4; i++) {
+                this.boardHash.toggle(locked.getBlockX(i), locked.getBlockY(i));
+                this.lockedX[i] = locked.getBlockX(i);
+                this.lockedY[i] = locked.getBlockY(i);
+            }
+            int linesCleared = clearLines();
+            this.stats.onLock(locked, linesCleared);
+            this.score += linesCleared;
+            if (linesCleared > 0) {
+                this.levelUp();
+                this.publish(GameEvent.LINES_CLEARED, linesCleared);
+            } else if (this.pendingGarbage > 0) {
+                this.insertGarbage();
+            }
         }
         
         // If true, call the printScreen method. Used for debugging.
-        if (this.PRINT_TO_TERMINAL) {
+        if (this.printToTerminal) {
             this.printScreen();
-        } else if (this.tetrominoFalling != null) {
-            this.tetrominoFalling.draw(this.mainViewFX);
+        } else if (this.tetrominoFalling != null && this.hasView()) {
+            this.tetrominoFalling.draw(this.view);
+        }
+    }
+
+    /**
+     * Moves the falling block down by the gravity of the current level, or by the soft drop speed if
+     * soft drop was given this tick (At least one cell). Once the block has been on the ground for longer
+     * than the lock delay, or is soft dropped while on the ground, it is set in place.
+     */
+    private void applyGravity() {
+        int gravity = this.levelTable.getGravity(this.level);
+        if (this.softDropping) {
+            long softGravity = (long) gravity * this.levelTable.getSoftDropFactor(this.level);
+            gravity = (int) Math.max(LevelTable.ONE_CELL, Math.min(LevelTable.GRAVITY_20G, softGravity));
+        }
+
+        int cells;
+        if (gravity >= LevelTable.GRAVITY_20G) {
+            cells = this.getGridHeight();
+            this.gravityProgress = 0;
+        } else {
+            this.gravityProgress += gravity;
+            cells = this.gravityProgress / LevelTable.ONE_CELL;
+            this.gravityProgress %= LevelTable.ONE_CELL;
+        }
+
+        // Finds how far it can drop first so the block is only moved once.
+        int distance = 0;
+        while (distance < cells && this.tetrominoFalling.canMove(0, distance + 1)) {
+            distance++;
+        }
+        if (distance > 0) {
+            this.tetrominoFalling.move(0, distance);
+            this.lockTicks = 0;
+        }
+
+        if (!this.tetrominoFalling.canMove(0, 1)) {
+            this.lockTicks++;
+            if ((this.softDropping && distance == 0) || this.lockTicks > this.levelTable.getLockDelay(this.level)) {
+                this.tetrominoFalling.setFalling(false);
+            }
         }
     }
 
     /**
-     * Handles whether the given keyboard input should be handled by the tetromino or right here.
+     * Counts a line clear towards the next level, going up a level every LevelTable.getClearsPerLevel() clears.
+     */
+    private void levelUp() {
+        this.clearsThisLevel++;
+        if (this.clearsThisLevel >= this.levelTable.getClearsPerLevel()) {
+            this.clearsThisLevel = 0;
+            if (this.level < this.levelTable.getLevelCount() - 1) {
+                this.level++;
+            }
+        }
+    }
+
+    /**
+     * Handles whether the given command should be handled by the tetromino or right here.
      *
-     * @param keyName
+     * @param command
      */
-    public void keyboardInput(String keyName) {
+    public void keyboardInput(int command) {
         if (this.tetrominoFalling != null) {
-            // The action that should be given for the given input.
-            String action = this.tetrominoFalling.handleInput(keyName);
+            // The action that should be given for the given command.
+            int action = this.tetrominoFalling.handleInput(command);
             switch (action) {
-                // If the action correlated to the key is to 'Hold'.
-                case "Hold":
-                    // Not swapping, just storing and creating new.
-                    if (this.tetrominoHold == null) {
-                        this.tetrominoHold = new TetrominoView(this.tetrominoFalling);
-                        removeTetromino(this.tetrominoFalling);
-                        createBlock();
-                        this.holdThisTurn = true;
-                    // Swapping
-                    } else if (!this.holdThisTurn) {
-                        this.holdThisTurn = true;
-                        TetrominoView temp = new TetrominoView(this.tetrominoHold);
-                        this.tetrominoHold = new TetrominoView(this.tetrominoFalling);
+                // Soft drop speed depends on the level so it is done with gravity.
+                case Command.SOFT_DROP:
+                    this.softDropping = true;
+                    break;
+                // If the action correlated to the command is to 'Hold'.
+                case Command.HOLD:
+                    if (!this.holdThisTurn) {
+                        int fallingShape = this.tetrominoFalling.getShape();
+                        Color fallingColor = this.tetrominoFalling.getColor();
                         removeTetromino(this.tetrominoFalling);
-                        this.tetrominoFalling = new TetrominoView(temp);
-                        // Move tetromino to start.
-                        if (this.tetrominoFalling.setCenterPos(this.getBlockSpawnX(), this.getBlockSpawnY())) {
-                            updateTetromino(this.tetrominoFalling);
+
+                        // The falling piece's own blocks become the new piece at the start, nothing is allocated.
+                        // It is kept off the board like the falling piece always is while commands are handled.
+                        boolean spawned;
+                        // Not swapping, just storing and taking the next shape.
+                        if (this.holdShape == TetrominoSpawner.NO_SHAPE) {
+                            spawned = this.tetrominoSpawner.respawnTetromino(this.tetrominoFalling, this.getNextColor());
+                        // Swapping, respawn the held shape at the start.
+                        } else {
+                            spawned = this.tetrominoSpawner.respawnTetromino(this.tetrominoFalling, this.holdShape,
+                                    this.holdColor);
+                        }
                         // Collision.
+                        if (!spawned) {
+                            this.endGame();
+                            if (this.view != null || this.printToTerminal) {
+                                System.out.println("END GAME");
+                            }
                         } else {
-                            this.gameRunning = false;
+                            this.gravityProgress = 0;
+                            this.lockTicks = 0;
+                            this.stats.onSpawn(this.tetrominoFalling.getBlockX(0));
+                            this.publish(GameEvent.SPAWNED, 0);
                         }
+                        this.heldThisTick = true;
+                        this.holdShape = fallingShape;
+                        this.holdColor = fallingColor;
+                        this.holdThisTurn = true;
+                        this.events.publish(GameEvent.HOLD, this.tickCount, this.holdShape, 0, 0, 0, this.score);
+
+                        if (this.hasView()) this.view.drawHold(this.holdShape, this.holdColor);
                     }
                     break;
                 default:
@@ -222,94 +495,256 @@ public class Game {
     /**
      * Checks if any lines need to be cleared (a horizontal line on the game grid is completely filled with blocks),
      * if so then those lines are cleared and the rest of the blocks are moved down. 
+     * Only the lines the falling block is in are checked, since no other line can have been filled by it.
      * The return is the amount of lines cleared.
      *
      * @return int
      */
     public int clearLines() {
         int linesCleared = 0;
-        
-        for (int line = this.getGridHeight() - 1; line >= 0; line--) {
-            boolean solid = true;
-            
-            // Checks if the current line is a solid line of blocks.
-            for (int col = 0; col < this.getGridWidth(); col++) {
-                if (this.getArrayBlocks()[col + line * this.getGridWidth()] == null) {
-                    solid = false;
-                    break;
-                }
+
+        int top = 0;
+        int line = this.getGridHeight() - 1;
+        if (this.tetrominoFalling != null) {
+            top = line;
+            line = 0;
+            for (Block block : this.tetrominoFalling.getBlocks()) {
+                top = Math.min(top, block.getPositionY());
+                line = Math.max(line, block.getPositionY());
             }
+        }
 
-            if (solid) {
+        this.clearedCount = 0;
+        while (line >= top) {
+            if (this.board.isRowFull(line)) {
                 this.tetrominoFalling = null;
-                Block[] manipBlocks = this.getArrayBlocks();
-
-                // Clear reference for any blocks to remove any collision problems.
-                this.arrayBlocks = new Block[this.getGridWidth()*this.getGridHeight()];
 
-                // Removes all the blocks in the line.
-                for (int i = line * this.getGridWidth(); i < (line+1) * this.getGridWidth(); i++) {
-                    manipBlocks[i] = null;
+                // Removes the line, everything above moves down so the same line is checked again.
+                this.board.clearRow(line);
+                this.boardHash.clearRow(line);
+                if (this.clearedCount == this.clearedRows.length) {
+                    this.clearedRows = Arrays.copyOf(this.clearedRows, this.clearedCount * 2);
                 }
+                this.clearedRows[this.clearedCount++] = line - linesCleared;
+                linesCleared += 1;
+                top += 1;
+            } else {
+                line -= 1;
+            }
+        }
+        return linesCleared;
+    }
 
-                // Moves all blocks above the cleared line down.
-                for (int i = line * this.getGridWidth() - 1; i >= 0; i--) {
-                    Block b = manipBlocks[i];
-                    if (b != null) {
-                        removeBlock(b, manipBlocks);
-                        b.moveDown();
-                        updateBlock(b, manipBlocks);
-                    }
-                }
+    /**
+     * Where the given block (0 to 3) of the last block set in place was when it was set in place, before any lines
+     * were cleared. Used for effects (See GUI.EffectLayer).
+     *
+     * @param index
+     * @return int
+     */
+    public int getLockedX(int index) {
+        return this.lockedX[index];
+    }
 
-                linesCleared += 1;
-                line += 1;
-                this.arrayBlocks = manipBlocks;
+    public int getLockedY(int index) {
+        return this.lockedY[index];
+    }
+
+    /**
+     * The given row of the ones removed by the last clearLines (0 for the bottom one), numbered as it was before
+     * any were removed. Used to animate the rows above coming down (See GUI.InterpolatedRenderer).
+     *
+     * @param index
+     * @return int
+     */
+    public int getClearedRow(int index) {
+        if (index < 0 || index >= this.clearedCount) {
+            throw new IndexOutOfBoundsException("Cleared row index out of range: " + index);
+        }
+        return this.clearedRows[index];
+    }
+
+    /**
+     * Amount of rows removed by the last clearLines.
+     *
+     * @return int
+     */
+    public int getClearedRowCount() {
+        return this.clearedCount;
+    }
+
+    /**
+     * How far the falling block is towards dropping another cell, in LevelTable.ONE_CELL units of a cell.
+     *
+     * @return int
+     */
+    public int getGravityProgress() {
+        return this.gravityProgress;
+    }
+
+    /**
+     * Queues garbage rows sent by an opponent, all with their hole in the given column. They are added below the
+     * stack the next time the falling block is set in place without clearing any lines.
+     *
+     * @param rows
+     * @param hole
+     */
+    public void addGarbage(int rows, int hole) {
+        if (rows <= 0) {
+            return;
+        }
+        if (this.garbageBatches == this.garbageRows.length) {
+            this.garbageRows = Arrays.copyOf(this.garbageRows, this.garbageBatches * 2);
+            this.garbageHoles = Arrays.copyOf(this.garbageHoles, this.garbageBatches * 2);
+        }
+        this.garbageRows[this.garbageBatches] = rows;
+        this.garbageHoles[this.garbageBatches] = hole;
+        this.garbageBatches++;
+        this.pendingGarbage += rows;
+    }
+
+    /**
+     * Cancels up to the given amount of queued garbage rows, oldest first, returning how many were cancelled.
+     * Used to cancel garbage with the player's own line clears.
+     *
+     * @param rows
+     * @return int
+     */
+    public int cancelGarbage(int rows) {
+        int cancelled = 0;
+        int emptied = 0;
+        while (emptied < this.garbageBatches && cancelled < rows) {
+            int taken = Math.min(this.garbageRows[emptied], rows - cancelled);
+            this.garbageRows[emptied] -= taken;
+            cancelled += taken;
+            if (this.garbageRows[emptied] == 0) {
+                emptied++;
             }
+        }
+        this.garbageBatches -= emptied;
+        System.arraycopy(this.garbageRows, emptied, this.garbageRows, 0, this.garbageBatches);
+        System.arraycopy(this.garbageHoles, emptied, this.garbageHoles, 0, this.garbageBatches);
+        this.pendingGarbage -= cancelled;
+        return cancelled;
+    }
 
+    /**
+     * A 64-bit hash of which cells have blocks set in place in them, the falling block left out. Boards with the
+     * same cells filled have the same hash in every game of the same width (See Board.ZobristHash), so it can key
+     * caches of positions (See TranspositionTable). Kept up to date as blocks are set in place, lines are cleared
+     * and garbage is added, rather than worked out when asked for.
+     *
+     * @return long
+     */
+    public long getBoardHash() {
+        return this.boardHash.get();
+    }
+
+    /**
+     * Amount of garbage rows queued to be added below the stack.
+     *
+     * @return int
+     */
+    public int getPendingGarbage() {
+        return this.pendingGarbage;
+    }
+
+    /**
+     * Adds every queued garbage row below the stack, pushing the rows above up (See Board.addGarbage).
+     */
+    private void insertGarbage() {
+        for (int i = 0; i < this.garbageBatches; i++) {
+            this.board.addGarbage(this.garbageRows[i], this.garbageHoles[i], this.garbageBlock);
+            this.boardHash.addGarbage(this.garbageRows[i], this.garbageHoles[i]);
+        }
+        int rows = this.pendingGarbage;
+        this.garbageBatches = 0;
+        this.pendingGarbage = 0;
+        this.publish(GameEvent.GARBAGE, rows);
+    }
+
+    /**
+     * Publishes an event about the falling block (Its shape and first block's position) to the game's event bus.
+     */
+    private void publish(int type, int lines) {
+        if (this.tetrominoFalling == null) {
+            this.events.publish(type, this.tickCount, TetrominoSpawner.NO_SHAPE, 0, 0, lines, this.score);
+        } else {
+            this.events.publish(type, this.tickCount, this.tetrominoFalling.getShape(),
+                    this.tetrominoFalling.getBlockX(0), this.tetrominoFalling.getBlockY(0), lines, this.score);
         }
-        mainViewFX.clearScreen();
-        return linesCleared;
     }
 
     /**
-     * Updates/Sets all the blocks positions of the given tetromino for arrayBlocks
+     * Stops the game, letting subscribers know.
+     */
+    private void endGame() {
+        this.gameRunning = false;
+        this.events.publish(GameEvent.GAME_OVER, this.tickCount, TetrominoSpawner.NO_SHAPE, 0, 0, 0, this.score);
+    }
+
+    /**
+     * Updates/Sets all the blocks positions of the given tetromino on the board
      * @param t
      */
     public void updateTetromino(TetrominoModel t) {
         for (Block block : t.getBlocks()) {
-            updateBlock(block, this.getArrayBlocks());
+            updateBlock(block);
         }
     }
 
     /**
-     * Removes/dereferences all the blocks positions of the given tetromino for arrayBlocks
+     * Removes/dereferences all the blocks positions of the given tetromino on the board, without copying its blocks
      * @param t
      */
     public void removeTetromino(TetrominoModel t) {
-        for (Block block : t.getBlocks()) {
-            removeBlock(block, this.getArrayBlocks());
+        for (int i = 0; i < 4; i++) {
+            this.board.set(t.getBlockX(i), t.getBlockY(i), null);
+        }
+    }
+
+    /**
+     * Updates/Sets the blocks reference on the board
+     * @param block
+     */
+    public void updateBlock(Block block) {
+        if (block != null) {
+            this.board.set(block.getPositionX(), block.getPositionY(), block);
+        }
+    }
+
+    /**
+     * Removes/dereferences the blocks reference on the board
+     * @param block
+     */
+    public void removeBlock(Block block) {
+        if (block != null) {
+            this.board.set(block.getPositionX(), block.getPositionY(), null);
         }
     }
 
     /**
-     * Updates/Sets the blocks reference in the given array
+     * Updates/Sets the blocks reference in the given array, going through the board if it's the board's own array
      * @param block
      * @param arrayBlocks
      */
     public void updateBlock(Block block, Block[] arrayBlocks) {
-        if (block != null) {
+        if (this.board instanceof DenseBoard && arrayBlocks == this.getArrayBlocks()) {
+            this.updateBlock(block);
+        } else if (block != null) {
             arrayBlocks[block.getPositionX() + (this.getGridWidth()*block.getPositionY())] = block;
         }
     }
 
     /**
-     * Removes/dereferences the blocks reference in the given array
+     * Removes/dereferences the blocks reference in the given array, going through the board if it's the board's own array
      * @param block
      * @param arrayBlocks
      */
     public void removeBlock(Block block, Block[] arrayBlocks) {
-        if (block != null) {
+        if (this.board instanceof DenseBoard && arrayBlocks == this.getArrayBlocks()) {
+            this.removeBlock(block);
+        } else if (block != null) {
             arrayBlocks[block.getPositionX() + (this.getGridWidth()*block.getPositionY())] = null;
         }
     }
@@ -318,25 +753,313 @@ public class Game {
      * Prints a representation of the current game board.
      */
     public void printScreen() {
-        String screen = "";
+        StringBuilder screen = new StringBuilder((this.getGridWidth() + 1) * this.getGridHeight());
 
-        int count = 0;
-        for (Block block : this.getArrayBlocks()) {
-            if (block == null) {
-                screen += ".";
-            } else {
-                screen += "x";
-            }
-            count += 1;
-            if (count == this.getGridWidth()) {
-                count = 0;
-                screen += "\n";
+        for (int y = 0; y < this.getGridHeight(); y++) {
+            for (int x = 0; x < this.getGridWidth(); x++) {
+                screen.append(this.board.get(x, y) == null ? '.' : 'x');
             }
+            screen.append('\n');
         }
 
         System.out.println(screen);
     }
 
+    /**
+     * Ends the game session, freeing the board's memory if it holds any outside the heap (See Board.OffHeapBoard).
+     * The game can't be used afterwards.
+     */
+    public void close() {
+        this.gameRunning = false;
+        if (this.board instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) this.board).close();
+            } catch (Exception e) {
+                System.err.println("Error closing board: " + e);
+            }
+        }
+    }
+
+    /**
+     * Writes everything the rest of the game depends on: the board, the falling and held tetromino, the spawner,
+     * the level, gravity and lock progress, queued garbage and the counters. readState on a game of the same size
+     * and level table then carries on exactly as this one would. The statistics (See PlayerStats) aren't written.
+     * Call between ticks.
+     *
+     * @param out
+     * @throws IOException
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(this.gridWidth);
+        out.writeInt(this.gridHeight);
+        out.writeLong(this.tickCount);
+        out.writeBoolean(this.gameRunning);
+        out.writeInt(this.score);
+        out.writeInt(this.colorInt);
+        out.writeInt(this.level);
+        out.writeInt(this.clearsThisLevel);
+        out.writeInt(this.gravityProgress);
+        out.writeInt(this.lockTicks);
+        out.writeInt(this.holdShape);
+        writeColor(out, this.holdColor);
+        out.writeBoolean(this.holdThisTurn);
+
+        out.writeInt(this.garbageBatches);
+        for (int i = 0; i < this.garbageBatches; i++) {
+            out.writeInt(this.garbageRows[i]);
+            out.writeInt(this.garbageHoles[i]);
+        }
+
+        this.tetrominoSpawner.writeState(out);
+
+        out.writeBoolean(this.tetrominoFalling != null);
+        if (this.tetrominoFalling != null) {
+            out.writeInt(this.tetrominoFalling.getShape());
+            writeColor(out, this.tetrominoFalling.getColor());
+            out.writeBoolean(this.tetrominoFalling.getFalling());
+            for (int i = 0; i < 4; i++) {
+                out.writeInt(this.tetrominoFalling.getBlockX(i));
+                out.writeInt(this.tetrominoFalling.getBlockY(i));
+            }
+        }
+
+        // The board as one byte per cell, 0 for empty or an index (+1) into the colors on the board.
+        // There are only a handful of colors, so they are looked up one by one.
+        Color[] palette = this.statePalette;
+        int paletteSize = 0;
+        byte[] cells = this.getStateCells();
+        for (int y = 0; y < this.gridHeight; y++) {
+            for (int x = 0; x < this.gridWidth; x++) {
+                Block block = this.board.get(x, y);
+                byte cell = 0;
+                if (block != null) {
+                    Color color = block.getColor();
+                    int index = 0;
+                    while (index < paletteSize && palette[index] != color && !palette[index].equals(color)) {
+                        index++;
+                    }
+                    if (index == paletteSize) {
+                        if (paletteSize == palette.length) {
+                            throw new IOException("Too many colors on the board.");
+                        }
+                        palette[paletteSize++] = color;
+                    }
+                    cell = (byte) (index + 1);
+                }
+                cells[x + this.gridWidth * y] = cell;
+            }
+        }
+        out.writeInt(paletteSize);
+        for (int i = 0; i < paletteSize; i++) {
+            writeColor(out, palette[i]);
+        }
+        Arrays.fill(palette, 0, paletteSize, null);
+        out.write(cells);
+    }
+
+    private byte[] getStateCells() {
+        if (this.stateCells.length != this.gridWidth * this.gridHeight) {
+            this.stateCells = new byte[this.gridWidth * this.gridHeight];
+        }
+        return this.stateCells;
+    }
+
+    /**
+     * Reads the state written by writeState, replacing this game's. The game must be the same size and have the
+     * same level table as the one written. The view (If any) should be redrawn afterwards.
+     *
+     * @param in
+     * @throws IOException
+     */
+    public void readState(DataInput in) throws IOException {
+        if (in.readInt() != this.gridWidth || in.readInt() != this.gridHeight) {
+            throw new IOException("Game state is for a different grid size.");
+        }
+        this.tickCount = in.readLong();
+        this.gameRunning = in.readBoolean();
+        this.score = in.readInt();
+        this.colorInt = in.readInt();
+        this.level = in.readInt();
+        this.clearsThisLevel = in.readInt();
+        this.gravityProgress = in.readInt();
+        this.lockTicks = in.readInt();
+        this.holdShape = in.readInt();
+        this.holdColor = readColor(in);
+        this.holdThisTurn = in.readBoolean();
+
+        this.garbageBatches = 0;
+        this.pendingGarbage = 0;
+        int batches = in.readInt();
+        for (int i = 0; i < batches; i++) {
+            this.addGarbage(in.readInt(), in.readInt());
+        }
+
+        this.tetrominoSpawner.readState(in);
+
+        TetrominoView falling = null;
+        if (in.readBoolean()) {
+            int shape = in.readInt();
+            Color color = readColor(in);
+            boolean isFalling = in.readBoolean();
+            Block[] blocks = new Block[4];
+            for (int i = 0; i < 4; i++) {
+                int x = in.readInt();
+                int y = in.readInt();
+                if (x < 0 || x >= this.gridWidth || y < 0 || y >= this.gridHeight) {
+                    throw new IOException("Falling block outside the grid.");
+                }
+                blocks[i] = new Block(this, color, x, y);
+            }
+            falling = new TetrominoView(blocks, shape == TetrominoSpawner.I);
+            falling.setShape(shape);
+            if (!isFalling) {
+                falling.setFalling(false);
+            }
+        }
+
+        int paletteSize = in.readInt();
+        if (paletteSize < 0 || paletteSize > this.statePalette.length) {
+            throw new IOException("Palette size out of range: " + paletteSize);
+        }
+        Block[] palette = new Block[paletteSize];
+        for (int i = 0; i < palette.length; i++) {
+            // Blocks set in place are only told apart by their cell, so every cell of a color shares one.
+            palette[i] = new Block(this, readColor(in), 0, 0);
+            palette[i].setFalling(false);
+        }
+        byte[] cells = this.getStateCells();
+        in.readFully(cells);
+        this.board.clear();
+        for (int y = 0; y < this.gridHeight; y++) {
+            for (int x = 0; x < this.gridWidth; x++) {
+                int index = (cells[x + this.gridWidth * y] & 0xFF) - 1;
+                if (index >= palette.length) {
+                    throw new IOException("Cell color out of range: " + index);
+                }
+                if (index >= 0) {
+                    this.board.set(x, y, palette[index]);
+                }
+            }
+        }
+
+        // The cells written include the falling block's, which isn't hashed until it is set in place.
+        this.boardHash.reset(this.board);
+        if (falling != null && falling.getFalling()) {
+            for (int i = 0; i < 4; i++) {
+                this.boardHash.toggle(falling.getBlockX(i), falling.getBlockY(i));
+            }
+        }
+
+        // The falling block's cells are its own blocks, not the board's.
+        this.tetrominoFalling = falling;
+        if (falling != null) {
+            this.updateTetromino(falling);
+        }
+    }
+
+    /**
+     * Replaces the board, falling piece, held shape and the shapes to come with the given position's (E.g. a puzzle,
+     * see PositionCode), keeping the score, level and counters. The cells are filled with gray blocks and the
+     * falling piece gets the next color. With no falling piece the next shape is spawned on the next tick. The
+     * position must be the size of the game and its falling piece has to fit on the grid.
+     *
+     * @param position
+     */
+    public void setPosition(GamePosition position) {
+        if (position.getWidth() != this.gridWidth || position.getHeight() != this.gridHeight) {
+            throw new IllegalArgumentException("Position is for a different grid size.");
+        }
+        TetrominoView falling = null;
+        int shape = position.getActiveShape();
+        if (shape != TetrominoSpawner.NO_SHAPE) {
+            int[] cellX = new int[4];
+            int[] cellY = new int[4];
+            PlacementPlanner.getCells(shape, position.getActiveRotation(), position.getActiveX(),
+                    position.getActiveY(), cellX, cellY);
+            Color color = this.getNextColor();
+            Block[] blocks = new Block[4];
+            for (int i = 0; i < 4; i++) {
+                if (cellX[i] < 0 || cellX[i] >= this.gridWidth || cellY[i] < 0 || cellY[i] >= this.gridHeight
+                        || position.isFilled(cellX[i], cellY[i])) {
+                    throw new IllegalArgumentException("Falling piece doesn't fit in the position.");
+                }
+                blocks[i] = new Block(this, color, cellX[i], cellY[i]);
+            }
+            falling = new TetrominoView(blocks, shape == TetrominoSpawner.I);
+            falling.setShape(shape);
+        }
+        this.tetrominoSpawner.setQueue(position.getQueue());
+
+        this.board.clear();
+        for (int y = 0; y < this.gridHeight; y++) {
+            for (int x = 0; x < this.gridWidth; x++) {
+                if (position.isFilled(x, y)) {
+                    this.board.set(x, y, this.garbageBlock);
+                }
+            }
+        }
+        this.boardHash.reset(this.board);
+
+        this.holdShape = position.getHoldShape();
+        this.holdColor = this.holdShape == TetrominoSpawner.NO_SHAPE ? null : this.getNextColor();
+        this.holdThisTurn = false;
+        this.gravityProgress = 0;
+        this.lockTicks = 0;
+
+        this.tetrominoFalling = falling;
+        if (falling != null) {
+            this.updateTetromino(falling);
+        }
+
+        if (this.hasView()) {
+            this.view.clearScreen();
+            this.view.drawHold(this.holdShape, this.holdColor);
+        }
+    }
+
+    // The colors the game gives blocks (See getNextColor and garbageBlock), written as their index so they are read
+    // back as the same objects. Any other color is written as its components.
+    private static final Color[] STATE_COLORS = {Color.CYAN, Color.BLUE, Color.ORANGE, Color.YELLOW, Color.LIME,
+        Color.MAGENTA, Color.RED, Color.GRAY};
+    private static final int NO_COLOR = -1;
+    private static final int OTHER_COLOR = -2;
+
+    private static void writeColor(DataOutput out, Color color) throws IOException {
+        if (color == null) {
+            out.writeByte(NO_COLOR);
+            return;
+        }
+        for (int i = 0; i < STATE_COLORS.length; i++) {
+            if (STATE_COLORS[i].equals(color)) {
+                out.writeByte(i);
+                return;
+            }
+        }
+        out.writeByte(OTHER_COLOR);
+        out.writeDouble(color.getRed());
+        out.writeDouble(color.getGreen());
+        out.writeDouble(color.getBlue());
+        out.writeDouble(color.getOpacity());
+    }
+
+    private static Color readColor(DataInput in) throws IOException {
+        int index = in.readByte();
+        if (index == NO_COLOR) {
+            return null;
+        }
+        if (index == OTHER_COLOR) {
+            try {
+                return new Color(in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble());
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Color out of range.", e);
+            }
+        }
+        if (index < 0 || index >= STATE_COLORS.length) {
+            throw new IOException("Not a color: " + index);
+        }
+        return STATE_COLORS[index];
+    }
+
     /**
      * Returns the width and height assigned to this game object.
      * @return 
@@ -386,4 +1109,50 @@ public class Game {
     public int getScore(){
         return this.score;
     }
+
+    /**
+     * Sets the level table and goes back to the first level.
+     * @param levelTable
+     */
+    public void setLevelTable(LevelTable levelTable) {
+        this.levelTable = levelTable;
+        this.level = 0;
+        this.clearsThisLevel = 0;
+    }
+
+    public LevelTable getLevelTable() {
+        return this.levelTable;
+    }
+
+    /**
+     * Getter method for the current level, starting at 0.
+     * @return int
+     */
+    public int getLevel() {
+        return this.level;
+    }
+
+    /**
+     * Sets the recorder that every command given to tick is recorded in, null to stop recording.
+     * @param commandRecorder
+     */
+    public void setCommandRecorder(CommandRecorder commandRecorder) {
+        this.commandRecorder = commandRecorder;
+    }
+
+    /**
+     * The shapes the game was given to spawn next (See setPosition) that it hasn't yet, in order.
+     * @return int[]
+     */
+    public int[] getQueue() {
+        return this.tetrominoSpawner.getQueue();
+    }
+
+    /**
+     * Getter method for the held shape, TetrominoSpawner.NO_SHAPE if nothing is held.
+     * @return int
+     */
+    public int getHoldShape() {
+        return this.holdShape;
+    }
 }
@@ -0,0 +1,34 @@
+package Game_Main;
+
+/**
+ * The time games are run by (See FixedRateScheduler). A SystemClock runs in real time for playing, a VirtualClock
+ * jumps ahead whenever it is waited on, so simulations, replays and tests run as fast as the games can be ticked.
+ * The games themselves only count ticks (See Game.getTime), so they play out the same on either.
+ *
+ * @author T03-2
+ */
+public interface GameClock {
+
+    /**
+     * The time in nanoseconds, only meaningful compared with other times from the same clock.
+     *
+     * @return long
+     */
+    long nanoTime();
+
+    /**
+     * Waits until the given nanoseconds have passed on the clock, or less if the thread is unparked
+     * (See LockSupport.unpark).
+     *
+     * @param nanos
+     */
+    void sleep(long nanos);
+
+    /**
+     * Whether the clock moves on by itself. One that doesn't only moves when it is slept on, so whatever sleeps on
+     * it must not wait for other threads to catch up by sleeping.
+     *
+     * @return boolean
+     */
+    boolean isRealTime();
+}
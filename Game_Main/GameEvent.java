@@ -0,0 +1,102 @@
+package Game_Main;
+
+/**
+ * Something that happened in a game, delivered to subscribers by a GameEventBus.
+ * Events are reused by the bus, a subscriber has to copy anything it wants to keep after onEvent returns.
+ *
+ * @author T03-2
+ */
+public final class GameEvent {
+
+    // A tetromino was spawned, x and y are its first block.
+    public static final int SPAWNED = 0;
+    // The falling tetromino moved or rotated, x and y are its first block.
+    public static final int MOVED = 1;
+    // The falling tetromino was set in place, x and y are its first block.
+    public static final int LOCKED = 2;
+    // Lines were cleared, lines is how many.
+    public static final int LINES_CLEARED = 3;
+    // The falling tetromino was held, shape is the held shape.
+    public static final int HOLD = 4;
+    // No tetromino could be spawned, the game is over.
+    public static final int GAME_OVER = 5;
+    // Garbage rows were added below the stack, lines is how many.
+    public static final int GARBAGE = 6;
+
+    // Amount of event types, every type is in the range [0, COUNT).
+    public static final int COUNT = 7;
+
+    private static final String[] NAMES = {"Spawned", "Moved", "Locked", "LinesCleared", "Hold", "GameOver", "Garbage"};
+
+    private int type;
+    private long tick;
+    private int shape;
+    private int x;
+    private int y;
+    private int lines;
+    private int score;
+
+    /**
+     * Sets every field of the event, used by the bus when publishing and copying.
+     */
+    void set(int type, long tick, int shape, int x, int y, int lines, int score) {
+        this.type = type;
+        this.tick = tick;
+        this.shape = shape;
+        this.x = x;
+        this.y = y;
+        this.lines = lines;
+        this.score = score;
+    }
+
+    void copy(GameEvent event) {
+        this.set(event.type, event.tick, event.shape, event.x, event.y, event.lines, event.score);
+    }
+
+    public int getType() {
+        return this.type;
+    }
+
+    // Tick of the game the event happened on.
+    public long getTick() {
+        return this.tick;
+    }
+
+    // Shape of the tetromino (See Blocks.TetrominoSpawner), or NO_SHAPE.
+    public int getShape() {
+        return this.shape;
+    }
+
+    public int getX() {
+        return this.x;
+    }
+
+    public int getY() {
+        return this.y;
+    }
+
+    public int getLines() {
+        return this.lines;
+    }
+
+    // Score of the game after the event.
+    public int getScore() {
+        return this.score;
+    }
+
+    /**
+     * Returns the name of the given event type.
+     *
+     * @param type
+     * @return String
+     */
+    public static String getName(int type) {
+        return NAMES[type];
+    }
+
+    @Override
+    public String toString() {
+        return NAMES[this.type] + " tick=" + this.tick + " shape=" + this.shape + " x=" + this.x + " y=" + this.y
+                + " lines=" + this.lines + " score=" + this.score;
+    }
+}
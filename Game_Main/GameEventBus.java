@@ -0,0 +1,137 @@
+package Game_Main;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * Delivers the events of one game to any number of subscribers without locks and without the game
+ * ever waiting for them.
+ *
+ * Events are written by the game's thread into a ring of preallocated events. Every subscription keeps
+ * its own position in the ring and takes the events it hasn't seen yet when its owner polls it, on whatever
+ * thread suits it (The JavaFX thread, a logging thread, a network thread). A subscriber that falls more than
+ * the ring's size behind loses the oldest events, which are counted in Subscription.getMissed.
+ *
+ * @author T03-2
+ */
+public class GameEventBus {
+
+    private final GameEvent[] ring;
+    private final int mask;
+
+    // Sequence of the last event being written, and of the last event finished. Only the game's thread writes them.
+    private volatile long claimed = -1;
+    private volatile long published = -1;
+
+    /**
+     * Creates a bus holding the given amount of events, rounded up to a power of two.
+     *
+     * @param capacity
+     */
+    public GameEventBus(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.ring = new GameEvent[size];
+        for (int i = 0; i < size; i++) {
+            this.ring[i] = new GameEvent();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Publishes an event. Must only be called from one thread (The one running the game).
+     */
+    public void publish(int type, long tick, int shape, int x, int y, int lines, int score) {
+        long sequence = this.published + 1;
+        // Let readers know the slot is being overwritten before touching it.
+        this.claimed = sequence;
+        VarHandle.storeStoreFence();
+        this.ring[(int) sequence & this.mask].set(type, tick, shape, x, y, lines, score);
+        this.published = sequence;
+    }
+
+    public int getCapacity() {
+        return this.ring.length;
+    }
+
+    /**
+     * Sequence of the last event published, -1 if there is none yet.
+     *
+     * @return long
+     */
+    public long getPublished() {
+        return this.published;
+    }
+
+    /**
+     * Creates a subscription that gets every event published from now on.
+     *
+     * @return Subscription
+     */
+    public Subscription subscribe() {
+        return new Subscription(this, this.published);
+    }
+
+    /**
+     * A subscriber's position in a GameEventBus. Must only be polled from one thread at a time.
+     */
+    public static class Subscription {
+
+        private final GameEventBus bus;
+        private long sequence;
+        private long missed = 0;
+
+        // The subscriber's own copy of the event being delivered, so the game can keep writing.
+        private final GameEvent event = new GameEvent();
+
+        private Subscription(GameEventBus bus, long sequence) {
+            this.bus = bus;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Gives the listener every event published since the last poll, returning how many were delivered.
+         *
+         * @param listener
+         * @return int
+         */
+        public int poll(GameEventListener listener) {
+            long published = this.bus.published;
+            int capacity = this.bus.ring.length;
+            int delivered = 0;
+
+            while (this.sequence < published) {
+                long next = this.sequence + 1;
+                if (published - next >= capacity) {
+                    // Already overwritten, skip to the oldest event still in the ring.
+                    this.missed += published - capacity + 1 - next;
+                    this.sequence = published - capacity;
+                    continue;
+                }
+                this.event.copy(this.bus.ring[(int) next & this.bus.mask]);
+                VarHandle.loadLoadFence();
+                if (this.bus.claimed - next >= capacity) {
+                    // The game started overwriting it while it was copied, it can't be trusted.
+                    this.missed++;
+                    this.sequence = next;
+                    published = this.bus.published;
+                    continue;
+                }
+                this.sequence = next;
+                listener.onEvent(this.event);
+                delivered++;
+            }
+            return delivered;
+        }
+
+        /**
+         * Amount of events that were overwritten before this subscription got to them.
+         *
+         * @return long
+         */
+        public long getMissed() {
+            return this.missed;
+        }
+    }
+}
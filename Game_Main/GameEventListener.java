@@ -0,0 +1,16 @@
+package Game_Main;
+
+/**
+ * Reacts to the events of a game (See GameEventBus).
+ *
+ * @author T03-2
+ */
+public interface GameEventListener {
+
+    /**
+     * Called for every event, in the order they happened. The event is reused, copy what is needed.
+     *
+     * @param event
+     */
+    void onEvent(GameEvent event);
+}
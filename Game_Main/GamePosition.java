@@ -0,0 +1,315 @@
+package Game_Main;
+
+import Blocks.TetrominoModel;
+import Blocks.TetrominoSpawner;
+import Board.Board;
+import java.util.Arrays;
+
+/**
+ * A position to play from: which cells of the grid are filled, the falling piece (Its shape, rotation and where its
+ * first block is), the held shape and the shapes to come, in order. Colors aren't kept, only what the rules depend
+ * on. Read from a game with read, written to and from strings with PositionCode and played with Game.setPosition.
+ *
+ * Can be reused for position after position without allocating, as long as they are no bigger than the biggest
+ * before.
+ *
+ * @author T03-2
+ */
+public class GamePosition {
+
+    // Most cells a position can have.
+    public static final int MAX_CELLS = 1 << 24;
+
+    private int width;
+    private int height;
+
+    // Bit y * width + x is set for a filled cell.
+    private long[] cells = new long[0];
+
+    private int activeShape = TetrominoSpawner.NO_SHAPE;
+    private int activeRotation;
+    private int activeX;
+    private int activeY;
+
+    private int holdShape = TetrominoSpawner.NO_SHAPE;
+
+    private int[] queue = new int[8];
+    private int queueLength = 0;
+
+    /**
+     * Creates an empty position with no grid, call setSize before using it.
+     */
+    public GamePosition() {
+    }
+
+    /**
+     * Creates an empty position on a grid of the given size.
+     *
+     * @param width
+     * @param height
+     */
+    public GamePosition(int width, int height) {
+        this.setSize(width, height);
+    }
+
+    /**
+     * Reads the position of the given game, see read.
+     *
+     * @param game
+     * @return GamePosition
+     */
+    public static GamePosition of(Game game) {
+        GamePosition position = new GamePosition();
+        position.read(game);
+        return position;
+    }
+
+    /**
+     * Empties the position and sets its size.
+     *
+     * @param width
+     * @param height
+     */
+    public void setSize(int width, int height) {
+        if (width < 1 || height < 1 || (long) width * height > MAX_CELLS) {
+            throw new IllegalArgumentException("Grid size out of range: " + width + " x " + height);
+        }
+        this.width = width;
+        this.height = height;
+        int words = (width * height + 63) >>> 6;
+        if (this.cells.length < words) {
+            this.cells = new long[words];
+        } else {
+            Arrays.fill(this.cells, 0, words, 0);
+        }
+        this.activeShape = TetrominoSpawner.NO_SHAPE;
+        this.holdShape = TetrominoSpawner.NO_SHAPE;
+        this.queueLength = 0;
+    }
+
+    /**
+     * Replaces this position with the given game's between ticks: the cells of the blocks set in place, the
+     * falling piece if there is one, the held shape and the shapes the game was given to spawn next that it
+     * hasn't yet (See Game.getQueue, the shuffled shapes after them aren't part of the position).
+     *
+     * @param game
+     */
+    public void read(Game game) {
+        this.setSize(game.getGridWidth(), game.getGridHeight());
+        Board board = game.getBoard();
+        for (int y = 0; y < this.height; y++) {
+            for (int x = 0; x < this.width; x++) {
+                if (board.get(x, y) != null) {
+                    this.setFilled(x, y, true);
+                }
+            }
+        }
+
+        // The falling piece is on the board between ticks, but isn't set in place.
+        TetrominoModel falling = game.getTetrominoFalling();
+        if (falling != null && falling.getFalling()) {
+            for (int i = 0; i < 4; i++) {
+                this.setFilled(falling.getBlockX(i), falling.getBlockY(i), false);
+            }
+            int shape = falling.getShape();
+            int rotation = shape < 0 ? -1 : PlacementPlanner.rotationOf(falling);
+            if (rotation < 0) {
+                throw new IllegalArgumentException("Falling piece isn't a TetrominoSpawner shape");
+            }
+            this.setActive(shape, rotation, falling.getBlockX(0), falling.getBlockY(0));
+        }
+
+        this.setHold(game.getHoldShape());
+        for (int shape : game.getQueue()) {
+            this.addQueue(shape);
+        }
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    public boolean isFilled(int x, int y) {
+        int bit = this.bit(x, y);
+        return (this.cells[bit >>> 6] & 1L << bit) != 0;
+    }
+
+    public void setFilled(int x, int y, boolean filled) {
+        int bit = this.bit(x, y);
+        if (filled) {
+            this.cells[bit >>> 6] |= 1L << bit;
+        } else {
+            this.cells[bit >>> 6] &= ~(1L << bit);
+        }
+    }
+
+    private int bit(int x, int y) {
+        if (x < 0 || x >= this.width || y < 0 || y >= this.height) {
+            throw new IllegalArgumentException("Cell outside the grid: " + x + ", " + y);
+        }
+        return y * this.width + x;
+    }
+
+    /**
+     * The filled cells as bits, bit y * width + x (Of word bit / 64) for the cell at x, y. Shared, not a copy.
+     *
+     * @return long[]
+     */
+    public long[] getCells() {
+        return this.cells;
+    }
+
+    /**
+     * Sets the falling piece: a piece of the shape in the given rotation (See PlacementPlanner.getRotations) with its
+     * first block at x, y. Its cells don't have to be in the grid or empty here, Game.setPosition checks they are.
+     *
+     * @param shape
+     * @param rotation
+     * @param x
+     * @param y
+     */
+    public void setActive(int shape, int rotation, int x, int y) {
+        if (shape < 0 || shape > TetrominoSpawner.I) {
+            throw new IllegalArgumentException("Not a shape: " + shape);
+        }
+        if (rotation < 0 || rotation >= PlacementPlanner.getRotations(shape)) {
+            throw new IllegalArgumentException("Rotation out of range: " + rotation);
+        }
+        this.activeShape = shape;
+        this.activeRotation = rotation;
+        this.activeX = x;
+        this.activeY = y;
+    }
+
+    /**
+     * Leaves the position without a falling piece, the game spawns the next one on its first tick.
+     */
+    public void clearActive() {
+        this.activeShape = TetrominoSpawner.NO_SHAPE;
+    }
+
+    /**
+     * The falling piece's shape, TetrominoSpawner.NO_SHAPE if there is none.
+     *
+     * @return int
+     */
+    public int getActiveShape() {
+        return this.activeShape;
+    }
+
+    public int getActiveRotation() {
+        return this.activeRotation;
+    }
+
+    public int getActiveX() {
+        return this.activeX;
+    }
+
+    public int getActiveY() {
+        return this.activeY;
+    }
+
+    /**
+     * Sets the held shape, TetrominoSpawner.NO_SHAPE for nothing held.
+     *
+     * @param shape
+     */
+    public void setHold(int shape) {
+        if (shape < TetrominoSpawner.NO_SHAPE || shape > TetrominoSpawner.I) {
+            throw new IllegalArgumentException("Not a shape: " + shape);
+        }
+        this.holdShape = shape;
+    }
+
+    public int getHoldShape() {
+        return this.holdShape;
+    }
+
+    public void clearQueue() {
+        this.queueLength = 0;
+    }
+
+    /**
+     * Adds a shape to the end of the shapes to come.
+     *
+     * @param shape
+     */
+    public void addQueue(int shape) {
+        if (shape < 0 || shape > TetrominoSpawner.I) {
+            throw new IllegalArgumentException("Not a shape: " + shape);
+        }
+        if (this.queueLength == TetrominoSpawner.MAX_QUEUE) {
+            throw new IllegalArgumentException("Queue too long");
+        }
+        if (this.queueLength == this.queue.length) {
+            this.queue = Arrays.copyOf(this.queue, this.queueLength * 2);
+        }
+        this.queue[this.queueLength++] = shape;
+    }
+
+    public int getQueueLength() {
+        return this.queueLength;
+    }
+
+    public int getQueue(int index) {
+        if (index < 0 || index >= this.queueLength) {
+            throw new IndexOutOfBoundsException("Queue index out of range: " + index);
+        }
+        return this.queue[index];
+    }
+
+    /**
+     * The shapes to come, in order, as a new array.
+     *
+     * @return int[]
+     */
+    public int[] getQueue() {
+        return Arrays.copyOf(this.queue, this.queueLength);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof GamePosition)) {
+            return false;
+        }
+        GamePosition other = (GamePosition) o;
+        if (this.width != other.width || this.height != other.height || this.holdShape != other.holdShape
+                || this.activeShape != other.activeShape || this.queueLength != other.queueLength) {
+            return false;
+        }
+        if (this.activeShape != TetrominoSpawner.NO_SHAPE && (this.activeRotation != other.activeRotation
+                || this.activeX != other.activeX || this.activeY != other.activeY)) {
+            return false;
+        }
+        int words = (this.width * this.height + 63) >>> 6;
+        return Arrays.equals(this.cells, 0, words, other.cells, 0, words)
+                && Arrays.equals(this.queue, 0, this.queueLength, other.queue, 0, this.queueLength);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = this.width * 31 + this.height;
+        int words = (this.width * this.height + 63) >>> 6;
+        for (int i = 0; i < words; i++) {
+            hash = hash * 31 + Long.hashCode(this.cells[i]);
+        }
+        hash = hash * 31 + this.holdShape;
+        hash = hash * 31 + this.activeShape;
+        if (this.activeShape != TetrominoSpawner.NO_SHAPE) {
+            hash = ((hash * 31 + this.activeRotation) * 31 + this.activeX) * 31 + this.activeY;
+        }
+        for (int i = 0; i < this.queueLength; i++) {
+            hash = hash * 31 + this.queue[i];
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return PositionCode.encode(this);
+    }
+}
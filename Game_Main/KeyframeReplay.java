@@ -0,0 +1,248 @@
+package Game_Main;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A replay file that can be jumped around in. The game's full state (See Game.writeState) is written every
+ * interval ticks between the commands, and an index of where each of those keyframes is written at the end,
+ * so seeking to a tick only loads the keyframe before it and plays the commands from there, however long the
+ * game was. The file is memory mapped, so only the parts seeked to are read.
+ *
+ * Layout: a header (MAGIC, VERSION, the board config, seed and interval, then the level table's length and the
+ * table, see LevelTable.write), then for every keyframe its state's
+ * length and state followed by the commands of the next interval ticks (One byte each), then the index (The
+ * amount of keyframes and each one's offset), then a trailer of the amount of ticks, the score, the index's
+ * offset and MAGIC again. Files must be under 2 GB.
+ *
+ * @author T03-2
+ */
+public final class KeyframeReplay implements AutoCloseable {
+
+    private static final int MAGIC = 0x544B5246;
+    private static final int VERSION = 1;
+    private static final int TRAILER_BYTES = 4 + 4 + 8 + 4;
+
+    // A keyframe every minute of play.
+    public static final int DEFAULT_INTERVAL = 60 * Game.TICKS_PER_SECOND;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private final BoardConfig config;
+    private final long seed;
+    private final LevelTable levels;
+    private final int interval;
+    private final int ticks;
+    private final int score;
+    private final long[] keyframeOffsets;
+
+    private KeyframeReplay(FileChannel channel, MappedByteBuffer buffer) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        buffer.order(ByteOrder.BIG_ENDIAN);
+
+        int size = buffer.capacity();
+        if (size < 4 * 7 + 8 + TRAILER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                || buffer.getInt(size - 4) != MAGIC) {
+            throw new IOException("Not a keyframe replay file.");
+        }
+        this.config = new BoardConfig(buffer.getInt(8), buffer.getInt(12), buffer.getInt(16));
+        this.seed = buffer.getLong(20);
+        this.interval = buffer.getInt(28);
+        int levelBytes = buffer.getInt(32);
+        if (levelBytes < 0 || levelBytes > size - 36 - TRAILER_BYTES) {
+            throw new IOException("Corrupt keyframe replay level table.");
+        }
+        byte[] levels = new byte[levelBytes];
+        buffer.get(36, levels);
+        this.levels = LevelTable.read(new DataInputStream(new ByteArrayInputStream(levels)));
+        if (this.levels == null) {
+            throw new IOException("Corrupt keyframe replay level table.");
+        }
+        this.ticks = buffer.getInt(size - TRAILER_BYTES);
+        this.score = buffer.getInt(size - TRAILER_BYTES + 4);
+        long indexOffset = buffer.getLong(size - TRAILER_BYTES + 8);
+
+        if (this.interval <= 0 || indexOffset < 0 || indexOffset + 4 > size - TRAILER_BYTES) {
+            throw new IOException("Corrupt keyframe replay file.");
+        }
+        int keyframes = buffer.getInt((int) indexOffset);
+        if (this.ticks < 0 || keyframes != this.ticks / this.interval + 1 || indexOffset + 4 + keyframes * 8L > size - TRAILER_BYTES) {
+            throw new IOException("Corrupt keyframe replay index.");
+        }
+        this.keyframeOffsets = new long[keyframes];
+        for (int i = 0; i < keyframes; i++) {
+            this.keyframeOffsets[i] = buffer.getLong((int) indexOffset + 4 + i * 8);
+        }
+    }
+
+    /**
+     * Plays the replay again, writing it to the given file with a keyframe every interval ticks.
+     *
+     * @param replay
+     * @param file
+     * @param interval
+     * @throws IOException
+     */
+    public static void write(Replay replay, File file, int interval) throws IOException {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Keyframe interval must be positive: " + interval);
+        }
+        Game game = replay.createGame();
+        int ticks = replay.getTicks();
+        long[] offsets = new long[ticks / interval + 1];
+        int keyframes = 0;
+
+        ByteArrayOutputStream state = new ByteArrayOutputStream();
+        DataOutputStream stateOut = new DataOutputStream(state);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(replay.getConfig().getWidth());
+            out.writeInt(replay.getConfig().getHeight());
+            out.writeInt(replay.getConfig().getSpeed());
+            out.writeLong(replay.getSeed());
+            out.writeInt(interval);
+            replay.getLevelTable().write(stateOut);
+            out.writeInt(state.size());
+            state.writeTo(out);
+
+            for (int tick = 0; tick <= ticks; tick++) {
+                if (tick % interval == 0) {
+                    state.reset();
+                    game.writeState(stateOut);
+                    offsets[keyframes++] = out.size();
+                    out.writeInt(state.size());
+                    state.writeTo(out);
+                }
+                if (tick < ticks) {
+                    out.writeByte(replay.getCommand(tick));
+                    game.tick(replay.getCommand(tick));
+                }
+                // DataOutputStream stops counting at Integer.MAX_VALUE.
+                if (out.size() == Integer.MAX_VALUE) {
+                    throw new IOException("Replay too long for a keyframe file.");
+                }
+            }
+
+            long indexOffset = out.size();
+            out.writeInt(keyframes);
+            for (int i = 0; i < keyframes; i++) {
+                out.writeLong(offsets[i]);
+            }
+            out.writeInt(ticks);
+            out.writeInt(replay.getScore());
+            out.writeLong(indexOffset);
+            out.writeInt(MAGIC);
+        } finally {
+            game.close();
+        }
+    }
+
+    /**
+     * Memory maps a file written by write.
+     *
+     * @param file
+     * @return KeyframeReplay
+     * @throws IOException
+     */
+    public static KeyframeReplay open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Keyframe replay file too big: " + file);
+            }
+            return new KeyframeReplay(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a game with no view as it was after the given amount of ticks (At most getTicks).
+     *
+     * @param tick
+     * @return Game
+     * @throws IOException
+     */
+    public Game seek(int tick) throws IOException {
+        Game game = Replay.createGame(this.config, this.seed, this.levels);
+        this.seek(game, tick);
+        return game;
+    }
+
+    /**
+     * Puts the given game (Of the same size and levels, e.g. one with a view) in the state it was in after the
+     * given amount of ticks (At most getTicks): the keyframe before the tick is loaded and only the ticks after it
+     * are played.
+     *
+     * @param game
+     * @param tick
+     * @throws IOException
+     */
+    public void seek(Game game, int tick) throws IOException {
+        tick = Math.max(0, Math.min(tick, this.ticks));
+        int keyframe = Math.min(tick / this.interval, this.keyframeOffsets.length - 1);
+
+        int offset = (int) this.keyframeOffsets[keyframe];
+        int length = this.buffer.getInt(offset);
+        byte[] state = new byte[length];
+        this.buffer.get(offset + 4, state);
+        game.readState(new DataInputStream(new ByteArrayInputStream(state)));
+
+        int commands = offset + 4 + length;
+        for (int t = keyframe * this.interval; t < tick && game.getGameRunning(); t++) {
+            game.tick(this.buffer.get(commands + t - keyframe * this.interval));
+        }
+    }
+
+    public BoardConfig getConfig() {
+        return this.config;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    public LevelTable getLevelTable() {
+        return this.levels;
+    }
+
+    /**
+     * Amount of ticks played.
+     *
+     * @return int
+     */
+    public int getTicks() {
+        return this.ticks;
+    }
+
+    public int getScore() {
+        return this.score;
+    }
+
+    public int getInterval() {
+        return this.interval;
+    }
+
+    public int getKeyframeCount() {
+        return this.keyframeOffsets.length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
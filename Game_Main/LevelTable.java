@@ -0,0 +1,249 @@
+package Game_Main;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Scanner;
+
+/**
+ * Table of how fast the game is at each level. Each level has a gravity (how far the falling tetromino drops
+ * every tick), a lock delay (how many ticks a tetromino can sit on the ground before it is set in place) and
+ * a soft drop factor (how many times faster than gravity the tetromino falls while soft dropping).
+ *
+ * Gravity is in 1/65536ths of a cell per tick so fractions of a cell can be added up over ticks,
+ * GRAVITY_20G or more drops the tetromino straight to the ground.
+ *
+ * @author T03-2
+ */
+public class LevelTable {
+
+    // One cell per tick.
+    public static final int ONE_CELL = 65536;
+
+    // Gravity at or above this drops straight to the ground every tick.
+    public static final int GRAVITY_20G = 20 * ONE_CELL;
+
+    // Lock delay and soft drop factor used when the table file doesn't give one.
+    public static final int DEFAULT_LOCK_DELAY = 30;
+    public static final int DEFAULT_SOFT_DROP_FACTOR = 20;
+
+    // Most levels a table read by read can have.
+    public static final int MAX_LEVELS = 1 << 16;
+
+    private final int[] gravity;
+    private final int[] lockDelay;
+    private final int[] softDropFactor;
+
+    // How many line clears (Not lines) are needed to go up one level.
+    private final int clearsPerLevel;
+
+    /**
+     * Creates a level table from the given columns, level 0 is index 0.
+     *
+     * @param gravity
+     * @param lockDelay
+     * @param softDropFactor
+     * @param clearsPerLevel
+     */
+    public LevelTable(int[] gravity, int[] lockDelay, int[] softDropFactor, int clearsPerLevel) {
+        if (gravity.length == 0 || gravity.length != lockDelay.length || gravity.length != softDropFactor.length) {
+            throw new IllegalArgumentException("Level table columns must be the same non-zero length.");
+        }
+        if (clearsPerLevel < 1) {
+            throw new IllegalArgumentException("Clears per level must be at least 1.");
+        }
+        this.gravity = gravity.clone();
+        this.lockDelay = lockDelay.clone();
+        this.softDropFactor = softDropFactor.clone();
+        this.clearsPerLevel = clearsPerLevel;
+    }
+
+    /**
+     * Creates the default table starting with the tetromino dropping a cell every given milliseconds, each level
+     * being 10% faster than the last until 20G.
+     *
+     * @param startFallMillis
+     * @return LevelTable
+     */
+    public static LevelTable createDefault(int startFallMillis) {
+        ArrayList<Integer> levels = new ArrayList<>();
+        long g = Math.max(1, (long) ONE_CELL * 1000 / (Game.TICKS_PER_SECOND * Math.max(1, startFallMillis)));
+        while (g < GRAVITY_20G) {
+            levels.add((int) g);
+            g = g * 10 / 9 + 1;
+        }
+        levels.add(GRAVITY_20G);
+
+        int[] gravity = new int[levels.size()];
+        int[] lockDelay = new int[levels.size()];
+        int[] softDropFactor = new int[levels.size()];
+        for (int i = 0; i < gravity.length; i++) {
+            gravity[i] = levels.get(i);
+            lockDelay[i] = DEFAULT_LOCK_DELAY;
+            softDropFactor[i] = DEFAULT_SOFT_DROP_FACTOR;
+        }
+        return new LevelTable(gravity, lockDelay, softDropFactor, 1);
+    }
+
+    /**
+     * Loads a level table from a text file. The first line is the amount of line clears per level, every other
+     * line is one level: gravity in cells per tick from 0 to 20 (e.g. 0.05, or 20 for 20G), then optionally the
+     * lock delay in ticks (0 or more) and the soft drop factor (1 or more). Lines starting with # are ignored.
+     *
+     * @param file
+     * @return LevelTable
+     * @throws FileNotFoundException
+     */
+    public static LevelTable load(File file) throws FileNotFoundException {
+        ArrayList<int[]> levels = new ArrayList<>();
+        int clearsPerLevel = -1;
+
+        try (Scanner scanner = new Scanner(file)) {
+            while (scanner.hasNextLine()) {
+                String line = scanner.nextLine().trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\\s+");
+                try {
+                    if (clearsPerLevel == -1) {
+                        clearsPerLevel = Integer.parseInt(parts[0]);
+                        continue;
+                    }
+                    double cells = Double.parseDouble(parts[0]);
+                    // Checked before rounding, a cast of anything past int range is garbage (And NaN is 0).
+                    if (!(cells >= 0 && cells <= GRAVITY_20G / (double) ONE_CELL)) {
+                        throw new NumberFormatException();
+                    }
+                    int[] level = {(int) Math.round(cells * ONE_CELL), DEFAULT_LOCK_DELAY, DEFAULT_SOFT_DROP_FACTOR};
+                    if (parts.length > 1) {
+                        level[1] = Integer.parseInt(parts[1]);
+                    }
+                    if (parts.length > 2) {
+                        level[2] = Integer.parseInt(parts[2]);
+                    }
+                    if (!isValid(level[0], level[1], level[2])) {
+                        throw new NumberFormatException();
+                    }
+                    levels.add(level);
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("Bad level table line: " + line);
+                }
+            }
+        }
+
+        int[] gravity = new int[levels.size()];
+        int[] lockDelay = new int[levels.size()];
+        int[] softDropFactor = new int[levels.size()];
+        for (int i = 0; i < gravity.length; i++) {
+            gravity[i] = levels.get(i)[0];
+            lockDelay[i] = levels.get(i)[1];
+            softDropFactor[i] = levels.get(i)[2];
+        }
+        return new LevelTable(gravity, lockDelay, softDropFactor, clearsPerLevel);
+    }
+
+    /**
+     * Whether a level's values can be played: gravity from 0 to GRAVITY_20G (Negative gravity would never let the
+     * tetromino land), a lock delay of 0 or more and a soft drop factor of 1 or more.
+     */
+    private static boolean isValid(int gravity, int lockDelay, int softDropFactor) {
+        return gravity >= 0 && gravity <= GRAVITY_20G && lockDelay >= 0 && softDropFactor >= 1;
+    }
+
+    /**
+     * Writes the table to the given output, for replays (See Replay.write).
+     *
+     * @param out
+     * @throws IOException
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(this.clearsPerLevel);
+        out.writeInt(this.gravity.length);
+        for (int i = 0; i < this.gravity.length; i++) {
+            out.writeInt(this.gravity[i]);
+            out.writeInt(this.lockDelay[i]);
+            out.writeInt(this.softDropFactor[i]);
+        }
+    }
+
+    /**
+     * Reads a table written by write, or returns null if it isn't a valid table.
+     *
+     * @param in
+     * @return LevelTable
+     * @throws IOException
+     */
+    public static LevelTable read(DataInput in) throws IOException {
+        int clearsPerLevel = in.readInt();
+        int levels = in.readInt();
+        if (levels < 1 || levels > MAX_LEVELS || clearsPerLevel < 1) {
+            return null;
+        }
+        int[] gravity = new int[levels];
+        int[] lockDelay = new int[levels];
+        int[] softDropFactor = new int[levels];
+        for (int i = 0; i < levels; i++) {
+            gravity[i] = in.readInt();
+            lockDelay[i] = in.readInt();
+            softDropFactor[i] = in.readInt();
+            if (!isValid(gravity[i], lockDelay[i], softDropFactor[i])) {
+                return null;
+            }
+        }
+        return new LevelTable(gravity, lockDelay, softDropFactor, clearsPerLevel);
+    }
+
+    /**
+     * Amount of levels in the table.
+     *
+     * @return int
+     */
+    public int getLevelCount() {
+        return this.gravity.length;
+    }
+
+    // Getters for each column at a level, levels past the end of the table use the last level.
+    public int getGravity(int level) {
+        return this.gravity[Math.min(level, this.gravity.length - 1)];
+    }
+
+    public int getLockDelay(int level) {
+        return this.lockDelay[Math.min(level, this.lockDelay.length - 1)];
+    }
+
+    public int getSoftDropFactor(int level) {
+        return this.softDropFactor[Math.min(level, this.softDropFactor.length - 1)];
+    }
+
+    public int getClearsPerLevel() {
+        return this.clearsPerLevel;
+    }
+
+    /**
+     * Whether the other table has the same levels and clears per level.
+     *
+     * @param other
+     * @return boolean
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof LevelTable)) {
+            return false;
+        }
+        LevelTable table = (LevelTable) other;
+        return this.clearsPerLevel == table.clearsPerLevel && Arrays.equals(this.gravity, table.gravity)
+                && Arrays.equals(this.lockDelay, table.lockDelay)
+                && Arrays.equals(this.softDropFactor, table.softDropFactor);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * (31 * this.clearsPerLevel + Arrays.hashCode(this.gravity)) + Arrays.hashCode(this.lockDelay))
+                + Arrays.hashCode(this.softDropFactor);
+    }
+}
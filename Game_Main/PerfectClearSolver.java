@@ -0,0 +1,612 @@
+package Game_Main;
+
+import Blocks.TetrominoModel;
+import Blocks.TetrominoSpawner;
+import Board.Board;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Finds a way to place the coming pieces so that the board ends up empty (A perfect clear), holding pieces when
+ * that helps. The pieces only go in the bottom few rows (The lines being cleared), which have to hold every filled
+ * cell, and each is placed anywhere it can come to rest dropping in from above (See
+ * PlacementPlanner.findLandings), so each placement can then be planned from the spawn with PlacementPlanner.
+ *
+ * It is a depth first search over placements. The bottom rows are kept as one 64 bit mask, so a board is one
+ * long, and a board is given up on without placing anything when:
+ *  - there aren't enough pieces left to fill it,
+ *  - the empty cells can't be split between the pieces by column parity: with the columns colored in turn, an O,
+ *    S, Z or flat I covers two of each color, an L or J three of one, a T three of one standing up and two of
+ *    each lying flat, an upright I four of one. Rows move down
+ *    as lines clear but columns never do, so this holds however the lines clear,
+ *  - a group of empty cells isn't a multiple of four cells: cells in the same column can end up next to each
+ *    other once the rows between them clear, so only cells in the same row split groups and only full columns
+ *    keep groups apart,
+ *  - or it was given up on before with the same pieces left (In a TranspositionTable, by hash of the board, the
+ *    lines left, the place in the queue and the held piece).
+ * The first few placements are split into fork/join tasks so every core searches part of the tree, and every
+ * task stops once any of them finds a solution. One solve runs at a time.
+ *
+ * @author T03-2
+ */
+public class PerfectClearSolver {
+
+    // The lines being cleared are kept in one long, bit x of row y from the bottom at y * width + x.
+    public static final int MAX_CELLS = 64;
+
+    // Placements split into tasks, the rest of each branch is searched by the task it was split to.
+    private static final int SPLIT_DEPTH = 2;
+
+    // Rows above the lines being cleared for pieces to come in through (An upright I is four high).
+    private static final int ENTRY_ROWS = 4;
+
+    private final int width;
+    private final int maxLines;
+    private final ForkJoinPool pool;
+    private final TranspositionTable failed;
+
+    // Filled cells of a whole row, by row.
+    private final long fullRow;
+
+    private final AtomicLong nodes = new AtomicLong();
+
+    /**
+     * A piece set in place by a solution.
+     */
+    public static final class Placement {
+
+        private final int shape;
+        private final boolean hold;
+        private final int[] cellX = new int[4];
+        private final int[] cellY = new int[4];
+
+        private Placement(int shape, boolean hold) {
+            this.shape = shape;
+            this.hold = hold;
+        }
+
+        public int getShape() {
+            return this.shape;
+        }
+
+        /**
+         * Whether hold is pressed before this piece: it is the held piece, or the piece after the current one if
+         * nothing was held.
+         *
+         * @return boolean
+         */
+        public boolean isHold() {
+            return this.hold;
+        }
+
+        /**
+         * Where the piece's cells are on the board as it is when the piece is placed (After the lines cleared by
+         * the placements before it). For PlacementPlanner.plan.
+         *
+         * @param i
+         * @return int
+         */
+        public int getCellX(int i) {
+            return this.cellX[i];
+        }
+
+        public int getCellY(int i) {
+            return this.cellY[i];
+        }
+    }
+
+    /**
+     * Creates a solver for boards of the given width clearing up to maxLines lines at once, with the given amount
+     * of threads.
+     *
+     * @param width
+     * @param maxLines
+     * @param threads
+     */
+    public PerfectClearSolver(int width, int maxLines, int threads) {
+        if (width < 1 || maxLines < 1 || width * maxLines > MAX_CELLS) {
+            throw new IllegalArgumentException("Can't solve " + maxLines + " lines of a " + width + " wide board");
+        }
+        this.width = width;
+        this.maxLines = maxLines;
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+        this.failed = new TranspositionTable(1 << 20);
+        this.fullRow = width == 64 ? -1L : (1L << width) - 1;
+    }
+
+    /**
+     * Finds placements for the pieces of the queue in order (The current piece first), with the given piece held
+     * (Or TetrominoSpawner.NO_SHAPE) and hold allowed, that leave the board given as row masks (Bit x of rows[y]
+     * for a filled cell, without the falling piece) empty. Fewer lines are tried first. Returns null if there are
+     * none.
+     *
+     * @param rows
+     * @param queue
+     * @param hold
+     * @return Placement[]
+     */
+    public Placement[] solve(long[] rows, int[] queue, int hold) {
+        int height = rows.length;
+        int top = height;
+        int filled = 0;
+        for (int y = 0; y < height; y++) {
+            if (rows[y] != 0 && top == height) {
+                top = y;
+            }
+            filled += Long.bitCount(rows[y]);
+        }
+        int pieces = queue.length + (hold == TetrominoSpawner.NO_SHAPE ? 0 : 1);
+
+        for (int lines = Math.max(1, height - top); lines <= this.maxLines && lines + ENTRY_ROWS <= height; lines++) {
+            int empty = lines * this.width - filled;
+            if (empty % 4 != 0 || empty / 4 > pieces) {
+                continue;
+            }
+            long board = 0;
+            for (int b = 0; b < lines; b++) {
+                board |= rows[height - 1 - b] << (b * this.width);
+            }
+            Placement[] solution = this.solve(board, lines, height, queue, hold);
+            if (solution != null) {
+                return solution;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The filled cells of the board as row masks, leaving out the given piece (E.g. the falling one, null for
+     * none).
+     *
+     * @param board
+     * @param skip
+     * @return long[]
+     */
+    public static long[] getRows(Board board, TetrominoModel skip) {
+        long[] rows = new long[board.getHeight()];
+        for (int y = 0; y < rows.length; y++) {
+            for (int x = 0; x < board.getWidth(); x++) {
+                if (board.get(x, y) != null) {
+                    rows[y] |= 1L << x;
+                }
+            }
+        }
+        if (skip != null) {
+            for (int i = 0; i < 4; i++) {
+                rows[skip.getBlockY(i)] &= ~(1L << skip.getBlockX(i));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Amount of boards searched so far.
+     *
+     * @return long
+     */
+    public long getNodes() {
+        return this.nodes.get();
+    }
+
+    /**
+     * Stops the threads.
+     */
+    public void close() {
+        this.pool.shutdown();
+    }
+
+    /**
+     * The SplitMix64 finaliser, see Board.ZobristHash.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private Placement[] solve(long board, int lines, int height, int[] queue, int hold) {
+        // Boards given up on are only given up on for this many lines and this queue.
+        this.failed.clear();
+        Problem problem = new Problem(lines + ENTRY_ROWS, height, queue, hold);
+        // With nothing held the first piece of the queue can be thought of as held, see Node.
+        Node start = hold == TetrominoSpawner.NO_SHAPE && queue.length > 0 ? new Node(board, lines, 1, queue[0], null)
+                : new Node(board, lines, 0, hold, null);
+        this.pool.invoke(new Search(start, problem));
+        return problem.found.get();
+    }
+
+    /**
+     * What every task of one search shares.
+     */
+    private static final class Problem {
+
+        // Rows of the bottom of the board the pieces are placed in, see PlacementPlanner.findLandings.
+        private final int window;
+        private final int height;
+        private final int[] queue;
+        private final int hold;
+        private final AtomicReference<Placement[]> found = new AtomicReference<>();
+
+        private Problem(int window, int height, int[] queue, int hold) {
+            this.window = window;
+            this.height = height;
+            this.queue = queue;
+            this.hold = hold;
+        }
+    }
+
+    /**
+     * A board reached by the placements on the way to it (Kept as a linked list back to the start).
+     *
+     * Either of two pieces can be placed next: the held one and the current one, or with nothing held the current
+     * one and the one after it. Those are the same choice, so nothing held is kept as the current piece held and
+     * the next one current, and the piece not placed is always the one held after. Hold presses are worked out
+     * again for the solution.
+     */
+    private static final class Node {
+
+        private final long board;
+        private final int lines;
+        // Next piece of the queue that hasn't been placed or held.
+        private final int next;
+        private final int hold;
+
+        private final Node parent;
+        private final int shape;
+        private final int landing;
+        private final int roughness;
+
+        private Node(long board, int lines, int next, int hold, Node parent) {
+            this(board, lines, next, hold, parent, TetrominoSpawner.NO_SHAPE, -1, 0);
+        }
+
+        private Node(long board, int lines, int next, int hold, Node parent, int shape, int landing, int roughness) {
+            this.board = board;
+            this.lines = lines;
+            this.next = next;
+            this.hold = hold;
+            this.parent = parent;
+            this.shape = shape;
+            this.landing = landing;
+            this.roughness = roughness;
+        }
+
+        private int depth() {
+            return this.parent == null ? 0 : this.parent.depth() + 1;
+        }
+    }
+
+    /**
+     * Searches from one board, splitting it into more tasks near the start.
+     */
+    private final class Search extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Node node;
+        private final Problem problem;
+
+        private Search(Node node, Problem problem) {
+            this.node = node;
+            this.problem = problem;
+        }
+
+        @Override
+        protected void compute() {
+            Worker worker = new Worker(this.problem);
+            if (this.node.depth() >= SPLIT_DEPTH || worker.isSolved(this.node)) {
+                worker.search(this.node);
+                return;
+            }
+            if (!worker.canSolve(this.node)) {
+                return;
+            }
+            List<Search> tasks = new ArrayList<>();
+            for (Node child : worker.children(this.node)) {
+                tasks.add(new Search(child, this.problem));
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    /**
+     * The planner and scratch space for one task.
+     */
+    private final class Worker {
+
+        private final Problem problem;
+        private final int[] queue;
+        private final PlacementPlanner planner;
+        private final long[] rows;
+        private final int[] landings;
+        private final int[] cellX = new int[4];
+        private final int[] cellY = new int[4];
+
+        private Worker(Problem problem) {
+            this.problem = problem;
+            this.queue = problem.queue;
+            this.planner = new PlacementPlanner(PerfectClearSolver.this.width, problem.window);
+            this.rows = new long[problem.window];
+            this.landings = new int[this.planner.getStates()];
+        }
+
+        /**
+         * Depth first search from the node, returning whether a solution was found (By this or another task).
+         */
+        private boolean search(Node node) {
+            if (this.problem.found.get() != null) {
+                return true;
+            }
+            PerfectClearSolver.this.nodes.incrementAndGet();
+            if (this.isSolved(node)) {
+                this.problem.found.compareAndSet(null, this.solution(node));
+                return true;
+            }
+            if (!this.canSolve(node)) {
+                return false;
+            }
+            long key = this.key(node);
+            if (PerfectClearSolver.this.failed.get(key, 0) == 1) {
+                return false;
+            }
+            for (Node child : this.children(node)) {
+                if (this.search(child)) {
+                    return true;
+                }
+            }
+            // Only what was searched through is known to fail, not a search cut short.
+            if (this.problem.found.get() == null) {
+                PerfectClearSolver.this.failed.put(key, 1);
+            }
+            return this.problem.found.get() != null;
+        }
+
+        private boolean isSolved(Node node) {
+            return node.lines == 0;
+        }
+
+        /**
+         * The hash of the board with the lines left, the place in the queue and the held piece.
+         */
+        private long key(Node node) {
+            long pieces = (long) node.lines << 40 | (long) node.next << 8 | (node.hold + 1);
+            return mix(node.board ^ mix(pieces + 0x9E3779B97F4A7C15L));
+        }
+
+        /**
+         * The placements on the way to the node, in order.
+         */
+        private Placement[] solution(Node node) {
+            Node[] path = new Node[node.depth()];
+            for (Node at = node; at.parent != null; at = at.parent) {
+                path[at.depth() - 1] = at;
+            }
+            // Play the holds the placements need from the real start.
+            Placement[] placements = new Placement[path.length];
+            int hold = this.problem.hold;
+            int next = 0;
+            for (int p = 0; p < path.length; p++) {
+                int current = next < this.queue.length ? this.queue[next] : TetrominoSpawner.NO_SHAPE;
+                boolean held = path[p].shape != current;
+                if (held) {
+                    // Swapping, or with nothing held the piece after the current one comes instead.
+                    next += hold == TetrominoSpawner.NO_SHAPE ? 2 : 1;
+                    hold = current;
+                } else {
+                    next++;
+                }
+                Placement placement = new Placement(path[p].shape, held);
+                this.planner.getCells(path[p].shape, path[p].landing, placement.cellX, placement.cellY);
+                for (int i = 0; i < 4; i++) {
+                    // The window is the bottom rows of the board.
+                    placement.cellY[i] += this.problem.height - this.problem.window;
+                }
+                placements[p] = placement;
+            }
+            return placements;
+        }
+
+        /**
+         * Whether the node passes the checks on piece counts, column parity and groups of empty cells.
+         */
+        private boolean canSolve(Node node) {
+            int width = PerfectClearSolver.this.width;
+            int cells = node.lines * width;
+            long region = cells == 64 ? -1L : (1L << cells) - 1;
+            long empty = ~node.board & region;
+            int needed = Long.bitCount(empty) / 4;
+
+            // The pieces that can be used: the held one and the rest of the queue, all but at most one of the
+            // first needed + 1 of them.
+            int available = this.queue.length - node.next + (node.hold == TetrominoSpawner.NO_SHAPE ? 0 : 1);
+            if (needed > available) {
+                return false;
+            }
+            long evenColumns = 0;
+            for (int b = 0; b < node.lines; b++) {
+                evenColumns |= 0x5555555555555555L & PerfectClearSolver.this.fullRow << (b * width);
+            }
+            int imbalance = Math.abs(Long.bitCount(empty & evenColumns) - Long.bitCount(empty & ~evenColumns));
+            if (!this.parityFits(node, needed, available, imbalance)) {
+                return false;
+            }
+
+            // Groups of empty cells joined along rows and by columns.
+            long left = empty;
+            while (left != 0) {
+                long group = left & -left;
+                long grown;
+                do {
+                    grown = group;
+                    group |= ((group << 1) & ~this.firstColumn(node.lines)) | ((group >>> 1) & ~this.lastColumn(node.lines));
+                    long columns = 0;
+                    for (int b = 0; b < node.lines; b++) {
+                        columns |= group >>> (b * width);
+                    }
+                    columns &= PerfectClearSolver.this.fullRow;
+                    for (int b = 0; b < node.lines; b++) {
+                        group |= columns << (b * width);
+                    }
+                    group &= empty;
+                } while (group != grown);
+                if (Long.bitCount(group) % 4 != 0) {
+                    return false;
+                }
+                left &= ~group;
+            }
+            return true;
+        }
+
+        private long firstColumn(int lines) {
+            long column = 0;
+            for (int b = 0; b < lines; b++) {
+                column |= 1L << (b * PerfectClearSolver.this.width);
+            }
+            return column;
+        }
+
+        private long lastColumn(int lines) {
+            return this.firstColumn(lines) << (PerfectClearSolver.this.width - 1);
+        }
+
+        /**
+         * Whether some choice of needed pieces out of the first needed + 1 available can cover the column parity
+         * imbalance: L and J change it by 2, a T by 0 or 2, an I by 0 or 4, the rest by 0. With no T the L and J
+         * fix it modulo 4.
+         */
+        private boolean parityFits(Node node, int needed, int available, int imbalance) {
+            int odd = 0;
+            int tees = 0;
+            int straight = 0;
+            int[] first = new int[Math.min(needed + 1, available)];
+            for (int i = 0; i < first.length; i++) {
+                first[i] = this.piece(node, i);
+                odd += isOdd(first[i]) ? 1 : 0;
+                tees += first[i] == TetrominoSpawner.T ? 1 : 0;
+                straight += first[i] == TetrominoSpawner.I ? 1 : 0;
+            }
+            for (int skip = first.length > needed ? 0 : -1; skip < first.length; skip++) {
+                int usedOdd = odd - (skip >= 0 && isOdd(first[skip]) ? 1 : 0);
+                int usedTees = tees - (skip >= 0 && first[skip] == TetrominoSpawner.T ? 1 : 0);
+                int usedStraight = straight - (skip >= 0 && first[skip] == TetrominoSpawner.I ? 1 : 0);
+                if ((usedTees > 0 || imbalance % 4 == usedOdd % 2 * 2)
+                        && imbalance <= 2 * usedOdd + 2 * usedTees + 4 * usedStraight) {
+                    return true;
+                }
+                if (skip < 0) {
+                    break;
+                }
+            }
+            return false;
+        }
+
+        private boolean isOdd(int shape) {
+            return shape == TetrominoSpawner.L || shape == TetrominoSpawner.J;
+        }
+
+        /**
+         * The i-th piece that can be used from the node, the held one first.
+         */
+        private int piece(Node node, int i) {
+            if (node.hold != TetrominoSpawner.NO_SHAPE) {
+                return i == 0 ? node.hold : this.queue[node.next + i - 1];
+            }
+            return this.queue[node.next + i];
+        }
+
+        /**
+         * Every board one placement on: the current piece or the held one, the other being held after. Once the
+         * queue runs out the held piece can still be swapped for whatever comes after it.
+         */
+        private List<Node> children(Node node) {
+            List<Node> children = new ArrayList<>();
+            if (node.hold == TetrominoSpawner.NO_SHAPE) {
+                return children;
+            }
+            if (node.next >= this.queue.length) {
+                this.place(node, node.hold, node.next, TetrominoSpawner.NO_SHAPE, children);
+                return children;
+            }
+            int current = this.queue[node.next];
+            this.place(node, current, node.next + 1, node.hold, children);
+            if (node.hold != current) {
+                this.place(node, node.hold, node.next + 1, current, children);
+            }
+            children.sort((a, b) -> Integer.compare(a.roughness, b.roughness));
+            return children;
+        }
+
+        private void place(Node node, int shape, int next, int hold, List<Node> children) {
+            int width = PerfectClearSolver.this.width;
+            Arrays.fill(this.rows, 0);
+            for (int b = 0; b < node.lines; b++) {
+                this.rows[this.problem.window - 1 - b] = node.board >>> (b * width) & PerfectClearSolver.this.fullRow;
+            }
+            int count = this.planner.findLandings(this.rows, shape, this.landings);
+            long[] seen = new long[count];
+            int seenCount = 0;
+            for (int i = 0; i < count; i++) {
+                this.planner.getCells(shape, this.landings[i], this.cellX, this.cellY);
+                long cells = 0;
+                boolean inside = true;
+                for (int c = 0; c < 4 && inside; c++) {
+                    int b = this.problem.window - 1 - this.cellY[c];
+                    inside = b < node.lines;
+                    cells |= 1L << (b * width + this.cellX[c]);
+                }
+                if (!inside) {
+                    continue;
+                }
+                // Different rotations can cover the same cells.
+                boolean repeat = false;
+                for (int j = 0; j < seenCount && !repeat; j++) {
+                    repeat = seen[j] == cells;
+                }
+                if (repeat) {
+                    continue;
+                }
+                seen[seenCount++] = cells;
+
+                long board = node.board | cells;
+                int lines = node.lines;
+                for (int b = lines - 1; b >= 0; b--) {
+                    if ((board >>> (b * width) & PerfectClearSolver.this.fullRow) == PerfectClearSolver.this.fullRow) {
+                        long below = board & ((1L << (b * width)) - 1);
+                        long above = (b + 1) * width == 64 ? 0 : board >>> ((b + 1) * width);
+                        board = below | above << (b * width);
+                        lines--;
+                    }
+                }
+                children.add(new Node(board, lines, next, hold, node, shape, this.landings[i],
+                        this.roughness(board, lines)));
+            }
+        }
+
+        /**
+         * How far the board is from flat: empty cells with a filled cell above them, and then how high the
+         * filled cells reach. Flatter boards are tried first as they are more often solved.
+         */
+        private int roughness(long board, int lines) {
+            int width = PerfectClearSolver.this.width;
+            int covered = 0;
+            long filledAbove = 0;
+            for (int b = lines - 1; b >= 0; b--) {
+                long row = board >>> (b * width) & PerfectClearSolver.this.fullRow;
+                covered += Long.bitCount(filledAbove & ~row);
+                filledAbove |= row;
+            }
+            int top = 0;
+            for (int b = 0; b < lines; b++) {
+                if ((board >>> (b * width) & PerfectClearSolver.this.fullRow) != 0) {
+                    top = b + 1;
+                }
+            }
+            return covered * 16 + top;
+        }
+    }
+}
@@ -0,0 +1,788 @@
+package Game_Main;
+
+import Blocks.TetrominoModel;
+import Blocks.TetrominoSpawner;
+import Board.Board;
+import java.util.Arrays;
+
+/**
+ * Finds the fewest key presses that take a piece from where it is to a given pose, under the same rules as
+ * TetrominoController.movePiece and TetrominoModel.rotate (No wall kicks, rotations turn around the first block and
+ * need every cell each block passes through free, see Debug.ReferenceModel). For placement hints (See
+ * GUI.PlacementHint) and bots.
+ *
+ * A press is a move left or right, a rotation either way, or holding soft drop for any amount of cells. The plan
+ * is given as commands for movePiece, one SOFT_DROP per cell dropped (See countPresses). Gravity isn't planned
+ * for: a bot giving Game.tick one command a tick should plan again if gravity moved the piece somewhere else first,
+ * and give soft drop until the piece is on the planned row (At faster levels a soft drop tick falls more than a cell).
+ *
+ * Most placements are on an open surface: the piece turns and moves into its column and drops straight down.
+ * The fewest turns and moves between two columns and rotations, with only the walls in the way, are worked out
+ * once per shape and starting column and kept, and are the fewest possible with anything else in the way too.
+ * So if that path (Moving then dropping, or dropping then moving) is clear on the board it is the answer and
+ * nothing is searched. Otherwise a breadth first search runs over every rotation and cell, with a bitset of the
+ * states visited. Nothing is allocated but the returned plan, apart from filling in the tables the first time.
+ *
+ * One planner per thread, for boards of one size up to MAX_WIDTH wide.
+ *
+ * @author T03-2
+ */
+public class PlacementPlanner {
+
+    // Rows are kept as one 64 bit mask each.
+    public static final int MAX_WIDTH = 64;
+
+    // Most states searched, rotations times cells.
+    public static final int MAX_STATES = 1 << 22;
+
+
+    // Edge kinds kept for each state reached, DROP is any amount of cells.
+    private static final byte LEFT = 1;
+    private static final byte RIGHT = 2;
+    private static final byte CCW = 3;
+    private static final byte CW = 4;
+    private static final byte DROP = 5;
+    private static final int[] EDGE_COMMANDS = {Command.NONE, Command.LEFT, Command.RIGHT, Command.ROTATE_CCW,
+        Command.ROTATE_CW, Command.SOFT_DROP};
+
+    // Offsets of each block from the first, by shape, rotation and block. Rotation 0 is how the shape spawns,
+    // each next one is a clockwise turn of it. The straight piece only has two.
+    private static final int[][][] OFFSET_X = new int[TetrominoSpawner.I + 1][][];
+    private static final int[][][] OFFSET_Y = new int[TetrominoSpawner.I + 1][][];
+
+    /**
+     * Cells that have to be free, as row masks relative to the first block.
+     */
+    private static final class CellMask {
+
+        private final int minX;
+        private final int maxX;
+        private final int minY;
+        private final long[] rows;
+
+        private CellMask(int[] cellX, int[] cellY) {
+            int minX = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE;
+            int minY = Integer.MAX_VALUE;
+            int maxY = Integer.MIN_VALUE;
+            for (int i = 0; i < cellX.length; i++) {
+                minX = Math.min(minX, cellX[i]);
+                maxX = Math.max(maxX, cellX[i]);
+                minY = Math.min(minY, cellY[i]);
+                maxY = Math.max(maxY, cellY[i]);
+            }
+            this.minX = minX;
+            this.maxX = maxX;
+            this.minY = minY;
+            this.rows = new long[maxY - minY + 1];
+            for (int i = 0; i < cellX.length; i++) {
+                this.rows[cellY[i] - minY] |= 1L << (cellX[i] - minX);
+            }
+        }
+    }
+
+    // The cells of each shape and rotation, and the cells a turn from each rotation passes through (Clockwise,
+    // then counter-clockwise), see canTurn.
+    private static final CellMask[][] PIECE_MASKS = new CellMask[TetrominoSpawner.I + 1][];
+    private static final CellMask[][][] TURN_MASKS = new CellMask[TetrominoSpawner.I + 1][][];
+
+    static {
+        for (int shape = 0; shape <= TetrominoSpawner.I; shape++) {
+            int[][] spawn = TetrominoSpawner.getShapeOffsets(shape);
+            int rotations = shape == TetrominoSpawner.I ? 2 : 4;
+            OFFSET_X[shape] = new int[rotations][4];
+            OFFSET_Y[shape] = new int[rotations][4];
+            for (int i = 0; i < 4; i++) {
+                OFFSET_X[shape][0][i] = spawn[i][0] - spawn[0][0];
+                OFFSET_Y[shape][0][i] = spawn[i][1] - spawn[0][1];
+            }
+            for (int r = 1; r < rotations; r++) {
+                for (int i = 0; i < 4; i++) {
+                    int x = OFFSET_X[shape][r - 1][i];
+                    int y = OFFSET_Y[shape][r - 1][i];
+                    // A row becomes a column for the straight piece, see TetrominoModel.checkCollideRotate.
+                    OFFSET_X[shape][r][i] = shape == TetrominoSpawner.I ? y : TetrominoModel.rotateOffsetX(x, y, true);
+                    OFFSET_Y[shape][r][i] = shape == TetrominoSpawner.I ? x : TetrominoModel.rotateOffsetY(x, y, true);
+                }
+            }
+
+            PIECE_MASKS[shape] = new CellMask[rotations];
+            TURN_MASKS[shape] = new CellMask[rotations][2];
+            for (int r = 0; r < rotations; r++) {
+                PIECE_MASKS[shape][r] = new CellMask(OFFSET_X[shape][r], OFFSET_Y[shape][r]);
+                for (int way = 0; way < 2; way++) {
+                    // Each block moves sideways to its new column and then to its new row, every cell on the way
+                    // has to be free (See TetrominoModel.checkCollideRotate).
+                    int to = turn(shape, r, way == 0);
+                    int[] cellX = new int[8];
+                    int[] cellY = new int[8];
+                    for (int i = 0; i < 4; i++) {
+                        cellX[2 * i] = OFFSET_X[shape][to][i];
+                        cellY[2 * i] = OFFSET_Y[shape][r][i];
+                        cellX[2 * i + 1] = OFFSET_X[shape][to][i];
+                        cellY[2 * i + 1] = OFFSET_Y[shape][to][i];
+                    }
+                    TURN_MASKS[shape][r][way] = new CellMask(cellX, cellY);
+                }
+            }
+        }
+    }
+
+    private final int width;
+    private final int height;
+
+    // Filled cells, bit x of row y.
+    private final long[] rows;
+
+    // Search state, indexed by (rotation * height + y) * width + x of the first block.
+    private final long[] visited;
+    private final int[] queue;
+    private final int[] parent;
+    private final byte[] edge;
+
+    // Row bitboards for findLandings: free cells, where each rotation fits and can turn either way, and where it
+    // has been reached.
+    private final long[] free;
+    private final long[][] fit;
+    private final long[][][] turnRows;
+    private final long[][] reach;
+
+    // Fewest turns and moves with only the walls in the way, by shape, starting rotation and column (Filled in
+    // the first time they are needed), then by rotation * width + column. Each entry is the distance << 16 | the
+    // entry it was reached from << 3 | the edge, -1 if it can't be reached.
+    private final int[][][][] openTables = new int[TetrominoSpawner.I + 1][4][][];
+
+    // Up to one pose per rotation and first block cell can match the target.
+    private final int[] goals = new int[16];
+    private int goalCount;
+
+    // The turns and moves of the open surface plan being tried (See planOpen), at most one per table entry.
+    private final byte[] path;
+
+    private long fastPlans = 0;
+    private long searches = 0;
+
+    public PlacementPlanner(int width, int height) {
+        if (!canPlan(width, height)) {
+            throw new IllegalArgumentException("Can't plan on a " + width + " x " + height + " grid");
+        }
+        this.width = width;
+        this.height = height;
+        this.rows = new long[height];
+        int states = 4 * width * height;
+        this.visited = new long[(states + 63) / 64];
+        this.queue = new int[states];
+        this.parent = new int[states];
+        this.edge = new byte[states];
+        this.path = new byte[4 * width];
+        this.free = new long[height];
+        this.fit = new long[4][height];
+        this.turnRows = new long[4][2][height];
+        this.reach = new long[4][height];
+        for (int shape = 0; shape <= TetrominoSpawner.I; shape++) {
+            for (int r = 0; r < OFFSET_X[shape].length; r++) {
+                this.openTables[shape][r] = new int[width][];
+            }
+        }
+    }
+
+    /**
+     * Whether a planner can be made for a grid of the given size.
+     *
+     * @param width
+     * @param height
+     * @return boolean
+     */
+    public static boolean canPlan(int width, int height) {
+        return width >= 1 && width <= MAX_WIDTH && height >= 1 && 4L * width * height <= MAX_STATES;
+    }
+
+    /**
+     * Plans the fewest presses that take the given piece to cover the target cells (Four x, y pairs). The board's
+     * cells count as filled apart from the piece's own, so it can be planned for between ticks while the falling
+     * piece is on the board. Returns the commands to give movePiece in order, or null if the target can't be
+     * reached (Or isn't the piece's shape).
+     *
+     * @param board
+     * @param piece
+     * @param targetX
+     * @param targetY
+     * @return int[]
+     */
+    public int[] plan(Board board, TetrominoModel piece, int[] targetX, int[] targetY) {
+        int shape = piece.getShape();
+        if (shape < 0 || shape > TetrominoSpawner.I) {
+            throw new IllegalArgumentException("Can only plan for TetrominoSpawner shapes");
+        }
+        int rotation = rotationOf(piece);
+        if (rotation < 0) {
+            throw new IllegalArgumentException("Piece isn't in any rotation of its shape");
+        }
+
+        this.load(board);
+        for (int i = 0; i < 4; i++) {
+            this.rows[piece.getBlockY(i)] &= ~(1L << piece.getBlockX(i));
+        }
+        return this.plan(shape, rotation, piece.getBlockX(0), piece.getBlockY(0), targetX, targetY);
+    }
+
+    /**
+     * Plans on the board given as row masks (Bit x of rows[y] for a filled cell) from a piece of the shape in the
+     * given rotation (See getRotations) with its first block at x, y.
+     *
+     * @param rows
+     * @param shape
+     * @param rotation
+     * @param x
+     * @param y
+     * @param targetX
+     * @param targetY
+     * @return int[]
+     */
+    public int[] plan(long[] rows, int shape, int rotation, int x, int y, int[] targetX, int[] targetY) {
+        System.arraycopy(rows, 0, this.rows, 0, this.height);
+        return this.plan(shape, rotation, x, y, targetX, targetY);
+    }
+
+    private int[] plan(int shape, int rotation, int x, int y, int[] targetX, int[] targetY) {
+        if (!this.fits(shape, rotation, x, y)) {
+            return null;
+        }
+        this.findGoals(shape, targetX, targetY);
+        if (this.goalCount == 0) {
+            return null;
+        }
+        int start = this.state(rotation, x, y);
+        int[] fast = this.planOpen(shape, rotation, x, y);
+        if (fast != null) {
+            this.fastPlans++;
+            return fast;
+        }
+        this.searches++;
+        return this.search(shape, start);
+    }
+
+    /**
+     * Finds every pose a piece of the shape can come to rest in (With nothing below it to drop into) on the board
+     * given as row masks, coming in from above the highest filled cell in any rotation and column. This is what can
+     * be reached from the spawn when the grid is a window of the bottom rows of a taller board with nothing above
+     * the window, where the piece has room to turn and move anywhere before it comes down. The poses are put in
+     * landings (Which needs room for getStates), see getCells. Returns how many there are.
+     *
+     * @param rows
+     * @param shape
+     * @param landings
+     * @return int
+     */
+    public int findLandings(long[] rows, int shape, int[] landings) {
+        int rotations = OFFSET_X[shape].length;
+        long fullRow = this.width == 64 ? -1L : (1L << this.width) - 1;
+        for (int y = 0; y < this.height; y++) {
+            this.free[y] = ~rows[y] & fullRow;
+        }
+        int top = 0;
+        while (top < this.height && rows[top] == 0) {
+            top++;
+        }
+        for (int r = 0; r < rotations; r++) {
+            this.fitRows(PIECE_MASKS[shape][r], this.fit[r]);
+            this.fitRows(TURN_MASKS[shape][r][0], this.turnRows[r][0]);
+            this.fitRows(TURN_MASKS[shape][r][1], this.turnRows[r][1]);
+            Arrays.fill(this.reach[r], 0);
+            // Just clear of the highest filled cell, nothing above there is in the way.
+            CellMask mask = PIECE_MASKS[shape][r];
+            int y = Math.max(top - mask.minY - mask.rows.length, -mask.minY);
+            if (y < this.height) {
+                this.reach[r][y] = this.fit[r][y];
+            }
+        }
+
+        // Spread what has been reached down, sideways and by turning until nothing more is.
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int y = 0; y < this.height; y++) {
+                for (int r = 0; r < rotations; r++) {
+                    long fits = this.fit[r][y];
+                    long row = this.reach[r][y] | (y > 0 ? this.reach[r][y - 1] & fits : 0);
+                    long spread;
+                    do {
+                        spread = row;
+                        row |= (row << 1 | row >>> 1) & fits;
+                    } while (row != spread);
+                    if (row != this.reach[r][y]) {
+                        this.reach[r][y] = row;
+                        changed = true;
+                    }
+                    for (int way = 0; way < 2; way++) {
+                        int to = turn(shape, r, way == 0);
+                        long turned = row & this.turnRows[r][way][y];
+                        if ((turned & ~this.reach[to][y]) != 0) {
+                            this.reach[to][y] |= turned;
+                            changed = true;
+                        }
+                    }
+                }
+            }
+        }
+
+        int count = 0;
+        for (int r = 0; r < rotations; r++) {
+            for (int y = 0; y < this.height; y++) {
+                long resting = this.reach[r][y] & ~(y + 1 < this.height ? this.fit[r][y + 1] : 0);
+                while (resting != 0) {
+                    landings[count++] = this.state(r, Long.numberOfTrailingZeros(resting), y);
+                    resting &= resting - 1;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sets bit x of fits[y] where every cell of the mask is free with the first block at x, y.
+     */
+    private void fitRows(CellMask mask, long[] fits) {
+        for (int y = 0; y < this.height; y++) {
+            int top = y + mask.minY;
+            if (top < 0 || top + mask.rows.length > this.height) {
+                fits[y] = 0;
+                continue;
+            }
+            long row = -1L;
+            for (int i = 0; i < mask.rows.length; i++) {
+                long cells = mask.rows[i];
+                while (cells != 0) {
+                    int dx = mask.minX + Long.numberOfTrailingZeros(cells);
+                    row &= dx >= 0 ? this.free[top + i] >>> dx : this.free[top + i] << -dx;
+                    cells &= cells - 1;
+                }
+            }
+            fits[y] = row;
+        }
+    }
+
+    /**
+     * The cells of a piece of the shape in the pose found by findLandings.
+     *
+     * @param shape
+     * @param landing
+     * @param cellX
+     * @param cellY
+     */
+    public void getCells(int shape, int landing, int[] cellX, int[] cellY) {
+        int r = landing / (this.width * this.height);
+        for (int i = 0; i < 4; i++) {
+            cellX[i] = landing % this.width + OFFSET_X[shape][r][i];
+            cellY[i] = landing / this.width % this.height + OFFSET_Y[shape][r][i];
+        }
+    }
+
+    /**
+     * The cells of a piece of the shape in the given rotation (See getRotations) with its first block at x, y, in
+     * the order of its blocks.
+     *
+     * @param shape
+     * @param rotation
+     * @param x
+     * @param y
+     * @param cellX
+     * @param cellY
+     */
+    public static void getCells(int shape, int rotation, int x, int y, int[] cellX, int[] cellY) {
+        for (int i = 0; i < 4; i++) {
+            cellX[i] = x + OFFSET_X[shape][rotation][i];
+            cellY[i] = y + OFFSET_Y[shape][rotation][i];
+        }
+    }
+
+    /**
+     * Amount of rotation and cell states on the grid, the most poses findLandings can find.
+     *
+     * @return int
+     */
+    public int getStates() {
+        return this.queue.length;
+    }
+
+    /**
+     * Amount of presses the plan takes, soft drops in a row being one.
+     *
+     * @param commands
+     * @return int
+     */
+    public static int countPresses(int[] commands) {
+        int presses = 0;
+        for (int i = 0; i < commands.length; i++) {
+            if (commands[i] != Command.SOFT_DROP || i == 0 || commands[i - 1] != Command.SOFT_DROP) {
+                presses++;
+            }
+        }
+        return presses;
+    }
+
+    /**
+     * Amount of different rotations of the shape (4, or 2 for the straight piece).
+     *
+     * @param shape
+     * @return int
+     */
+    public static int getRotations(int shape) {
+        return OFFSET_X[shape].length;
+    }
+
+    /**
+     * Which rotation the piece is in, -1 if none.
+     *
+     * @param piece
+     * @return int
+     */
+    public static int rotationOf(TetrominoModel piece) {
+        int shape = piece.getShape();
+        for (int r = 0; r < OFFSET_X[shape].length; r++) {
+            boolean same = true;
+            for (int i = 1; i < 4 && same; i++) {
+                same = piece.getBlockX(i) - piece.getBlockX(0) == OFFSET_X[shape][r][i]
+                        && piece.getBlockY(i) - piece.getBlockY(0) == OFFSET_Y[shape][r][i];
+            }
+            if (same) {
+                return r;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Plans answered from the open surface tables without searching.
+     *
+     * @return long
+     */
+    public long getFastPlans() {
+        return this.fastPlans;
+    }
+
+    public long getSearches() {
+        return this.searches;
+    }
+
+    private void load(Board board) {
+        for (int y = 0; y < this.height; y++) {
+            long row = 0;
+            for (int x = 0; x < this.width; x++) {
+                if (board.get(x, y) != null) {
+                    row |= 1L << x;
+                }
+            }
+            this.rows[y] = row;
+        }
+    }
+
+    private int state(int rotation, int x, int y) {
+        return (rotation * this.height + y) * this.width + x;
+    }
+
+    /**
+     * Whether every cell of the mask, with its first block at x, y, is inside the grid and free.
+     */
+    private boolean isFree(CellMask mask, int x, int y) {
+        int left = x + mask.minX;
+        int top = y + mask.minY;
+        if (left < 0 || x + mask.maxX >= this.width || top < 0 || top + mask.rows.length > this.height) {
+            return false;
+        }
+        for (int i = 0; i < mask.rows.length; i++) {
+            if ((this.rows[top + i] & mask.rows[i] << left) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean fits(int shape, int rotation, int x, int y) {
+        return this.isFree(PIECE_MASKS[shape][rotation], x, y);
+    }
+
+    private static int turn(int shape, int rotation, boolean clockwise) {
+        int rotations = OFFSET_X[shape].length;
+        return (rotation + (clockwise ? 1 : rotations - 1)) % rotations;
+    }
+
+    /**
+     * Whether the piece can turn either way from the given rotation (See TURN_MASKS).
+     */
+    private boolean canTurn(int shape, int from, boolean clockwise, int x, int y) {
+        return this.isFree(TURN_MASKS[shape][from][clockwise ? 0 : 1], x, y);
+    }
+
+    /**
+     * Every pose of the shape covering the target cells.
+     */
+    private void findGoals(int shape, int[] targetX, int[] targetY) {
+        this.goalCount = 0;
+        for (int r = 0; r < OFFSET_X[shape].length; r++) {
+            // The first block is on one of the target cells.
+            for (int j = 0; j < 4; j++) {
+                int x = targetX[j];
+                int y = targetY[j];
+                if (x < 0 || x >= this.width || y < 0 || y >= this.height) {
+                    continue;
+                }
+                boolean covers = true;
+                for (int i = 1; i < 4 && covers; i++) {
+                    boolean found = false;
+                    for (int k = 0; k < 4 && !found; k++) {
+                        found = targetX[k] == x + OFFSET_X[shape][r][i] && targetY[k] == y + OFFSET_Y[shape][r][i];
+                    }
+                    covers = found;
+                }
+                if (covers) {
+                    this.goals[this.goalCount++] = this.state(r, x, y);
+                }
+            }
+        }
+    }
+
+    private boolean isGoal(int state) {
+        for (int i = 0; i < this.goalCount; i++) {
+            if (this.goals[i] == state) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tries the open surface plan: the fewest turns and moves with only the walls in the way, before or after
+     * dropping straight to the goal's row. Returns null unless one of them is clear and no goal could be reached
+     * in fewer presses.
+     */
+    private int[] planOpen(int shape, int rotation, int x, int y) {
+        int[] table = this.openTable(shape, rotation, x);
+
+        // The fewest presses any goal could take: one turn or move at least for every step in the table, and a
+        // drop if it is lower down (Nothing moves a piece up).
+        int fewest = Integer.MAX_VALUE;
+        for (int i = 0; i < this.goalCount; i++) {
+            int goal = this.goals[i];
+            int goalY = goal / this.width % this.height;
+            int entry = table[goal / (this.width * this.height) * this.width + goal % this.width];
+            if (entry >= 0 && goalY >= y) {
+                fewest = Math.min(fewest, (entry >>> 16) + (goalY > y ? 1 : 0));
+            }
+        }
+        if (fewest == Integer.MAX_VALUE) {
+            return null;
+        }
+
+        for (int i = 0; i < this.goalCount; i++) {
+            int goal = this.goals[i];
+            int goalRotation = goal / (this.width * this.height);
+            int goalX = goal % this.width;
+            int goalY = goal / this.width % this.height;
+            int entry = table[goalRotation * this.width + goalX];
+            if (entry < 0 || goalY < y || (entry >>> 16) + (goalY > y ? 1 : 0) != fewest) {
+                continue;
+            }
+            int steps = entry >>> 16;
+            // Walk the table back from the goal to get the turns and moves in order.
+            int at = goalRotation * this.width + goalX;
+            for (int s = steps - 1; s >= 0; s--) {
+                this.path[s] = (byte) (table[at] & 7);
+                at = table[at] >>> 3 & 0x1FFF;
+            }
+            if (this.isClear(shape, rotation, x, y, steps, y, goalY)) {
+                return this.openCommands(steps, 0, goalY - y);
+            }
+            if (this.isClear(shape, rotation, x, goalY, steps, y, goalY)) {
+                return this.openCommands(steps, goalY - y, 0);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether the first steps turns and moves of the path can all be made at row pathY, with the drop from y to
+     * goalY clear before or after them.
+     */
+    private boolean isClear(int shape, int rotation, int x, int pathY, int steps, int y, int goalY) {
+        int r = rotation;
+        int px = x;
+        if (pathY != y && !this.canDrop(shape, r, px, y, goalY)) {
+            return false;
+        }
+        for (int s = 0; s < steps; s++) {
+            byte step = this.path[s];
+            if (step == LEFT || step == RIGHT) {
+                px += step == LEFT ? -1 : 1;
+                if (!this.fits(shape, r, px, pathY)) {
+                    return false;
+                }
+            } else {
+                if (!this.canTurn(shape, r, step == CW, px, pathY)) {
+                    return false;
+                }
+                r = turn(shape, r, step == CW);
+            }
+        }
+        return pathY != y || this.canDrop(shape, r, px, y, goalY);
+    }
+
+    private boolean canDrop(int shape, int rotation, int x, int y, int toY) {
+        for (int dropY = y + 1; dropY <= toY; dropY++) {
+            if (!this.fits(shape, rotation, x, dropY)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int[] openCommands(int steps, int dropBefore, int dropAfter) {
+        int[] commands = new int[dropBefore + steps + dropAfter];
+        int n = 0;
+        for (int i = 0; i < dropBefore; i++) {
+            commands[n++] = Command.SOFT_DROP;
+        }
+        for (int s = 0; s < steps; s++) {
+            commands[n++] = EDGE_COMMANDS[this.path[s]];
+        }
+        for (int i = 0; i < dropAfter; i++) {
+            commands[n++] = Command.SOFT_DROP;
+        }
+        return commands;
+    }
+
+    /**
+     * The open surface table for a piece starting in the given rotation and column, worked out by a breadth first
+     * search over rotations and columns the first time.
+     */
+    private int[] openTable(int shape, int rotation, int x) {
+        int[] table = this.openTables[shape][rotation][x];
+        if (table != null) {
+            return table;
+        }
+        int rotations = OFFSET_X[shape].length;
+        table = new int[rotations * this.width];
+        Arrays.fill(table, -1);
+        int[] open = new int[table.length];
+        int start = rotation * this.width + x;
+        table[start] = 0;
+        open[0] = start;
+        int count = 1;
+        for (int i = 0; i < count; i++) {
+            int at = open[i];
+            int r = at / this.width;
+            int px = at % this.width;
+            int distance = table[at] >>> 16;
+            for (byte step = LEFT; step <= CW; step++) {
+                int nextR = r;
+                int nextX = px;
+                if (step == LEFT || step == RIGHT) {
+                    nextX += step == LEFT ? -1 : 1;
+                } else {
+                    nextR = turn(shape, r, step == CW);
+                }
+                // Only the walls are in the way.
+                boolean inside = true;
+                for (int b = 0; b < 4 && inside; b++) {
+                    int cellX = nextX + OFFSET_X[shape][nextR][b];
+                    inside = cellX >= 0 && cellX < this.width;
+                }
+                int next = nextR * this.width + nextX;
+                if (inside && table[next] < 0) {
+                    table[next] = (distance + 1) << 16 | at << 3 | step;
+                    open[count++] = next;
+                }
+            }
+        }
+        this.openTables[shape][rotation][x] = table;
+        return table;
+    }
+
+    /**
+     * Breadth first search over every rotation and cell of the first block, each edge one press.
+     */
+    private int[] search(int shape, int start) {
+        int head = 0;
+        int tail = 0;
+        this.queue[tail++] = start;
+        this.visited[start >>> 6] |= 1L << start;
+        // Every edge is one press, so the first time a goal is reached is in the fewest.
+        int found = this.isGoal(start) ? start : -1;
+
+        while (head < tail && found < 0) {
+            int at = this.queue[head++];
+            int reached = tail;
+            tail = this.expand(shape, at, tail);
+            // Only the states just reached can be new goals.
+            for (int i = reached; i < tail && found < 0; i++) {
+                if (this.isGoal(this.queue[i])) {
+                    found = this.queue[i];
+                }
+            }
+        }
+
+        int[] commands = null;
+        if (found >= 0) {
+            int length = 0;
+            for (int at = found; at != start; at = this.parent[at]) {
+                length += this.edge[at] == DROP ? (at - this.parent[at]) / this.width : 1;
+            }
+            commands = new int[length];
+            for (int at = found; at != start; at = this.parent[at]) {
+                int repeat = this.edge[at] == DROP ? (at - this.parent[at]) / this.width : 1;
+                for (int i = 0; i < repeat; i++) {
+                    commands[--length] = EDGE_COMMANDS[this.edge[at]];
+                }
+            }
+        }
+
+        // Only the states reached need clearing for next time.
+        for (int i = 0; i < tail; i++) {
+            this.visited[this.queue[i] >>> 6] = 0;
+        }
+        return commands;
+    }
+
+    /**
+     * Visits every state one press from the given one, returning the new end of the queue.
+     */
+    private int expand(int shape, int at, int tail) {
+        int r = at / (this.width * this.height);
+        int x = at % this.width;
+        int y = at / this.width % this.height;
+        if (this.fits(shape, r, x - 1, y)) {
+            tail = this.visit(at, this.state(r, x - 1, y), LEFT, tail);
+        }
+        if (this.fits(shape, r, x + 1, y)) {
+            tail = this.visit(at, this.state(r, x + 1, y), RIGHT, tail);
+        }
+        int ccw = turn(shape, r, false);
+        if (this.canTurn(shape, r, false, x, y)) {
+            tail = this.visit(at, this.state(ccw, x, y), CCW, tail);
+        }
+        int cw = turn(shape, r, true);
+        if (cw != ccw && this.canTurn(shape, r, true, x, y)) {
+            tail = this.visit(at, this.state(cw, x, y), CW, tail);
+        }
+        // Holding soft drop can stop on any row down to where it lands. A row already reached by dropping
+        // was reached from higher up in as few presses or fewer, and so was every row below it.
+        for (int dropY = y + 1; this.fits(shape, r, x, dropY); dropY++) {
+            int to = this.state(r, x, dropY);
+            if ((this.visited[to >>> 6] & 1L << to) != 0 && this.edge[to] == DROP) {
+                break;
+            }
+            tail = this.visit(at, to, DROP, tail);
+        }
+        return tail;
+    }
+
+    private int visit(int from, int to, byte how, int tail) {
+        if ((this.visited[to >>> 6] & 1L << to) == 0) {
+            this.visited[to >>> 6] |= 1L << to;
+            this.parent[to] = from;
+            this.edge[to] = how;
+            this.queue[tail++] = to;
+        }
+        return tail;
+    }
+}
@@ -0,0 +1,217 @@
+package Game_Main;
+
+import Blocks.TetrominoModel;
+import Blocks.TetrominoSpawner;
+
+/**
+ * Live statistics for one game's player, kept up to date by the game as commands are given and pieces are
+ * set in place. Every update is constant time, the rates are worked out from the counters when asked for.
+ *
+ * Finesse faults are the extra rotate and move commands used for a piece over the fewest that could have put
+ * it in the same place from where it spawned (Without counting anything in the way, so tucks count as faults).
+ *
+ * @author T03-2
+ */
+public class PlayerStats {
+
+    // Most lines one piece can clear, the clear counts are indexed by lines.
+    public static final int MAX_CLEAR = 4;
+
+    private long ticks = 0;
+    private long actions = 0;
+    private long pieces = 0;
+    private final long[] clears = new long[MAX_CLEAR + 1];
+    private int combo = 0;
+    private int maxCombo = 0;
+    private long finesseFaults = 0;
+
+    // Rotate and move commands given for the falling piece so far, and where it spawned.
+    private int pieceInputs = 0;
+    private int spawnX;
+
+    /**
+     * Counts a tick and the command given for it.
+     *
+     * @param command
+     */
+    public void onTick(int command) {
+        this.ticks++;
+        if (command != Command.NONE) {
+            this.actions++;
+            if (command != Command.SOFT_DROP && command != Command.HOLD) {
+                this.pieceInputs++;
+            }
+        }
+    }
+
+    /**
+     * Starts counting inputs for a new piece with its first block in the given column.
+     *
+     * @param x
+     */
+    public void onSpawn(int x) {
+        this.pieceInputs = 0;
+        this.spawnX = x;
+    }
+
+    /**
+     * Counts a piece set in place, how many lines it cleared, and its finesse faults.
+     *
+     * @param piece
+     * @param linesCleared
+     */
+    public void onLock(TetrominoModel piece, int linesCleared) {
+        this.pieces++;
+        this.clears[Math.min(linesCleared, MAX_CLEAR)]++;
+        if (linesCleared > 0) {
+            this.combo++;
+            this.maxCombo = Math.max(this.maxCombo, this.combo);
+        } else {
+            this.combo = 0;
+        }
+
+        int fewest = fewestInputs(piece, this.spawnX);
+        if (fewest >= 0 && this.pieceInputs > fewest) {
+            this.finesseFaults += this.pieceInputs - fewest;
+        }
+    }
+
+    /**
+     * Returns the fewest rotate and move commands that take a piece of the same shape from spawning with its first
+     * block in column spawnX to where the given piece is, or -1 if no rotation of the shape matches it.
+     *
+     * Rotating turns the piece around its first block, so only the left and right moves change where that block
+     * is. Every rotation the piece could be in is tried since some shapes look the same in more than one.
+     *
+     * @param piece
+     * @param spawnX
+     * @return int
+     */
+    public static int fewestInputs(TetrominoModel piece, int spawnX) {
+        if (piece.getShape() == TetrominoSpawner.NO_SHAPE) {
+            return -1;
+        }
+        int[][] spawnOffsets = TetrominoSpawner.getShapeOffsets(piece.getShape());
+
+        // Where the piece is, relative to its left and top most cells.
+        int pieceLeft = Integer.MAX_VALUE;
+        int pieceTop = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            pieceLeft = Math.min(pieceLeft, piece.getBlockX(i));
+            pieceTop = Math.min(pieceTop, piece.getBlockY(i));
+        }
+
+        int[] offsetX = new int[4];
+        int[] offsetY = new int[4];
+        for (int i = 0; i < 4; i++) {
+            offsetX[i] = spawnOffsets[i][0] - spawnOffsets[0][0];
+            offsetY[i] = spawnOffsets[i][1] - spawnOffsets[0][1];
+        }
+
+        // Straight pieces only have two rotations. Three clockwise turns is one counter-clockwise.
+        int rotations = piece.getIsStraight() ? 2 : 4;
+        int fewest = -1;
+        for (int turns = 0; turns < rotations; turns++) {
+            int left = Integer.MAX_VALUE;
+            int top = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                left = Math.min(left, offsetX[i]);
+                top = Math.min(top, offsetY[i]);
+            }
+            if (sameCells(piece, pieceLeft, pieceTop, offsetX, offsetY, left, top)) {
+                int moves = Math.abs(pieceLeft - (spawnX + left));
+                int cost = (turns == 3 ? 1 : turns) + moves;
+                if (fewest < 0 || cost < fewest) {
+                    fewest = cost;
+                }
+            }
+
+            for (int i = 1; i < 4; i++) {
+                int x = offsetX[i];
+                int y = offsetY[i];
+                if (piece.getIsStraight()) {
+                    // Horizontal to vertical and back, the same either way.
+                    offsetX[i] = y;
+                    offsetY[i] = x;
+                } else {
+                    offsetX[i] = TetrominoModel.rotateOffsetX(x, y, true);
+                    offsetY[i] = TetrominoModel.rotateOffsetY(x, y, true);
+                }
+            }
+        }
+        return fewest;
+    }
+
+    /**
+     * Whether the offsets, moved so their left and top most cells line up with the piece's, cover the same cells.
+     */
+    private static boolean sameCells(TetrominoModel piece, int pieceLeft, int pieceTop, int[] offsetX, int[] offsetY,
+            int left, int top) {
+        for (int i = 0; i < 4; i++) {
+            boolean found = false;
+            for (int j = 0; j < 4 && !found; j++) {
+                found = piece.getBlockX(j) - pieceLeft == offsetX[i] - left
+                        && piece.getBlockY(j) - pieceTop == offsetY[i] - top;
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getTicks() {
+        return this.ticks;
+    }
+
+    public long getActions() {
+        return this.actions;
+    }
+
+    public long getPieces() {
+        return this.pieces;
+    }
+
+    /**
+     * Amount of pieces that cleared the given amount of lines (0 to MAX_CLEAR).
+     *
+     * @param lines
+     * @return long
+     */
+    public long getClears(int lines) {
+        return this.clears[lines];
+    }
+
+    public int getCombo() {
+        return this.combo;
+    }
+
+    public int getMaxCombo() {
+        return this.maxCombo;
+    }
+
+    public long getFinesseFaults() {
+        return this.finesseFaults;
+    }
+
+    // Pieces per second.
+    public double getPPS() {
+        return this.ticks == 0 ? 0 : this.pieces * (double) Game.TICKS_PER_SECOND / this.ticks;
+    }
+
+    // Actions (Commands given) per minute.
+    public double getAPM() {
+        return this.ticks == 0 ? 0 : this.actions * 60.0 * Game.TICKS_PER_SECOND / this.ticks;
+    }
+
+    // Keys (Commands given) per piece.
+    public double getKPP() {
+        return this.pieces == 0 ? 0 : this.actions / (double) this.pieces;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PPS %.2f  APM %.0f  KPP %.2f  Max Combo %d  Finesse %d",
+                this.getPPS(), this.getAPM(), this.getKPP(), this.maxCombo, this.finesseFaults);
+    }
+}
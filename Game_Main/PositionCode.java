@@ -0,0 +1,284 @@
+package Game_Main;
+
+import Blocks.TetrominoSpawner;
+import java.util.Arrays;
+
+/**
+ * Writes positions (See GamePosition) as short strings that can be pasted anywhere, including URLs, and reads them
+ * back. Used to share puzzles: MainViewFX starts a game from one given with -Dtetris.puzzle=code.
+ *
+ * The code is in the URL-safe base64 alphabet (A-Z, a-z, 0-9, - and _), one 6-bit symbol at a time:
+ *   - The format version, 0.
+ *   - The width and height.
+ *   - The cells, row by row from the top, as the lengths of the runs of empty and filled cells in turn, starting
+ *     with empty (So a board starting with a filled cell starts with a run of 0).
+ *   - The held shape + 1 (0 for none).
+ *   - The falling piece's shape + 1 (0 for none) and, if there is one, its rotation and the x and y of its first
+ *     block.
+ *   - The amount of shapes to come, then the shapes two to a symbol (first * 7 + second), the last one on its own
+ *     if there is an odd amount.
+ * Numbers other than the version, shapes and rotation take 5 bits a symbol, lowest first, with the 6th bit set on
+ * every symbol but the last. An empty 10 x 20 board with nothing held, no falling piece and no shapes to come is
+ * "AKUoGAAA" (Its one run, 200, is two symbols).
+ *
+ * Reading reuses the instance's state, so a PositionCode can decode position after position into the same
+ * GamePosition without allocating. Not safe to share between threads.
+ *
+ * @author T03-2
+ */
+public class PositionCode {
+
+    public static final int VERSION = 0;
+
+    private static final char[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+
+    // Symbol of each character, -1 for characters outside the alphabet.
+    private static final byte[] SYMBOLS = new byte[128];
+
+    // Symbols a number can take, 7 holds every int.
+    private static final int MAX_NUMBER_SYMBOLS = 7;
+
+    static {
+        Arrays.fill(SYMBOLS, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            SYMBOLS[ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    // The code being read and where in it.
+    private CharSequence code;
+    private int at;
+
+    /**
+     * Writes the position's code.
+     *
+     * @param position
+     * @return String
+     */
+    public static String encode(GamePosition position) {
+        StringBuilder code = new StringBuilder(16 + position.getQueueLength() / 2);
+        encode(position, code);
+        return code.toString();
+    }
+
+    /**
+     * Appends the position's code to the given builder.
+     *
+     * @param position
+     * @param code
+     */
+    public static void encode(GamePosition position, StringBuilder code) {
+        int width = position.getWidth();
+        int height = position.getHeight();
+        if (width < 1) {
+            throw new IllegalArgumentException("Position has no grid");
+        }
+        code.append(ALPHABET[VERSION]);
+        appendNumber(code, width);
+        appendNumber(code, height);
+
+        long[] cells = position.getCells();
+        int total = width * height;
+        int from = 0;
+        boolean filled = false;
+        while (from < total) {
+            int to = filled ? nextClear(cells, from, total) : nextSet(cells, from, total);
+            appendNumber(code, to - from);
+            from = to;
+            filled = !filled;
+        }
+
+        code.append(ALPHABET[position.getHoldShape() + 1]);
+        int active = position.getActiveShape();
+        code.append(ALPHABET[active + 1]);
+        if (active != TetrominoSpawner.NO_SHAPE) {
+            int x = position.getActiveX();
+            int y = position.getActiveY();
+            if (x < 0 || x >= width || y < 0 || y >= height) {
+                throw new IllegalArgumentException("Falling piece outside the grid");
+            }
+            code.append(ALPHABET[position.getActiveRotation()]);
+            appendNumber(code, x);
+            appendNumber(code, y);
+        }
+
+        int queued = position.getQueueLength();
+        appendNumber(code, queued);
+        for (int i = 0; i + 1 < queued; i += 2) {
+            code.append(ALPHABET[position.getQueue(i) * 7 + position.getQueue(i + 1)]);
+        }
+        if (queued % 2 == 1) {
+            code.append(ALPHABET[position.getQueue(queued - 1)]);
+        }
+    }
+
+    /**
+     * Reads the position in the given code. Throws IllegalArgumentException if it isn't a valid code.
+     *
+     * @param code
+     * @return GamePosition
+     */
+    public static GamePosition decode(CharSequence code) {
+        GamePosition position = new GamePosition();
+        new PositionCode().read(code, position);
+        return position;
+    }
+
+    /**
+     * Reads the position in the given code into the given position, replacing what it had. Throws
+     * IllegalArgumentException if it isn't a valid code, leaving the position in an unknown state.
+     *
+     * @param code
+     * @param position
+     */
+    public void read(CharSequence code, GamePosition position) {
+        this.code = code;
+        this.at = 0;
+        try {
+            int version = this.symbol();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unknown position code version: " + version);
+            }
+            int width = this.number();
+            int height = this.number();
+            position.setSize(width, height);
+
+            long[] cells = position.getCells();
+            int total = width * height;
+            int from = 0;
+            boolean filled = false;
+            while (from < total) {
+                int run = this.number();
+                if (run > total - from) {
+                    throw new IllegalArgumentException("Cells run past the end of the grid");
+                }
+                if (filled) {
+                    fill(cells, from, from + run);
+                }
+                from += run;
+                filled = !filled;
+            }
+
+            position.setHold(this.symbol() - 1);
+            int active = this.symbol() - 1;
+            if (active != TetrominoSpawner.NO_SHAPE) {
+                int rotation = this.symbol();
+                int x = this.number();
+                int y = this.number();
+                if (x >= width || y >= height) {
+                    throw new IllegalArgumentException("Falling piece outside the grid");
+                }
+                position.setActive(active, rotation, x, y);
+            }
+
+            int queued = this.number();
+            if (queued > TetrominoSpawner.MAX_QUEUE) {
+                throw new IllegalArgumentException("Queue too long: " + queued);
+            }
+            for (int i = 0; i + 1 < queued; i += 2) {
+                int pair = this.symbol();
+                if (pair >= 49) {
+                    throw new IllegalArgumentException("Not a pair of shapes: " + pair);
+                }
+                position.addQueue(pair / 7);
+                position.addQueue(pair % 7);
+            }
+            if (queued % 2 == 1) {
+                position.addQueue(this.symbol());
+            }
+            if (this.at != code.length()) {
+                throw new IllegalArgumentException("Position code goes on past the position");
+            }
+        } finally {
+            this.code = null;
+        }
+    }
+
+    private int symbol() {
+        if (this.at >= this.code.length()) {
+            throw new IllegalArgumentException("Position code ends early");
+        }
+        char c = this.code.charAt(this.at++);
+        int symbol = c < SYMBOLS.length ? SYMBOLS[c] : -1;
+        if (symbol < 0) {
+            throw new IllegalArgumentException("Not a position code character: " + c);
+        }
+        return symbol;
+    }
+
+    private int number() {
+        long value = 0;
+        for (int i = 0; i < MAX_NUMBER_SYMBOLS; i++) {
+            int symbol = this.symbol();
+            value |= (long) (symbol & 31) << (5 * i);
+            if ((symbol & 32) == 0) {
+                if (value > Integer.MAX_VALUE) {
+                    break;
+                }
+                return (int) value;
+            }
+        }
+        throw new IllegalArgumentException("Number out of range in position code");
+    }
+
+    private static void appendNumber(StringBuilder code, int value) {
+        while (value >= 32) {
+            code.append(ALPHABET[32 | value & 31]);
+            value >>>= 5;
+        }
+        code.append(ALPHABET[value]);
+    }
+
+    /**
+     * The first set bit at or after from, total if there is none before it.
+     */
+    private static int nextSet(long[] bits, int from, int total) {
+        int word = from >>> 6;
+        long rest = bits[word] & -1L << from;
+        while (rest == 0) {
+            if (++word << 6 >= total) {
+                return total;
+            }
+            rest = bits[word];
+        }
+        return Math.min((word << 6) + Long.numberOfTrailingZeros(rest), total);
+    }
+
+    /**
+     * The first clear bit at or after from, total if there is none before it.
+     */
+    private static int nextClear(long[] bits, int from, int total) {
+        int word = from >>> 6;
+        long rest = ~bits[word] & -1L << from;
+        while (rest == 0) {
+            if (++word << 6 >= total) {
+                return total;
+            }
+            rest = ~bits[word];
+        }
+        return Math.min((word << 6) + Long.numberOfTrailingZeros(rest), total);
+    }
+
+    /**
+     * Sets bits from (Inclusive) to to (Exclusive).
+     */
+    private static void fill(long[] bits, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            bits[first] |= firstMask & lastMask;
+            return;
+        }
+        bits[first] |= firstMask;
+        for (int i = first + 1; i < last; i++) {
+            bits[i] = -1L;
+        }
+        bits[last] |= lastMask;
+    }
+}
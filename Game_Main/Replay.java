@@ -0,0 +1,357 @@
+package Game_Main;
+
+import Board.Board;
+import Board.ChunkedBoard;
+import Board.DenseBoard;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Everything needed to play a game again: its settings and level table, the seed of its tetrominos and the
+ * command given on every tick, along with the score it claims. Every placement (The tick, shape and position of
+ * each tetromino when it was set in place) is kept too, so a replay that doesn't give the same game again can be
+ * told apart at the first placement that differs (See ReplayVerifier).
+ *
+ * Games are played again with the level table they were played with, e.g. one loaded from a level file (See
+ * LevelTable.load).
+ *
+ * @author T03-2
+ */
+public final class Replay {
+
+    private static final int MAGIC = 0x54525250;
+    private static final int VERSION = 1;
+
+    // Grids with more cells than this are played again on a ChunkedBoard, the rules are the same.
+    private static final long DENSE_MAX_CELLS = 1L << 22;
+
+    private final BoardConfig config;
+    private final long seed;
+    private final LevelTable levels;
+    private final byte[] commands;
+
+    // Two longs per placement: the tick, then the shape and first block's position (See packPlacement).
+    private final long[] placements;
+
+    private final int score;
+
+    /**
+     * Creates a replay of a game played with the default levels for the config's drop speed.
+     *
+     * @param config
+     * @param seed
+     * @param commands
+     * @param placements
+     * @param score
+     */
+    public Replay(BoardConfig config, long seed, byte[] commands, long[] placements, int score) {
+        this(config, seed, LevelTable.createDefault(config.getSpeed()), commands, placements, score);
+    }
+
+    /**
+     * Creates a replay of a game played with the given level table. The commands and placements are copied.
+     *
+     * @param config
+     * @param seed
+     * @param levels
+     * @param commands
+     * @param placements
+     * @param score
+     */
+    public Replay(BoardConfig config, long seed, LevelTable levels, byte[] commands, long[] placements, int score) {
+        if (placements.length % 2 != 0) {
+            throw new IllegalArgumentException("Placements must be tick and placement pairs.");
+        }
+        this.config = config;
+        this.seed = seed;
+        this.levels = levels;
+        this.commands = commands.clone();
+        this.placements = placements.clone();
+        this.score = score;
+    }
+
+    /**
+     * The same replay claiming the given score instead.
+     *
+     * @param score
+     * @return Replay
+     */
+    public Replay withScore(int score) {
+        return new Replay(this.config, this.seed, this.levels, this.commands, this.placements, score);
+    }
+
+    /**
+     * The same replay with the given commands instead (Copied), claiming the same score.
+     *
+     * @param commands
+     * @return Replay
+     */
+    public Replay withCommands(byte[] commands) {
+        return new Replay(this.config, this.seed, this.levels, commands, this.placements, this.score);
+    }
+
+    /**
+     * The command given on every tick, as a new array.
+     *
+     * @return byte[]
+     */
+    public byte[] getCommands() {
+        return this.commands.clone();
+    }
+
+    /**
+     * Packs the shape and position of a placement into one long, x and y must be under 2^24.
+     *
+     * @param shape
+     * @param x
+     * @param y
+     * @return long
+     */
+    public static long packPlacement(int shape, int x, int y) {
+        return ((long) (shape & 0xFF) << 48) | ((long) x << 24) | y;
+    }
+
+    /**
+     * Creates a game with no view for playing a replay of the given config and seed with the default levels again,
+     * ready for its first tick.
+     *
+     * @param config
+     * @param seed
+     * @return Game
+     */
+    public static Game createGame(BoardConfig config, long seed) {
+        return createGame(config, seed, LevelTable.createDefault(config.getSpeed()));
+    }
+
+    /**
+     * Creates a game with no view for playing a replay of the given config, seed and level table again, ready for
+     * its first tick.
+     *
+     * @param config
+     * @param seed
+     * @param levels
+     * @return Game
+     */
+    public static Game createGame(BoardConfig config, long seed, LevelTable levels) {
+        Board board = (long) config.getWidth() * config.getHeight() > DENSE_MAX_CELLS
+                ? new ChunkedBoard(config.getWidth(), config.getHeight())
+                : new DenseBoard(config.getWidth(), config.getHeight());
+        Game game = new Game(board, null);
+        game.setLevelTable(levels);
+        game.setSeed(seed);
+        return game;
+    }
+
+    /**
+     * Creates a game with no view for playing this replay again, ready for its first tick.
+     *
+     * @return Game
+     */
+    public Game createGame() {
+        return createGame(this.config, this.seed, this.levels);
+    }
+
+    public BoardConfig getConfig() {
+        return this.config;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    public LevelTable getLevelTable() {
+        return this.levels;
+    }
+
+    public int getScore() {
+        return this.score;
+    }
+
+    /**
+     * Amount of ticks played.
+     *
+     * @return int
+     */
+    public int getTicks() {
+        return this.commands.length;
+    }
+
+    public int getCommand(int tick) {
+        return this.commands[tick];
+    }
+
+    public int getPlacementCount() {
+        return this.placements.length / 2;
+    }
+
+    /**
+     * The tick (Counted from 1, see Game.getTickCount) the given placement happened on.
+     *
+     * @param placement
+     * @return long
+     */
+    public long getPlacementTick(int placement) {
+        return this.placements[placement * 2];
+    }
+
+    /**
+     * The shape and position of the given placement, see packPlacement.
+     *
+     * @param placement
+     * @return long
+     */
+    public long getPlacement(int placement) {
+        return this.placements[placement * 2 + 1];
+    }
+
+    /**
+     * Writes the replay to a file.
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void save(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            this.write(out);
+        }
+    }
+
+    /**
+     * Writes the replay to the given output.
+     *
+     * @param out
+     * @throws IOException
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(this.config.getWidth());
+        out.writeInt(this.config.getHeight());
+        out.writeInt(this.config.getSpeed());
+        out.writeLong(this.seed);
+        this.levels.write(out);
+        out.writeInt(this.score);
+        out.writeInt(this.commands.length);
+        out.write(this.commands);
+        out.writeInt(this.placements.length);
+        for (long placement : this.placements) {
+            out.writeLong(placement);
+        }
+    }
+
+    /**
+     * Reads a replay from a file, or returns null if the file isn't one.
+     *
+     * @param file
+     * @return Replay
+     * @throws IOException
+     */
+    public static Replay load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Reads a replay from the given input, or returns null if it isn't one.
+     *
+     * @param in
+     * @return Replay
+     * @throws IOException
+     */
+    public static Replay read(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            return null;
+        }
+        if (in.readInt() != VERSION) {
+            return null;
+        }
+        BoardConfig config = new BoardConfig(in.readInt(), in.readInt(), in.readInt());
+        long seed = in.readLong();
+        LevelTable levels = LevelTable.read(in);
+        if (levels == null) {
+            return null;
+        }
+        int score = in.readInt();
+        int ticks = in.readInt();
+        if (ticks < 0 || config.getWidth() < 4 || config.getHeight() < 4 || config.getSpeed() <= 0) {
+            return null;
+        }
+        byte[] commands = new byte[ticks];
+        in.readFully(commands);
+        int longs = in.readInt();
+        if (longs < 0 || longs % 2 != 0) {
+            return null;
+        }
+        long[] placements = new long[longs];
+        for (int i = 0; i < longs; i++) {
+            placements[i] = in.readLong();
+        }
+        return new Replay(config, seed, levels, commands, placements, score);
+    }
+
+    /**
+     * Records a replay of a game as it is played. Create it before the game's first tick and after setting its
+     * level table (It sets the game's seed and command recorder and keeps the level table) and poll it after every tick, or at least every GameEventBus capacity events.
+     */
+    public static class Recorder implements GameEventListener {
+
+        private final Game game;
+        private final BoardConfig config;
+        private final long seed;
+        private final LevelTable levels;
+        private final CommandRecorder commands = new CommandRecorder();
+        private final GameEventBus.Subscription events;
+
+        private long[] placements = new long[256];
+        private int placementsSize = 0;
+
+        public Recorder(Game game, BoardConfig config, long seed) {
+            this.game = game;
+            this.config = config;
+            this.seed = seed;
+            this.levels = game.getLevelTable();
+            game.setSeed(seed);
+            game.setCommandRecorder(this.commands);
+            this.events = game.getEvents().subscribe();
+        }
+
+        /**
+         * Records the placements since the last call.
+         */
+        public void poll() {
+            this.events.poll(this);
+        }
+
+        @Override
+        public void onEvent(GameEvent event) {
+            if (event.getType() == GameEvent.LOCKED) {
+                if (this.placementsSize == this.placements.length) {
+                    this.placements = Arrays.copyOf(this.placements, this.placements.length * 2);
+                }
+                this.placements[this.placementsSize++] = event.getTick();
+                this.placements[this.placementsSize++] = packPlacement(event.getShape(), event.getX(), event.getY());
+            }
+        }
+
+        /**
+         * Returns the replay of the game so far, claiming the game's current score.
+         *
+         * @return Replay
+         */
+        public Replay toReplay() {
+            this.poll();
+            return new Replay(this.config, this.seed, this.levels, this.commands.toArray(),
+                    Arrays.copyOf(this.placements, this.placementsSize), this.game.getScore());
+        }
+    }
+}
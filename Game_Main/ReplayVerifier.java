@@ -0,0 +1,211 @@
+package Game_Main;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Checks that replays (See Replay) really give the score they claim, by playing each one again on a game with
+ * no view, as fast as the game can tick. A replay is rejected at the first tick where the game played again
+ * differs from it: a placement that doesn't match, a game that ends before the replay does, or a different score.
+ *
+ * verifyAll checks a batch of replays on a pool of threads, one game per replay.
+ *
+ * @author T03-2
+ */
+public class ReplayVerifier {
+
+    private final int threads;
+
+    // Totals of the last verifyAll, for reports.
+    private long verified = 0;
+    private long ticks = 0;
+    private long nanos = 0;
+
+    /**
+     * The outcome of playing one replay again.
+     */
+    public static final class Result {
+
+        private final Replay replay;
+        private final long divergentTick;
+        private final int simulatedScore;
+
+        private Result(Replay replay, long divergentTick, int simulatedScore) {
+            this.replay = replay;
+            this.divergentTick = divergentTick;
+            this.simulatedScore = simulatedScore;
+        }
+
+        public Replay getReplay() {
+            return this.replay;
+        }
+
+        public boolean isAccepted() {
+            return this.divergentTick < 0;
+        }
+
+        /**
+         * The first tick (Counted from 1) where the game played again differed from the replay, -1 if it didn't.
+         *
+         * @return long
+         */
+        public long getDivergentTick() {
+            return this.divergentTick;
+        }
+
+        /**
+         * The score the game played again ended with.
+         *
+         * @return int
+         */
+        public int getSimulatedScore() {
+            return this.simulatedScore;
+        }
+
+        @Override
+        public String toString() {
+            if (this.isAccepted()) {
+                return "Accepted " + this.replay.getScore();
+            }
+            return "Rejected " + this.replay.getScore() + ", differs at tick " + this.divergentTick
+                    + " (Played again to " + this.simulatedScore + ")";
+        }
+    }
+
+    /**
+     * Compares the placements of the game played again with the replay's as they happen.
+     */
+    private static final class Checker implements GameEventListener {
+
+        private final Replay replay;
+        private int next = 0;
+        private long divergentTick = -1;
+
+        private Checker(Replay replay) {
+            this.replay = replay;
+        }
+
+        private void diverge(long tick) {
+            if (this.divergentTick < 0) {
+                this.divergentTick = tick;
+            }
+        }
+
+        @Override
+        public void onEvent(GameEvent event) {
+            if (event.getType() != GameEvent.LOCKED) {
+                return;
+            }
+            if (this.next >= this.replay.getPlacementCount()) {
+                this.diverge(event.getTick());
+                return;
+            }
+            long expectedTick = this.replay.getPlacementTick(this.next);
+            if (expectedTick != event.getTick()
+                    || this.replay.getPlacement(this.next) != Replay.packPlacement(event.getShape(), event.getX(), event.getY())) {
+                this.diverge(Math.min(expectedTick, event.getTick()));
+            }
+            this.next++;
+        }
+    }
+
+    /**
+     * Creates a verifier using a thread for every processor.
+     */
+    public ReplayVerifier() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ReplayVerifier(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Plays the replay again on the calling thread.
+     *
+     * @param replay
+     * @return Result
+     */
+    public static Result verify(Replay replay) {
+        Game game = replay.createGame();
+
+        Checker checker = new Checker(replay);
+        GameEventBus.Subscription events = game.getEvents().subscribe();
+        int ticks = replay.getTicks();
+        for (int i = 0; i < ticks && checker.divergentTick < 0; i++) {
+            // The replay goes on after the game ended.
+            if (!game.getGameRunning()) {
+                checker.diverge(game.getTickCount() + 1);
+                break;
+            }
+            game.tick(replay.getCommand(i));
+            events.poll(checker);
+        }
+
+        if (checker.next < replay.getPlacementCount()) {
+            checker.diverge(replay.getPlacementTick(checker.next));
+        }
+        if (game.getScore() != replay.getScore()) {
+            checker.diverge(Math.max(1, game.getTickCount()));
+        }
+        game.close();
+        return new Result(replay, checker.divergentTick, game.getScore());
+    }
+
+    /**
+     * Plays every replay again, spread over the verifier's threads. The results are in the same order as the replays.
+     *
+     * @param replays
+     * @return Result[]
+     */
+    public Result[] verifyAll(Replay[] replays) {
+        long start = System.nanoTime();
+        Result[] results = new Result[replays.length];
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(this.threads, Math.max(1, replays.length)));
+        try {
+            List<Future<Result>> futures = new ArrayList<>(replays.length);
+            for (Replay replay : replays) {
+                futures.add(pool.submit(() -> verify(replay)));
+            }
+            long played = 0;
+            for (int i = 0; i < replays.length; i++) {
+                results[i] = futures.get(i).get();
+                played += replays[i].getTicks();
+            }
+            this.ticks = played;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted verifying replays", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error verifying replays", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        this.verified = replays.length;
+        this.nanos = System.nanoTime() - start;
+        return results;
+    }
+
+    /**
+     * Replays checked per second by the last verifyAll.
+     *
+     * @return double
+     */
+    public double getVerificationsPerSecond() {
+        return this.nanos == 0 ? 0 : this.verified * 1e9 / this.nanos;
+    }
+
+    /**
+     * Ticks played per second by the last verifyAll, divide by Game.TICKS_PER_SECOND for how much faster
+     * than real time that is.
+     *
+     * @return double
+     */
+    public double getTicksPerSecond() {
+        return this.nanos == 0 ? 0 : this.ticks * 1e9 / this.nanos;
+    }
+}
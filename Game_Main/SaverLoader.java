@@ -6,9 +6,6 @@ import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Scanner;
 
 import GUI.AlertBox;
 
@@ -23,9 +20,12 @@ public final class SaverLoader {
     // The folder that highscores are saved in.
     private static File highScoreFolder;
 
-    // An ArrayList that will be used to display highscores in game.
-    private static ArrayList<Integer> highScoreList = new ArrayList<>();
-    private static int[] highScoreListSorted;
+    // Counts of every score in the highscore file, used for the leaderboard and percentiles. Saved next to the
+    // highscore file (See getScoreIndexFile) so it doesn't have to be rebuilt every start.
+    private static ScoreIndex scoreIndex = new ScoreIndex();
+
+    // Every player's own scores, kept in a folder next to the highscore file.
+    private static ScoreStore scoreStore;
 
     /**
      * Will set the highscore folder to the specified folder.
@@ -38,10 +38,6 @@ public final class SaverLoader {
         }
     }
 
-    public static void setHighScoreSortedArray(int[] shl) {
-        highScoreListSorted = shl;
-    }
-
     /**
      * Returns the highscore folder.
      * @return File
@@ -51,7 +47,16 @@ public final class SaverLoader {
     }
 
     /**
-     * Fills ArrayList highScoreList with all the highscores in the highscore text file.
+     * Gets the file the score index is saved in, next to the highscore file.
+     * @return File
+     */
+    public static File getScoreIndexFile() {
+        return new File(highScoreFolder.getPath() + ".idx");
+    }
+
+    /**
+     * Loads the score index for the highscore text file. The saved index is used if it was saved for the file as it
+     * is now, otherwise it is rebuilt from the file (See ScoreImporter) and saved again.
      * @return boolean
      */
     public static boolean LoadScores() {
@@ -61,27 +66,27 @@ public final class SaverLoader {
             return false;
         } else {
             try {
-                Scanner file = new Scanner(highScoreFolder);
-                String temp;
-                while (file.hasNext()) {
-                    temp = file.nextLine();
-                    if (temp.equals("Print Test Please Ignore")) {
-                        // Do nothing, it is the test print
-                    } else {
-                        highScoreList.add(Integer.parseInt(temp));
+                File indexFile = getScoreIndexFile();
+                if (indexFile.exists()) {
+                    try {
+                        ScoreIndex saved = ScoreIndex.load(indexFile);
+                        if (saved != null && saved.getSourceLength() == highScoreFolder.length()) {
+                            scoreIndex = saved;
+                            return true;
+                        }
+                    } catch (IOException ex) {
+                        System.err.println("Error loading score index, rebuilding it: " + ex);
                     }
                 }
-                int[] shl = new int[highScoreList.size()];
 
-                int i = 0;
-                for (Integer score : highScoreList) {
-                    shl[i] = score;
-                    i++;
+                if (!highScoreFolder.exists()) {
+                    throw new FileNotFoundException(highScoreFolder.getPath());
                 }
-                Arrays.sort(shl);
-                setHighScoreSortedArray(shl);
+                scoreIndex = new ScoreIndex();
+                new ScoreImporter().importFile(highScoreFolder, scoreIndex);
+                saveScoreIndex();
                 return true;
-            } catch (FileNotFoundException ex) {
+            } catch (IOException ex) {
                 AlertBox alert = new AlertBox(new Dimension(400, 100), "Folder Error", "Error finding folder. Try again.");
                 alert.display();
                 return false;
@@ -90,18 +95,129 @@ public final class SaverLoader {
     }
 
     /**
-     * Writes to the highscore folder with a new score. Returns success or not.
+     * Gets the level file the game is played with, levels.cfg in the folder the game is run from (See
+     * LevelTable.load).
+     * @return File
+     */
+    public static File getLevelFile() {
+        return new File(System.getProperty("user.dir"), "levels.cfg");
+    }
+
+    /**
+     * Whether the replay was played with levels the leaderboard takes: the default levels for its drop speed, or
+     * the ones in the level file. A replay carries its own level table, so any other could make the game as slow
+     * or as forgiving as it likes and still be played again to the same score.
      * @return boolean
      */
-    public static boolean SaveScore(int score) {
+    public static boolean isRankedLevels(Replay replay) {
+        if (replay.getLevelTable().equals(LevelTable.createDefault(replay.getConfig().getSpeed()))) {
+            return true;
+        }
+        File levelFile = getLevelFile();
+        try {
+            return levelFile.exists() && replay.getLevelTable().equals(LevelTable.load(levelFile));
+        } catch (FileNotFoundException | IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Saves the score of the given replay if it was played with levels the leaderboard takes (See isRankedLevels)
+     * and playing it again gives the same score (See ReplayVerifier), keeping the replay in the replay folder next
+     * to the highscore file. Returns success or not.
+     * @return boolean
+     */
+    public static boolean SubmitScore(Replay replay) {
+        if (!isRankedLevels(replay)) {
+            System.err.println("Score not saved: played with other levels.");
+            AlertBox alert = new AlertBox(new Dimension(400, 100), "Score Rejected",
+                    "The game was played with levels the leaderboard doesn't take.");
+            alert.display();
+            return false;
+        }
+        ReplayVerifier.Result result = ReplayVerifier.verify(replay);
+        if (!result.isAccepted()) {
+            System.err.println("Score not saved: " + result);
+            AlertBox alert = new AlertBox(new Dimension(400, 100), "Score Rejected",
+                    "The replay of the game differs at tick " + result.getDivergentTick() + ".");
+            alert.display();
+            return false;
+        }
+        saveReplay(replay);
+        return SaveScore(replay.getScore());
+    }
+
+    /**
+     * Plays every replay again on all processors (See ReplayVerifier.verifyAll) and saves the scores of the ones
+     * that give the score they claim and were played with levels the leaderboard takes (See isRankedLevels), e.g.
+     * replays collected from other machines. Returns every replay's result.
+     * @return ReplayVerifier.Result[]
+     */
+    public static ReplayVerifier.Result[] SubmitReplays(Replay[] replays) throws IOException {
+        ReplayVerifier verifier = new ReplayVerifier();
+        ReplayVerifier.Result[] results = verifier.verifyAll(replays);
+        System.out.printf("Verified %d replays, %.0f replays/s%n", replays.length, verifier.getVerificationsPerSecond());
+
+        int[] scores = new int[results.length];
+        int accepted = 0;
+        for (ReplayVerifier.Result result : results) {
+            if (result.isAccepted() && isRankedLevels(result.getReplay())) {
+                scores[accepted++] = result.getReplay().getScore();
+                saveReplay(result.getReplay());
+            }
+        }
+        writeScores(scores, accepted);
+        return results;
+    }
+
+    /**
+     * Gets the folder accepted replays are kept in, next to the highscore file.
+     * @return File
+     */
+    public static File getReplayFolder() {
+        return new File(highScoreFolder.getPath() + ".replays");
+    }
+
+    /**
+     * Keeps an accepted replay so its score can be checked again later, a failure only loses the replay.
+     */
+    private static void saveReplay(Replay replay) {
+        try {
+            File folder = getReplayFolder();
+            folder.mkdirs();
+            replay.save(File.createTempFile(replay.getConfig().getFileName() + "-" + replay.getScore() + "-", ".rpl", folder));
+        } catch (IOException ex) {
+            System.err.println("Error saving replay: " + ex);
+        }
+    }
+
+    /**
+     * Writes the first count scores to the end of the highscore file and adds them to the index.
+     */
+    private static void writeScores(int[] scores, int count) throws IOException {
+        try (PrintWriter printer = new PrintWriter(new FileWriter(highScoreFolder, true))) {
+            for (int i = 0; i < count; i++) {
+                printer.println("" + scores[i]);
+            }
+            if (printer.checkError()) {
+                throw new IOException("Error writing " + highScoreFolder);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            scoreIndex.insert(scores[i]);
+        }
+        saveScoreIndex();
+    }
+
+    /**
+     * Writes to the highscore folder with a new score. Returns success or not. Scores are only saved through
+     * SubmitScore, once their replay is verified.
+     * @return boolean
+     */
+    private static boolean SaveScore(int score) {
         System.out.println("Saving scores.");
-        FileWriter fw;
         try {
-            fw = new FileWriter(highScoreFolder, true);
-            PrintWriter printer = new PrintWriter(fw, true);
-            printer.println("" + score);
-            printer.close();
-            fw.close();
+            writeScores(new int[] {score}, 1);
             AlertBox alert = new AlertBox(new Dimension(300, 100), "Success", "Success saving scores!");
             alert.display();
             return true;
@@ -128,19 +244,47 @@ public final class SaverLoader {
     }
 
     /**
-     * Gets the highscore arraylist.
-     * @return ArrayList<Integer>
+     * Saves the score index for the highscore file as it is now, a failure only means it is rebuilt next start.
      */
-    public static ArrayList<Integer> getScoreList() {
-        return highScoreList;
+    private static void saveScoreIndex() {
+        scoreIndex.setSourceLength(highScoreFolder.length());
+        try {
+            scoreIndex.save(getScoreIndexFile());
+        } catch (IOException ex) {
+            System.err.println("Error saving score index: " + ex);
+        }
     }
 
     /**
-     * Gets the sorted highscore array.
-     * @return int
+     * Gets the index of all the highscores.
+     * @return ScoreIndex
      */
-    public static int[] getSortedScoreList() {
-        return highScoreListSorted;
+    public static ScoreIndex getScoreIndex() {
+        return scoreIndex;
+    }
+
+    /**
+     * Gets the store of every player's scores, in the folder next to the highscore file (The same name with
+     * .players added).
+     * @return ScoreStore
+     */
+    public static ScoreStore getScoreStore() {
+        if (scoreStore == null) {
+            scoreStore = new ScoreStore(new File(highScoreFolder.getPath() + ".players"));
+        }
+        return scoreStore;
+    }
+
+    /**
+     * Gets the best scores, highest first, at most the given amount.
+     * @return int[]
+     */
+    public static int[] getTopScores(int amount) {
+        int[] top = new int[(int) Math.min(amount, scoreIndex.getTotal())];
+        for (int i = 0; i < top.length; i++) {
+            top[i] = scoreIndex.scoreAtRank(i + 1);
+        }
+        return top;
     }
 
 }
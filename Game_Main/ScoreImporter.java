@@ -0,0 +1,215 @@
+package Game_Main;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads large score files (One score per line, like the highscore file) into a ScoreIndex quickly.
+ *
+ * The file is memory mapped and split into chunks at line breaks, each chunk is parsed straight from its bytes
+ * on its own thread into a count per bucket and its best scores (See ScoreIndex.TopScores), and they are added to
+ * the index at the end. Lines that aren't a number, like the "Print Test Please Ignore" line written when checking
+ * the file, are skipped.
+ *
+ * @author T03-2
+ */
+public class ScoreImporter {
+
+    // Largest chunk mapped at once, a mapping can't be bigger than Integer.MAX_VALUE.
+    private static final long MAX_CHUNK = 1 << 30;
+
+    private final int threads;
+
+    private long imported = 0;
+    private long skipped = 0;
+
+    /**
+     * Creates an importer parsing on one thread per available processor.
+     */
+    public ScoreImporter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ScoreImporter(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Adds every score in the file to the index, returning how many there were.
+     *
+     * @param file
+     * @param index
+     * @return long
+     * @throws IOException
+     */
+    public long importFile(File file, ScoreIndex index) throws IOException {
+        this.imported = 0;
+        this.skipped = 0;
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            long[] bounds = findChunks(channel, this.threads);
+            int chunks = bounds.length - 1;
+
+            List<Chunk> parsed = new ArrayList<>();
+            for (int i = 0; i < chunks; i++) {
+                if (bounds[i + 1] > bounds[i]) {
+                    parsed.add(new Chunk(channel, bounds[i], bounds[i + 1], index));
+                }
+            }
+
+            ExecutorService pool = Executors.newFixedThreadPool(Math.min(this.threads, Math.max(1, parsed.size())));
+            try {
+                List<Future<Chunk>> results = new ArrayList<>();
+                for (Chunk chunk : parsed) {
+                    results.add(pool.submit(chunk::parse));
+                }
+                long[] counts = new long[index.getBucketCount()];
+                ScoreIndex.TopScores best = new ScoreIndex.TopScores();
+                for (Future<Chunk> result : results) {
+                    Chunk chunk = result.get();
+                    for (int b = 0; b < counts.length; b++) {
+                        counts[b] += chunk.counts[b];
+                    }
+                    for (int i = 0; i < chunk.best.size(); i++) {
+                        best.offer(chunk.best.get(i));
+                    }
+                    this.imported += chunk.scores;
+                    this.skipped += chunk.skipped;
+                }
+                index.addAll(counts, best);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted importing " + file, e);
+            } catch (ExecutionException e) {
+                throw new IOException("Error importing " + file, e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+        }
+        return this.imported;
+    }
+
+    /**
+     * Splits the file into at least the given amount of chunks (More if it is bigger than MAX_CHUNK each), moving
+     * every split to just after a line break. Returns the start of every chunk followed by the end of the file.
+     */
+    private static long[] findChunks(FileChannel channel, int parts) throws IOException {
+        long size = channel.size();
+        int chunks = (int) Math.max(parts, (size + MAX_CHUNK - 1) / MAX_CHUNK);
+        // Splits are made before MAX_CHUNK is reached so moving them forward to a line break stays under it.
+        long chunkSize = Math.max(1, Math.min((size + chunks - 1) / chunks, MAX_CHUNK / 2));
+        chunks = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+
+        long[] bounds = new long[chunks + 1];
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        for (int i = 1; i < chunks; i++) {
+            long position = Math.max(bounds[i - 1], i * chunkSize);
+            bounds[i] = nextLine(channel, position, buffer);
+        }
+        bounds[chunks] = size;
+        return bounds;
+    }
+
+    /**
+     * Returns the position just after the first line break at or after the given position, or the end of the file.
+     */
+    private static long nextLine(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    public long getImported() {
+        return this.imported;
+    }
+
+    public long getSkipped() {
+        return this.skipped;
+    }
+
+    /**
+     * The lines of one part of the file, counted into buckets of the index.
+     */
+    private static class Chunk {
+
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final ScoreIndex index;
+
+        private long[] counts;
+        private final ScoreIndex.TopScores best = new ScoreIndex.TopScores();
+        private long scores = 0;
+        private long skipped = 0;
+
+        private Chunk(FileChannel channel, long start, long end, ScoreIndex index) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.index = index;
+        }
+
+        private Chunk parse() throws IOException {
+            this.counts = new long[this.index.getBucketCount()];
+            MappedByteBuffer bytes = this.channel.map(FileChannel.MapMode.READ_ONLY, this.start, this.end - this.start);
+            int length = bytes.limit();
+
+            long value = 0;
+            boolean negative = false;
+            boolean digits = false;
+            boolean valid = true;
+            boolean empty = true;
+            // One past the end so the last line is finished even without a line break.
+            for (int i = 0; i <= length; i++) {
+                byte b = i < length ? bytes.get(i) : (byte) '\n';
+                if (b >= '0' && b <= '9') {
+                    // Anything too big for an int still only counts as the highest score.
+                    value = Math.min(value * 10 + (b - '0'), Integer.MAX_VALUE);
+                    digits = true;
+                    empty = false;
+                } else if (b == '\n') {
+                    if (valid && digits) {
+                        int score = (int) (negative ? -value : value);
+                        this.counts[this.index.getBucket(score)]++;
+                        this.best.offer(score);
+                        this.scores++;
+                    } else if (!empty) {
+                        this.skipped++;
+                    }
+                    value = 0;
+                    negative = false;
+                    digits = false;
+                    valid = true;
+                    empty = true;
+                } else if (b == '-' && empty) {
+                    negative = true;
+                    empty = false;
+                } else if (b != '\r') {
+                    valid = false;
+                    empty = false;
+                }
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package Game_Main;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Counts how many stored games got each score so the rank and percentile of any score can be found in
+ * O(log n) time, however many games there are.
+ *
+ * Scores are counted in buckets of bucketWidth scores in a Fenwick (Binary indexed) tree, where every node holds
+ * the count of a power of two sized run of buckets ending at it. Scores in the same bucket count as equal, so with
+ * a width of 1 every query is exact. Scores above maxScore all go in the last bucket, but the best EXACT_TOP
+ * scores are kept as they are too (See TopScores): the leaderboard shows them exactly, and so do ranks and
+ * percentiles in the last bucket while all its games are among them.
+ *
+ * @author T03-2
+ */
+public class ScoreIndex {
+
+    public static final int DEFAULT_MAX_SCORE = 65535;
+
+    // Amount of best scores kept exactly.
+    public static final int EXACT_TOP = 100;
+
+    // Written at the start of a saved index, followed by the version of the format.
+    private static final int MAGIC = 0x54534958;
+    private static final int VERSION = 1;
+
+    private final int maxScore;
+    private final int bucketWidth;
+    private final int buckets;
+
+    // 1-based Fenwick tree of counts per bucket.
+    private final long[] tree;
+    private long total = 0;
+
+    private final TopScores top = new TopScores();
+
+    // Length of the score file this index was built from, to tell when a saved index is out of date.
+    private long sourceLength = 0;
+
+    public ScoreIndex() {
+        this(DEFAULT_MAX_SCORE, 1);
+    }
+
+    /**
+     * Creates an empty index for scores from 0 to maxScore, counted in buckets of the given width.
+     *
+     * @param maxScore
+     * @param bucketWidth
+     */
+    public ScoreIndex(int maxScore, int bucketWidth) {
+        if (maxScore < 0 || bucketWidth < 1) {
+            throw new IllegalArgumentException("Invalid score range: " + maxScore + " / " + bucketWidth);
+        }
+        this.maxScore = maxScore;
+        this.bucketWidth = bucketWidth;
+        this.buckets = maxScore / bucketWidth + 1;
+        this.tree = new long[this.buckets + 1];
+    }
+
+    /**
+     * Returns the bucket the given score is counted in.
+     *
+     * @param score
+     * @return int
+     */
+    public int getBucket(int score) {
+        return Math.max(0, Math.min(score, this.maxScore)) / this.bucketWidth;
+    }
+
+    public int getBucketCount() {
+        return this.buckets;
+    }
+
+    /**
+     * Adds a game with the given score.
+     *
+     * @param score
+     */
+    public void insert(int score) {
+        this.add(this.getBucket(score), 1);
+        this.top.offer(score);
+    }
+
+    private void add(int bucket, long count) {
+        for (int i = bucket + 1; i <= this.buckets; i += i & -i) {
+            this.tree[i] += count;
+        }
+        this.total += count;
+    }
+
+    /**
+     * Adds many games at once from the count of games in each bucket (See getBucket), O(n) in the amount of
+     * buckets rather than O(log n) for every game, along with the best of their scores.
+     *
+     * @param counts
+     * @param best
+     */
+    public void addAll(long[] counts, TopScores best) {
+        if (counts.length != this.buckets) {
+            throw new IllegalArgumentException("Expected " + this.buckets + " bucket counts, got " + counts.length);
+        }
+        long[] merged = this.bucketCounts();
+        for (int b = 0; b < this.buckets; b++) {
+            merged[b] += counts[b];
+            this.total += counts[b];
+        }
+        this.build(merged);
+        for (int i = 0; i < best.size(); i++) {
+            this.top.offer(best.get(i));
+        }
+    }
+
+    /**
+     * Sets the tree from the count of each bucket, each node passing its run on to its parent, O(n).
+     */
+    private void build(long[] counts) {
+        System.arraycopy(counts, 0, this.tree, 1, this.buckets);
+        for (int i = 1; i <= this.buckets; i++) {
+            int parent = i + (i & -i);
+            if (parent <= this.buckets) {
+                this.tree[parent] += this.tree[i];
+            }
+        }
+    }
+
+    /**
+     * Amount of games in the buckets before the given one.
+     */
+    private long countBefore(int bucket) {
+        long count = 0;
+        for (int i = bucket; i > 0; i -= i & -i) {
+            count += this.tree[i];
+        }
+        return count;
+    }
+
+    /**
+     * Amount of games with a lower score than the given one.
+     *
+     * @param score
+     * @return long
+     */
+    public long countBelow(int score) {
+        if (this.isExact(score)) {
+            // With one bucket it holds the scores under 0 too.
+            long last = this.buckets == 1 ? Integer.MIN_VALUE : (this.buckets - 1) * this.bucketWidth;
+            return this.countBefore(this.buckets - 1) + this.top.countBetween(last, score);
+        }
+        return this.countBefore(this.getBucket(score));
+    }
+
+    /**
+     * Amount of games with a higher score than the given one.
+     *
+     * @param score
+     * @return long
+     */
+    public long countAbove(int score) {
+        if (this.isExact(score)) {
+            return this.top.countBetween(score + 1L, Integer.MAX_VALUE + 1L);
+        }
+        return this.total - this.countBefore(this.getBucket(score) + 1);
+    }
+
+    /**
+     * Whether the score is in the last bucket and every game in it is among the best scores kept, so it can be
+     * compared with them exactly.
+     */
+    private boolean isExact(int score) {
+        return this.getBucket(score) == this.buckets - 1
+                && this.total - this.countBefore(this.buckets - 1) <= this.top.size();
+    }
+
+    /**
+     * Place the given score would have on the leaderboard, 1 is the best.
+     *
+     * @param score
+     * @return long
+     */
+    public long rank(int score) {
+        return this.countAbove(score) + 1;
+    }
+
+    /**
+     * Percentage of games the given score beat, 0 if there are no games.
+     *
+     * @param score
+     * @return double
+     */
+    public double percentile(int score) {
+        return this.total == 0 ? 0 : 100.0 * this.countBelow(score) / this.total;
+    }
+
+    /**
+     * Returns the score of the game at the given rank, 1 being the best, or -1 if there aren't that many games.
+     * Exact for the best EXACT_TOP, past them the lowest score of its bucket, found by walking down the tree
+     * instead of searching on countAbove.
+     *
+     * @param rank
+     * @return int
+     */
+    public int scoreAtRank(long rank) {
+        if (rank < 1 || rank > this.total) {
+            return -1;
+        }
+        if (rank <= this.top.size()) {
+            return this.top.get((int) rank - 1);
+        }
+        // The game at that rank is the one with this many games at or below it.
+        long remaining = this.total - rank + 1;
+        int position = 0;
+        for (int step = Integer.highestOneBit(this.buckets); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= this.buckets && this.tree[next] < remaining) {
+                position = next;
+                remaining -= this.tree[next];
+            }
+        }
+        // position is the amount of buckets before the one holding it.
+        return position * this.bucketWidth;
+    }
+
+    public long getTotal() {
+        return this.total;
+    }
+
+    public long getSourceLength() {
+        return this.sourceLength;
+    }
+
+    public void setSourceLength(long sourceLength) {
+        this.sourceLength = sourceLength;
+    }
+
+    /**
+     * Removes every game from the index.
+     */
+    public void clear() {
+        Arrays.fill(this.tree, 0);
+        this.total = 0;
+        this.top.clear();
+        this.sourceLength = 0;
+    }
+
+    /**
+     * Saves the index, only the buckets with games in them are written.
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void save(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(this.maxScore);
+            out.writeInt(this.bucketWidth);
+            out.writeLong(this.sourceLength);
+
+            long[] counts = this.bucketCounts();
+            int used = 0;
+            for (long count : counts) {
+                if (count != 0) {
+                    used++;
+                }
+            }
+            out.writeInt(used);
+            for (int b = 0; b < counts.length; b++) {
+                if (counts[b] != 0) {
+                    out.writeInt(b);
+                    out.writeLong(counts[b]);
+                }
+            }
+            out.writeInt(this.top.size());
+            for (int i = 0; i < this.top.size(); i++) {
+                out.writeInt(this.top.get(i));
+            }
+        }
+    }
+
+    /**
+     * Undoes the tree back into the count of each bucket, the reverse of build, O(n).
+     */
+    private long[] bucketCounts() {
+        long[] counts = Arrays.copyOfRange(this.tree, 1, this.buckets + 1);
+        for (int i = this.buckets; i >= 1; i--) {
+            int parent = i + (i & -i);
+            if (parent <= this.buckets) {
+                counts[parent - 1] -= counts[i - 1];
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Loads an index saved with save, or returns null if the file isn't a saved index.
+     *
+     * @param file
+     * @return ScoreIndex
+     * @throws IOException
+     */
+    public static ScoreIndex load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            ScoreIndex index = new ScoreIndex(in.readInt(), in.readInt());
+            index.sourceLength = in.readLong();
+
+            long[] counts = new long[index.buckets];
+            int used = in.readInt();
+            for (int i = 0; i < used; i++) {
+                int bucket = in.readInt();
+                long count = in.readLong();
+                if (bucket < 0 || bucket >= index.buckets) {
+                    return null;
+                }
+                counts[bucket] += count;
+                index.total += count;
+            }
+            index.build(counts);
+            int best = in.readInt();
+            if (best < 0 || best > EXACT_TOP || best > index.total) {
+                return null;
+            }
+            for (int i = 0; i < best; i++) {
+                index.top.offer(in.readInt());
+            }
+            return index;
+        }
+    }
+
+    /**
+     * The best EXACT_TOP scores given to offer, highest first.
+     */
+    public static class TopScores {
+
+        private final int[] scores = new int[EXACT_TOP];
+        private int size = 0;
+
+        /**
+         * Keeps the score if it is one of the best so far.
+         *
+         * @param score
+         */
+        public void offer(int score) {
+            // Kept small so it is inlined, most scores aren't among the best.
+            if (this.size < EXACT_TOP || score > this.scores[EXACT_TOP - 1]) {
+                this.add(score);
+            }
+        }
+
+        private void add(int score) {
+            int at = Math.min(this.size, EXACT_TOP - 1);
+            while (at > 0 && this.scores[at - 1] < score) {
+                this.scores[at] = this.scores[at - 1];
+                at--;
+            }
+            this.scores[at] = score;
+            this.size = Math.min(this.size + 1, EXACT_TOP);
+        }
+
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * The score at the given place, 0 being the best.
+         *
+         * @param place
+         * @return int
+         */
+        public int get(int place) {
+            return this.scores[place];
+        }
+
+        /**
+         * Amount of scores kept from low (Inclusive) to high (Exclusive).
+         */
+        private long countBetween(long low, long high) {
+            long count = 0;
+            for (int i = 0; i < this.size; i++) {
+                if (this.scores[i] >= low && this.scores[i] < high) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private void clear() {
+            this.size = 0;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package Game_Main;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps every player's scores, split by player and by board configuration (See BoardConfig).
+ *
+ * Every player has a folder in the store's folder, and every configuration they played has its own log in it,
+ * one "time score" line per game, only ever appended to. A log is read once, the first time that player's scores
+ * for that configuration are asked for, and after that the player's best and most recent games are kept in memory.
+ * Looking up one player never reads another player's files.
+ *
+ * @author T03-2
+ */
+public class ScoreStore {
+
+    // How many of the most recent games are kept for each player and configuration.
+    public static final int RECENT_GAMES = 10;
+
+    private static final String LOG_EXTENSION = ".log";
+
+    private final File folder;
+    private final Map<String, Profile> profiles = new HashMap<>();
+
+    /**
+     * Creates a store keeping its files in the given folder, created when the first score is recorded.
+     *
+     * @param folder
+     */
+    public ScoreStore(File folder) {
+        this.folder = folder;
+    }
+
+    /**
+     * Turns a player's name into the id their files are kept under: lower case letters, digits, '-' and '_'.
+     * Returns null if nothing is left of the name.
+     *
+     * @param name
+     * @return String
+     */
+    public static String toPlayerId(String name) {
+        if (name == null) {
+            return null;
+        }
+        StringBuilder id = new StringBuilder();
+        for (char c : name.trim().toLowerCase().toCharArray()) {
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_') {
+                id.append(c);
+            } else if (c == ' ' && id.length() > 0 && id.charAt(id.length() - 1) != '_') {
+                id.append('_');
+            }
+        }
+        return id.length() == 0 ? null : id.toString();
+    }
+
+    /**
+     * Records a game, appending it to the player's log for the configuration.
+     *
+     * @param playerId
+     * @param config
+     * @param score
+     * @param time When the game was played, in milliseconds since 1970
+     * @throws IOException
+     */
+    public void record(String playerId, BoardConfig config, int score, long time) throws IOException {
+        Partition partition = this.getPartition(playerId, config);
+        partition.log.getParentFile().mkdirs();
+        try (PrintWriter printer = new PrintWriter(new FileWriter(partition.log, true))) {
+            printer.println(time + " " + score);
+        }
+        partition.add(score, time);
+    }
+
+    /**
+     * The player's best score for the configuration, or -1 if they haven't played it.
+     *
+     * @param playerId
+     * @param config
+     * @return int
+     * @throws IOException
+     */
+    public int getBest(String playerId, BoardConfig config) throws IOException {
+        return this.getPartition(playerId, config).best;
+    }
+
+    /**
+     * When the player got their best score for the configuration, in milliseconds since 1970 (0 if never).
+     *
+     * @param playerId
+     * @param config
+     * @return long
+     * @throws IOException
+     */
+    public long getBestTime(String playerId, BoardConfig config) throws IOException {
+        return this.getPartition(playerId, config).bestTime;
+    }
+
+    /**
+     * Amount of games the player has played with the configuration.
+     *
+     * @param playerId
+     * @param config
+     * @return long
+     * @throws IOException
+     */
+    public long getGames(String playerId, BoardConfig config) throws IOException {
+        return this.getPartition(playerId, config).games;
+    }
+
+    /**
+     * The scores of the player's most recent games with the configuration (At most RECENT_GAMES), newest first.
+     *
+     * @param playerId
+     * @param config
+     * @return int[]
+     * @throws IOException
+     */
+    public int[] getRecent(String playerId, BoardConfig config) throws IOException {
+        Partition partition = this.getPartition(playerId, config);
+        int count = (int) Math.min(partition.games, RECENT_GAMES);
+        int[] recent = new int[count];
+        for (int i = 0; i < count; i++) {
+            recent[i] = partition.recentScores[(int) ((partition.games - 1 - i) % RECENT_GAMES)];
+        }
+        return recent;
+    }
+
+    /**
+     * The configurations the player has played, from the names of their logs.
+     *
+     * @param playerId
+     * @return List
+     */
+    public List<BoardConfig> getConfigs(String playerId) {
+        List<BoardConfig> configs = new ArrayList<>();
+        File[] logs = this.getProfile(playerId).folder.listFiles();
+        if (logs != null) {
+            for (File log : logs) {
+                String name = log.getName();
+                if (name.endsWith(LOG_EXTENSION)) {
+                    BoardConfig config = BoardConfig.fromFileName(name.substring(0, name.length() - LOG_EXTENSION.length()));
+                    if (config != null) {
+                        configs.add(config);
+                    }
+                }
+            }
+        }
+        return configs;
+    }
+
+    /**
+     * The ids of every player with a folder in the store.
+     *
+     * @return List
+     */
+    public List<String> getPlayers() {
+        List<String> players = new ArrayList<>();
+        File[] folders = this.folder.listFiles();
+        if (folders != null) {
+            for (File player : folders) {
+                if (player.isDirectory()) {
+                    players.add(player.getName());
+                }
+            }
+        }
+        return players;
+    }
+
+    private Profile getProfile(String playerId) {
+        if (!playerId.equals(toPlayerId(playerId))) {
+            throw new IllegalArgumentException("Invalid player id: " + playerId);
+        }
+        return this.profiles.computeIfAbsent(playerId, id -> new Profile(new File(this.folder, id)));
+    }
+
+    private Partition getPartition(String playerId, BoardConfig config) throws IOException {
+        Profile profile = this.getProfile(playerId);
+        Partition partition = profile.partitions.get(config);
+        if (partition == null) {
+            partition = new Partition(new File(profile.folder, config.getFileName() + LOG_EXTENSION));
+            partition.load();
+            profile.partitions.put(config, partition);
+        }
+        return partition;
+    }
+
+    /**
+     * One player's folder, with the configurations of theirs that have been loaded.
+     */
+    private static class Profile {
+
+        private final File folder;
+        private final Map<BoardConfig, Partition> partitions = new HashMap<>();
+
+        private Profile(File folder) {
+            this.folder = folder;
+        }
+    }
+
+    /**
+     * One player's games with one configuration: the log and what is kept in memory from it.
+     */
+    private static class Partition {
+
+        private final File log;
+        private int best = -1;
+        private long bestTime = 0;
+        private long games = 0;
+
+        // Scores of the most recent games, game n is at n % RECENT_GAMES.
+        private final int[] recentScores = new int[RECENT_GAMES];
+
+        private Partition(File log) {
+            this.log = log;
+        }
+
+        private void add(int score, long time) {
+            if (score > this.best) {
+                this.best = score;
+                this.bestTime = time;
+            }
+            this.recentScores[(int) (this.games % RECENT_GAMES)] = score;
+            this.games++;
+        }
+
+        /**
+         * Reads the log if there is one, skipping lines that aren't "time score" (E.g. cut off by a crash).
+         */
+        private void load() throws IOException {
+            if (!this.log.exists()) {
+                return;
+            }
+            try (BufferedReader reader = new BufferedReader(new FileReader(this.log))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int space = line.indexOf(' ');
+                    if (space > 0) {
+                        try {
+                            this.add(Integer.parseInt(line.substring(space + 1).trim()), Long.parseLong(line.substring(0, space)));
+                        } catch (NumberFormatException e) {
+                            // Not a game, skip it.
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package Game_Main;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Real time, from System.nanoTime.
+ *
+ * @author T03-2
+ */
+public class SystemClock implements GameClock {
+
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void sleep(long nanos) {
+        LockSupport.parkNanos(nanos);
+    }
+
+    @Override
+    public boolean isRealTime() {
+        return true;
+    }
+}
@@ -0,0 +1,83 @@
+package Game_Main;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size cache of values (E.g. evaluations) by 64-bit position hash (See Board.ZobristHash), so a position
+ * reached again doesn't have to be worked out again. It never grows: each hash has one slot, and putting a value
+ * in a taken slot replaces whatever was there, so a lookup can miss for a position that was put a while ago but
+ * never returns another position's value (Short of two positions having the same 64-bit hash).
+ *
+ * Can be shared between threads without locking. Each slot keeps the hash xor the value next to the value, so a
+ * slot half written by one thread while another reads it doesn't match either hash and reads as a miss.
+ *
+ * @author T03-2
+ */
+public class TranspositionTable {
+
+    // Kept in every slot's check so an empty slot (0, 0) doesn't look like a position with hash 0 and value 0.
+    private static final long FILLED = 0x6A09E667F3BCC909L;
+
+    private final long[] checks;
+    private final long[] values;
+    private final int mask;
+
+    /**
+     * Creates a table with room for at least the given amount of values (Rounded up to a power of two), 16 bytes
+     * each.
+     *
+     * @param capacity
+     */
+    public TranspositionTable(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity out of range: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        size = Math.max(size, 1);
+        this.checks = new long[size];
+        this.values = new long[size];
+        this.mask = size - 1;
+    }
+
+    public int getCapacity() {
+        return this.values.length;
+    }
+
+    // Zobrist hashes are random in every bit, the high half picks the slot.
+    private int slot(long hash) {
+        return (int) (hash >>> 32) & this.mask;
+    }
+
+    /**
+     * Returns the value put for the given hash, or missing if there is none (Or it has been replaced).
+     *
+     * @param hash
+     * @param missing
+     * @return long
+     */
+    public long get(long hash, long missing) {
+        int slot = this.slot(hash);
+        long value = this.values[slot];
+        return (this.checks[slot] ^ value) == (hash ^ FILLED) ? value : missing;
+    }
+
+    /**
+     * Puts the value for the given hash, replacing whatever was in its slot.
+     *
+     * @param hash
+     * @param value
+     */
+    public void put(long hash, long value) {
+        int slot = this.slot(hash);
+        this.values[slot] = value;
+        this.checks[slot] = hash ^ FILLED ^ value;
+    }
+
+    /**
+     * Empties every slot.
+     */
+    public void clear() {
+        Arrays.fill(this.checks, 0);
+        Arrays.fill(this.values, 0);
+    }
+}
@@ -0,0 +1,135 @@
+package Game_Main;
+
+import java.util.Random;
+
+/**
+ * Two games played against each other. Lines cleared by one player send garbage rows to the other, who first
+ * cancels them with their own line clears. The last player still running wins.
+ *
+ * The games are ticked together by tick (E.g. from one FixedRateScheduler task) so neither gets ahead.
+ *
+ * @author T03-2
+ */
+public class VersusMatch {
+
+    // Garbage rows sent for clearing 0, 1, 2, 3 and 4 lines at once.
+    private static final int[] ATTACK = {0, 0, 1, 2, 4};
+
+    // Winner when the match isn't over yet, or when both players topped out on the same tick.
+    public static final int NO_WINNER = -1;
+    public static final int DRAW = 2;
+
+    private final Game[] games;
+    private final GameEventBus.Subscription[] subscriptions;
+    private final GameEventListener[] listeners;
+
+    // Picks the hole column of each batch of garbage, seeded so matches can be replayed.
+    private final Random holes;
+
+    private final int[] sent = new int[2];
+    private final boolean[] toppedOut = new boolean[2];
+    private int winner = NO_WINNER;
+
+    /**
+     * Creates a match between the two games, they should be new and have the same width.
+     *
+     * @param first
+     * @param second
+     * @param seed
+     */
+    public VersusMatch(Game first, Game second, long seed) {
+        this.games = new Game[] {first, second};
+        this.subscriptions = new GameEventBus.Subscription[2];
+        this.listeners = new GameEventListener[2];
+        for (int player = 0; player < 2; player++) {
+            final int sender = player;
+            this.subscriptions[player] = this.games[player].getEvents().subscribe();
+            this.listeners[player] = (GameEvent event) -> this.onEvent(sender, event);
+        }
+        this.holes = new Random(seed);
+    }
+
+    /**
+     * Garbage rows sent for clearing the given amount of lines at once.
+     *
+     * @param lines
+     * @return int
+     */
+    public static int getAttack(int lines) {
+        return ATTACK[Math.min(lines, ATTACK.length - 1)];
+    }
+
+    /**
+     * Ticks both games with their player's command, then sends the garbage from any lines cleared.
+     *
+     * @param firstCommand
+     * @param secondCommand
+     */
+    public void tick(int firstCommand, int secondCommand) {
+        if (this.isOver()) {
+            return;
+        }
+        this.games[0].tick(firstCommand);
+        this.games[1].tick(secondCommand);
+        for (int player = 0; player < 2; player++) {
+            this.subscriptions[player].poll(this.listeners[player]);
+        }
+
+        if (this.toppedOut[0] || this.toppedOut[1]) {
+            if (this.toppedOut[0] && this.toppedOut[1]) {
+                this.winner = DRAW;
+            } else {
+                this.winner = this.toppedOut[0] ? 1 : 0;
+            }
+        }
+    }
+
+    /**
+     * Sends garbage for the sender's line clears, cancelling their own queued garbage first.
+     */
+    private void onEvent(int sender, GameEvent event) {
+        switch (event.getType()) {
+            case GameEvent.LINES_CLEARED:
+                int attack = getAttack(event.getLines());
+                attack -= this.games[sender].cancelGarbage(attack);
+                if (attack > 0) {
+                    Game receiver = this.games[1 - sender];
+                    receiver.addGarbage(attack, this.holes.nextInt(receiver.getGridWidth()));
+                    this.sent[sender] += attack;
+                }
+                break;
+            case GameEvent.GAME_OVER:
+                this.toppedOut[sender] = true;
+                break;
+            default:
+                break;
+        }
+    }
+
+    public Game getGame(int player) {
+        return this.games[player];
+    }
+
+    /**
+     * Amount of garbage rows the given player has sent to the other.
+     *
+     * @param player
+     * @return int
+     */
+    public int getSent(int player) {
+        return this.sent[player];
+    }
+
+    public boolean isOver() {
+        return this.winner != NO_WINNER;
+    }
+
+    /**
+     * The player (0 or 1) who won, DRAW, or NO_WINNER while the match is going.
+     *
+     * @return int
+     */
+    public int getWinner() {
+        return this.winner;
+    }
+}
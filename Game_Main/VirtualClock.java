@@ -0,0 +1,56 @@
+package Game_Main;
+
+/**
+ * A clock that only moves when it is slept on or advanced, straight to the time asked for. A FixedRateScheduler
+ * on one runs its ticks back to back, so an hour of play takes as long as its ticks do to run.
+ *
+ * Meant to be moved by one thread, others can read it.
+ *
+ * @author T03-2
+ */
+public class VirtualClock implements GameClock {
+
+    private volatile long now;
+
+    /**
+     * Creates a clock starting at 0.
+     */
+    public VirtualClock() {
+        this(0);
+    }
+
+    public VirtualClock(long start) {
+        this.now = start;
+    }
+
+    @Override
+    public long nanoTime() {
+        return this.now;
+    }
+
+    /**
+     * Moves the clock on by the given nanoseconds straight away.
+     *
+     * @param nanos
+     */
+    @Override
+    public void sleep(long nanos) {
+        this.advance(nanos);
+    }
+
+    /**
+     * Moves the clock on by the given nanoseconds, ignored if negative.
+     *
+     * @param nanos
+     */
+    public void advance(long nanos) {
+        if (nanos > 0) {
+            this.now += nanos;
+        }
+    }
+
+    @Override
+    public boolean isRealTime() {
+        return false;
+    }
+}
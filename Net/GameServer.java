@@ -0,0 +1,195 @@
+package Net;
+
+import Game_Main.BoardConfig;
+import Game_Main.FixedRateScheduler;
+import Game_Main.Game;
+import Game_Main.Replay;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plays the authoritative game of every NetClient that says HELLO, at Game.TICKS_PER_SECOND, and confirms the
+ * commands it played to them every tick.
+ *
+ * A client's game only starts inputDelayTicks after its HELLO arrives. Its commands are sent as they are
+ * pressed, so this delay is how late they can arrive (On top of the time the HELLO took) and still be played
+ * on the tick they were pressed on, without a rollback.
+ *
+ * A client is dropped once its game is over and it has every tick confirmed (See ServerSession.isFinished), or
+ * when nothing has arrived from it for TIMEOUT_TICKS. At most MAX_CLIENTS play at once, HELLOs from any more
+ * are ignored (The client keeps saying HELLO, so it gets in once another leaves).
+ *
+ * Usage: GameServer [port] [inputDelayTicks]
+ *
+ * @author T03-2
+ */
+public class GameServer implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 7474;
+
+    // 100 ms.
+    public static final int DEFAULT_INPUT_DELAY = 6;
+
+    // Each client has a game of up to Protocol.MAX_CELLS cells.
+    public static final int MAX_CLIENTS = 64;
+
+    // 10 seconds.
+    public static final int TIMEOUT_TICKS = 10 * Game.TICKS_PER_SECOND;
+
+    /**
+     * One connected client.
+     */
+    private static final class Client {
+
+        private final ServerSession session;
+        private int wait;
+
+        // Ticks since anything last arrived from the client.
+        private int idle = 0;
+
+        private Client(ServerSession session, int wait) {
+            this.session = session;
+            this.wait = wait;
+        }
+    }
+
+    private final DatagramChannel channel;
+    private final int inputDelayTicks;
+    private final int maxTicks;
+    private final Map<SocketAddress, Client> clients = new LinkedHashMap<>();
+    private final FixedRateScheduler scheduler = new FixedRateScheduler(Game.TICKS_PER_SECOND, Runnable::run);
+
+    private final ByteBuffer in = ByteBuffer.allocate(Protocol.MAX_DATAGRAM);
+    private final ByteBuffer out = ByteBuffer.allocate(Protocol.MAX_DATAGRAM);
+
+    /**
+     * Creates a server on the given port of localhost (0 for any free one, see getPort), stopping every game
+     * after maxTicks ticks (0 to play them until they are over).
+     *
+     * @param port
+     * @param inputDelayTicks
+     * @param maxTicks
+     * @throws IOException
+     */
+    public GameServer(int port, int inputDelayTicks, int maxTicks) throws IOException {
+        this(new InetSocketAddress(port), inputDelayTicks, maxTicks);
+    }
+
+    public GameServer(InetSocketAddress address, int inputDelayTicks, int maxTicks) throws IOException {
+        this.inputDelayTicks = inputDelayTicks;
+        this.maxTicks = maxTicks;
+        this.channel = DatagramChannel.open();
+        this.channel.configureBlocking(false);
+        this.channel.bind(address);
+        this.scheduler.add(this::step);
+    }
+
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) this.channel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * The sessions of every client still playing, in the order they connected. Only safe to look at once stopped.
+     *
+     * @return List
+     */
+    public synchronized List<ServerSession> getSessions() {
+        List<ServerSession> sessions = new ArrayList<>();
+        for (Client client : this.clients.values()) {
+            sessions.add(client.session);
+        }
+        return sessions;
+    }
+
+    public void start() {
+        this.scheduler.start();
+    }
+
+    public void stop() {
+        this.scheduler.stop();
+    }
+
+    /**
+     * Reads every datagram that has arrived, plays one tick of every game and confirms it.
+     */
+    private synchronized void step() {
+        try {
+            this.receive();
+            Iterator<Map.Entry<SocketAddress, Client>> entries = this.clients.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<SocketAddress, Client> entry = entries.next();
+                Client client = entry.getValue();
+                if (client.session.isFinished() || ++client.idle > TIMEOUT_TICKS) {
+                    entries.remove();
+                    continue;
+                }
+                if (client.wait > 0) {
+                    client.wait--;
+                } else if (this.maxTicks <= 0 || client.session.getTick() < this.maxTicks) {
+                    client.session.tick();
+                }
+                client.session.writeConfirm(this.out);
+                this.channel.send(this.out, entry.getKey());
+            }
+        } catch (IOException e) {
+            // The next tick tries again, UDP promises nothing anyway.
+            System.err.println("GameServer: " + e);
+        }
+    }
+
+    private void receive() throws IOException {
+        SocketAddress from;
+        while ((from = this.channel.receive(this.in.clear())) != null) {
+            this.in.flip();
+            if (this.in.remaining() < 1) {
+                continue;
+            }
+            byte type = this.in.get();
+            Client client = this.clients.get(from);
+            if (client != null) {
+                client.idle = 0;
+            }
+            if (type == Protocol.HELLO && client == null && this.clients.size() < MAX_CLIENTS
+                    && this.in.remaining() >= 20) {
+                BoardConfig config = new BoardConfig(this.in.getInt(), this.in.getInt(), this.in.getInt());
+                long seed = this.in.getLong();
+                if (!Protocol.isPlayable(config)) {
+                    continue;
+                }
+                Game game = Replay.createGame(config, seed);
+                this.clients.put(from, new Client(new ServerSession(game, Protocol.MAX_COMMANDS),
+                        this.inputDelayTicks));
+            } else if (type == Protocol.INPUTS && client != null && this.in.remaining() >= 6) {
+                int firstTick = this.in.getInt();
+                int count = this.in.getShort();
+                if (count >= 0 && count <= this.in.remaining()) {
+                    client.session.receive(firstTick, this.in.array(), this.in.position(), count);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.stop();
+        this.channel.close();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int delay = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_INPUT_DELAY;
+        GameServer server = new GameServer(port, delay, 0);
+        server.start();
+        System.out.println("Listening on port " + server.getPort() + " with an input delay of " + delay + " ticks");
+        // The scheduler's thread is a daemon.
+        Thread.currentThread().join();
+    }
+}
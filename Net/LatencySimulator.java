@@ -0,0 +1,241 @@
+package Net;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * A UDP relay on localhost for trying netplay over a bad connection without one. Clients connect to it instead
+ * of the server, and every datagram either way is held back for the latency plus a random part of the jitter,
+ * or dropped with the given chance. Datagrams can overtake each other, like on a real network.
+ *
+ * Relays for one client at a time (The last one to send something).
+ *
+ * Usage: LatencySimulator serverPort [port] [latencyMs] [jitterMs] [lossPercent]
+ *
+ * @author T03-2
+ */
+public class LatencySimulator implements AutoCloseable {
+
+    /**
+     * A datagram waiting to be delivered.
+     */
+    private static final class Delayed implements Comparable<Delayed> {
+
+        private final long due;
+        private final long order;
+        private final boolean toServer;
+        private final byte[] data;
+
+        private Delayed(long due, long order, boolean toServer, byte[] data) {
+            this.due = due;
+            this.order = order;
+            this.toServer = toServer;
+            this.data = data;
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            int byDue = Long.compare(this.due, other.due);
+            return byDue != 0 ? byDue : Long.compare(this.order, other.order);
+        }
+    }
+
+    private final DatagramChannel front;
+    private final DatagramChannel back;
+    private final Selector selector;
+
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final double loss;
+    private final Random random;
+
+    private final PriorityQueue<Delayed> queue = new PriorityQueue<>();
+    private final ByteBuffer buffer = ByteBuffer.allocate(Protocol.MAX_DATAGRAM);
+    private long order = 0;
+    private SocketAddress client;
+
+    private volatile boolean running = false;
+    private Thread thread;
+
+    // Totals for reports.
+    private volatile long relayed = 0;
+    private volatile long dropped = 0;
+
+    /**
+     * Creates a relay on the given port of localhost (0 for any free one, see getPort) to a server on another.
+     *
+     * @param serverPort
+     * @param port
+     * @param latencyMillis
+     * @param jitterMillis
+     * @param loss chance of dropping each datagram, from 0 to 1
+     * @param seed for the jitter and losses
+     * @throws IOException
+     */
+    public LatencySimulator(int serverPort, int port, int latencyMillis, int jitterMillis, double loss, long seed)
+            throws IOException {
+        this.latencyNanos = latencyMillis * 1000000L;
+        this.jitterNanos = jitterMillis * 1000000L;
+        this.loss = loss;
+        this.random = new Random(seed);
+        InetAddress localhost = InetAddress.getLoopbackAddress();
+        this.selector = Selector.open();
+        this.front = DatagramChannel.open();
+        this.front.configureBlocking(false);
+        this.front.bind(new InetSocketAddress(localhost, port));
+        this.front.register(this.selector, SelectionKey.OP_READ);
+        this.back = DatagramChannel.open();
+        this.back.configureBlocking(false);
+        this.back.connect(new InetSocketAddress(localhost, serverPort));
+        this.back.register(this.selector, SelectionKey.OP_READ);
+    }
+
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) this.front.getLocalAddress()).getPort();
+    }
+
+    public long getRelayed() {
+        return this.relayed;
+    }
+
+    public long getDropped() {
+        return this.dropped;
+    }
+
+    public synchronized void start() {
+        if (this.running) {
+            return;
+        }
+        this.running = true;
+        this.thread = new Thread(this::loop, "LatencySimulator");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public synchronized void stop() {
+        this.running = false;
+        this.selector.wakeup();
+    }
+
+    private void loop() {
+        try {
+            while (this.running) {
+                Delayed next = this.queue.peek();
+                if (next == null) {
+                    this.selector.select();
+                } else {
+                    long wait = next.due - System.nanoTime();
+                    if (wait > 0) {
+                        this.selector.select(Math.max(1, wait / 1000000));
+                    } else {
+                        this.selector.selectNow();
+                    }
+                }
+                this.selector.selectedKeys().clear();
+                this.receive();
+                this.deliver();
+            }
+        } catch (IOException e) {
+            if (this.running) {
+                System.err.println("LatencySimulator: " + e);
+            }
+        }
+    }
+
+    /**
+     * Queues every datagram that has arrived either way, unless it is dropped.
+     */
+    private void receive() throws IOException {
+        SocketAddress from;
+        while ((from = this.front.receive(this.buffer.clear())) != null) {
+            this.client = from;
+            this.hold(true);
+        }
+        while (true) {
+            try {
+                if (this.back.receive(this.buffer.clear()) == null) {
+                    break;
+                }
+            } catch (PortUnreachableException e) {
+                // The server isn't up, what was sent to it is lost.
+                continue;
+            }
+            this.hold(false);
+        }
+    }
+
+    private void hold(boolean toServer) {
+        if (this.random.nextDouble() < this.loss) {
+            this.dropped++;
+            return;
+        }
+        this.buffer.flip();
+        byte[] data = new byte[this.buffer.remaining()];
+        this.buffer.get(data);
+        long jitter = this.jitterNanos > 0 ? (long) (this.random.nextDouble() * this.jitterNanos) : 0;
+        this.queue.add(new Delayed(System.nanoTime() + this.latencyNanos + jitter, this.order++, toServer, data));
+    }
+
+    /**
+     * Sends every datagram that is due.
+     */
+    private void deliver() throws IOException {
+        long now = System.nanoTime();
+        while (!this.queue.isEmpty() && this.queue.peek().due <= now) {
+            Delayed delayed = this.queue.poll();
+            ByteBuffer data = ByteBuffer.wrap(delayed.data);
+            try {
+                if (delayed.toServer) {
+                    this.back.write(data);
+                } else if (this.client != null) {
+                    this.front.send(data, this.client);
+                }
+                this.relayed++;
+            } catch (PortUnreachableException e) {
+                this.dropped++;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        Thread running = this.thread;
+        this.stop();
+        if (running != null) {
+            try {
+                running.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        this.front.close();
+        this.back.close();
+        this.selector.close();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: LatencySimulator serverPort [port] [latencyMs] [jitterMs] [lossPercent]");
+            return;
+        }
+        int serverPort = Integer.parseInt(args[0]);
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : GameServer.DEFAULT_PORT + 1;
+        int latency = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        int jitter = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        double loss = args.length > 4 ? Double.parseDouble(args[4]) / 100 : 0.02;
+        LatencySimulator simulator = new LatencySimulator(serverPort, port, latency, jitter, loss, System.nanoTime());
+        simulator.start();
+        System.out.printf("Relaying port %d to %d with %d ms latency, %d ms jitter and %.0f%% loss%n",
+                simulator.getPort(), serverPort, latency, jitter, loss * 100);
+        simulator.thread.join();
+    }
+}
@@ -0,0 +1,125 @@
+package Net;
+
+import Game_Main.BoardConfig;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Connects a RollbackClient to a GameServer over UDP. Call tick once a game tick with the player's command:
+ * it reads whatever the server confirmed, plays the tick locally and sends the unconfirmed commands.
+ * Never blocks, a lost or late datagram only means a rollback later.
+ *
+ * The local game only starts once the server has answered, as the server only starts its game on the HELLO.
+ * A client that ran ahead while the server was slow or full would have its early commands dropped and could
+ * never roll back far enough to agree again.
+ *
+ * @author T03-2
+ */
+public class NetClient implements AutoCloseable {
+
+    private final RollbackClient client;
+    private final DatagramChannel channel;
+
+    private final ByteBuffer hello = ByteBuffer.allocate(Protocol.MAX_DATAGRAM);
+    private final ByteBuffer out = ByteBuffer.allocate(Protocol.MAX_DATAGRAM);
+    private final ByteBuffer in = ByteBuffer.allocate(Protocol.MAX_DATAGRAM);
+
+    // Whether the server has answered, until then HELLO is sent every tick.
+    private boolean connected = false;
+
+    /**
+     * Connects to the server at the given address to play the client's game, which should be new and made with
+     * the given settings and seed (E.g. by Replay.createGame) so the server can make the same one.
+     *
+     * @param client
+     * @param config
+     * @param seed
+     * @param server
+     * @throws IOException
+     */
+    public NetClient(RollbackClient client, BoardConfig config, long seed, InetSocketAddress server)
+            throws IOException {
+        this.client = client;
+        this.channel = DatagramChannel.open();
+        this.channel.configureBlocking(false);
+        this.channel.connect(server);
+        Protocol.writeHello(this.hello, config.getWidth(), config.getHeight(), config.getSpeed(), seed);
+    }
+
+    public RollbackClient getClient() {
+        return this.client;
+    }
+
+    public boolean isConnected() {
+        return this.connected;
+    }
+
+    /**
+     * Plays the next tick with the given command (See RollbackClient.tick), or only says HELLO again if the server
+     * hasn't answered yet (The command is dropped, the game hasn't started).
+     *
+     * @param command
+     * @throws IOException
+     */
+    public void tick(int command) throws IOException {
+        this.poll();
+        if (this.connected) {
+            this.client.tick(command);
+        }
+        this.send();
+    }
+
+    /**
+     * Reads every CONFIRM that has arrived, without playing a tick (The rollback waits for the next tick or
+     * RollbackClient.reconcile).
+     *
+     * @throws IOException
+     */
+    public void poll() throws IOException {
+        while (true) {
+            this.in.clear();
+            // Refused when the server isn't up yet.
+            try {
+                if (this.channel.receive(this.in) == null) {
+                    return;
+                }
+            } catch (PortUnreachableException e) {
+                return;
+            }
+            this.in.flip();
+            if (this.in.remaining() < 7 || this.in.get() != Protocol.CONFIRM) {
+                continue;
+            }
+            int firstTick = this.in.getInt();
+            int count = this.in.getShort();
+            if (count < 0 || count > this.in.remaining()) {
+                continue;
+            }
+            this.connected = true;
+            this.client.confirm(firstTick, this.in.array(), this.in.position(), count);
+        }
+    }
+
+    /**
+     * Sends HELLO until the server answers, and the commands it hasn't confirmed yet.
+     */
+    private void send() throws IOException {
+        try {
+            if (!this.connected) {
+                this.channel.write(this.hello.rewind());
+            }
+            this.client.writeUnconfirmedCommands(this.out);
+            this.channel.write(this.out);
+        } catch (PortUnreachableException e) {
+            // Sent again next tick.
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
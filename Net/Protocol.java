@@ -0,0 +1,68 @@
+package Net;
+
+import Game_Main.BoardConfig;
+import java.nio.ByteBuffer;
+
+/**
+ * The messages between a NetClient and a GameServer, one per UDP datagram. Ticks are numbered from 0 by the
+ * game's tick count before the tick (So tick t is the command given to the (t + 1)th call of Game.tick).
+ *
+ * HELLO   (Client to server): width, height, speed and seed of the game to play.
+ * INPUTS  (Client to server): the client's commands from its first tick the server hasn't confirmed yet.
+ * CONFIRM (Server to client): the commands the server played for its latest ticks.
+ *
+ * Commands are resent until confirmed, so losing a datagram only delays them.
+ *
+ * @author T03-2
+ */
+public final class Protocol {
+
+    public static final byte HELLO = 0;
+    public static final byte INPUTS = 1;
+    public static final byte CONFIRM = 2;
+
+    // Most commands in one message, keeps every datagram well under a typical MTU.
+    public static final int MAX_COMMANDS = 1024;
+
+    public static final int MAX_DATAGRAM = 1 + 4 + 2 + MAX_COMMANDS;
+
+    // Largest board played over the network, the client keeps a copy of it for every tick it can roll back.
+    public static final int MAX_CELLS = 1 << 16;
+
+    private Protocol() {
+    }
+
+    /**
+     * Whether a game with the given settings can be played over the network.
+     *
+     * @param config
+     * @return boolean
+     */
+    public static boolean isPlayable(BoardConfig config) {
+        return config.getWidth() >= 4 && config.getHeight() >= 4 && config.getSpeed() > 0
+                && (long) config.getWidth() * config.getHeight() <= MAX_CELLS;
+    }
+
+    /**
+     * Writes a HELLO message.
+     */
+    public static void writeHello(ByteBuffer out, int width, int height, int speed, long seed) {
+        out.clear();
+        out.put(HELLO).putInt(width).putInt(height).putInt(speed).putLong(seed);
+        out.flip();
+    }
+
+    /**
+     * Writes an INPUTS or CONFIRM message with the commands of count ticks from firstTick, taken from a ring
+     * indexed by tick modulo its length.
+     */
+    public static void writeCommands(ByteBuffer out, byte type, int firstTick, byte[] ring, int count) {
+        count = Math.min(count, MAX_COMMANDS);
+        out.clear();
+        out.put(type).putInt(firstTick).putShort((short) count);
+        for (int i = 0; i < count; i++) {
+            out.put(ring[Math.floorMod(firstTick + i, ring.length)]);
+        }
+        out.flip();
+    }
+}
@@ -0,0 +1,263 @@
+package Net;
+
+import Game_Main.Game;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Plays a game locally while a server decides what really happened. Every command is given to the local game
+ * on the tick it is pressed, so the game never waits for the network. The server plays the same game
+ * (Same seed, same rules) from the commands it receives and confirms which command it played on each tick.
+ * Usually that is the same one, but when a command reached the server too late the server plays it on a later
+ * tick. The client then rolls back: it puts the game back to its state before the first tick that differs
+ * (Kept in a SnapshotRing) and plays the ticks since again with the confirmed commands.
+ *
+ * The server never sends its game, only commands, so a tick confirmed differently after its snapshot is gone
+ * can't be put right. The client is then desynced (See isDesynced) and plays no more, the game has to be ended.
+ *
+ * The transport is up to the caller (See NetClient): send writeUnconfirmedCommands after every tick and pass
+ * whatever the server confirms to confirm.
+ *
+ * @author T03-2
+ */
+public class RollbackClient {
+
+    // Ticks kept for rolling back, two seconds.
+    public static final int DEFAULT_WINDOW = 2 * Game.TICKS_PER_SECOND;
+
+    private final Game game;
+    private final SnapshotRing snapshots;
+
+    // Rings indexed by tick modulo the window: the command pressed on each tick, the one the local game was last
+    // given on it, and the one the server confirmed.
+    private final byte[] pressed;
+    private final byte[] played;
+    private final byte[] confirmed;
+    private final int[] confirmedTicks;
+
+    // Every tick before this one has been confirmed and the local game played it with the confirmed command
+    // (Once any rollback is done).
+    private int confirmedUntil = 0;
+
+    // First tick the local game played with a different command than the server, -1 if none.
+    private int rollbackFrom = -1;
+
+    private Runnable rollbackListener;
+
+    // Totals for reports.
+    private long rollbacks = 0;
+    private long ticksReplayed = 0;
+    private long rollbackNanos = 0;
+    private long maxRollbackNanos = 0;
+    private int maxRollbackTicks = 0;
+
+    // A rollback was further back than the window, the local game can't be made to agree with the server's.
+    private boolean desynced = false;
+
+    /**
+     * Creates a client for the given game, which should be new with the same seed and settings as the server's.
+     *
+     * @param game
+     * @param window
+     */
+    public RollbackClient(Game game, int window) {
+        this.game = game;
+        this.snapshots = new SnapshotRing(window + 1);
+        this.pressed = new byte[window + 1];
+        this.played = new byte[window + 1];
+        this.confirmed = new byte[window + 1];
+        this.confirmedTicks = new int[window + 1];
+        Arrays.fill(this.confirmedTicks, -1);
+    }
+
+    public Game getGame() {
+        return this.game;
+    }
+
+    /**
+     * The next tick the local game will play.
+     *
+     * @return int
+     */
+    public int getTick() {
+        return (int) this.game.getTickCount();
+    }
+
+    /**
+     * Every tick before this one has been confirmed by the server.
+     *
+     * @return int
+     */
+    public int getConfirmedUntil() {
+        return this.confirmedUntil;
+    }
+
+    /**
+     * Whether the server agrees the game is over: the local game is over and every tick it played has been
+     * confirmed with the command it was played with. Until then a game over is only predicted, and a rollback
+     * may carry the game on. Never true once desynced.
+     *
+     * @return boolean
+     */
+    public boolean isConfirmedOver() {
+        return !this.desynced && !this.game.getGameRunning() && this.rollbackFrom < 0
+                && this.confirmedUntil >= this.getTick();
+    }
+
+    /**
+     * Whether the server confirmed a tick differently after it was too far back to roll back to, so the local game
+     * no longer agrees with the server's and never will. Nothing is played from then on.
+     *
+     * @return boolean
+     */
+    public boolean isDesynced() {
+        return this.desynced;
+    }
+
+    /**
+     * Sets what to call after rolling back (E.g. redrawing the view, whose cells the rollback doesn't update).
+     *
+     * @param rollbackListener
+     */
+    public void setRollbackListener(Runnable rollbackListener) {
+        this.rollbackListener = rollbackListener;
+    }
+
+    /**
+     * Rolls back if the server confirmed something different since the last tick, then plays the next tick
+     * with the given command straight away (Unless the game is over or desynced).
+     *
+     * @param command
+     */
+    public void tick(int command) {
+        this.reconcile();
+        if (this.desynced || !this.game.getGameRunning()) {
+            return;
+        }
+        int tick = this.getTick();
+        int slot = tick % this.pressed.length;
+        this.pressed[slot] = (byte) command;
+        // The server may already have decided this tick (If the client has fallen behind it).
+        int playing = this.confirmedTicks[slot] == tick ? this.confirmed[slot] : command;
+        this.play(tick, playing);
+    }
+
+    /**
+     * Saves the state before the tick, then plays it.
+     */
+    private void play(int tick, int command) {
+        this.snapshots.save(tick, this.game);
+        this.played[tick % this.played.length] = (byte) command;
+        this.game.tick(command);
+    }
+
+    /**
+     * Takes the commands the server played for count ticks from firstTick (From the given offset of the array).
+     * Any that differ from what the local game played are rolled back on the next tick (Or by reconcile).
+     *
+     * @param firstTick
+     * @param commands
+     * @param offset
+     * @param count
+     */
+    public void confirm(int firstTick, byte[] commands, int offset, int count) {
+        int window = this.confirmed.length;
+        for (int i = 0; i < count; i++) {
+            int tick = firstTick + i;
+            // Already confirmed, or too far ahead to keep.
+            if (tick < this.confirmedUntil || tick >= this.confirmedUntil + window) {
+                continue;
+            }
+            this.confirmed[tick % window] = commands[offset + i];
+            this.confirmedTicks[tick % window] = tick;
+        }
+
+        int current = this.getTick();
+        while (this.confirmedTicks[this.confirmedUntil % window] == this.confirmedUntil) {
+            int tick = this.confirmedUntil;
+            if (tick < current && this.played[tick % window] != this.confirmed[tick % window]
+                    && (this.rollbackFrom < 0 || tick < this.rollbackFrom)) {
+                this.rollbackFrom = tick;
+            }
+            this.confirmedUntil++;
+        }
+    }
+
+    /**
+     * Rolls back to the first tick the server confirmed differently and plays every tick since again, with the
+     * confirmed commands where there are any and the pressed ones after. Desyncs if that tick is older than the
+     * window.
+     */
+    public void reconcile() {
+        if (this.rollbackFrom < 0 || this.desynced) {
+            return;
+        }
+        int from = this.rollbackFrom;
+        if (!this.snapshots.has(from)) {
+            this.desynced = true;
+            return;
+        }
+        this.rollbackFrom = -1;
+
+        long start = System.nanoTime();
+        int to = this.getTick();
+        int window = this.pressed.length;
+        this.snapshots.restore(from, this.game);
+        for (int tick = from; tick < to && this.game.getGameRunning(); tick++) {
+            int slot = tick % window;
+            this.play(tick, this.confirmedTicks[slot] == tick ? this.confirmed[slot] : this.pressed[slot]);
+        }
+        long nanos = System.nanoTime() - start;
+
+        this.rollbacks++;
+        this.ticksReplayed += to - from;
+        this.maxRollbackTicks = Math.max(this.maxRollbackTicks, to - from);
+        this.rollbackNanos += nanos;
+        this.maxRollbackNanos = Math.max(this.maxRollbackNanos, nanos);
+        if (this.rollbackListener != null) {
+            this.rollbackListener.run();
+        }
+    }
+
+    /**
+     * Writes the commands pressed since the last confirmed tick (Up to Protocol.MAX_COMMANDS) as an INPUTS message.
+     *
+     * @param out
+     */
+    public void writeUnconfirmedCommands(ByteBuffer out) {
+        int from = Math.max(this.confirmedUntil, this.getTick() - this.pressed.length + 1);
+        Protocol.writeCommands(out, Protocol.INPUTS, from, this.pressed, this.getTick() - from);
+    }
+
+    public long getRollbacks() {
+        return this.rollbacks;
+    }
+
+    public long getTicksReplayed() {
+        return this.ticksReplayed;
+    }
+
+    public int getMaxRollbackTicks() {
+        return this.maxRollbackTicks;
+    }
+
+    /**
+     * Time spent rolling back in all.
+     *
+     * @return long
+     */
+    public long getRollbackNanos() {
+        return this.rollbackNanos;
+    }
+
+    public long getMaxRollbackNanos() {
+        return this.maxRollbackNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("tick %d, confirmed %d, %d rollbacks (%d ticks, longest %d ticks in %.2f ms)%s",
+                this.getTick(), this.confirmedUntil, this.rollbacks, this.ticksReplayed, this.maxRollbackTicks,
+                this.maxRollbackNanos / 1e6, this.desynced ? ", desynced" : "");
+    }
+}
@@ -0,0 +1,130 @@
+package Net;
+
+import Game_Main.Command;
+import Game_Main.Game;
+import java.nio.ByteBuffer;
+
+/**
+ * The server's side of one client's game: the commands the client sent go in, whatever arrived by each tick is
+ * played on it, and the commands actually played go back out to confirm them.
+ *
+ * Commands are played in the order they were pressed, never before the tick they were pressed on. One that
+ * arrives after its tick was played is played on the next free tick instead, so a slow connection only delays inputs rather than losing them. A client that
+ * has already been confirmed past a tick won't resend it, so anything sent for that tick after the confirm is
+ * ignored (The client plays that tick as confirmed, so the two games still agree).
+ *
+ * @author T03-2
+ */
+public class ServerSession {
+
+    // Most late commands waiting for a free tick, any more are dropped.
+    public static final int MAX_QUEUED = 64;
+
+    private final Game game;
+
+    // The commands played on each of the last ticks, indexed by tick modulo the length.
+    private final byte[] played;
+
+    // Every command the client pressed before this tick has been received (Or given up on).
+    private int receivedUntil = 0;
+
+    // The client has had every tick before this one confirmed, as far as its last INPUTS said.
+    private int clientConfirmedUntil = 0;
+
+    // Commands received but not played yet and the ticks they were pressed on, oldest first.
+    private final byte[] queue = new byte[MAX_QUEUED];
+    private final int[] queueTicks = new int[MAX_QUEUED];
+    private int queueStart = 0;
+    private int queueSize = 0;
+
+    /**
+     * Creates a session playing the given game, which should be new with the seed and settings the client uses.
+     * Confirms can cover at most the last window ticks.
+     *
+     * @param game
+     * @param window
+     */
+    public ServerSession(Game game, int window) {
+        this.game = game;
+        this.played = new byte[window];
+    }
+
+    public Game getGame() {
+        return this.game;
+    }
+
+    /**
+     * The next tick the game will play.
+     *
+     * @return int
+     */
+    public int getTick() {
+        return (int) this.game.getTickCount();
+    }
+
+    /**
+     * Whether the game is over and the client has had every tick of it confirmed, so nothing more needs sending.
+     *
+     * @return boolean
+     */
+    public boolean isFinished() {
+        return !this.game.getGameRunning() && this.clientConfirmedUntil >= this.getTick();
+    }
+
+    /**
+     * Takes count commands the client pressed from firstTick (From the given offset of the array). Ticks already
+     * received are skipped, so resent commands are only played once.
+     *
+     * @param firstTick
+     * @param commands
+     * @param offset
+     * @param count
+     */
+    public void receive(int firstTick, byte[] commands, int offset, int count) {
+        // Clients send from their first unconfirmed tick.
+        this.clientConfirmedUntil = Math.max(this.clientConfirmedUntil, firstTick);
+        if (firstTick > this.receivedUntil) {
+            // The client was confirmed past the ticks in between, whatever it pressed on them is dropped.
+            this.receivedUntil = firstTick;
+        }
+        for (int tick = this.receivedUntil; tick < firstTick + count; tick++) {
+            int command = commands[offset + tick - firstTick];
+            if (command != Command.NONE && this.queueSize < MAX_QUEUED) {
+                int slot = (this.queueStart + this.queueSize++) % MAX_QUEUED;
+                this.queue[slot] = (byte) command;
+                this.queueTicks[slot] = tick;
+            }
+        }
+        this.receivedUntil = Math.max(this.receivedUntil, firstTick + count);
+    }
+
+    /**
+     * Plays the next tick with the oldest command waiting that was pressed on it or before, or Command.NONE if
+     * there isn't one (Does nothing once the game is over).
+     */
+    public void tick() {
+        if (!this.game.getGameRunning()) {
+            return;
+        }
+        int command = Command.NONE;
+        if (this.queueSize > 0 && this.queueTicks[this.queueStart] <= this.getTick()) {
+            command = this.queue[this.queueStart];
+            this.queueStart = (this.queueStart + 1) % MAX_QUEUED;
+            this.queueSize--;
+        }
+        this.played[this.getTick() % this.played.length] = (byte) command;
+        this.game.tick(command);
+    }
+
+    /**
+     * Writes a CONFIRM message with the commands played from the client's first unconfirmed tick (Or as far back
+     * as the window goes), so a lost CONFIRM is made up for by the next one.
+     *
+     * @param out
+     */
+    public void writeConfirm(ByteBuffer out) {
+        int from = Math.max(this.clientConfirmedUntil, this.getTick() - this.played.length);
+        from = Math.max(from, this.getTick() - Protocol.MAX_COMMANDS);
+        Protocol.writeCommands(out, Protocol.CONFIRM, from, this.played, this.getTick() - from);
+    }
+}
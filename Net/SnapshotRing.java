@@ -0,0 +1,96 @@
+package Net;
+
+import Game_Main.Game;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * The states of a game (See Game.writeState) before each of its last ticks, so it can be put back to any of
+ * them. The buffers are reused, after the first lap saving a state allocates nothing (Neither does writeState
+ * after its first call).
+ *
+ * @author T03-2
+ */
+public class SnapshotRing {
+
+    /**
+     * A ByteArrayOutputStream that can be read from without copying.
+     */
+    private static final class Snapshot extends ByteArrayOutputStream {
+
+        private final DataOutputStream out = new DataOutputStream(this);
+        private int tick = -1;
+
+        private DataInputStream reader() {
+            return new DataInputStream(new ByteArrayInputStream(this.buf, 0, this.count));
+        }
+    }
+
+    private final Snapshot[] snapshots;
+
+    /**
+     * Creates a ring keeping the states before the last size ticks.
+     *
+     * @param size
+     */
+    public SnapshotRing(int size) {
+        this.snapshots = new Snapshot[size];
+        for (int i = 0; i < size; i++) {
+            this.snapshots[i] = new Snapshot();
+        }
+    }
+
+    public int getSize() {
+        return this.snapshots.length;
+    }
+
+    /**
+     * Saves the game's state as the state before the given tick, replacing the one size ticks before it.
+     *
+     * @param tick
+     * @param game
+     */
+    public void save(int tick, Game game) {
+        Snapshot snapshot = this.snapshots[Math.floorMod(tick, this.snapshots.length)];
+        snapshot.reset();
+        snapshot.tick = tick;
+        try {
+            game.writeState(snapshot.out);
+        } catch (IOException e) {
+            // Only written to memory.
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Whether the state before the given tick is still kept.
+     *
+     * @param tick
+     * @return boolean
+     */
+    public boolean has(int tick) {
+        return this.snapshots[Math.floorMod(tick, this.snapshots.length)].tick == tick;
+    }
+
+    /**
+     * Puts the game back to its state before the given tick, which must still be kept (See has).
+     *
+     * @param tick
+     * @param game
+     */
+    public void restore(int tick, Game game) {
+        Snapshot snapshot = this.snapshots[Math.floorMod(tick, this.snapshots.length)];
+        if (snapshot.tick != tick) {
+            throw new IllegalArgumentException("No snapshot before tick " + tick);
+        }
+        try {
+            game.readState(snapshot.reader());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
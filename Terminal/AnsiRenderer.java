@@ -0,0 +1,262 @@
+package Terminal;
+
+import Blocks.Block;
+import Blocks.TetrominoModel;
+import Board.Board;
+import Game_Main.Game;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import javafx.scene.paint.Color;
+
+/**
+ * Draws a game to an ANSI terminal. Every frame is built in a reusable byte buffer and only the cells that changed
+ * since the last frame are written (Moving the cursor to them and setting the background color as needed),
+ * so a frame where the tetromino moved one cell is a few dozen bytes.
+ *
+ * Each cell is two characters wide so it looks square. Boards bigger than the viewport are shown around the
+ * falling tetromino.
+ *
+ * @author T03-2
+ */
+public class AnsiRenderer {
+
+    private static final byte ESC = 27;
+
+    // 256 color palette index used for empty cells, and for blocks with no color.
+    private static final int EMPTY_COLOR = 234;
+    private static final int NO_COLOR = 15;
+
+    private final int viewWidth;
+    private final int viewHeight;
+    private int viewX = 0;
+    private int viewY = 0;
+
+    // Color of every viewport cell as it currently is on the terminal, -1 if unknown.
+    private final int[] shown;
+
+    // The frame being built, written out in one go.
+    private byte[] buffer = new byte[4096];
+    private int length = 0;
+
+    // Where the terminal's cursor and color are, so they are only changed when needed.
+    private int cursorRow = -1;
+    private int cursorCol = -1;
+    private int currentColor = -1;
+
+    private int shownScore = -1;
+    private int shownLevel = -1;
+
+    private final OutputStream out;
+
+    // Totals for reporting.
+    private long bytesWritten = 0;
+    private long frames = 0;
+
+    /**
+     * Creates a renderer writing straight to standard out, showing at most the given amount of cells.
+     *
+     * @param maxWidth
+     * @param maxHeight
+     * @param game
+     */
+    public AnsiRenderer(Game game, int maxWidth, int maxHeight) {
+        this.viewWidth = Math.min(game.getGridWidth(), maxWidth);
+        this.viewHeight = Math.min(game.getGridHeight(), maxHeight);
+        this.shown = new int[this.viewWidth * this.viewHeight];
+        this.out = new FileOutputStream(FileDescriptor.out);
+    }
+
+    /**
+     * Clears the terminal and hides the cursor, every cell is drawn on the next frame.
+     */
+    public void begin() {
+        for (int i = 0; i < this.shown.length; i++) {
+            this.shown[i] = -1;
+        }
+        this.shownScore = -1;
+        this.shownLevel = -1;
+        this.escape("2J");
+        this.escape("?25l");
+        this.cursorRow = -1;
+        this.currentColor = -1;
+        this.flush();
+    }
+
+    /**
+     * Resets colors, shows the cursor again and moves it below the board.
+     */
+    public void end() {
+        this.escape("0m");
+        this.moveTo(this.viewHeight + 3, 1);
+        this.escape("?25h");
+        this.flush();
+    }
+
+    /**
+     * Writes whatever changed since the last frame.
+     *
+     * @param game
+     */
+    public void render(Game game) {
+        this.follow(game);
+
+        Board board = game.getBoard();
+        for (int row = 0; row < this.viewHeight; row++) {
+            for (int col = 0; col < this.viewWidth; col++) {
+                Block block = board.get(this.viewX + col, this.viewY + row);
+                int color = block == null ? EMPTY_COLOR : colorIndex(block.getColor());
+                int index = col + row * this.viewWidth;
+                if (this.shown[index] != color) {
+                    this.shown[index] = color;
+                    // Rows and columns start at 1 on the terminal.
+                    this.moveTo(row + 1, col * 2 + 1);
+                    this.setColor(color);
+                    this.append((byte) ' ');
+                    this.append((byte) ' ');
+                    this.cursorCol += 2;
+                }
+            }
+        }
+
+        if (game.getScore() != this.shownScore || game.getLevel() != this.shownLevel) {
+            this.shownScore = game.getScore();
+            this.shownLevel = game.getLevel();
+            this.moveTo(this.viewHeight + 2, 1);
+            this.escape("0m");
+            this.currentColor = -1;
+            this.append("Score: ");
+            this.appendInt(this.shownScore);
+            this.append("  Level: ");
+            this.appendInt(this.shownLevel + 1);
+            this.escape("K");
+            this.cursorRow = -1;
+        }
+
+        this.flush();
+        this.frames++;
+    }
+
+    /**
+     * Moves the viewport so the falling tetromino is in it, marking every cell to be redrawn if it moved.
+     */
+    private void follow(Game game) {
+        TetrominoModel falling = game.getTetrominoFalling();
+        if (falling == null || (this.viewWidth == game.getGridWidth() && this.viewHeight == game.getGridHeight())) {
+            return;
+        }
+        Block block = falling.getBlocks()[0];
+        int newViewX = this.viewX;
+        int newViewY = this.viewY;
+        if (block.getPositionX() < this.viewX + this.viewWidth / 4 || block.getPositionX() >= this.viewX + this.viewWidth - this.viewWidth / 4) {
+            newViewX = Math.max(0, Math.min(game.getGridWidth() - this.viewWidth, block.getPositionX() - this.viewWidth / 2));
+        }
+        if (block.getPositionY() < this.viewY + this.viewHeight / 4 || block.getPositionY() >= this.viewY + this.viewHeight - this.viewHeight / 4) {
+            newViewY = Math.max(0, Math.min(game.getGridHeight() - this.viewHeight, block.getPositionY() - this.viewHeight / 2));
+        }
+        if (newViewX != this.viewX || newViewY != this.viewY) {
+            this.viewX = newViewX;
+            this.viewY = newViewY;
+            for (int i = 0; i < this.shown.length; i++) {
+                this.shown[i] = -1;
+            }
+        }
+    }
+
+    /**
+     * Returns the closest color of the terminal's 256 color palette (The 6x6x6 color cube).
+     *
+     * @param c
+     * @return int
+     */
+    public static int colorIndex(Color c) {
+        if (c == null) {
+            return NO_COLOR;
+        }
+        int r = (int) Math.round(c.getRed() * 5);
+        int g = (int) Math.round(c.getGreen() * 5);
+        int b = (int) Math.round(c.getBlue() * 5);
+        return 16 + 36 * r + 6 * g + b;
+    }
+
+    private void moveTo(int row, int col) {
+        if (row == this.cursorRow && col == this.cursorCol) {
+            return;
+        }
+        this.append(ESC);
+        this.append((byte) '[');
+        this.appendInt(row);
+        this.append((byte) ';');
+        this.appendInt(col);
+        this.append((byte) 'H');
+        this.cursorRow = row;
+        this.cursorCol = col;
+    }
+
+    private void setColor(int color) {
+        if (color == this.currentColor) {
+            return;
+        }
+        this.append(ESC);
+        this.append("[48;5;");
+        this.appendInt(color);
+        this.append((byte) 'm');
+        this.currentColor = color;
+    }
+
+    private void escape(String code) {
+        this.append(ESC);
+        this.append((byte) '[');
+        this.append(code);
+    }
+
+    private void append(byte b) {
+        if (this.length == this.buffer.length) {
+            byte[] bigger = new byte[this.buffer.length * 2];
+            System.arraycopy(this.buffer, 0, bigger, 0, this.length);
+            this.buffer = bigger;
+        }
+        this.buffer[this.length++] = b;
+    }
+
+    // Only used for ASCII text.
+    private void append(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            this.append((byte) text.charAt(i));
+        }
+    }
+
+    private void appendInt(int value) {
+        if (value < 0) {
+            this.append((byte) '-');
+            value = -value;
+        }
+        if (value >= 10) {
+            this.appendInt(value / 10);
+        }
+        this.append((byte) ('0' + value % 10));
+    }
+
+    private void flush() {
+        if (this.length == 0) {
+            return;
+        }
+        try {
+            this.out.write(this.buffer, 0, this.length);
+            this.out.flush();
+        } catch (IOException e) {
+            System.err.println("Error writing to terminal: " + e);
+        }
+        this.bytesWritten += this.length;
+        this.length = 0;
+    }
+
+    public long getBytesWritten() {
+        return this.bytesWritten;
+    }
+
+    public long getFrames() {
+        return this.frames;
+    }
+}
@@ -0,0 +1,155 @@
+package Terminal;
+
+import Game_Main.Command;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads keys from the terminal as they are pressed and turns them into command codes (See Game_Main.Command).
+ *
+ * The terminal is put in raw mode with stty so keys don't wait for enter and aren't echoed. Where there is no
+ * stty (E.g. Windows) keys are only read after enter is pressed.
+ *
+ * Keys: A/D or left/right arrow move, S or down arrow soft drops, Q/E rotate, W or up arrow rotates clockwise,
+ * C or space holds. Ctrl-C, Ctrl-D or escape quits.
+ *
+ * @author T03-2
+ */
+public class TerminalInput implements Runnable {
+
+    private static final int ESC = 27;
+
+    // Command for every ASCII key.
+    private final byte[] keyTable = new byte[128];
+
+    // Commands read but not taken yet. Written by the reading thread, read by the game loop.
+    private final int[] pending = new int[16];
+    private int pendingStart = 0;
+    private int pendingCount = 0;
+
+    private final InputStream in;
+    private volatile boolean quit = false;
+    private boolean raw = false;
+
+    public TerminalInput(InputStream in) {
+        this.in = in;
+        this.keyTable['a'] = Command.LEFT;
+        this.keyTable['d'] = Command.RIGHT;
+        this.keyTable['s'] = Command.SOFT_DROP;
+        this.keyTable['q'] = Command.ROTATE_CCW;
+        this.keyTable['e'] = Command.ROTATE_CW;
+        this.keyTable['w'] = Command.ROTATE_CW;
+        this.keyTable['c'] = Command.HOLD;
+        this.keyTable[' '] = Command.HOLD;
+        for (char c = 'a'; c <= 'z'; c++) {
+            this.keyTable[Character.toUpperCase(c)] = this.keyTable[c];
+        }
+    }
+
+    /**
+     * Puts the terminal in raw mode and starts reading keys on a daemon thread.
+     */
+    public void start() {
+        this.raw = stty("raw -echo");
+        Thread thread = new Thread(this, "Terminal input");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Puts the terminal back in the mode it was in before start.
+     */
+    public void stop() {
+        if (this.raw) {
+            stty("sane");
+            this.raw = false;
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            int key;
+            while (!this.quit && (key = this.in.read()) != -1) {
+                if (key == 3 || key == 4) {
+                    this.quit = true;
+                } else if (key == ESC) {
+                    this.readEscape();
+                } else if (key < this.keyTable.length && this.keyTable[key] != Command.NONE) {
+                    this.push(this.keyTable[key]);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading terminal: " + e);
+        }
+        this.quit = true;
+    }
+
+    /**
+     * Arrow keys are sent as ESC [ A to ESC [ D. Escape on its own quits.
+     */
+    private void readEscape() throws IOException {
+        if (this.in.available() == 0 || this.in.read() != '[') {
+            this.quit = true;
+            return;
+        }
+        switch (this.in.read()) {
+            case 'A':
+                this.push(Command.ROTATE_CW);
+                break;
+            case 'B':
+                this.push(Command.SOFT_DROP);
+                break;
+            case 'C':
+                this.push(Command.RIGHT);
+                break;
+            case 'D':
+                this.push(Command.LEFT);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private synchronized void push(int command) {
+        // Drop keys once the queue is full rather than fall behind.
+        if (this.pendingCount < this.pending.length) {
+            this.pending[(this.pendingStart + this.pendingCount) % this.pending.length] = command;
+            this.pendingCount++;
+        }
+    }
+
+    /**
+     * Takes the oldest key pressed, or Command.NONE if there is none.
+     *
+     * @return int
+     */
+    public synchronized int poll() {
+        if (this.pendingCount == 0) {
+            return Command.NONE;
+        }
+        int command = this.pending[this.pendingStart];
+        this.pendingStart = (this.pendingStart + 1) % this.pending.length;
+        this.pendingCount--;
+        return command;
+    }
+
+    public boolean getQuit() {
+        return this.quit;
+    }
+
+    /**
+     * Runs stty on the terminal, returning whether it worked.
+     */
+    private static boolean stty(String args) {
+        try {
+            Process process = new ProcessBuilder("sh", "-c", "stty " + args + " < /dev/tty").inheritIO().start();
+            return process.waitFor() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
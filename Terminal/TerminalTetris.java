@@ -0,0 +1,62 @@
+package Terminal;
+
+import Board.ChunkedBoard;
+import Board.DenseBoard;
+import Game_Main.Game;
+import Game_Main.GameClock;
+import Game_Main.SystemClock;
+
+/**
+ * Plays the game in a terminal instead of the JavaFX window.
+ *
+ * Arguments: [width] [height] [giant], where giant stores the board in chunks (See Board.ChunkedBoard) so it
+ * can be bigger than the terminal, the view then follows the falling tetromino.
+ *
+ * @author T03-2
+ */
+public class TerminalTetris {
+
+    // Most cells shown at once, each cell is two characters wide.
+    private static final int VIEW_WIDTH = 40;
+    private static final int VIEW_HEIGHT = 30;
+
+    public static void main(String[] args) {
+        int width = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int height = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        boolean giant = args.length > 2 && args[2].equals("giant");
+
+        Game game = new Game(giant ? new ChunkedBoard(width, height) : new DenseBoard(width, height), null);
+        AnsiRenderer renderer = new AnsiRenderer(game, VIEW_WIDTH, VIEW_HEIGHT);
+        TerminalInput input = new TerminalInput(System.in);
+
+        input.start();
+        renderer.begin();
+        try {
+            GameClock clock = new SystemClock();
+            long tickNanos = 1000000000L / Game.TICKS_PER_SECOND;
+            long nextTick = clock.nanoTime();
+            while (game.getGameRunning() && !input.getQuit()) {
+                game.tick(input.poll());
+                renderer.render(game);
+
+                // Sleep until the next tick is due, measured from the start so it doesn't drift.
+                nextTick += tickNanos;
+                long wait = nextTick - clock.nanoTime();
+                if (wait <= 0) {
+                    nextTick = clock.nanoTime();
+                }
+                while (wait > 0) {
+                    clock.sleep(wait);
+                    wait = nextTick - clock.nanoTime();
+                }
+            }
+        } finally {
+            renderer.end();
+            input.stop();
+            game.close();
+        }
+
+        System.out.println("Score: " + game.getScore() + " (" + renderer.getFrames() + " frames, "
+                + renderer.getBytesWritten() / Math.max(1, renderer.getFrames()) + " bytes per frame)");
+    }
+}
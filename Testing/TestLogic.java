@@ -2,13 +2,64 @@ package Testing;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+import javafx.scene.input.KeyCode;
 import javafx.scene.paint.Color;
 
 import Blocks.Block;
+import Board.ChunkedBoard;
+import Board.DenseBoard;
+import Board.ZobristHash;
+import Game_Main.BoardConfig;
+import Game_Main.Command;
+import Game_Main.Debug.EngineFuzzer;
+import Game_Main.Debug.PerfectClearBenchmark;
+import Game_Main.Debug.Perft;
+import Game_Main.Debug.PlannerBenchmark;
+import Game_Main.Debug.ReplayVerifyBenchmark;
+import Game_Main.FixedRateScheduler;
 import Game_Main.Game;
+import Game_Main.GameEvent;
+import Game_Main.GameEventBus;
+import Game_Main.GameEventListener;
+import Game_Main.GamePosition;
+import Game_Main.KeyframeReplay;
+import Game_Main.LevelTable;
+import Game_Main.PerfectClearSolver;
+import Game_Main.PlacementPlanner;
+import Game_Main.PositionCode;
+import Game_Main.Replay;
+import Game_Main.ReplayVerifier;
+import Game_Main.SaverLoader;
+import Game_Main.ScoreImporter;
+import Game_Main.ScoreIndex;
+import Game_Main.ScoreStore;
+import Game_Main.TranspositionTable;
+import Game_Main.VersusMatch;
+import Game_Main.VirtualClock;
+import GUI.EffectLayer;
+import GUI.InterpolatedRenderer;
+import GUI.KeyMap;
 import GUI.MainViewFX;
+import Net.NetClient;
+import Net.Protocol;
+import Net.RollbackClient;
+import Net.ServerSession;
 
 import Blocks.TetrominoModel;
+import Blocks.TetrominoSpawner;
 
 import org.junit.Test;
 
@@ -196,4 +247,843 @@ public class TestLogic {
 		}
 
 	}
+
+	@Test
+	public void test_HoldOncePerTurn() {
+		MainViewFX mv = new MainViewFX();
+		Game game = new Game(10, 20, mv);
+
+		game.createBlock();
+		assertEquals("Hold Test Failed, something held before holding.", TetrominoSpawner.NO_SHAPE, game.getHoldShape());
+
+		game.keyboardInput(Command.HOLD);
+		int held = game.getHoldShape();
+		assertNotEquals("Hold Test Failed, nothing held after holding.", TetrominoSpawner.NO_SHAPE, held);
+
+		// Holding again before the piece is placed should do nothing.
+		game.keyboardInput(Command.HOLD);
+		assertEquals("Hold Test Failed, held twice in one turn.", held, game.getHoldShape());
+	}
+
+	@Test
+	public void test_KeyMapSaveLoad() throws IOException {
+		KeyMap keyMap = new KeyMap();
+		assertEquals("KeyMap Test Failed, default left key not bound.", Command.LEFT, keyMap.getCommand(KeyCode.A));
+
+		keyMap.bind(KeyCode.LEFT, Command.LEFT);
+		keyMap.bind(KeyCode.A, Command.NONE);
+
+		File file = File.createTempFile("keymap", ".cfg");
+		file.deleteOnExit();
+		assertTrue("KeyMap Test Failed, could not save.", keyMap.save(file));
+
+		KeyMap loaded = new KeyMap();
+		assertTrue("KeyMap Test Failed, could not load.", loaded.load(file));
+		assertEquals("KeyMap Test Failed, rebound key not loaded.", Command.LEFT, loaded.getCommand(KeyCode.LEFT));
+		assertEquals("KeyMap Test Failed, unbound key still bound.", Command.NONE, loaded.getCommand(KeyCode.A));
+		assertEquals("KeyMap Test Failed, untouched key lost.", Command.HOLD, loaded.getCommand(KeyCode.SHIFT));
+	}
+
+	@Test
+	public void test_FractionalGravity() {
+		Game game = new Game(10, 20, null);
+		int[] gravity = {LevelTable.ONE_CELL / 2};
+		game.setLevelTable(new LevelTable(gravity, new int[] {30}, new int[] {20}, 1));
+
+		game.tick(Command.NONE);
+		assertTrue("Gravity Test Failed, half gravity dropped a cell after one tick.", rowHasBlock(game, 0));
+
+		game.tick(Command.NONE);
+		assertFalse("Gravity Test Failed, half gravity did not drop a cell after two ticks.", rowHasBlock(game, 0));
+	}
+
+	@Test
+	public void test_InstantGravityAndLockDelay() {
+		Game game = new Game(10, 20, null);
+		int[] gravity = {LevelTable.GRAVITY_20G};
+		game.setLevelTable(new LevelTable(gravity, new int[] {2}, new int[] {20}, 1));
+
+		game.tick(Command.NONE);
+		assertTrue("Gravity Test Failed, 20G did not drop to the bottom.", rowHasBlock(game, 19));
+
+		// Grounded from the first tick, set in place on the third so the fourth spawns a new block.
+		game.tick(Command.NONE);
+		game.tick(Command.NONE);
+		assertEquals("Lock Delay Test Failed, block spawned before lock delay ran out.", 4, countBlocks(game));
+		game.tick(Command.NONE);
+		assertEquals("Lock Delay Test Failed, no block spawned after lock delay ran out.", 8, countBlocks(game));
+	}
+
+	@Test
+	public void test_LevelFileRanges() throws IOException {
+		File file = File.createTempFile("levels", ".cfg");
+		file.deleteOnExit();
+		java.nio.file.Files.write(file.toPath(), "1\n0.05 30 20\n20 0 1\n".getBytes());
+		assertEquals("Level File Test Failed, valid table not loaded.", LevelTable.GRAVITY_20G, LevelTable.load(file).getGravity(1));
+
+		String[] bad = {"40000", "20.5", "-0.1", "NaN", "0.05 -1", "0.05 30 0"};
+		for (String line : bad) {
+			java.nio.file.Files.write(file.toPath(), ("1\n" + line + "\n").getBytes());
+			try {
+				LevelTable.load(file);
+				fail("Level File Test Failed, accepted level: " + line);
+			} catch (IllegalArgumentException e) {
+				assertTrue("Level File Test Failed, wrong error for: " + line, e.getMessage().startsWith("Bad level table line"));
+			}
+		}
+	}
+
+	@Test
+	public void test_ChunkedBoardClearRow() {
+		ChunkedBoard board = new ChunkedBoard(130, 5000);
+		Game game = new Game(board, null);
+
+		for (int x = 0; x < 130; x++) {
+			board.set(x, 4999, new Block(game, (Color) null, x, 4999));
+		}
+		board.set(7, 4998, new Block(game, (Color) null, 7, 4998));
+
+		assertTrue("Chunked Board Test Failed, full row not full.", board.isRowFull(4999));
+		assertEquals("Chunked Board Test Failed, wrong chunk count.", 4, board.getChunkCount());
+
+		board.clearRow(4999);
+		assertNotNull("Chunked Board Test Failed, block above did not move down.", board.get(7, 4999));
+		assertNull("Chunked Board Test Failed, block above still in old row.", board.get(7, 4998));
+		assertEquals("Chunked Board Test Failed, cleared chunks not freed.", 1, board.getChunkCount());
+		assertEquals("Chunked Board Test Failed, wrong block count.", 1, board.getBlockCount());
+	}
+
+	@Test
+	public void test_BoardCollisionProbe() {
+		DenseBoard dense = new DenseBoard(200, 10);
+		ChunkedBoard chunked = new ChunkedBoard(200, 10);
+		Game game = new Game(dense, null);
+		Block block = new Block(game, (Color) null, 0, 0);
+		dense.set(150, 5, block);
+		chunked.set(150, 5, block);
+
+		// Two row probe with a cell set in column 150 of its second row.
+		long[] probe = new long[2 * dense.getWordsPerRow()];
+		probe[dense.getWordsPerRow() + 150 / 64] = 1L << 150;
+
+		assertTrue("Collision Probe Test Failed, dense board missed block.", dense.collides(probe, 4, 2));
+		assertFalse("Collision Probe Test Failed, dense board hit empty cell.", dense.collides(probe, 5, 2));
+		assertTrue("Collision Probe Test Failed, chunked board missed block.", chunked.collides(probe, 4, 2));
+		assertFalse("Collision Probe Test Failed, chunked board hit empty cell.", chunked.collides(probe, 5, 2));
+		assertTrue("Collision Probe Test Failed, probe below the board didn't collide.", dense.collides(probe, 9, 2));
+	}
+
+	@Test
+	public void test_BoardAddGarbage() {
+		DenseBoard dense = new DenseBoard(70, 6);
+		ChunkedBoard chunked = new ChunkedBoard(70, 6);
+		Game game = new Game(dense, null);
+		Block block = new Block(game, (Color) null, 0, 0);
+		dense.set(3, 0, block);
+		dense.set(65, 5, block);
+		chunked.set(3, 0, block);
+		chunked.set(65, 5, block);
+
+		dense.addGarbage(2, 65, block);
+		chunked.addGarbage(2, 65, block);
+		assertNotNull("Garbage Test Failed, dense board row not pushed up.", dense.get(65, 3));
+		assertNotNull("Garbage Test Failed, chunked board row not pushed up.", chunked.get(65, 3));
+		assertNull("Garbage Test Failed, dense board hole filled.", dense.get(65, 5));
+		assertNull("Garbage Test Failed, chunked board hole filled.", chunked.get(65, 4));
+		assertNotNull("Garbage Test Failed, dense board garbage missing.", dense.get(64, 4));
+		assertFalse("Garbage Test Failed, row with a hole is full.", dense.isRowFull(5));
+		assertEquals("Garbage Test Failed, block pushed off the top not removed.", 2 * 69 + 1, chunked.getBlockCount());
+
+		long[] probe = new long[dense.getWordsPerRow()];
+		probe[1] = 1L << 65;
+		assertFalse("Garbage Test Failed, dense board masks not moved.", dense.collides(probe, 5, 1));
+		assertTrue("Garbage Test Failed, dense board masks not moved.", dense.collides(probe, 3, 1));
+	}
+
+	@Test
+	public void test_VersusGarbage() {
+		Game game = new Game(10, 20, null);
+		game.addGarbage(1, 2);
+		game.addGarbage(2, 4);
+		assertEquals("Versus Test Failed, garbage not cancelled oldest first.", 2, game.cancelGarbage(2));
+		assertEquals("Versus Test Failed, wrong pending garbage.", 1, game.getPendingGarbage());
+
+		// Garbage is added once the falling block is set in place.
+		for (int i = 0; i < 200 && game.getPendingGarbage() > 0; i++) {
+			game.tick(Command.SOFT_DROP);
+		}
+		assertEquals("Versus Test Failed, garbage never added.", 0, game.getPendingGarbage());
+		assertNull("Versus Test Failed, garbage hole in wrong column.", game.getBoard().get(4, 19));
+		assertNotNull("Versus Test Failed, garbage row missing.", game.getBoard().get(3, 19));
+
+		assertEquals("Versus Test Failed, single clear sent garbage.", 0, VersusMatch.getAttack(1));
+		assertEquals("Versus Test Failed, wrong attack for four lines.", 4, VersusMatch.getAttack(4));
+
+		// The second player is buried by garbage and tops out first.
+		VersusMatch match = new VersusMatch(new Game(10, 20, null), new Game(10, 20, null), 1);
+		match.getGame(1).addGarbage(19, 0);
+		for (int i = 0; i < 100000 && !match.isOver(); i++) {
+			match.tick(Command.SOFT_DROP, Command.SOFT_DROP);
+		}
+		assertEquals("Versus Test Failed, wrong winner.", 0, match.getWinner());
+	}
+
+	@Test
+	public void test_BoardHash() throws IOException {
+		// Games on a narrow board until a few lines are cleared by random play, with garbage added now and then.
+		Random random = new Random(9);
+		ZobristHash fresh = new ZobristHash(5, 20);
+		Game game = null;
+		int lines = 0;
+		for (int seed = 0; seed < 20 && lines < 4; seed++) {
+			game = Replay.createGame(new BoardConfig(5, 20, 1000), seed);
+			for (int tick = 0; game.getGameRunning(); tick++) {
+				if (random.nextInt(200) == 0) {
+					game.addGarbage(1 + random.nextInt(2), random.nextInt(5));
+				}
+				game.tick(random.nextInt(3) == 0 ? 1 + random.nextInt(Command.COUNT - 1) : Command.NONE);
+				fresh.reset(game.getBoard());
+				if (game.getTetrominoFalling() != null && game.getTetrominoFalling().getFalling()) {
+					for (int i = 0; i < 4; i++) {
+						fresh.toggle(game.getTetrominoFalling().getBlockX(i), game.getTetrominoFalling().getBlockY(i));
+					}
+				}
+				assertEquals("Board Hash Test Failed, wrong hash at tick " + tick + ".", fresh.get(), game.getBoardHash());
+				if (tick % 500 == 0) {
+					// The same board has the same hash in another game.
+					Game copy = new Game(5, 20, null);
+					copy.readState(new DataInputStream(new ByteArrayInputStream(gameState(game))));
+					assertEquals("Board Hash Test Failed, copied game hashes differently.", game.getBoardHash(), copy.getBoardHash());
+					// Colors and the spawner's random state come back exactly.
+					assertArrayEquals("Board Hash Test Failed, copied game state differs.", gameState(game), gameState(copy));
+					if (game.getTetrominoFalling() != null) {
+						assertSame("Board Hash Test Failed, copied color differs.", game.getTetrominoFalling().getColor(), copy.getTetrominoFalling().getColor());
+					}
+				}
+			}
+			lines += game.getScore();
+		}
+		assertTrue("Board Hash Test Failed, no lines cleared.", lines >= 4);
+
+		assertEquals("Board Hash Test Failed, empty board hash not 0.", 0, new Game(5, 20, null).getBoardHash());
+
+		TranspositionTable table = new TranspositionTable(1000);
+		assertEquals("Board Hash Test Failed, wrong table size.", 1024, table.getCapacity());
+		assertEquals("Board Hash Test Failed, empty table hit.", -1, table.get(0, -1));
+		table.put(game.getBoardHash(), 42);
+		assertEquals("Board Hash Test Failed, value not cached.", 42, table.get(game.getBoardHash(), -1));
+		assertEquals("Board Hash Test Failed, another hash hit.", -1, table.get(game.getBoardHash() ^ 1, -1));
+		// A hash in the same slot replaces it.
+		table.put(game.getBoardHash() ^ 1, 7);
+		assertEquals("Board Hash Test Failed, replaced value still there.", -1, table.get(game.getBoardHash(), -1));
+	}
+
+	@Test
+	public void test_EventBus() {
+		Game game = new Game(10, 20, null);
+		GameEventBus.Subscription subscription = game.getEvents().subscribe();
+		final int[] counts = new int[GameEvent.COUNT];
+		final int[] order = new int[2];
+		GameEventListener listener = event -> {
+			if (counts[event.getType()]++ == 0 && event.getType() == GameEvent.LOCKED) {
+				order[1] = counts[GameEvent.SPAWNED];
+			}
+		};
+		game.tick(Command.NONE);
+		game.tick(Command.LEFT);
+		for (int i = 0; i < 2000 && counts[GameEvent.LOCKED] == 0; i++) {
+			game.tick(Command.SOFT_DROP);
+			subscription.poll(listener);
+		}
+		assertEquals("Event Bus Test Failed, the first spawn wasn't seen.", 1, order[1]);
+		assertTrue("Event Bus Test Failed, no moves were seen.", counts[GameEvent.MOVED] > 0);
+		assertEquals("Event Bus Test Failed, events were missed.", 0, subscription.getMissed());
+
+		// A subscriber that falls behind loses the oldest events but gets the rest.
+		GameEventBus bus = new GameEventBus(4);
+		GameEventBus.Subscription slow = bus.subscribe();
+		for (int i = 0; i < 10; i++) {
+			bus.publish(GameEvent.MOVED, i, 0, i, 0, 0, 0);
+		}
+		final int[] lastX = {-1};
+		assertEquals("Event Bus Test Failed, wrong amount delivered.", 4, slow.poll(event -> lastX[0] = event.getX()));
+		assertEquals("Event Bus Test Failed, wrong amount missed.", 6, slow.getMissed());
+		assertEquals("Event Bus Test Failed, last event wrong.", 9, lastX[0]);
+	}
+
+	@Test
+	public void test_PlayerStats() {
+		Game game = new Game(10, 20, null);
+		game.tick(Command.NONE);
+		game.tick(Command.LEFT);
+		game.tick(Command.LEFT);
+		game.tick(Command.RIGHT);
+		for (int i = 0; i < 100 && game.getStats().getPieces() == 0; i++) {
+			game.tick(Command.SOFT_DROP);
+		}
+		assertEquals("Player Stats Test Failed, wrong piece count.", 1, game.getStats().getPieces());
+		assertEquals("Player Stats Test Failed, one move was needed but three were used.", 2, game.getStats().getFinesseFaults());
+		assertEquals("Player Stats Test Failed, no lines were cleared.", 1, game.getStats().getClears(0));
+
+		// Three clockwise turns instead of one counter-clockwise (Dropped first so the piece has room to turn).
+		game.tick(Command.SOFT_DROP);
+		game.tick(Command.SOFT_DROP);
+		game.tick(Command.SOFT_DROP);
+		game.tick(Command.ROTATE_CW);
+		game.tick(Command.ROTATE_CW);
+		game.tick(Command.ROTATE_CW);
+		for (int i = 0; i < 100 && game.getStats().getPieces() == 1; i++) {
+			game.tick(Command.SOFT_DROP);
+		}
+		assertEquals("Player Stats Test Failed, wrong finesse after turning.", 4, game.getStats().getFinesseFaults());
+		assertTrue("Player Stats Test Failed, no pieces per second.", game.getStats().getPPS() > 0);
+
+		// A move on the tick the piece spawns counts towards its finesse.
+		game = new Game(10, 20, null);
+		game.tick(Command.LEFT);
+		game.tick(Command.RIGHT);
+		for (int i = 0; i < 100 && game.getStats().getPieces() == 0; i++) {
+			game.tick(Command.SOFT_DROP);
+		}
+		assertEquals("Player Stats Test Failed, move on the spawn tick not counted.", 2, game.getStats().getFinesseFaults());
+	}
+
+	@Test
+	public void test_ScoreIndex() throws IOException {
+		ScoreIndex index = new ScoreIndex(1000, 1);
+		int[] scores = new int[500];
+		java.util.Random random = new java.util.Random(35);
+		for (int i = 0; i < scores.length; i++) {
+			scores[i] = random.nextInt(1200);
+			index.insert(scores[i]);
+		}
+		for (int score : new int[] {0, 17, 500, 999, 1000}) {
+			int below = 0;
+			for (int other : scores) {
+				if (Math.min(other, 1000) < score) {
+					below++;
+				}
+			}
+			assertEquals("Score Index Test Failed, wrong count below " + score, below, index.countBelow(score));
+			assertEquals("Score Index Test Failed, wrong percentile for " + score, 100.0 * below / scores.length, index.percentile(score), 1e-9);
+		}
+		int[] sorted = scores.clone();
+		java.util.Arrays.sort(sorted);
+		// The best scores are kept exactly, above maxScore too.
+		assertEquals("Score Index Test Failed, best score wrong.", sorted[sorted.length - 1], index.scoreAtRank(1));
+		assertEquals("Score Index Test Failed, tenth best score wrong.", sorted[sorted.length - 10], index.scoreAtRank(10));
+		int above = 0;
+		for (int other : scores) {
+			if (other > 1100) {
+				above++;
+			}
+		}
+		assertEquals("Score Index Test Failed, wrong count above 1100.", above, index.countAbove(1100));
+		assertEquals("Score Index Test Failed, worst score wrong.", sorted[0], index.scoreAtRank(scores.length));
+		assertEquals("Score Index Test Failed, rank past the end.", -1, index.scoreAtRank(scores.length + 1));
+
+		File file = File.createTempFile("scores", ".idx");
+		file.deleteOnExit();
+		index.setSourceLength(1234);
+		index.save(file);
+		ScoreIndex loaded = ScoreIndex.load(file);
+		assertEquals("Score Index Test Failed, saved length wrong.", 1234, loaded.getSourceLength());
+		assertEquals("Score Index Test Failed, saved total wrong.", index.getTotal(), loaded.getTotal());
+		for (int rank = 1; rank <= scores.length; rank += 37) {
+			assertEquals("Score Index Test Failed, loaded index differs.", index.scoreAtRank(rank), loaded.scoreAtRank(rank));
+		}
+		assertEquals("Score Index Test Failed, loaded best score differs.", index.scoreAtRank(1), loaded.scoreAtRank(1));
+	}
+
+	@Test
+	public void test_ScoreImporter() throws IOException {
+		File file = File.createTempFile("scores", ".txt");
+		file.deleteOnExit();
+		java.io.PrintWriter writer = new java.io.PrintWriter(file);
+		writer.print("Print Test Please Ignore\n5\r\n12\n\n-3\n7x\n");
+		for (int i = 0; i < 1000; i++) {
+			writer.print(i % 50 + "\n");
+		}
+		writer.print("70000\n40");
+		writer.close();
+
+		ScoreIndex index = new ScoreIndex(100, 1);
+		ScoreImporter importer = new ScoreImporter(3);
+		assertEquals("Score Importer Test Failed, wrong amount imported.", 1005, importer.importFile(file, index));
+		assertEquals("Score Importer Test Failed, wrong amount skipped.", 2, importer.getSkipped());
+		assertEquals("Score Importer Test Failed, index total wrong.", 1005, index.getTotal());
+		// 20 of each score 0 to 49, plus 5, 12, 70000, 40 and -3 (Counted as 0).
+		assertEquals("Score Importer Test Failed, wrong count below 12.", 12 * 20 + 2, index.countBelow(12));
+		assertEquals("Score Importer Test Failed, wrong count above 40.", 9 * 20 + 1, index.countAbove(40));
+		assertEquals("Score Importer Test Failed, best score clamped.", 70000, index.scoreAtRank(1));
+		assertEquals("Score Importer Test Failed, second best score wrong.", 49, index.scoreAtRank(2));
+	}
+
+	@Test
+	public void test_ScoreStore() throws IOException {
+		File folder = java.nio.file.Files.createTempDirectory("players").toFile();
+		BoardConfig small = new BoardConfig(10, 20, 1000);
+		BoardConfig big = new BoardConfig(20, 40, 500);
+		ScoreStore store = new ScoreStore(folder);
+		for (int i = 1; i <= 15; i++) {
+			store.record("alice", small, i * 7 % 16, i);
+		}
+		store.record("alice", big, 99, 16);
+		// A log that can't be read, looking up alice must not touch it.
+		new File(folder, "bob/10x20@1000.log").mkdirs();
+
+		ScoreStore reloaded = new ScoreStore(folder);
+		assertEquals("Score Store Test Failed, wrong best.", 15, reloaded.getBest("alice", small));
+		assertEquals("Score Store Test Failed, wrong best time.", 9, reloaded.getBestTime("alice", small));
+		assertEquals("Score Store Test Failed, configurations mixed.", 99, reloaded.getBest("alice", big));
+		assertEquals("Score Store Test Failed, wrong game count.", 15, reloaded.getGames("alice", small));
+		int[] recent = reloaded.getRecent("alice", small);
+		assertEquals("Score Store Test Failed, wrong recent count.", ScoreStore.RECENT_GAMES, recent.length);
+		assertEquals("Score Store Test Failed, newest game not first.", 15 * 7 % 16, recent[0]);
+		assertEquals("Score Store Test Failed, unplayed configuration has a best.", -1, reloaded.getBest("carol", small));
+		assertEquals("Score Store Test Failed, wrong player id.", "bob_smith", ScoreStore.toPlayerId(" Bob  Smith! "));
+		assertEquals("Score Store Test Failed, wrong configurations.", 2, reloaded.getConfigs("alice").size());
+	}
+
+	@Test
+	public void test_EngineMatchesReferenceModel() {
+		String failure = EngineFuzzer.fuzz(38, 300, 300);
+		assertNull("Engine Fuzz Test Failed, " + failure, failure);
+	}
+
+	@Test
+	public void test_PerftCounts() {
+		assertArrayEquals("Perft Test Failed, TI counts wrong.", new long[] {34, 596}, new Perft(10, 20, 1).run(Perft.parseShapes("TI")));
+		assertArrayEquals("Perft Test Failed, parallel counts differ.", new long[] {9, 153, 2699}, new Perft(10, 20, 3).run(Perft.parseShapes("OSZ")));
+	}
+
+	@Test
+	public void test_PlacementPlanner() {
+		// An O piece spawned at the top, to the bottom left corner.
+		PlacementPlanner planner = new PlacementPlanner(10, 20);
+		int[] targetX = {0, 1, 0, 1};
+		int[] targetY = {18, 18, 19, 19};
+		long[] rows = new long[20];
+		int[] plan = planner.plan(rows, TetrominoSpawner.O, 0, 5, 0, targetX, targetY);
+		assertEquals("Placement Planner Test Failed, open plan not the fewest presses.", 5, PlacementPlanner.countPresses(plan));
+		assertEquals("Placement Planner Test Failed, open plan was searched.", 1, planner.getFastPlans());
+
+		// Under a shelf it has to drop past the end of it and slide back under.
+		rows[17] = 0b111111;
+		plan = planner.plan(rows, TetrominoSpawner.O, 0, 5, 0, targetX, targetY);
+		assertEquals("Placement Planner Test Failed, tuck not the fewest presses.", 9, PlacementPlanner.countPresses(plan));
+		assertEquals("Placement Planner Test Failed, tuck wasn't searched.", 1, planner.getSearches());
+
+		rows[17] = 0b1111111111;
+		assertNull("Placement Planner Test Failed, covered target planned.", planner.plan(rows, TetrominoSpawner.O, 0, 5, 0, targetX, targetY));
+
+		String failure = PlannerBenchmark.check(45, 2000);
+		assertNull("Placement Planner Test Failed, " + failure, failure);
+	}
+
+	@Test
+	public void test_PerfectClearSolver() {
+		// The bottom two rows filled but for a two by four gap on the left.
+		long[] rows = new long[20];
+		rows[18] = 0b1111110000;
+		rows[19] = 0b1111110000;
+		PerfectClearSolver solver = new PerfectClearSolver(10, 4, 2);
+		try {
+			PerfectClearSolver.Placement[] solution = solver.solve(rows, new int[] {TetrominoSpawner.O, TetrominoSpawner.O}, TetrominoSpawner.NO_SHAPE);
+			assertNotNull("Perfect Clear Test Failed, two O pieces not placed.", solution);
+			assertEquals("Perfect Clear Test Failed, wrong amount of placements.", 2, solution.length);
+			assertNull("Perfect Clear Test Failed, two Z pieces placed.", solver.solve(rows, new int[] {TetrominoSpawner.Z, TetrominoSpawner.Z}, TetrominoSpawner.NO_SHAPE));
+
+			// The Z has to be held out of the way.
+			solution = solver.solve(rows, new int[] {TetrominoSpawner.Z, TetrominoSpawner.O, TetrominoSpawner.O}, TetrominoSpawner.NO_SHAPE);
+			assertNotNull("Perfect Clear Test Failed, Z not held.", solution);
+			assertTrue("Perfect Clear Test Failed, first placement not held.", solution[0].isHold());
+			assertEquals("Perfect Clear Test Failed, wrong piece placed.", TetrominoSpawner.O, solution[0].getShape());
+
+			// Only a flat T pointing down fills the gap, it covers two cells of each column color.
+			long[] tee = new long[20];
+			tee[18] = 0b1111000111;
+			tee[19] = 0b1111101111;
+			solution = solver.solve(tee, new int[] {TetrominoSpawner.T}, TetrominoSpawner.NO_SHAPE);
+			assertNotNull("Perfect Clear Test Failed, flat T not placed.", solution);
+			assertEquals("Perfect Clear Test Failed, wrong amount of placements for the T.", 1, solution.length);
+		} finally {
+			solver.close();
+		}
+
+		String failure = PerfectClearBenchmark.check(3, 2, 2);
+		assertNull("Perfect Clear Test Failed, " + failure, failure);
+	}
+
+	@Test
+	public void test_PositionCode() {
+		assertEquals("Position Code Test Failed, wrong code for an empty board.", "AKUoGAAA", PositionCode.encode(new GamePosition(10, 20)));
+
+		// A game part way through reads back the same.
+		Game game = new Game(10, 20, null);
+		game.setSeed(5);
+		Random random = new Random(5);
+		for (int i = 0; i < 2000 && game.getGameRunning(); i++) {
+			game.tick(random.nextInt(4) == 0 ? 1 + random.nextInt(Command.COUNT - 1) : Command.NONE);
+		}
+		GamePosition position = GamePosition.of(game);
+		position.addQueue(TetrominoSpawner.S);
+		position.addQueue(TetrominoSpawner.I);
+		position.addQueue(TetrominoSpawner.T);
+		String code = PositionCode.encode(position);
+		assertTrue("Position Code Test Failed, code isn't URL safe: " + code, code.matches("[A-Za-z0-9_-]+"));
+		assertEquals("Position Code Test Failed, position read back differently.", position, PositionCode.decode(code));
+
+		// A puzzle with the bottom row filled but for the left column, an O held and an I to come.
+		GamePosition puzzle = new GamePosition(10, 20);
+		for (int x = 1; x < 10; x++) {
+			puzzle.setFilled(x, 19, true);
+		}
+		puzzle.setHold(TetrominoSpawner.O);
+		puzzle.addQueue(TetrominoSpawner.I);
+		Game puzzleGame = new Game(10, 20, null);
+		puzzleGame.setPosition(PositionCode.decode(PositionCode.encode(puzzle)));
+		puzzleGame.tick(Command.NONE);
+		assertEquals("Position Code Test Failed, queued shape not spawned.", TetrominoSpawner.I, puzzleGame.getTetrominoFalling().getShape());
+		assertEquals("Position Code Test Failed, held shape not set.", TetrominoSpawner.O, puzzleGame.getHoldShape());
+		assertEquals("Position Code Test Failed, cells not set.", 13, countBlocks(puzzleGame));
+
+		for (String invalid : new String[] {"", "AKU", "AKUoGAAA!", "AKUoGAAAA", "BKUoGAAA", "AKU_____H"}) {
+			try {
+				PositionCode.decode(invalid);
+				fail("Position Code Test Failed, invalid code read: " + invalid);
+			} catch (IllegalArgumentException e) {
+				// Expected.
+			}
+		}
+	}
+
+	@Test
+	public void test_VirtualClock() throws IOException {
+		// An hour of play scheduled on a virtual clock.
+		VirtualClock clock = new VirtualClock();
+		FixedRateScheduler scheduler = new FixedRateScheduler(Game.TICKS_PER_SECOND, Runnable::run, clock);
+		Game scheduled = new Game(200, 200, null);
+		scheduled.setSeed(8);
+		Random scheduledInput = new Random(8);
+		scheduler.add(() -> scheduled.tick(scheduledInput.nextInt(20) == 0 ? 1 + scheduledInput.nextInt(Command.COUNT - 1) : Command.NONE));
+		long start = System.nanoTime();
+		scheduler.runFor(3600 * 1000000000L);
+		long nanos = System.nanoTime() - start;
+		assertEquals("Virtual Clock Test Failed, wrong amount of ticks.", 3600 * Game.TICKS_PER_SECOND, scheduled.getTickCount());
+		assertEquals("Virtual Clock Test Failed, wrong game time.", 3600 * 1000L, scheduled.getTime());
+		assertEquals("Virtual Clock Test Failed, clock didn't move on an hour.", 3600 * 1000000000L, clock.nanoTime(), 1000000000L / Game.TICKS_PER_SECOND);
+		assertTrue("Virtual Clock Test Failed, an hour took " + nanos / 1e9 + " s.", nanos < 10 * 1000000000L);
+
+		// Plays out the same as ticking the game directly.
+		Game direct = new Game(200, 200, null);
+		direct.setSeed(8);
+		Random directInput = new Random(8);
+		for (int i = 0; i < 3600 * Game.TICKS_PER_SECOND; i++) {
+			direct.tick(directInput.nextInt(20) == 0 ? 1 + directInput.nextInt(Command.COUNT - 1) : Command.NONE);
+		}
+		assertArrayEquals("Virtual Clock Test Failed, game played differently.", gameState(direct), gameState(scheduled));
+	}
+
+	@Test
+	public void test_InterpolatedRenderer() {
+		Game game = new Game(10, 20, null);
+		InterpolatedRenderer renderer = new InterpolatedRenderer(game);
+		long tick = 1000000000L / Game.TICKS_PER_SECOND;
+		double gravity = game.getLevelTable().getGravity(0) / (double) LevelTable.ONE_CELL;
+
+		// Half way between the second and third tick the tetromino has fallen two and a half ticks of gravity.
+		game.tick(Command.NONE);
+		renderer.onTick(0);
+		game.tick(Command.NONE);
+		renderer.onTick(tick);
+		double spawnY = game.getTetrominoFalling().getBlockY(0);
+		renderer.sample(tick + tick / 2);
+		assertTrue("Interpolated Renderer Test Failed, tetromino not drawn.", renderer.isPieceShown());
+		assertEquals("Interpolated Renderer Test Failed, wrong fall.", spawnY + 1.5 * gravity, renderer.getBlockY(0), 1e-6);
+
+		// Moves slide, rotations don't.
+		int x = game.getTetrominoFalling().getBlockX(0);
+		game.tick(Command.RIGHT);
+		renderer.onTick(2 * tick);
+		renderer.sample(2 * tick + tick / 4);
+		assertEquals("Interpolated Renderer Test Failed, move not slid.", x + 0.25, renderer.getBlockX(0), 1e-6);
+		game.tick(Command.ROTATE_CW);
+		renderer.onTick(3 * tick);
+		renderer.sample(3 * tick);
+		assertEquals("Interpolated Renderer Test Failed, rotation slid.", game.getTetrominoFalling().getBlockX(1), renderer.getBlockX(1), 1e-9);
+
+		// Rows 17 and 19 cleared, the rows above start where they were and come down.
+		GamePosition position = new GamePosition(10, 20);
+		for (int col = 0; col < 10; col++) {
+			position.setFilled(col, 17, true);
+			position.setFilled(col, 19, true);
+		}
+		position.setFilled(0, 18, true);
+		position.setFilled(0, 16, true);
+		game.setPosition(position);
+		assertEquals("Interpolated Renderer Test Failed, wrong amount of lines cleared.", 2, game.clearLines());
+		assertEquals("Interpolated Renderer Test Failed, wrong row cleared first.", 19, game.getClearedRow(0));
+		assertEquals("Interpolated Renderer Test Failed, wrong row cleared second.", 17, game.getClearedRow(1));
+		renderer.onLinesCleared(0);
+		assertEquals("Interpolated Renderer Test Failed, row 18 not one down.", 1, renderer.getRowOffset(19, 0), 1e-9);
+		assertEquals("Interpolated Renderer Test Failed, row 16 not two down.", 2, renderer.getRowOffset(18, 0), 1e-9);
+		assertEquals("Interpolated Renderer Test Failed, not half way.", 1, renderer.getRowOffset(18, InterpolatedRenderer.COLLAPSE_NANOS / 2), 1e-9);
+		assertEquals("Interpolated Renderer Test Failed, still coming down.", 0, renderer.getRowOffset(18, InterpolatedRenderer.COLLAPSE_NANOS), 1e-9);
+	}
+
+	@Test
+	public void test_EffectLayer() {
+		// A straight piece standing in the last column over four rows filled but that column, for a Tetris.
+		GamePosition position = new GamePosition(10, 20);
+		for (int row = 16; row < 20; row++) {
+			for (int col = 0; col < 9; col++) {
+				position.setFilled(col, row, true);
+			}
+		}
+		int[] cellX = new int[4];
+		int[] cellY = new int[4];
+		int rotation = 0;
+		do {
+			PlacementPlanner.getCells(TetrominoSpawner.I, rotation, 0, 0, cellX, cellY);
+		} while (cellX[0] != cellX[3] && ++rotation < PlacementPlanner.getRotations(TetrominoSpawner.I));
+		position.setActive(TetrominoSpawner.I, rotation, 9 - cellX[0], -Math.min(Math.min(cellY[0], cellY[1]), Math.min(cellY[2], cellY[3])));
+		Game game = new Game(10, 20, null);
+		game.setPosition(position);
+		for (int i = 0; i < 100 && game.getClearedRowCount() == 0; i++) {
+			game.tick(Command.SOFT_DROP);
+		}
+		assertEquals("Effect Layer Test Failed, no Tetris.", 4, game.getClearedRowCount());
+		int rows = 0;
+		for (int i = 0; i < 4; i++) {
+			assertEquals("Effect Layer Test Failed, wrong locked x.", 9, game.getLockedX(i));
+			rows |= 1 << game.getLockedY(i);
+		}
+		assertEquals("Effect Layer Test Failed, wrong locked rows.", 0xF << 16, rows);
+
+		// Clears far more than the pools hold reuse them, nothing is added to the pane.
+		EffectLayer effects = new EffectLayer(10, 20, 0, 0, 20, 16);
+		int nodes = effects.getPane().getChildren().size();
+		for (int i = 0; i < 100; i++) {
+			effects.onLocked(game, i);
+			effects.onLinesCleared(game, i, 0);
+			effects.render(i, 0, 0);
+		}
+		assertEquals("Effect Layer Test Failed, nodes added.", nodes, effects.getPane().getChildren().size());
+		assertEquals("Effect Layer Test Failed, pools not full.", EffectLayer.MAX_SPARKS + EffectLayer.MAX_FLASHES, effects.getActive());
+		effects.render(100 + EffectLayer.SPARK_NANOS, 0, 0);
+		assertEquals("Effect Layer Test Failed, effects not over.", 0, effects.getActive());
+
+		// Off, nothing starts.
+		effects.setEnabled(false);
+		effects.onLinesCleared(game, 0, 0);
+		assertEquals("Effect Layer Test Failed, started while off.", 0, effects.getActive());
+	}
+
+	@Test
+	public void test_ReplayVerifier() throws IOException {
+		Replay replay = ReplayVerifyBenchmark.record(7, 3000, new Random(7));
+		File file = File.createTempFile("replay", ".rpl");
+		file.deleteOnExit();
+		replay.save(file);
+		Replay loaded = Replay.load(file);
+		assertTrue("Replay Test Failed, honest replay rejected.", ReplayVerifier.verify(loaded).isAccepted());
+
+		Replay inflated = replay.withScore(replay.getScore() + 1);
+		byte[] commands = replay.getCommands();
+		commands[0] = (byte) (commands[0] == Command.HOLD ? Command.NONE : Command.HOLD);
+		Replay changed = replay.withCommands(commands);
+		assertEquals("Replay Test Failed, inflated replay's commands changed.", replay.getCommand(0), inflated.getCommand(0));
+
+		ReplayVerifier.Result[] results = new ReplayVerifier(2).verifyAll(new Replay[] {replay, inflated, changed});
+		assertTrue("Replay Test Failed, honest replay rejected in batch.", results[0].isAccepted());
+		assertFalse("Replay Test Failed, inflated score accepted.", results[1].isAccepted());
+		assertFalse("Replay Test Failed, changed commands accepted.", results[2].isAccepted());
+		assertTrue("Replay Test Failed, divergence after the first placement.",
+				results[2].getDivergentTick() >= 1 && results[2].getDivergentTick() <= replay.getPlacementTick(0));
+
+		// A game played with its own levels (E.g. from a level file) is played again with them.
+		BoardConfig config = new BoardConfig(10, 20, 1000);
+		Game game = new Game(10, 20, null);
+		game.setLevelTable(new LevelTable(new int[] {LevelTable.ONE_CELL / 2, LevelTable.GRAVITY_20G}, new int[] {10, 5}, new int[] {4, 1}, 2));
+		Replay.Recorder recorder = new Replay.Recorder(game, config, 9);
+		Random random = new Random(9);
+		for (int i = 0; i < 3000 && game.getGameRunning(); i++) {
+			game.tick(random.nextInt(8) == 0 ? 1 + random.nextInt(Command.COUNT - 1) : Command.NONE);
+			recorder.poll();
+		}
+		recorder.toReplay().save(file);
+		assertTrue("Replay Test Failed, replay with its own levels rejected.", ReplayVerifier.verify(Replay.load(file)).isAccepted());
+		// But only the default levels (Or the level file's) count on the leaderboard.
+		assertFalse("Replay Test Failed, own levels ranked.", SaverLoader.isRankedLevels(Replay.load(file)));
+		assertTrue("Replay Test Failed, default levels not ranked.", SaverLoader.isRankedLevels(replay));
+	}
+
+	@Test
+	public void test_KeyframeReplaySeek() throws IOException {
+		Replay replay = ReplayVerifyBenchmark.record(11, 3000, new Random(11));
+		File file = File.createTempFile("replay", ".kfr");
+		file.deleteOnExit();
+		KeyframeReplay.write(replay, file, 500);
+
+		try (KeyframeReplay keyframes = KeyframeReplay.open(file)) {
+			assertEquals("Keyframe Test Failed, wrong tick count.", replay.getTicks(), keyframes.getTicks());
+			assertEquals("Keyframe Test Failed, wrong keyframe count.", replay.getTicks() / 500 + 1, keyframes.getKeyframeCount());
+			int[] targets = {0, 499, 500, replay.getTicks() / 2, replay.getTicks()};
+			for (int tick : targets) {
+				Game expected = Replay.createGame(replay.getConfig(), replay.getSeed());
+				for (int t = 0; t < tick; t++) {
+					expected.tick(replay.getCommand(t));
+				}
+				assertArrayEquals("Keyframe Test Failed, seek to " + tick + " differs from playing from the start.",
+						gameState(expected), gameState(keyframes.seek(tick)));
+			}
+			assertEquals("Keyframe Test Failed, wrong score at the end.", replay.getScore(), keyframes.seek(keyframes.getTicks()).getScore());
+		}
+	}
+
+	@Test
+	public void test_RollbackClient() throws IOException {
+		BoardConfig config = new BoardConfig(10, 40, 1000);
+		RollbackClient client = new RollbackClient(Replay.createGame(config, 5), RollbackClient.DEFAULT_WINDOW);
+		ServerSession server = new ServerSession(Replay.createGame(config, 5), Protocol.MAX_COMMANDS);
+		// Messages take 4 ticks either way and every 7th is lost, so the server plays inputs late.
+		ArrayDeque<byte[]> toServer = new ArrayDeque<>();
+		ArrayDeque<byte[]> toClient = new ArrayDeque<>();
+		ByteBuffer buffer = ByteBuffer.allocate(Protocol.MAX_DATAGRAM);
+		Random random = new Random(5);
+		int sent = 0;
+		for (int tick = 0; tick < 600 + 8; tick++) {
+			if (tick < 600) {
+				client.tick(random.nextInt(6) == 0 ? 1 + random.nextInt(Command.COUNT - 1) : Command.NONE);
+				server.tick();
+			}
+			client.writeUnconfirmedCommands(buffer);
+			toServer.add(++sent % 7 == 0 ? new byte[0] : copy(buffer));
+			server.writeConfirm(buffer);
+			toClient.add(++sent % 7 == 0 ? new byte[0] : copy(buffer));
+			if (toServer.size() > 4) {
+				ByteBuffer message = wrap(toServer.poll());
+				if (message != null) {
+					server.receive(message.getInt(), message.array(), 7, message.getShort());
+				}
+				message = wrap(toClient.poll());
+				if (message != null) {
+					client.confirm(message.getInt(), message.array(), 7, message.getShort());
+				}
+			}
+		}
+		client.reconcile();
+		assertTrue("Rollback Test Failed, never rolled back.", client.getRollbacks() > 0);
+		assertEquals("Rollback Test Failed, not every tick confirmed.", 600, client.getConfirmedUntil());
+		assertArrayEquals("Rollback Test Failed, client and server disagree.", gameState(server.getGame()), gameState(client.getGame()));
+
+		// How long that takes is timed by Game_Main.Debug.NetplayBenchmark.
+		for (int i = 0; i < 10; i++) {
+			client.tick(Command.NONE);
+		}
+		client.confirm(600, new byte[] {Command.ROTATE_CW}, 0, 1);
+		client.reconcile();
+		assertEquals("Rollback Test Failed, wrong rollback length.", 10, client.getMaxRollbackTicks());
+
+		// A game over is only predicted until every tick up to it is confirmed as played.
+		BoardConfig small = new BoardConfig(10, 6, 1000);
+		RollbackClient predicting = new RollbackClient(Replay.createGame(small, 3), 1000);
+		while (predicting.getGame().getGameRunning()) {
+			predicting.tick(Command.SOFT_DROP);
+		}
+		int over = predicting.getTick();
+		byte[] drops = new byte[over];
+		Arrays.fill(drops, (byte) Command.SOFT_DROP);
+		predicting.confirm(0, drops, 0, over - 1);
+		predicting.reconcile();
+		assertFalse("Rollback Test Failed, game over confirmed early.", predicting.isConfirmedOver());
+		predicting.confirm(over - 1, drops, over - 1, 1);
+		predicting.reconcile();
+		assertTrue("Rollback Test Failed, game over not confirmed.", predicting.isConfirmedOver());
+
+		// The server played the drops later, so the game carries on.
+		RollbackClient mispredicted = new RollbackClient(Replay.createGame(small, 3), 1000);
+		while (mispredicted.getGame().getGameRunning()) {
+			mispredicted.tick(Command.SOFT_DROP);
+		}
+		mispredicted.confirm(0, new byte[over], 0, over);
+		mispredicted.reconcile();
+		assertTrue("Rollback Test Failed, mispredicted game over not rolled back.", mispredicted.getGame().getGameRunning());
+		assertFalse("Rollback Test Failed, mispredicted game over confirmed.", mispredicted.isConfirmedOver());
+
+		// Confirmed differently further back than the window, the game can't agree with the server's any more.
+		RollbackClient desynced = new RollbackClient(Replay.createGame(small, 3), 4);
+		while (desynced.getGame().getGameRunning()) {
+			desynced.tick(Command.SOFT_DROP);
+		}
+		desynced.confirm(0, new byte[over], 0, over);
+		desynced.reconcile();
+		assertTrue("Rollback Test Failed, missed rollback not desynced.", desynced.isDesynced());
+		assertFalse("Rollback Test Failed, desynced game over confirmed.", desynced.isConfirmedOver());
+		desynced.tick(Command.NONE);
+		assertEquals("Rollback Test Failed, desynced game played on.", over, desynced.getTick());
+	}
+
+	@Test
+	public void test_NetClientWaitsForServer() throws IOException, InterruptedException {
+		BoardConfig config = new BoardConfig(10, 40, 1000);
+		RollbackClient client = new RollbackClient(Replay.createGame(config, 5), RollbackClient.DEFAULT_WINDOW);
+		try (DatagramChannel server = DatagramChannel.open().bind(new InetSocketAddress("localhost", 0));
+				NetClient net = new NetClient(client, config, 5, (InetSocketAddress) server.getLocalAddress())) {
+			ByteBuffer buffer = ByteBuffer.allocate(Protocol.MAX_DATAGRAM);
+			for (int i = 0; i < 5; i++) {
+				net.tick(Command.SOFT_DROP);
+			}
+			assertEquals("Net Client Test Failed, played before the server answered.", 0, client.getTick());
+
+			// The server answers the HELLO with an empty CONFIRM.
+			InetSocketAddress from = (InetSocketAddress) server.receive(buffer.clear());
+			assertEquals("Net Client Test Failed, no HELLO sent.", Protocol.HELLO, buffer.get(0));
+			Protocol.writeCommands(buffer, Protocol.CONFIRM, 0, new byte[1], 0);
+			server.send(buffer, from);
+			for (int i = 0; i < 100 && !net.isConnected(); i++) {
+				Thread.sleep(10);
+				net.poll();
+			}
+			net.tick(Command.SOFT_DROP);
+			assertEquals("Net Client Test Failed, didn't play once the server answered.", 1, client.getTick());
+		}
+	}
+
+	private static byte[] copy(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	// Skips the message type, leaving the first tick next. Lost messages are empty.
+	private static ByteBuffer wrap(byte[] message) {
+		return message.length == 0 ? null : ByteBuffer.wrap(message).position(1);
+	}
+
+	private byte[] gameState(Game game) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		game.writeState(new DataOutputStream(bytes));
+		return bytes.toByteArray();
+	}
+
+	private int countBlocks(Game game) {
+		int count = 0;
+		for (Block block : game.getArrayBlocks()) {
+			if (block != null) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private boolean rowHasBlock(Game game, int row) {
+		for (int col = 0; col < game.getGridWidth(); col++) {
+			if (game.getArrayBlocks()[col + row * game.getGridWidth()] != null) {
+				return true;
+			}
+		}
+		return false;
+	}
 }
\ No newline at end of file